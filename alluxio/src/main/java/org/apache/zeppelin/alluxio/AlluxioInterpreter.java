@@ -19,9 +19,10 @@
 package org.apache.zeppelin.alluxio;
 
 import java.io.IOException;
-import java.io.PrintStream;
 import java.io.ByteArrayOutputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.zeppelin.interpreter.Interpreter;
 import org.apache.zeppelin.interpreter.InterpreterContext;
@@ -29,6 +30,9 @@ import org.apache.zeppelin.interpreter.InterpreterPropertyBuilder;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
+import org.apache.zeppelin.interpreter.util.ThreadOutputMultiplexer;
+import org.apache.zeppelin.scheduler.Scheduler;
+import org.apache.zeppelin.scheduler.SchedulerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,10 +49,11 @@ public class AlluxioInterpreter extends Interpreter {
   protected static final String ALLUXIO_MASTER_HOSTNAME = "alluxio.master.hostname";
   protected static final String ALLUXIO_MASTER_PORT = "alluxio.master.port";
 
+  private static final int MAX_CONCURRENT_PARAGRAPHS = 10;
+
   private AlluxioShell fs;
 
-  private int totalCommands = 0;
-  private int completedCommands = 0;
+  private final Map<String, CommandProgress> progressMap = new ConcurrentHashMap<>();
 
   private final String alluxioMasterHostname;
   private final String alluxioMasterPort;
@@ -97,35 +102,46 @@ public class AlluxioInterpreter extends Interpreter {
   
   private InterpreterResult interpret(String[] commands, InterpreterContext context) {
     boolean isSuccess = true;
-    totalCommands = commands.length;
-    completedCommands = 0;
-    
+    final String paragraphId = context != null ? context.getParagraphId() : null;
+    final CommandProgress progress = new CommandProgress(commands.length);
+    if (paragraphId != null) {
+      progressMap.put(paragraphId, progress);
+    }
+
+    // Output of this thread goes to the paragraph output when there is one, so commands are
+    // streamed while they run
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    PrintStream ps = new PrintStream(baos);
-    PrintStream old = System.out;
-    
-    System.setOut(ps);
-    
-    for (String command : commands) {
-      int commandResult = 1;
-      String[] args = splitAndRemoveEmpty(command, " ");
-      if (args.length > 0 && args[0].equals("help")) {
-        System.out.println(getCommandList());
-      } else {
-        commandResult = fs.run(args);
+    ThreadOutputMultiplexer.Redirection redirection = ThreadOutputMultiplexer.stdout().redirect(
+        context != null && context.out != null ? context.out : baos);
+
+    try {
+      for (String command : commands) {
+        int commandResult = 1;
+        String[] args = splitAndRemoveEmpty(command, " ");
+        if (args.length > 0 && args[0].equals("help")) {
+          System.out.println(getCommandList());
+        } else {
+          commandResult = fs.run(args);
+        }
+        if (commandResult != 0) {
+          isSuccess = false;
+          break;
+        } else {
+          progress.completed.incrementAndGet();
+        }
+        System.out.println();
+      }
+    } finally {
+      try {
+        redirection.close();
+      } catch (IOException e) {
+        logger.error("Cannot flush output", e);
       }
-      if (commandResult != 0) {
-        isSuccess = false;
-        break;
-      } else {
-        completedCommands += 1;
+      if (paragraphId != null) {
+        progressMap.remove(paragraphId);
       }
-      System.out.println();
     }
 
-    System.out.flush();
-    System.setOut(old);
-    
     if (isSuccess) {
       return new InterpreterResult(Code.SUCCESS, baos.toString());
     } else {
@@ -162,7 +178,17 @@ public class AlluxioInterpreter extends Interpreter {
 
   @Override
   public int getProgress(InterpreterContext context) {
-    return completedCommands * 100 / totalCommands;
+    CommandProgress progress = progressMap.get(context.getParagraphId());
+    if (progress == null || progress.total == 0) {
+      return 0;
+    }
+    return progress.completed.get() * 100 / progress.total;
+  }
+
+  @Override
+  public Scheduler getScheduler() {
+    return SchedulerFactory.singleton().createOrGetParallelScheduler(
+        AlluxioInterpreter.class.getName() + this.hashCode(), MAX_CONCURRENT_PARAGRAPHS);
   }
 
   @Override
@@ -244,4 +270,16 @@ public class AlluxioInterpreter extends Interpreter {
             "all files contained and any new files created within this directory.");
     return sb.toString();
   }
+
+  /**
+   * Progress of the commands of a paragraph
+   */
+  private static class CommandProgress {
+    private final int total;
+    private final AtomicInteger completed = new AtomicInteger();
+
+    CommandProgress(int total) {
+      this.total = total;
+    }
+  }
 }
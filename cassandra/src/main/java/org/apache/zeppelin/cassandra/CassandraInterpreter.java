@@ -95,6 +95,10 @@ public class CassandraInterpreter extends Interpreter {
           "cassandra.query.default.fetchSize";
   public static final String CASSANDRA_QUERY_DEFAULT_IDEMPOTENCE =
           "cassandra.query.default.idempotence";
+  public static final String CASSANDRA_QUERY_MAX_DISPLAY_ROWS =
+          "cassandra.query.max.display.rows";
+  public static final String CASSANDRA_QUERY_CONCURRENT_STATEMENTS =
+          "cassandra.query.concurrent.statements";
   public static final String CASSANDRA_SOCKET_CONNECTION_TIMEOUT_MILLIS =
           "cassandra.socket.connection.timeout.millisecs";
   public static final String CASSANDRA_SOCKET_KEEP_ALIVE =
@@ -142,6 +146,8 @@ public class CassandraInterpreter extends Interpreter {
   public static final String DEFAULT_CONSISTENCY = "ONE";
   public static final String DEFAULT_SERIAL_CONSISTENCY = "SERIAL";
   public static final String DEFAULT_FETCH_SIZE = "5000";
+  public static final String DEFAULT_MAX_DISPLAY_ROWS = "1000";
+  public static final String DEFAULT_CONCURRENT_STATEMENTS = "1";
   public static final String DEFAULT_CONNECTION_TIMEOUT = "5000";
   public static final String DEFAULT_READ_TIMEOUT = "12000";
   public static final String DEFAULT_TCP_NO_DELAY = "true";
@@ -228,7 +234,15 @@ public class CassandraInterpreter extends Interpreter {
 
     cluster = clusterBuilder.build();
     session = cluster.connect();
-    helper = new InterpreterLogic(session);
+    helper = new InterpreterLogic(session,
+            parseInt(getProperty(CASSANDRA_QUERY_MAX_DISPLAY_ROWS, DEFAULT_MAX_DISPLAY_ROWS)),
+            parseInt(getProperty(CASSANDRA_QUERY_CONCURRENT_STATEMENTS,
+                    DEFAULT_CONCURRENT_STATEMENTS)));
+  }
+
+  private String getProperty(String key, String defaultValue) {
+    String value = getProperty(key);
+    return value == null ? defaultValue : value;
   }
 
   @Override
@@ -197,8 +197,10 @@ class EnhancedSession(val session: Session) {
       case x:DescribeMaterializedViewCmd => execute(x)
       case x:DescribeMaterializedViewsCmd => execute(x)
       case x:HelpCmd => execute(x)
-      case x:Statement => session.execute(x)
+      case x:Statement => session.executeAsync(x).getUninterruptibly
       case _ => throw new InterpreterException(s"Cannot execute statement '$st' of type ${st.getClass}")
     }
   }
+
+  def executeAsync(st: Statement): ResultSetFuture = session.executeAsync(st)
 }
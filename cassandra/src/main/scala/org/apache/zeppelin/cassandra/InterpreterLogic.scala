@@ -32,7 +32,7 @@ import org.apache.zeppelin.cassandra.TextBlockHierarchy._
 import org.apache.zeppelin.display.AngularObjectRegistry
 import org.apache.zeppelin.display.Input.ParamOption
 import org.apache.zeppelin.interpreter.InterpreterResult.Code
-import org.apache.zeppelin.interpreter.{InterpreterException, InterpreterResult, InterpreterContext}
+import org.apache.zeppelin.interpreter.{InterpreterException, InterpreterOutput, InterpreterResult, InterpreterContext}
 import org.slf4j.LoggerFactory
 import scala.collection.JavaConversions._
 import scala.collection.JavaConverters._
@@ -83,6 +83,9 @@ object InterpreterLogic {
 
   val paragraphParser = new ParagraphParser
   val boundValuesParser = new BoundValuesParser
+
+  val DEFAULT_MAX_DISPLAY_ROWS = 1000
+  val DEFAULT_CONCURRENT_STATEMENTS = 1
   
 }
 
@@ -92,8 +95,13 @@ object InterpreterLogic {
  * and parameters blocks
  *
  * @param session java driver session
+ * @param maxDisplayRows max number of rows fetched and displayed for the last statement
+ * @param maxConcurrentStatements max number of consecutive SELECT statements executed at the same time
  */
-class InterpreterLogic(val session: Session)  {
+class InterpreterLogic(val session: Session, val maxDisplayRows: Int, val maxConcurrentStatements: Int)  {
+
+  def this(session: Session) = this(session, InterpreterLogic.DEFAULT_MAX_DISPLAY_ROWS,
+    InterpreterLogic.DEFAULT_CONCURRENT_STATEMENTS)
 
   val enhancedSession: EnhancedSession = new EnhancedSession(session)
 
@@ -152,11 +160,11 @@ class InterpreterLogic(val session: Session)  {
           case x => throw new InterpreterException(s"Unknown statement type : ${x}")
        }
 
-      val results: List[(Any,Any)] = for (statement <- statements) yield (enhancedSession.execute(statement),statement)
+      val results: List[(Any,Any)] = executeStatements(statements)
 
       if (results.nonEmpty) {
         results.last match {
-          case(res: ResultSet, st: Statement) => buildResponseMessage((res, st), protocolVersion)
+          case(res: ResultSet, st: Statement) => buildResponseMessage((res, st), protocolVersion, context)
           case(output: String, _) => new InterpreterResult(Code.SUCCESS, output)
           case _ => throw new InterpreterException(s"Cannot parse result type : ${results.last}")
         }
@@ -185,48 +193,132 @@ class InterpreterLogic(val session: Session)  {
     }
   }
 
-  def buildResponseMessage(lastResultSet: (ResultSet,Statement), protocolVersion: ProtocolVersion): InterpreterResult = {
-    val output = new StringBuilder()
-    val rows: collection.mutable.ArrayBuffer[Row] = ArrayBuffer()
+  /**
+   * Execute statements in order. Consecutive SELECT statements are sent asynchronously,
+   * up to maxConcurrentStatements at a time, any other statement waits for all previous ones.
+   * Results keep the order of statements and the first failure is thrown.
+   */
+  def executeStatements(statements: List[Any]): List[(Any,Any)] = {
+    val results = ArrayBuffer[(Any,Any)]()
+    val inFlight = mutable.Queue[(ResultSetFuture,Statement)]()
+
+    def awaitOldest(): Unit = {
+      val (future, statement) = inFlight.dequeue()
+      results.append((future.getUninterruptibly, statement))
+    }
+
+    try {
+      for (statement <- statements) {
+        statement match {
+          case st: Statement if maxConcurrentStatements > 1 && isReadOnly(st) => {
+            if (inFlight.size >= maxConcurrentStatements) awaitOldest()
+            inFlight.enqueue((enhancedSession.executeAsync(st), st))
+          }
+          case _ => {
+            while (inFlight.nonEmpty) awaitOldest()
+            results.append((enhancedSession.execute(statement), statement))
+          }
+        }
+      }
+      while (inFlight.nonEmpty) awaitOldest()
+    } finally {
+      inFlight.foreach { case (future, _) => future.cancel(true) }
+    }
+    results.toList
+  }
 
-    val iterator: util.Iterator[Row] = lastResultSet._1.iterator()
-    while (iterator.hasNext) {
-      rows.append(iterator.next())
+  private def isReadOnly(statement: Statement): Boolean = {
+    val query: String = statement match {
+      case st: RegularStatement => st.getQueryString
+      case st: BoundStatement => st.preparedStatement.getQueryString
+      case _ => ""
     }
+    query.trim.toLowerCase.startsWith("select")
+  }
 
-    val columnsDefinitions: List[(String, DataType)] = lastResultSet._1
+  def buildResponseMessage(lastResultSet: (ResultSet,Statement), protocolVersion: ProtocolVersion): InterpreterResult = {
+    buildResponseMessage(lastResultSet, protocolVersion, null)
+  }
+
+  /**
+   * Render at most maxDisplayRows rows of the result set, page by page.
+   *
+   * Next page is requested asynchronously while the current one is rendered, and paging stops
+   * as soon as the row limit is reached instead of pulling the whole table into memory.
+   * When the result spans several pages, rendered pages are streamed to the paragraph output.
+   */
+  def buildResponseMessage(lastResultSet: (ResultSet,Statement), protocolVersion: ProtocolVersion,
+                           context: InterpreterContext): InterpreterResult = {
+    val output = new StringBuilder()
+    val resultSet: ResultSet = lastResultSet._1
+
+    val columnsDefinitions: List[(String, DataType)] = resultSet
       .getColumnDefinitions
       .asList
       .toList // Java list -> Scala list
       .map(definition => (definition.getName, definition.getType))
 
+    if (resultSet.isExhausted) {
+      val lastQuery: String = lastResultSet._2.toString
+      val executionInfo: ExecutionInfo = resultSet.getExecutionInfo
+      output.append(enhancedSession.displayExecutionStatistics(lastQuery, executionInfo))
+      val result: String = output.toString()
+      logger.debug(s"CQL result : \n\n$result\n")
+      return new InterpreterResult(Code.SUCCESS, result)
+    }
+
+    val out: Option[InterpreterOutput] = Option(context).flatMap(ctx => Option(ctx.out))
+    var streaming = false
+    var displayedRows = 0
 
-    if (rows.nonEmpty) {
-      // Create table headers
-      output
-        .append("%table ")
-        .append(columnsDefinitions.map { case (columnName, _) => columnName }.mkString("\t")).append("\n")
+    // Create table headers
+    output
+      .append("%table ")
+      .append(columnsDefinitions.map { case (columnName, _) => columnName }.mkString("\t")).append("\n")
+
+    while (displayedRows < maxDisplayRows && !resultSet.isExhausted) {
+      val available = resultSet.getAvailableWithoutFetching
+      if (!resultSet.isFullyFetched && displayedRows + available < maxDisplayRows) {
+        // pre-fetch next page while rendering this one
+        resultSet.fetchMoreResults()
+      }
 
       // Deserialize Data
-      rows.foreach {
-        row => {
-          val data = columnsDefinitions.map {
-            case (name, dataType) => {
-              if (row.isNull(name)) null else row.getObject(name)
-            }
+      val pageRows = math.min(available, maxDisplayRows - displayedRows)
+      for (_ <- 0 until pageRows) {
+        val row = resultSet.one()
+        val data = columnsDefinitions.map {
+          case (name, dataType) => {
+            if (row.isNull(name)) null else row.getObject(name)
           }
-          output.append(data.mkString("\t")).append("\n")
         }
+        output.append(data.mkString("\t")).append("\n")
+      }
+      displayedRows += pageRows
+
+      if (out.isDefined && displayedRows < maxDisplayRows && !resultSet.isExhausted) {
+        out.get.write(output.toString())
+        out.get.flush()
+        output.setLength(0)
+        streaming = true
       }
-    } else {
-      val lastQuery: String = lastResultSet._2.toString
-      val executionInfo: ExecutionInfo = lastResultSet._1.getExecutionInfo
-      output.append(enhancedSession.displayExecutionStatistics(lastQuery, executionInfo))
+    }
+
+    if (displayedRows >= maxDisplayRows &&
+      (resultSet.getAvailableWithoutFetching > 0 || !resultSet.isFullyFetched)) {
+      // a blank line ends the table
+      output.append(s"\n%html <font color=red>Results are limited by $maxDisplayRows rows.</font>\n")
     }
 
     val result: String = output.toString()
     logger.debug(s"CQL result : \n\n$result\n")
-    new InterpreterResult(Code.SUCCESS, result)
+    if (streaming) {
+      out.get.write(result)
+      out.get.flush()
+      new InterpreterResult(Code.SUCCESS)
+    } else {
+      new InterpreterResult(Code.SUCCESS, result)
+    }
   }
 
   def parseInput(input:String): List[AnyBlock] = {
@@ -27,7 +27,12 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ColumnDefinitions;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.SimpleStatement;
 import com.datastax.driver.core.Statement;
@@ -37,6 +42,7 @@ import org.apache.zeppelin.display.GUI;
 import org.apache.zeppelin.display.Input.ParamOption;
 import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterException;
+import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -338,6 +344,37 @@ public class InterpreterLogicTest {
         assertThat(calendar.get(Calendar.MILLISECOND)).isEqualTo(123);
     }
 
+    @Test
+    public void should_stop_paging_at_max_display_rows() throws Exception {
+        //Given
+        final InterpreterLogic cappedHelper = new InterpreterLogic(session, 3, 1);
+        final ColumnDefinitions.Definition definition = mock(ColumnDefinitions.Definition.class);
+        when(definition.getName()).thenReturn("id");
+        when(definition.getType()).thenReturn(DataType.cint());
+        final Row row = mock(Row.class);
+        when(row.getObject("id")).thenReturn(1);
+        final ResultSet resultSet = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(resultSet.getColumnDefinitions().asList()).thenReturn(asList(definition));
+        // pages of 2 rows in a table bigger than the limit
+        when(resultSet.isExhausted()).thenReturn(false);
+        when(resultSet.isFullyFetched()).thenReturn(false);
+        when(resultSet.getAvailableWithoutFetching()).thenReturn(2);
+        when(resultSet.one()).thenReturn(row);
+
+        //When
+        final InterpreterResult actual = cappedHelper.buildResponseMessage(
+                new scala.Tuple2<ResultSet, Statement>(resultSet, new SimpleStatement("SELECT * FROM users")),
+                ProtocolVersion.V3, null);
+
+        //Then
+        verify(resultSet, times(3)).one();
+        verify(resultSet, times(1)).fetchMoreResults();
+        assertThat(actual.message()).hasSize(2);
+        assertThat(actual.message().get(0).getType()).isEqualTo(InterpreterResult.Type.TABLE);
+        assertThat(actual.message().get(0).getData()).isEqualTo("id\n1\n1\n1\n");
+        assertThat(actual.message().get(1).getData()).contains("Results are limited by 3 rows.");
+    }
+
     private <A> scala.collection.immutable.List<A> toScalaList(java.util.List<A> list)  {
         return scala.collection.JavaConversions.collectionAsScalaIterable(list).toList();
     }
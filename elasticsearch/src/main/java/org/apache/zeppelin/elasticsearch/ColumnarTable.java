@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.wnameless.json.flattener.JsonFlattener;
+
+/**
+ * Table built from flattened JSON documents (hits or aggregation buckets).
+ *
+ * Every document is flattened once and its values are stored in a row array indexed by
+ * column, columns being shared by all rows. Column names are resolved once per distinct
+ * flattened key, so documents of the same shape don't create a map per document.
+ */
+class ColumnarTable {
+  // Keys that match a format like that : [\"keyname\"][0]
+  private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("\\[\\\\\"(.+)\\\\\"\\](.*)");
+
+  private final boolean sortColumns;
+  private final String missingValue;
+  private final Map<String, Integer> rawKeyToColumn = new HashMap<>();
+  private final Map<String, Integer> columnIndex = new HashMap<>();
+  private final List<String> columns = new ArrayList<>();
+  private final List<Object[]> rows = new ArrayList<>();
+
+  private ColumnarTable(boolean sortColumns, String missingValue) {
+    this.sortColumns = sortColumns;
+    this.missingValue = missingValue;
+  }
+
+  /**
+   * Table of search hits, columns sorted by name, missing values left empty.
+   */
+  static ColumnarTable forHits() {
+    return new ColumnarTable(true, "");
+  }
+
+  /**
+   * Table of aggregation buckets, columns in order of appearance.
+   */
+  static ColumnarTable forBuckets() {
+    return new ColumnarTable(false, "null");
+  }
+
+  void addJson(String json) {
+    addRow(JsonFlattener.flattenAsMap(json));
+  }
+
+  void addRow(Map<String, Object> flattened) {
+    Object[] row = new Object[columns.size() + flattened.size()];
+    int width = 0;
+    for (Map.Entry<String, Object> entry : flattened.entrySet()) {
+      int column = columnOf(entry.getKey());
+      if (column >= row.length) {
+        row = Arrays.copyOf(row, column + 1);
+      }
+      row[column] = entry.getValue();
+      width = Math.max(width, column + 1);
+    }
+    rows.add(width == row.length ? row : Arrays.copyOf(row, width));
+  }
+
+  private int columnOf(String rawKey) {
+    Integer column = rawKeyToColumn.get(rawKey);
+    if (column == null) {
+      String name = rawKey;
+      final Matcher fieldNameMatcher = FIELD_NAME_PATTERN.matcher(rawKey);
+      if (fieldNameMatcher.matches()) {
+        name = fieldNameMatcher.group(1) + fieldNameMatcher.group(2);
+      }
+      column = columnIndex.get(name);
+      if (column == null) {
+        column = columns.size();
+        columns.add(name);
+        columnIndex.put(name, column);
+      }
+      rawKeyToColumn.put(rawKey, column);
+    }
+    return column;
+  }
+
+  int numRows() {
+    return rows.size();
+  }
+
+  List<String> columns() {
+    final List<String> ordered = new ArrayList<>(columns);
+    if (sortColumns) {
+      Collections.sort(ordered);
+    }
+    return ordered;
+  }
+
+  /**
+   * @return tab-separated table, header first, one line per row
+   */
+  String toTsv() {
+    if (columns.isEmpty()) {
+      return "";
+    }
+
+    final List<String> names = columns();
+    final int[] order = new int[names.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = columnIndex.get(names.get(i));
+    }
+
+    final StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < names.size(); i++) {
+      if (i > 0) {
+        buffer.append('\t');
+      }
+      buffer.append(names.get(i));
+    }
+    buffer.append('\n');
+
+    for (final Object[] row : rows) {
+      for (int i = 0; i < order.length; i++) {
+        if (i > 0) {
+          buffer.append('\t');
+        }
+        final Object val = order[i] < row.length ? row[order[i]] : null;
+        buffer.append(val == null ? missingValue : val);
+      }
+      buffer.append('\n');
+    }
+    return buffer.toString();
+  }
+}
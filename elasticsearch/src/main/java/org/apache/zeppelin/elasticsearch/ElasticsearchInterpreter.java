@@ -20,17 +20,8 @@ package org.apache.zeppelin.elasticsearch;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.zeppelin.elasticsearch.action.ActionResponse;
@@ -55,7 +46,6 @@ import org.elasticsearch.search.aggregations.metrics.InternalMetricsAggregation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.wnameless.json.flattener.JsonFlattener;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
@@ -89,20 +79,20 @@ public class ElasticsearchInterpreter extends Interpreter {
   protected static final List<String> COMMANDS = Arrays.asList(
       "count", "delete", "get", "help", "index", "search");
 
-  private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("\\[\\\\\"(.+)\\\\\"\\](.*)");
-
 
   public static final String ELASTICSEARCH_HOST = "elasticsearch.host";
   public static final String ELASTICSEARCH_PORT = "elasticsearch.port";
   public static final String ELASTICSEARCH_CLIENT_TYPE = "elasticsearch.client.type";
   public static final String ELASTICSEARCH_CLUSTER_NAME = "elasticsearch.cluster.name";
   public static final String ELASTICSEARCH_RESULT_SIZE = "elasticsearch.result.size";
+  public static final String ELASTICSEARCH_SCROLL_SIZE = "elasticsearch.scroll.size";
   public static final String ELASTICSEARCH_BASIC_AUTH_USERNAME = "elasticsearch.basicauth.username";
   public static final String ELASTICSEARCH_BASIC_AUTH_PASSWORD = "elasticsearch.basicauth.password";
 
   private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
   private ElasticsearchClient elsClient;
   private int resultSize = 10;
+  private int scrollSize = 10000;
 
   public ElasticsearchInterpreter(Properties property) {
     super(property);
@@ -125,6 +115,17 @@ public class ElasticsearchInterpreter extends Interpreter {
           property.get(ELASTICSEARCH_RESULT_SIZE), e);
     }
 
+    final String scrollSizeProperty = getProperty(ELASTICSEARCH_SCROLL_SIZE);
+    if (StringUtils.isNotEmpty(scrollSizeProperty)) {
+      try {
+        this.scrollSize = Integer.parseInt(scrollSizeProperty);
+      }
+      catch (final NumberFormatException e) {
+        logger.error("Unable to parse " + ELASTICSEARCH_SCROLL_SIZE + " : " +
+            scrollSizeProperty, e);
+      }
+    }
+
     try {
       if (StringUtils.isEmpty(clientType) || "transport".equals(clientType)) {
         elsClient = new TransportBasedClient(getProperty());
@@ -363,6 +364,10 @@ public class ElasticsearchInterpreter extends Interpreter {
           "Bad URL (it should be /index1,index2,.../type1,type2,...)");
     }
 
+    if (scrollSize > 0 && size > scrollSize) {
+      return processScrollSearch(urlItems, data, size, interpreterContext);
+    }
+
     final ActionResponse response = searchData(urlItems, data, size);
 
     addAngularObject(interpreterContext, "search",
@@ -372,6 +377,37 @@ public class ElasticsearchInterpreter extends Interpreter {
     return buildResponseMessage(response);
   }
 
+  /**
+   * Processes a "search" request whose size exceeds the scroll size: hits are fetched page by
+   * page and added to the result table, so they are never all kept as documents at once.
+   * As a consequence, the angular object only gets the aggregations (if any).
+   */
+  private InterpreterResult processScrollSearch(String[] urlItems, String data, int size,
+      InterpreterContext interpreterContext) {
+
+    final ColumnarTable table = ColumnarTable.forHits();
+    final ActionResponse response = elsClient.scroll(getIndices(urlItems), getTypes(urlItems),
+        data, size, scrollSize, new ElasticsearchClient.HitsConsumer() {
+          @Override
+          public void accept(List<HitWrapper> hits) {
+            for (final HitWrapper hit : hits) {
+              table.addJson(hit.getSourceAsString());
+            }
+          }
+        });
+
+    final List<AggWrapper> aggregations = response.getAggregations();
+    if (aggregations != null && aggregations.size() > 0) {
+      addAngularObject(interpreterContext, "search", aggregations);
+      return buildAggResponseMessage(aggregations);
+    }
+
+    return new InterpreterResult(
+        InterpreterResult.Code.SUCCESS,
+        InterpreterResult.Type.TABLE,
+        table.toTsv());
+  }
+
   /**
    * Processes a "index" request.
    *
@@ -423,19 +459,16 @@ public class ElasticsearchInterpreter extends Interpreter {
     return new InterpreterResult(InterpreterResult.Code.ERROR, "Document not found");
   }
 
-  private ActionResponse searchData(String[] urlItems, String query, int size) {
-
-    String[] indices = null;
-    String[] types = null;
+  private String[] getIndices(String[] urlItems) {
+    return urlItems.length >= 1 ? StringUtils.split(urlItems[0], ",") : null;
+  }
 
-    if (urlItems.length >= 1) {
-      indices = StringUtils.split(urlItems[0], ",");
-    }
-    if (urlItems.length > 1) {
-      types = StringUtils.split(urlItems[1], ",");
-    }
+  private String[] getTypes(String[] urlItems) {
+    return urlItems.length > 1 ? StringUtils.split(urlItems[1], ",") : null;
+  }
 
-    return elsClient.search(indices, types, query, size);
+  private ActionResponse searchData(String[] urlItems, String query, int size) {
+    return elsClient.search(getIndices(urlItems), getTypes(urlItems), query, size);
   }
 
   private InterpreterResult buildAggResponseMessage(Aggregations aggregations) {
@@ -453,41 +486,22 @@ public class ElasticsearchInterpreter extends Interpreter {
       resMsg = XContentHelper.toString((InternalSingleBucketAggregation) agg).toString();
     }
     else if (agg instanceof InternalMultiBucketAggregation) {
-      final Set<String> headerKeys = new HashSet<>();
-      final List<Map<String, Object>> buckets = new LinkedList<>();
+      final ColumnarTable table = ColumnarTable.forBuckets();
       final InternalMultiBucketAggregation multiBucketAgg = (InternalMultiBucketAggregation) agg;
 
       for (final MultiBucketsAggregation.Bucket bucket : multiBucketAgg.getBuckets()) {
         try {
           final XContentBuilder builder = XContentFactory.jsonBuilder();
           bucket.toXContent(builder, null);
-          final Map<String, Object> bucketMap = JsonFlattener.flattenAsMap(builder.string());
-          headerKeys.addAll(bucketMap.keySet());
-          buckets.add(bucketMap);
+          table.addJson(builder.string());
         }
         catch (final IOException e) {
           logger.error("Processing bucket: " + e.getMessage(), e);
         }
       }
 
-      final StringBuffer buffer = new StringBuffer();
-      final String[] keys = headerKeys.toArray(new String[0]);
-      for (final String key: keys) {
-        buffer.append("\t" + key);
-      }
-      buffer.deleteCharAt(0);
-
-      for (final Map<String, Object> bucket : buckets) {
-        buffer.append("\n");
-
-        for (final String key: keys) {
-          buffer.append(bucket.get(key)).append("\t");
-        }
-        buffer.deleteCharAt(buffer.length() - 1);
-      }
-
       resType = InterpreterResult.Type.TABLE;
-      resMsg = buffer.toString();
+      resMsg = table.toTsv();
     }
 
     return new InterpreterResult(InterpreterResult.Code.SUCCESS, resType, resMsg);
@@ -495,37 +509,15 @@ public class ElasticsearchInterpreter extends Interpreter {
 
   private InterpreterResult buildAggResponseMessage(List<AggWrapper> aggregations) {
 
-    final InterpreterResult.Type resType = InterpreterResult.Type.TABLE;
-    String resMsg = "";
-
-    final Set<String> headerKeys = new HashSet<>();
-    final List<Map<String, Object>> buckets = new LinkedList<>();
-
+    final ColumnarTable table = ColumnarTable.forBuckets();
     for (final AggWrapper aggregation: aggregations) {
-      final Map<String, Object> bucketMap = JsonFlattener.flattenAsMap(aggregation.getResult());
-      headerKeys.addAll(bucketMap.keySet());
-      buckets.add(bucketMap);
+      table.addJson(aggregation.getResult());
     }
 
-    final StringBuffer buffer = new StringBuffer();
-    final String[] keys = headerKeys.toArray(new String[0]);
-    for (final String key: keys) {
-      buffer.append("\t" + key);
-    }
-    buffer.deleteCharAt(0);
-
-    for (final Map<String, Object> bucket : buckets) {
-      buffer.append("\n");
-
-      for (final String key: keys) {
-        buffer.append(bucket.get(key)).append("\t");
-      }
-      buffer.deleteCharAt(buffer.length() - 1);
-    }
-
-    resMsg = buffer.toString();
-
-    return new InterpreterResult(InterpreterResult.Code.SUCCESS, resType, resMsg);
+    return new InterpreterResult(
+        InterpreterResult.Code.SUCCESS,
+        InterpreterResult.Type.TABLE,
+        table.toTsv());
   }
 
   private String buildSearchHitsResponseMessage(ActionResponse response) {
@@ -534,57 +526,11 @@ public class ElasticsearchInterpreter extends Interpreter {
       return "";
     }
 
-    //First : get all the keys in order to build an ordered list of the values for each hit
-    //
-    final List<Map<String, Object>> flattenHits = new LinkedList<>();
-    final Set<String> keys = new TreeSet<>();
+    final ColumnarTable table = ColumnarTable.forHits();
     for (final HitWrapper hit : response.getHits()) {
-
-      final String json = hit.getSourceAsString();
-
-      final Map<String, Object> flattenJsonMap = JsonFlattener.flattenAsMap(json);
-      final Map<String, Object> flattenMap = new HashMap<>();
-      for (final Iterator<String> iter = flattenJsonMap.keySet().iterator(); iter.hasNext(); ) {
-        // Replace keys that match a format like that : [\"keyname\"][0]
-        final String fieldName = iter.next();
-        final Matcher fieldNameMatcher = FIELD_NAME_PATTERN.matcher(fieldName);
-        if (fieldNameMatcher.matches()) {
-          flattenMap.put(fieldNameMatcher.group(1) + fieldNameMatcher.group(2),
-              flattenJsonMap.get(fieldName));
-        }
-        else {
-          flattenMap.put(fieldName, flattenJsonMap.get(fieldName));
-        }
-      }
-      flattenHits.add(flattenMap);
-
-      for (final String key : flattenMap.keySet()) {
-        keys.add(key);
-      }
-    }
-
-    // Next : build the header of the table
-    //
-    final StringBuffer buffer = new StringBuffer();
-    for (final String key : keys) {
-      buffer.append(key).append('\t');
-    }
-    buffer.replace(buffer.lastIndexOf("\t"), buffer.lastIndexOf("\t") + 1, "\n");
-
-    // Finally : build the result by using the key set
-    //
-    for (final Map<String, Object> hit : flattenHits) {
-      for (final String key : keys) {
-        final Object val = hit.get(key);
-        if (val != null) {
-          buffer.append(val);
-        }
-        buffer.append('\t');
-      }
-      buffer.replace(buffer.lastIndexOf("\t"), buffer.lastIndexOf("\t") + 1, "\n");
+      table.addJson(hit.getSourceAsString());
     }
-
-    return buffer.toString();
+    return table.toTsv();
   }
 
   private InterpreterResult buildResponseMessage(ActionResponse response) {
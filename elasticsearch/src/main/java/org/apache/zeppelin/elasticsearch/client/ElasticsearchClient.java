@@ -17,7 +17,10 @@
 
 package org.apache.zeppelin.elasticsearch.client;
 
+import java.util.List;
+
 import org.apache.zeppelin.elasticsearch.action.ActionResponse;
+import org.apache.zeppelin.elasticsearch.action.HitWrapper;
 
 /**
  * Interface that must be implemented by any kind of Elasticsearch client (transport, ...).
@@ -32,5 +35,22 @@ public interface ElasticsearchClient {
 
   ActionResponse search(String[] indices, String[] types, String query, int size);
 
+  /**
+   * Searches using a scroll, hits are handed over page by page to the consumer and are not
+   * kept in the response (it only contains the total hits and the aggregations).
+   *
+   * @param size Maximum number of hits to consume
+   * @param pageSize Number of hits fetched per request
+   */
+  ActionResponse scroll(String[] indices, String[] types, String query, int size, int pageSize,
+      HitsConsumer consumer);
+
+  /**
+   * Receives the hits of a scroll, one page at a time.
+   */
+  interface HitsConsumer {
+    void accept(List<HitWrapper> hits);
+  }
+
   void close();
 }
@@ -19,7 +19,9 @@ package org.apache.zeppelin.elasticsearch.client;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -49,6 +51,8 @@ import com.mashape.unirest.request.HttpRequestWithBody;
  */
 public class HttpBasedClient implements ElasticsearchClient {
 
+  private static final String SCROLL_KEEP_ALIVE = "1m";
+
   private static final String QUERY_STRING_TEMPLATE =
       "{ \"query\": { \"query_string\": { \"query\": \"_Q_\", \"analyze_wildcard\": \"true\" } } }";
 
@@ -266,10 +270,7 @@ public class HttpBasedClient implements ElasticsearchClient {
     return response;
   }
 
-  @Override
-  public ActionResponse search(String[] indices, String[] types, String query, int size) {
-    ActionResponse response = null;
-
+  private String prepareQuery(String query) {
     if (!StringUtils.isEmpty(query)) {
       // The query can be either JSON-formatted, nor a Lucene query
       // So, try to parse as a JSON => if there is an error, consider the query a Lucene one
@@ -281,80 +282,178 @@ public class HttpBasedClient implements ElasticsearchClient {
         query = QUERY_STRING_TEMPLATE.replace("_Q_", query);
       }
     }
+    return query;
+  }
 
-    try {
-      final HttpRequestWithBody request = Unirest
-          .post(getUrl(indices, types) + "/_search?size=" + size)
-          .header("Content-Type", "application/json");
+  private HttpResponse<JsonNode> postSearch(String url, String body) throws UnirestException {
+    final HttpRequestWithBody request = Unirest
+        .post(url)
+        .header("Content-Type", "application/json");
 
-      if (StringUtils.isNoneEmpty(query)) {
-        request.header("Accept", "application/json").body(query);
-      }
+    if (StringUtils.isNoneEmpty(body)) {
+      request.header("Accept", "application/json").body(body);
+    }
 
-      if (StringUtils.isNotEmpty(username)) {
-        request.basicAuth(username, password);
+    if (StringUtils.isNotEmpty(username)) {
+      request.basicAuth(username, password);
+    }
+
+    final HttpResponse<JsonNode> result = request.asJson();
+    if (!isSucceeded(result)) {
+      final JSONObject error = result.getBody() != null ? result.getBody().getObject() : null;
+      throw new ActionException(error != null && error.has("error") ?
+          error.get("error").toString() : "Search failed with status " + result.getStatus());
+    }
+    return result;
+  }
+
+  private void addAggregations(JSONObject body, ActionResponse response) {
+    JSONObject aggregationsMap = body.optJSONObject("aggregations");
+    if (aggregationsMap == null) {
+      aggregationsMap = body.getJSONObject("aggs");
+    }
+
+    for (final String key: aggregationsMap.keySet()) {
+      final JSONObject aggResult = aggregationsMap.getJSONObject(key);
+      if (aggResult.has("buckets")) {
+        // Multi-bucket aggregations
+        final Iterator<Object> buckets = aggResult.getJSONArray("buckets").iterator();
+        while (buckets.hasNext()) {
+          response.addAggregation(
+              new AggWrapper(AggregationType.MULTI_BUCKETS, buckets.next().toString()));
+        }
       }
+      else {
+        response.addAggregation(
+            new AggWrapper(AggregationType.SIMPLE, aggregationsMap.toString()));
+      }
+      break; // Keep only one aggregation
+    }
+  }
 
-      final HttpResponse<JsonNode> result = request.asJson();
-      final JSONObject body = result.getBody() != null ? result.getBody().getObject() : null;
+  private List<HitWrapper> getHits(JSONObject body) {
+    final JSONArray hits = getFieldAsArray(body, "hits/hits");
+    final List<HitWrapper> hitWrappers = new ArrayList<>(hits.length());
+    final Iterator<Object> iter = hits.iterator();
+
+    while (iter.hasNext()) {
+      final JSONObject hit = (JSONObject) iter.next();
+      final Object data =
+          hit.opt("_source") != null ? hit.opt("_source") : hit.opt("fields");
+      hitWrappers.add(new HitWrapper(
+          hit.getString("_index"),
+          hit.getString("_type"),
+          hit.getString("_id"),
+          data.toString()));
+    }
+    return hitWrappers;
+  }
 
-      if (isSucceeded(result)) {
-        final long total = getFieldAsLong(result, "hits/total");
+  @Override
+  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+    ActionResponse response = null;
 
-        response = new ActionResponse()
-            .succeeded(true)
-            .totalHits(total);
+    try {
+      final HttpResponse<JsonNode> result =
+          postSearch(getUrl(indices, types) + "/_search?size=" + size, prepareQuery(query));
+      final JSONObject body = result.getBody().getObject();
+      final long total = getFieldAsLong(result, "hits/total");
 
-        if (containsAggs(result)) {
-          JSONObject aggregationsMap = body.getJSONObject("aggregations");
-          if (aggregationsMap == null) {
-            aggregationsMap = body.getJSONObject("aggs");
-          }
+      response = new ActionResponse()
+          .succeeded(true)
+          .totalHits(total);
 
-          for (final String key: aggregationsMap.keySet()) {
-            final JSONObject aggResult = aggregationsMap.getJSONObject(key);
-            if (aggResult.has("buckets")) {
-              // Multi-bucket aggregations
-              final Iterator<Object> buckets = aggResult.getJSONArray("buckets").iterator();
-              while (buckets.hasNext()) {
-                response.addAggregation(
-                    new AggWrapper(AggregationType.MULTI_BUCKETS, buckets.next().toString()));
-              }
-            }
-            else {
-              response.addAggregation(
-                  new AggWrapper(AggregationType.SIMPLE, aggregationsMap.toString()));
-            }
-            break; // Keep only one aggregation
-          }
-        }
-        else if (size > 0 && total > 0) {
-          final JSONArray hits = getFieldAsArray(body, "hits/hits");
-          final Iterator<Object> iter = hits.iterator();
-
-          while (iter.hasNext()) {
-            final JSONObject hit = (JSONObject) iter.next();
-            final Object data =
-                hit.opt("_source") != null ? hit.opt("_source") : hit.opt("fields");
-            response.addHit(new HitWrapper(
-                hit.getString("_index"),
-                hit.getString("_type"),
-                hit.getString("_id"),
-                data.toString()));
-          }
+      if (containsAggs(result)) {
+        addAggregations(body, response);
+      }
+      else if (size > 0 && total > 0) {
+        for (final HitWrapper hit : getHits(body)) {
+          response.addHit(hit);
         }
       }
-      else {
-        throw new ActionException(body.get("error").toString());
+    }
+    catch (final UnirestException e) {
+      throw new ActionException(e);
+    }
+
+    return response;
+  }
+
+  @Override
+  public ActionResponse scroll(String[] indices, String[] types, String query, int size,
+      int pageSize, HitsConsumer consumer) {
+    ActionResponse response = null;
+    String scrollId = null;
+
+    try {
+      HttpResponse<JsonNode> result = postSearch(
+          getUrl(indices, types) + "/_search?scroll=" + SCROLL_KEEP_ALIVE + "&size=" + pageSize,
+          prepareQuery(query));
+      JSONObject body = result.getBody().getObject();
+      scrollId = body.optString("_scroll_id", null);
+      final long total = getFieldAsLong(result, "hits/total");
+
+      response = new ActionResponse()
+          .succeeded(true)
+          .totalHits(total);
+
+      if (containsAggs(result)) {
+        addAggregations(body, response);
+        return response;
+      }
+
+      int consumed = 0;
+      List<HitWrapper> page = getHits(body);
+      while (!page.isEmpty() && consumed < size) {
+        if (consumed + page.size() > size) {
+          page = page.subList(0, size - consumed);
+        }
+        consumer.accept(page);
+        consumed += page.size();
+
+        if (consumed >= size || scrollId == null) {
+          break;
+        }
+
+        final JSONObject scrollRequest = new JSONObject()
+            .put("scroll", SCROLL_KEEP_ALIVE)
+            .put("scroll_id", scrollId);
+        result = postSearch(getUrl(null, null, null, false) + "_search/scroll",
+            scrollRequest.toString());
+        body = result.getBody().getObject();
+        scrollId = body.optString("_scroll_id", scrollId);
+        page = getHits(body);
       }
     }
     catch (final UnirestException e) {
       throw new ActionException(e);
     }
+    finally {
+      clearScroll(scrollId);
+    }
 
     return response;
   }
 
+  private void clearScroll(String scrollId) {
+    if (scrollId == null) {
+      return;
+    }
+    try {
+      final HttpRequestWithBody request = Unirest
+          .delete(getUrl(null, null, null, false) + "_search/scroll")
+          .header("Content-Type", "application/json");
+      request.body(new JSONObject().put("scroll_id", new JSONArray().put(scrollId)).toString());
+      if (StringUtils.isNotEmpty(username)) {
+        request.basicAuth(username, password);
+      }
+      request.asString();
+    }
+    catch (final UnirestException e) {
+      // The scroll context will expire anyway
+    }
+  }
+
   private boolean containsAggs(HttpResponse<JsonNode> result) {
     return result.getBody() != null &&
         (result.getBody().getObject().has("aggregations") ||
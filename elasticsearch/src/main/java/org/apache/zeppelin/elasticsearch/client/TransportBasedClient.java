@@ -20,6 +20,7 @@ package org.apache.zeppelin.elasticsearch.client;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -43,6 +44,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -65,6 +67,8 @@ import com.google.gson.JsonSyntaxException;
  */
 public class TransportBasedClient implements ElasticsearchClient {
 
+  private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
   private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
   private final Client client;
 
@@ -131,8 +135,8 @@ public class TransportBasedClient implements ElasticsearchClient {
             null));
   }
 
-  @Override
-  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+  private SearchRequestBuilder prepareSearch(String[] indices, String[] types, String query,
+      int size) {
     final SearchRequestBuilder reqBuilder = new SearchRequestBuilder(
         client, SearchAction.INSTANCE);
     reqBuilder.setIndices();
@@ -159,8 +163,27 @@ public class TransportBasedClient implements ElasticsearchClient {
     }
 
     reqBuilder.setSize(size);
+    return reqBuilder;
+  }
 
-    final SearchResponse searchResp = reqBuilder.get();
+  private HitWrapper toHitWrapper(SearchHit hit) {
+    // Fields can be found either in _source, or in fields (it depends on the query)
+    // => specific for elasticsearch's version < 5
+    //
+    String src = hit.getSourceAsString();
+    if (src == null) {
+      final Map<String, Object> hitFields = new HashMap<>();
+      for (final SearchHitField hitField : hit.getFields().values()) {
+        hitFields.put(hitField.getName(), hitField.getValues());
+      }
+      src = gson.toJson(hitFields);
+    }
+    return new HitWrapper(hit.getIndex(), hit.getType(), hit.getId(), src);
+  }
+
+  @Override
+  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+    final SearchResponse searchResp = prepareSearch(indices, types, query, size).get();
 
     final ActionResponse actionResp = new ActionResponse()
         .succeeded(true)
@@ -171,24 +194,59 @@ public class TransportBasedClient implements ElasticsearchClient {
     }
     else {
       for (final SearchHit hit: searchResp.getHits()) {
-        // Fields can be found either in _source, or in fields (it depends on the query)
-        // => specific for elasticsearch's version < 5
-        //
-        String src = hit.getSourceAsString();
-        if (src == null) {
-          final Map<String, Object> hitFields = new HashMap<>();
-          for (final SearchHitField hitField : hit.getFields().values()) {
-            hitFields.put(hitField.getName(), hitField.getValues());
-          }
-          src = gson.toJson(hitFields);
-        }
-        actionResp.addHit(new HitWrapper(hit.getIndex(), hit.getType(), hit.getId(), src));
+        actionResp.addHit(toHitWrapper(hit));
       }
     }
 
     return actionResp;
   }
 
+  @Override
+  public ActionResponse scroll(String[] indices, String[] types, String query, int size,
+      int pageSize, HitsConsumer consumer) {
+    SearchResponse searchResp = prepareSearch(indices, types, query, pageSize)
+        .setScroll(SCROLL_KEEP_ALIVE)
+        .get();
+
+    try {
+      final ActionResponse actionResp = new ActionResponse()
+          .succeeded(true)
+          .totalHits(searchResp.getHits().getTotalHits());
+
+      if (searchResp.getAggregations() != null) {
+        setAggregations(searchResp.getAggregations(), actionResp);
+        return actionResp;
+      }
+
+      int consumed = 0;
+      while (searchResp.getHits().getHits().length > 0 && consumed < size) {
+        final SearchHit[] hits = searchResp.getHits().getHits();
+        final int count = Math.min(hits.length, size - consumed);
+        final List<HitWrapper> page = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          page.add(toHitWrapper(hits[i]));
+        }
+        consumer.accept(page);
+        consumed += count;
+
+        if (consumed >= size) {
+          break;
+        }
+
+        searchResp = client.prepareSearchScroll(searchResp.getScrollId())
+            .setScroll(SCROLL_KEEP_ALIVE)
+            .get();
+      }
+
+      return actionResp;
+    }
+    finally {
+      if (searchResp.getScrollId() != null) {
+        client.prepareClearScroll().addScrollId(searchResp.getScrollId()).get();
+      }
+    }
+  }
+
   private void setAggregations(Aggregations aggregations, ActionResponse actionResp) {
     // Only the result of the first aggregation is returned
     //
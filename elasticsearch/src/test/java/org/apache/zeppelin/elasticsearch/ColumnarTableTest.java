@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ColumnarTableTest {
+
+  private static Map<String, Object> row(Object... keyValues) {
+    final Map<String, Object> row = new LinkedHashMap<>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      row.put((String) keyValues[i], keyValues[i + 1]);
+    }
+    return row;
+  }
+
+  @Test
+  public void testHitsTable() {
+    final ColumnarTable table = ColumnarTable.forHits();
+    table.addRow(row("status", 200, "date", "2016-01-01"));
+    table.addRow(row("date", "2016-01-02", "[\\\"content.length\\\"]", 10));
+    table.addRow(row("status", 404));
+
+    assertEquals(3, table.numRows());
+    assertEquals(Arrays.asList("content.length", "date", "status"), table.columns());
+    assertEquals("content.length\tdate\tstatus\n" +
+        "\t2016-01-01\t200\n" +
+        "10\t2016-01-02\t\n" +
+        "\t\t404\n", table.toTsv());
+  }
+
+  @Test
+  public void testBucketsTable() {
+    final ColumnarTable table = ColumnarTable.forBuckets();
+    table.addRow(row("key", "a", "doc_count", 2));
+    table.addRow(row("key", "b", "doc_count", 1, "avg.value", 1.5));
+
+    assertEquals(Arrays.asList("key", "doc_count", "avg.value"), table.columns());
+    assertEquals("key\tdoc_count\tavg.value\n" +
+        "a\t2\tnull\n" +
+        "b\t1\t1.5\n", table.toTsv());
+  }
+
+  @Test
+  public void testEmptyTable() {
+    assertEquals("", ColumnarTable.forHits().toTsv());
+  }
+}
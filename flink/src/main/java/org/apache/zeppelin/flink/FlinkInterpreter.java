@@ -21,7 +21,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.PrintStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -42,6 +42,7 @@ import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 import org.apache.zeppelin.interpreter.InterpreterUtils;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
+import org.apache.zeppelin.interpreter.util.ThreadOutputMultiplexer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,7 +66,7 @@ import scala.tools.nsc.settings.MutableSettings.PathSetting;
  */
 public class FlinkInterpreter extends Interpreter {
   Logger logger = LoggerFactory.getLogger(FlinkInterpreter.class);
-  private ByteArrayOutputStream out;
+  private PrintWriter replOut;
   private Configuration flinkConf;
   private LocalFlinkMiniCluster localFlinkCluster;
   private FlinkILoop flinkIloop;
@@ -78,7 +79,18 @@ public class FlinkInterpreter extends Interpreter {
 
   @Override
   public void open() {
-    out = new ByteArrayOutputStream();
+    // the repl writes to the output of the thread running it, output of the setup is dropped
+    replOut = new PrintWriter(ThreadOutputMultiplexer.stdout());
+    ThreadOutputMultiplexer.Redirection redirection =
+        ThreadOutputMultiplexer.stdout().redirect(new ByteArrayOutputStream());
+    try {
+      openRepl();
+    } finally {
+      closeRedirection(redirection);
+    }
+  }
+
+  private void openRepl() {
     flinkConf = new org.apache.flink.configuration.Configuration();
     Properties intpProperty = getProperty();
     for (Object k : intpProperty.keySet()) {
@@ -95,7 +107,7 @@ public class FlinkInterpreter extends Interpreter {
                                 getPort(),
                                 flinkConf,
                                 (BufferedReader) null,
-                                new PrintWriter(out));
+                                replOut);
 
     flinkIloop.settings_$eq(createSettings());
     flinkIloop.createInterpreter();
@@ -261,8 +273,19 @@ public class FlinkInterpreter extends Interpreter {
     }
     linesToRun[lines.length] = "print(\"\")";
 
-    System.setOut(new PrintStream(out));
-    out.reset();
+    // Output is streamed to the paragraph when there is one, returned otherwise
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ThreadOutputMultiplexer.Redirection redirection = ThreadOutputMultiplexer.stdout().redirect(
+        context != null && context.out != null ? context.out : out);
+    try {
+      return interpret(linesToRun, imain, out);
+    } finally {
+      closeRedirection(redirection);
+    }
+  }
+
+  private InterpreterResult interpret(String[] linesToRun, final IMain imain,
+      ByteArrayOutputStream out) {
     Code r = null;
 
     String incomplete = "";
@@ -319,6 +342,7 @@ public class FlinkInterpreter extends Interpreter {
       r = getResultCode(res);
 
       if (r == Code.ERROR) {
+        replOut.flush();
         return new InterpreterResult(r, out.toString());
       } else if (r == Code.INCOMPLETE) {
         incomplete += s + "\n";
@@ -330,10 +354,20 @@ public class FlinkInterpreter extends Interpreter {
     if (r == Code.INCOMPLETE) {
       return new InterpreterResult(r, "Incomplete expression");
     } else {
+      replOut.flush();
       return new InterpreterResult(r, out.toString());
     }
   }
 
+  private void closeRedirection(ThreadOutputMultiplexer.Redirection redirection) {
+    try {
+      replOut.flush();
+      redirection.close();
+    } catch (IOException e) {
+      logger.error("Fail to flush output", e);
+    }
+  }
+
   private Code getResultCode(scala.tools.nsc.interpreter.Results.Result r) {
     if (r instanceof scala.tools.nsc.interpreter.Results.Success$) {
       return Code.SUCCESS;
@@ -30,12 +30,15 @@ import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLContexts;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.zeppelin.interpreter.*;
 import org.slf4j.Logger;
@@ -58,7 +61,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Base class for livy interpreters.
@@ -68,11 +77,20 @@ public abstract class BaseLivyInterpreter extends Interpreter {
   protected static final Logger LOGGER = LoggerFactory.getLogger(BaseLivyInterpreter.class);
   private static Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
   private static String SESSION_NOT_FOUND_PATTERN = "\"Session '\\d+' not found.\"";
+  // first status pull happens quickly, then interval grows up to pullStatusInterval
+  private static final int MIN_PULL_STATUS_INTERVAL = 100;
+  private static final int MAX_CONNECTIONS = 100;
+
+  // http connections to livy server are shared by all livy interpreters of this process
+  private static HttpClient sharedHttpClient;
+  private static ExecutorService sessionCreator;
 
   protected volatile SessionInfo sessionInfo;
   private String livyURL;
   private int sessionCreationTimeout;
   private int pullStatusInterval;
+  private boolean prewarmSession;
+  private volatile Future<SessionInfo> pendingSession;
   protected boolean displayAppInfo;
   protected LivyVersion livyVersion;
   private RestTemplate restTemplate;
@@ -80,6 +98,8 @@ public abstract class BaseLivyInterpreter extends Interpreter {
   // keep tracking the mapping between paragraphId and statementId, so that we can cancel the
   // statement after we execute it.
   private ConcurrentHashMap<String, Integer> paragraphId2StmtIdMapping = new ConcurrentHashMap<>();
+  // progress of running statement reported by livy, keyed by paragraphId
+  private ConcurrentHashMap<String, Integer> paragraphId2Progress = new ConcurrentHashMap<>();
 
   public BaseLivyInterpreter(Properties property) {
     super(property);
@@ -90,6 +110,8 @@ public abstract class BaseLivyInterpreter extends Interpreter {
         property.getProperty("zeppelin.livy.session.create_timeout", 120 + ""));
     this.pullStatusInterval = Integer.parseInt(
         property.getProperty("zeppelin.livy.pull_status.interval.millis", 1000 + ""));
+    this.prewarmSession = Boolean.parseBoolean(
+        property.getProperty("zeppelin.livy.session.prewarm", "false"));
     this.restTemplate = createRestTemplate();
   }
 
@@ -97,6 +119,20 @@ public abstract class BaseLivyInterpreter extends Interpreter {
 
   @Override
   public void open() {
+    if (prewarmSession) {
+      // livy session takes a while to start (yarn application submission), so start it in
+      // background and let the first statement wait for it.
+      final String user = getUserName();
+      final String kind = getSessionKind();
+      pendingSession = getSessionCreator().submit(new Callable<SessionInfo>() {
+        @Override
+        public SessionInfo call() throws Exception {
+          return createSession(user, kind);
+        }
+      });
+      return;
+    }
+
     try {
       initLivySession();
     } catch (LivyException e) {
@@ -108,6 +144,16 @@ public abstract class BaseLivyInterpreter extends Interpreter {
 
   @Override
   public void close() {
+    Future<SessionInfo> pending = pendingSession;
+    pendingSession = null;
+    if (pending != null && !pending.cancel(true)) {
+      // session is already created, but nobody used it yet
+      try {
+        closeSession(pending.get().id);
+      } catch (Exception e) {
+        LOGGER.debug("Pre-warmed livy session was not created", e);
+      }
+    }
     if (sessionInfo != null) {
       closeSession(sessionInfo.id);
       // reset sessionInfo to null so that we won't close it twice.
@@ -115,8 +161,42 @@ public abstract class BaseLivyInterpreter extends Interpreter {
     }
   }
 
+  /**
+   * Make sure livy session is ready, waiting for the pre-warmed session if there's one.
+   */
+  private void ensureSession() throws LivyException {
+    if (sessionInfo != null) {
+      return;
+    }
+    synchronized (this) {
+      if (sessionInfo != null) {
+        return;
+      }
+      Future<SessionInfo> pending = pendingSession;
+      pendingSession = null;
+      if (pending == null) {
+        initLivySession();
+        return;
+      }
+      try {
+        initLivySession(pending.get());
+      } catch (InterruptedException e) {
+        throw new LivyException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof LivyException) {
+          throw (LivyException) e.getCause();
+        }
+        throw new LivyException(e.getCause());
+      }
+    }
+  }
+
   protected void initLivySession() throws LivyException {
-    this.sessionInfo = createSession(getUserName(), getSessionKind());
+    initLivySession(createSession(getUserName(), getSessionKind()));
+  }
+
+  private void initLivySession(SessionInfo createdSession) throws LivyException {
+    this.sessionInfo = createdSession;
     if (displayAppInfo) {
       if (sessionInfo.appId == null) {
         // livy 0.2 don't return appId and sparkUiUrl in response so that we need to get it
@@ -170,6 +250,10 @@ public abstract class BaseLivyInterpreter extends Interpreter {
 
   @Override
   public void cancel(InterpreterContext context) {
+    if (livyVersion == null) {
+      // session is not created yet, nothing to cancel
+      return;
+    }
     if (livyVersion.isCancelSupported()) {
       String paraId = context.getParagraphId();
       Integer stmtId = paragraphId2StmtIdMapping.get(paraId);
@@ -194,11 +278,13 @@ public abstract class BaseLivyInterpreter extends Interpreter {
 
   @Override
   public int getProgress(InterpreterContext context) {
-    return 0;
+    Integer progress = paragraphId2Progress.get(context.getParagraphId());
+    return progress == null ? 0 : progress;
   }
 
   private SessionInfo createSession(String user, String kind)
       throws LivyException {
+    SessionInfo sessionInfo = null;
     try {
       Map<String, String> conf = new HashMap<>();
       for (Map.Entry<Object, Object> entry : property.entrySet()) {
@@ -209,9 +295,10 @@ public abstract class BaseLivyInterpreter extends Interpreter {
 
       CreateSessionRequest request = new CreateSessionRequest(kind,
           user == null || user.equals("anonymous") ? null : user, conf);
-      SessionInfo sessionInfo = SessionInfo.fromJson(
+      sessionInfo = SessionInfo.fromJson(
           callRestAPI("/sessions", "POST", request.toJson()));
       long start = System.currentTimeMillis();
+      long interval = MIN_PULL_STATUS_INTERVAL;
       // pull the session status until it is idle or timeout
       while (!sessionInfo.isReady()) {
         if ((System.currentTimeMillis() - start) / 1000 > sessionCreationTimeout) {
@@ -220,10 +307,14 @@ public abstract class BaseLivyInterpreter extends Interpreter {
               + ", log: " + sessionInfo.log;
           throw new LivyException(msg);
         }
-        Thread.sleep(pullStatusInterval);
+        Thread.sleep(interval);
+        interval = nextPullStatusInterval(interval);
+        String prevState = sessionInfo.state;
         sessionInfo = getSessionInfo(sessionInfo.id);
-        LOGGER.info("Session {} is in state {}, appId {}", sessionInfo.id, sessionInfo.state,
-            sessionInfo.appId);
+        if (!sessionInfo.state.equals(prevState)) {
+          LOGGER.info("Session {} is in state {}, appId {}", sessionInfo.id, sessionInfo.state,
+              sessionInfo.appId);
+        }
         if (sessionInfo.isFinished()) {
           String msg = "Session " + sessionInfo.id + " is finished, appId: " + sessionInfo.appId
               + ", log: " + sessionInfo.log;
@@ -233,10 +324,18 @@ public abstract class BaseLivyInterpreter extends Interpreter {
       return sessionInfo;
     } catch (Exception e) {
       LOGGER.error("Error when creating livy session for user " + user, e);
+      if (sessionInfo != null && !sessionInfo.isFinished()) {
+        // don't leave the session behind on timeout or interruption
+        closeSession(sessionInfo.id);
+      }
       throw new LivyException(e);
     }
   }
 
+  private long nextPullStatusInterval(long interval) {
+    return Math.min(interval * 2, pullStatusInterval);
+  }
+
   private SessionInfo getSessionInfo(int sessionId) throws LivyException {
     return SessionInfo.fromJson(callRestAPI("/sessions/" + sessionId, "GET"));
   }
@@ -245,6 +344,7 @@ public abstract class BaseLivyInterpreter extends Interpreter {
                                      String paragraphId,
                                      boolean displayAppInfo,
                                      boolean appendSessionExpired) throws LivyException {
+    ensureSession();
     StatementInfo stmtInfo = null;
     boolean sessionExpired = false;
     try {
@@ -266,15 +366,24 @@ public abstract class BaseLivyInterpreter extends Interpreter {
       if (paragraphId != null) {
         paragraphId2StmtIdMapping.put(paragraphId, stmtInfo.id);
       }
-      // pull the statement status
+      // pull the statement status. Short statements finish within the first few pulls,
+      // long running ones are pulled less often while their progress doesn't move.
+      long interval = MIN_PULL_STATUS_INTERVAL;
       while (!stmtInfo.isAvailable()) {
         try {
-          Thread.sleep(pullStatusInterval);
+          Thread.sleep(interval);
         } catch (InterruptedException e) {
           LOGGER.error("InterruptedException when pulling statement status.", e);
           throw new LivyException(e);
         }
+        double prevProgress = stmtInfo.progress;
         stmtInfo = getStatementInfo(stmtInfo.id);
+        if (stmtInfo.progress == prevProgress) {
+          interval = nextPullStatusInterval(interval);
+        }
+        if (paragraphId != null) {
+          paragraphId2Progress.put(paragraphId, (int) (stmtInfo.progress * 100));
+        }
       }
       if (appendSessionExpired) {
         return appendSessionExpire(getResultFromStatementInfo(stmtInfo, displayAppInfo),
@@ -285,6 +394,7 @@ public abstract class BaseLivyInterpreter extends Interpreter {
     } finally {
       if (paragraphId != null) {
         paragraphId2StmtIdMapping.remove(paragraphId);
+        paragraphId2Progress.remove(paragraphId);
       }
     }
   }
@@ -424,7 +534,8 @@ public abstract class BaseLivyInterpreter extends Interpreter {
             .loadTrustMaterial(trustStore)
             .build();
         SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(sslContext);
-        HttpClientBuilder httpClientBuilder = HttpClients.custom().setSSLSocketFactory(csf);
+        HttpClientBuilder httpClientBuilder = HttpClients.custom().useSystemProperties()
+            .setSSLSocketFactory(csf);
         RequestConfig reqConfig = new RequestConfig() {
           @Override
           public boolean isAuthenticationEnabled() {
@@ -477,12 +588,44 @@ public abstract class BaseLivyInterpreter extends Interpreter {
       }
     }
     if (httpClient == null) {
-      return new RestTemplate();
+      return new RestTemplate(new HttpComponentsClientHttpRequestFactory(getSharedHttpClient()));
     } else {
       return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
   }
 
+  private static synchronized HttpClient getSharedHttpClient() {
+    if (sharedHttpClient == null) {
+      // honour the TLS system properties, like the proxy ones below
+      Registry<ConnectionSocketFactory> socketFactoryRegistry =
+          RegistryBuilder.<ConnectionSocketFactory>create()
+              .register("http", PlainConnectionSocketFactory.getSocketFactory())
+              .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+              .build();
+      PoolingHttpClientConnectionManager connectionManager =
+          new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+      connectionManager.setMaxTotal(MAX_CONNECTIONS);
+      connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+      sharedHttpClient = HttpClients.custom().useSystemProperties()
+          .setConnectionManager(connectionManager).build();
+    }
+    return sharedHttpClient;
+  }
+
+  private static synchronized ExecutorService getSessionCreator() {
+    if (sessionCreator == null) {
+      sessionCreator = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "LivySessionCreator");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return sessionCreator;
+  }
+
   private String callRestAPI(String targetURL, String method) throws LivyException {
     return callRestAPI(targetURL, method, "");
   }
@@ -634,6 +777,8 @@ public abstract class BaseLivyInterpreter extends Interpreter {
   private static class StatementInfo {
     public Integer id;
     public String state;
+    // available since livy 0.4, stays 0 for older versions
+    public double progress;
     public StatementOutput output;
 
     public StatementInfo() {
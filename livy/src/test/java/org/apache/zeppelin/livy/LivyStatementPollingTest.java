@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.livy;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test statement and session tracking of livy interpreter against a local stand-in of livy rest
+ * api.
+ */
+public class LivyStatementPollingTest {
+
+  private HttpServer server;
+  private LivySparkInterpreter interpreter;
+  private InterpreterContext context;
+
+  private final CountDownLatch sessionStarted = new CountDownLatch(1);
+  private final AtomicInteger sessionCreated = new AtomicInteger();
+  private final AtomicInteger sessionDeleted = new AtomicInteger();
+  private final AtomicInteger statementPulled = new AtomicInteger();
+  private volatile int progressDuringStatement = -1;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new LivyStandIn());
+    server.start();
+
+    context = mock(InterpreterContext.class);
+    when(context.getParagraphId()).thenReturn("paragraph_1");
+  }
+
+  @After
+  public void tearDown() {
+    if (interpreter != null) {
+      interpreter.close();
+    }
+    server.stop(0);
+  }
+
+  private LivySparkInterpreter createInterpreter(boolean prewarm) {
+    Properties properties = new Properties();
+    properties.setProperty("zeppelin.livy.url",
+        "http://localhost:" + server.getAddress().getPort());
+    properties.setProperty("zeppelin.livy.displayAppInfo", "false");
+    properties.setProperty("zeppelin.livy.session.prewarm", prewarm + "");
+    return new LivySparkInterpreter(properties);
+  }
+
+  @Test
+  public void testStatementProgress() throws LivyException {
+    sessionStarted.countDown();
+    interpreter = createInterpreter(false);
+    interpreter.open();
+    assertEquals(1, sessionCreated.get());
+
+    InterpreterResult result = interpreter.interpret("1 + 1", "paragraph_1", false, false);
+    assertEquals(InterpreterResult.Code.SUCCESS, result.code());
+    assertEquals("res0: Int = 2", result.message().get(0).getData());
+    // progress reported by livy is visible while statement is running
+    assertEquals(50, progressDuringStatement);
+    assertEquals(0, interpreter.getProgress(context));
+  }
+
+  @Test
+  public void testPrewarmSession() throws LivyException, InterruptedException {
+    interpreter = createInterpreter(true);
+    // open doesn't wait for the session to be idle
+    interpreter.open();
+    assertEquals(null, interpreter.getSessionInfo());
+
+    sessionStarted.countDown();
+    InterpreterResult result = interpreter.interpret("1 + 1", "paragraph_1", false, false);
+    assertEquals(InterpreterResult.Code.SUCCESS, result.code());
+    assertEquals(1, sessionCreated.get());
+
+    interpreter.close();
+    interpreter = null;
+    assertEquals(1, sessionDeleted.get());
+  }
+
+  @Test
+  public void testCloseUnusedPrewarmedSession() throws InterruptedException {
+    interpreter = createInterpreter(true);
+    interpreter.open();
+    sessionStarted.countDown();
+    long start = System.currentTimeMillis();
+    while (sessionCreated.get() == 0 && System.currentTimeMillis() - start < 10000) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(500);
+
+    interpreter.close();
+    interpreter = null;
+    assertEquals(1, sessionCreated.get());
+    assertEquals(1, sessionDeleted.get());
+  }
+
+  /**
+   * Handles the subset of livy rest api used by livy interpreter.
+   */
+  private class LivyStandIn implements HttpHandler {
+    private static final String SESSION = "{\"id\":1,\"state\":\"%s\",\"kind\":\"spark\"," +
+        "\"log\":[]}";
+    private static final String STATEMENT = "{\"id\":0,\"state\":\"%s\",\"progress\":%s," +
+        "\"output\":%s}";
+    private static final String OUTPUT = "{\"status\":\"ok\",\"execution_count\":0," +
+        "\"data\":{\"text/plain\":\"res0: Int = 2\"}}";
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      String method = exchange.getRequestMethod();
+      String path = exchange.getRequestURI().getPath();
+      String response;
+      if (method.equals("POST") && path.equals("/sessions")) {
+        response = String.format(SESSION, "starting");
+      } else if (method.equals("GET") && path.equals("/sessions/1")) {
+        if (awaitSessionStarted()) {
+          sessionCreated.incrementAndGet();
+          response = String.format(SESSION, "idle");
+        } else {
+          response = String.format(SESSION, "starting");
+        }
+      } else if (method.equals("DELETE") && path.equals("/sessions/1")) {
+        sessionDeleted.incrementAndGet();
+        response = "{\"msg\":\"deleted\"}";
+      } else if (method.equals("GET") && path.equals("/version")) {
+        response = "{\"version\":\"0.4.0\"}";
+      } else if (method.equals("POST") && path.equals("/sessions/1/statements")) {
+        response = String.format(STATEMENT, "waiting", "0.0", "null");
+      } else if (method.equals("GET") && path.equals("/sessions/1/statements/0")) {
+        int pulled = statementPulled.incrementAndGet();
+        if (pulled < 3) {
+          response = String.format(STATEMENT, "running", "0.5", "null");
+        } else {
+          if (interpreter != null) {
+            progressDuringStatement = interpreter.getProgress(context);
+          }
+          response = String.format(STATEMENT, "available", "1.0", OUTPUT);
+        }
+      } else {
+        response = "\"not found\"";
+        send(exchange, 404, response);
+        return;
+      }
+      send(exchange, 200, response);
+    }
+
+    private boolean awaitSessionStarted() {
+      try {
+        return sessionStarted.await(50, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        return false;
+      }
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+      byte[] bytes = body.getBytes("UTF-8");
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      OutputStream out = exchange.getResponseBody();
+      out.write(bytes);
+      out.close();
+    }
+  }
+}
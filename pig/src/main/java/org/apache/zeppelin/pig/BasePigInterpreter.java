@@ -93,6 +93,8 @@ public abstract class BasePigInterpreter extends Interpreter {
 
   @Override
   public Scheduler getScheduler() {
+    // Output is captured per thread, but PigServer keeps the plan of the script being
+    // registered, so scripts still run one at a time.
     return SchedulerFactory.singleton().createOrGetFIFOScheduler(
             PigInterpreter.class.getName() + this.hashCode());
   }
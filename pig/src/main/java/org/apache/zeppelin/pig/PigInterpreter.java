@@ -27,12 +27,12 @@ import org.apache.pig.tools.pigstats.*;
 import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
+import org.apache.zeppelin.interpreter.util.ThreadOutputMultiplexer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.util.*;
 
 /**
@@ -80,15 +80,16 @@ public class PigInterpreter extends BasePigInterpreter {
 
   @Override
   public InterpreterResult interpret(String cmd, InterpreterContext contextInterpreter) {
-    // remember the origial stdout, because we will redirect stdout to capture
-    // the pig dump output.
-    PrintStream originalStdOut = System.out;
+    // redirect stdout of this thread to capture the pig dump output. It is streamed to the
+    // paragraph output when there is one.
     ByteArrayOutputStream bytesOutput = new ByteArrayOutputStream();
+    ThreadOutputMultiplexer.Redirection redirection = ThreadOutputMultiplexer.stdout().redirect(
+        contextInterpreter != null && contextInterpreter.out != null ?
+            contextInterpreter.out : bytesOutput);
     File tmpFile = null;
     try {
       pigServer.setJobName(createJobName(cmd, contextInterpreter));
       tmpFile = PigUtils.createTempPigScript(cmd);
-      System.setOut(new PrintStream(bytesOutput));
       // each thread should its own ScriptState & PigStats
       ScriptState.start(pigServer.getPigContext().getExecutionEngine().instantiateScriptState());
       // reset PigStats, otherwise you may get the PigStats of last job in the same thread
@@ -126,7 +127,7 @@ public class PigInterpreter extends BasePigInterpreter {
       LOGGER.error("Fail to run pig script.", e);
       return new InterpreterResult(Code.ERROR, ExceptionUtils.getStackTrace(e));
     } finally {
-      System.setOut(originalStdOut);
+      closeQuietly(redirection);
       listenerMap.remove(contextInterpreter.getParagraphId());
       if (tmpFile != null) {
         tmpFile.delete();
@@ -145,6 +146,14 @@ public class PigInterpreter extends BasePigInterpreter {
   }
 
 
+  private void closeQuietly(ThreadOutputMultiplexer.Redirection redirection) {
+    try {
+      redirection.close();
+    } catch (IOException e) {
+      LOGGER.warn("Fail to flush the output of pig script", e);
+    }
+  }
+
   public PigServer getPigServer() {
     return pigServer;
   }
@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.apache.commons.exec.CommandLine;
@@ -50,6 +51,7 @@ import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 import org.apache.zeppelin.interpreter.InterpreterHookRegistry.HookType;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
 import org.apache.zeppelin.interpreter.util.InterpreterOutputStream;
+import org.apache.zeppelin.interpreter.util.StatementChannel;
 import org.apache.zeppelin.scheduler.Job;
 import org.apache.zeppelin.scheduler.Scheduler;
 import org.apache.zeppelin.scheduler.SchedulerFactory;
@@ -92,7 +94,8 @@ public class PythonInterpreter extends Interpreter implements ExecuteResultHandl
 
   private long pythonPid = 0;
 
-  Integer statementSetNotifier = new Integer(0);
+  private final StatementChannel<PythonInterpretRequest> statementChannel =
+      new StatementChannel<>();
 
   public PythonInterpreter(Properties property) {
     super(property);
@@ -249,22 +252,13 @@ public class PythonInterpreter extends Interpreter implements ExecuteResultHandl
     executor.getWatchdog().destroyProcess();
     new File(scriptPath).delete();
     gatewayServer.shutdown();
-
-    // wait until getStatements stop
-    synchronized (statementSetNotifier) {
-      try {
-        statementSetNotifier.wait(1500);
-      } catch (InterruptedException e) {
-      }
-      statementSetNotifier.notify();
-    }
+    statementChannel.failAll("python interpreter is closed");
   }
 
-  PythonInterpretRequest pythonInterpretRequest = null;
   /**
-   * Result class of python interpreter
+   * Request class of python interpreter
    */
-  public class PythonInterpretRequest {
+  public class PythonInterpretRequest extends StatementChannel.Request {
     public String statements;
 
     public PythonInterpretRequest(String statements) {
@@ -277,29 +271,27 @@ public class PythonInterpreter extends Interpreter implements ExecuteResultHandl
   }
 
   public PythonInterpretRequest getStatements() {
-    synchronized (statementSetNotifier) {
-      while (pythonInterpretRequest == null && pythonscriptRunning && pythonScriptInitialized) {
-        try {
-          statementSetNotifier.wait(1000);
-        } catch (InterruptedException e) {
+    while (pythonscriptRunning && pythonScriptInitialized) {
+      try {
+        PythonInterpretRequest req = statementChannel.poll(1, TimeUnit.SECONDS);
+        if (req != null) {
+          return req;
         }
+      } catch (InterruptedException e) {
       }
-      PythonInterpretRequest req = pythonInterpretRequest;
-      pythonInterpretRequest = null;
-      return req;
     }
+    return null;
   }
 
-  String statementOutput = null;
-  boolean statementError = false;
-  Integer statementFinishedNotifier = new Integer(0);
-
+  /**
+   * Complete the request python script is running
+   */
   public void setStatementsFinished(String out, boolean error) {
-    synchronized (statementFinishedNotifier) {
-      statementOutput = out;
-      statementError = error;
-      statementFinishedNotifier.notify();
-    }
+    statementChannel.completeCurrent(out, error);
+  }
+
+  public void setStatementsFinished(int requestId, String out, boolean error) {
+    statementChannel.complete(requestId, out, error);
   }
 
   boolean pythonScriptInitialized = false;
@@ -365,24 +357,20 @@ public class PythonInterpreter extends Interpreter implements ExecuteResultHandl
       return new InterpreterResult(Code.ERROR, errorMessage);
     }
 
-    pythonInterpretRequest = new PythonInterpretRequest(cmd);
-    statementOutput = null;
-
-    synchronized (statementSetNotifier) {
-      statementSetNotifier.notify();
-    }
-
-    synchronized (statementFinishedNotifier) {
-      while (statementOutput == null) {
-        try {
-          statementFinishedNotifier.wait(1000);
-        } catch (InterruptedException e) {
+    StatementChannel.Response response =
+        statementChannel.submit(new PythonInterpretRequest(cmd));
+    while (!response.isDone()) {
+      try {
+        if (!response.await(1, TimeUnit.SECONDS) && !pythonscriptRunning) {
+          statementChannel.abandon(response);
+          return new InterpreterResult(Code.ERROR, "python process not running");
         }
+      } catch (InterruptedException e) {
       }
     }
 
-    if (statementError) {
-      return new InterpreterResult(Code.ERROR, statementOutput);
+    if (response.isError()) {
+      return new InterpreterResult(Code.ERROR, response.output());
     } else {
 
       try {
@@ -519,12 +507,14 @@ public class PythonInterpreter extends Interpreter implements ExecuteResultHandl
   @Override
   public void onProcessComplete(int exitValue) {
     pythonscriptRunning = false;
+    statementChannel.failAll("python process terminated. exit code " + exitValue);
     logger.info("python process terminated. exit code " + exitValue);
   }
 
   @Override
   public void onProcessFailed(ExecuteException e) {
     pythonscriptRunning = false;
+    statementChannel.failAll("python process failed " + e.getMessage());
     logger.error("python process failed", e);
   }
 }
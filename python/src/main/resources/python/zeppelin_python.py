@@ -15,7 +15,7 @@
 # limitations under the License.
 #
 
-import os, sys, getopt, traceback, json, re
+import os, sys, getopt, traceback, json, re, csv
 
 from py4j.java_gateway import java_import, JavaGateway, GatewayClient
 from py4j.protocol import Py4JJavaError, Py4JNetworkError
@@ -99,35 +99,27 @@ class PyZeppelinContext(object):
     """Pretty prints DF using Table Display System
     """
     limit = len(df) > self.max_result
-    header_buf = StringIO("")
+    rows = df.head(self.max_result) if limit else df
+
+    header = [str(col) for col in rows.columns]
+    # encode the whole table in one vectorized pass instead of formatting cell by cell.
+    cells = rows.astype(str)
+    # tabs and newlines inside of text cells would break the table, so replace them
+    for i, dtype in enumerate(rows.dtypes):
+      if dtype == object:
+        cells.iloc[:, i] = cells.iloc[:, i].str.replace(r"[\t\n\r]", " ", regex=True)
     if show_index:
-      idx_name = str(df.index.name) if df.index.name is not None else ""
-      header_buf.write(idx_name + "\t")
-    header_buf.write(str(df.columns[0]))
-    for col in df.columns[1:]:
-      header_buf.write("\t")
-      header_buf.write(str(col))
-    header_buf.write("\n")
-
-    body_buf = StringIO("")
-    rows = df.head(self.max_result).values if limit else df.values
-    index = df.index.values
-    for idx, row in zip(index, rows):
-      if show_index:
-        body_buf.write("%html <strong>{}</strong>".format(idx))
-        body_buf.write("\t")
-      body_buf.write(str(row[0]))
-      for cell in row[1:]:
-        body_buf.write("\t")
-        body_buf.write(str(cell))
-      body_buf.write("\n")
-    body_buf.seek(0); header_buf.seek(0)
+      idx_name = str(rows.index.name) if rows.index.name is not None else ""
+      header.insert(0, idx_name)
+      cells.insert(0, "__zeppelin_index__",
+                   ["%html <strong>{}</strong>".format(idx) for idx in rows.index.values],
+                   allow_duplicates=True)
+    # cells are written as they are. no quoting, '\0' is not expected in text cells
+    body = cells.to_csv(sep="\t", header=False, index=False,
+                        quoting=csv.QUOTE_NONE, quotechar="\0")
+
     #TODO(bzz): fix it, so it shows red notice, as in Spark
-    print("%table " + header_buf.read() + body_buf.read()) # +
-    #      ("\n<font color=red>Results are limited by {}.</font>" \
-    #          .format(self.max_result) if limit else "")
-    #)
-    body_buf.close(); header_buf.close()
+    print("%table " + "\t".join(header) + "\n" + body)
 
   def show_matplotlib(self, p, fmt="png", width="auto", height="auto",
                       **kwargs):
@@ -282,17 +274,17 @@ while True :
       except:
         raise Exception(traceback.format_exc())
 
-    intp.setStatementsFinished("", False)
+    intp.setStatementsFinished(req.id(), "", False)
   except Py4JJavaError:
     excInnerError = traceback.format_exc() # format_tb() does not return the inner exception
     innerErrorStart = excInnerError.find("Py4JJavaError:")
     if innerErrorStart > -1:
        excInnerError = excInnerError[innerErrorStart:]
-    intp.setStatementsFinished(excInnerError + str(sys.exc_info()), True)
+    intp.setStatementsFinished(req.id(), excInnerError + str(sys.exc_info()), True)
   except Py4JNetworkError:
     # lost connection from gateway server. exit
     sys.exit(1)
   except:
-    intp.setStatementsFinished(traceback.format_exc(), True)
+    intp.setStatementsFinished(req.id(), traceback.format_exc(), True)
 
   output.reset()
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.spark;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.remote.RemoteEventClientWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps progress of every job group up to date from SparkListener events.
+ *
+ * Progress used to be computed by walking SparkStatusTracker on every poll. Here the listener
+ * bus feeds stage and task counters incrementally, getProgress() becomes a lookup, and a
+ * progress change is pushed to ZeppelinServer through the interpreter event channel of the
+ * paragraph that owns the job group.
+ */
+class JobProgressTracker {
+  static final String JOB_GROUP_PROPERTY = "spark.jobGroup.id";
+
+  private final Logger logger = LoggerFactory.getLogger(JobProgressTracker.class);
+  private final Map<String, GroupProgress> groups = new HashMap<>();
+  private final Map<Integer, GroupProgress> jobToGroup = new HashMap<>();
+  private final Map<Integer, StageProgress> stages = new HashMap<>();
+
+  /**
+   * Remember where to push progress of the given job group.
+   * Only the jobs of watched groups are tracked.
+   */
+  synchronized void watch(String jobGroup, InterpreterContext context) {
+    GroupProgress group = groups.get(jobGroup);
+    if (group == null) {
+      group = new GroupProgress();
+      groups.put(jobGroup, group);
+    }
+    group.noteId = context.getNoteId();
+    group.paragraphId = context.getParagraphId();
+    group.client = context.getClient();
+  }
+
+  /**
+   * Forget the job group, called when the paragraph finishes.
+   * Events of its jobs still running are ignored from now on.
+   */
+  synchronized void clear(String jobGroup) {
+    GroupProgress group = groups.remove(jobGroup);
+    if (group == null) {
+      return;
+    }
+    for (Integer jobId : group.jobIds) {
+      jobToGroup.remove(jobId);
+    }
+    for (StageProgress stage : group.stages.values()) {
+      stages.remove(stage.stageId);
+    }
+  }
+
+  synchronized int progress(String jobGroup) {
+    GroupProgress group = groups.get(jobGroup);
+    return group == null ? 0 : group.progress();
+  }
+
+  synchronized List<Map<String, Object>> details(String jobGroup) {
+    GroupProgress group = groups.get(jobGroup);
+    return group == null ? new LinkedList<Map<String, Object>>() : group.details();
+  }
+
+  /**
+   * @param stageTasks number of tasks of every stage of the job, keyed by stage id
+   */
+  void onJobStart(int jobId, String jobGroup, Map<Integer, Integer> stageTasks,
+                  Map<Integer, String> stageNames) {
+    if (jobGroup == null) {
+      return;
+    }
+    GroupProgress group;
+    synchronized (this) {
+      group = groups.get(jobGroup);
+      if (group == null) {
+        // e.g. streaming jobs or job groups set by the user
+        return;
+      }
+      group.jobIds.add(jobId);
+      jobToGroup.put(jobId, group);
+      for (Map.Entry<Integer, Integer> e : stageTasks.entrySet()) {
+        StageProgress stage = new StageProgress(group, jobId, e.getKey(),
+            stageNames.get(e.getKey()), e.getValue());
+        group.stages.put(stage.stageId, stage);
+        stages.put(stage.stageId, stage);
+      }
+    }
+    push(group, false);
+  }
+
+  void onStageSubmitted(int stageId, int numTasks) {
+    synchronized (this) {
+      StageProgress stage = stages.get(stageId);
+      if (stage != null) {
+        // number of tasks can change on stage re-submission
+        stage.numTasks = numTasks;
+      }
+    }
+  }
+
+  void onTaskEnd(int stageId, boolean successful, long shuffleReadBytes, long shuffleWriteBytes,
+                 long memoryBytesSpilled, long diskBytesSpilled) {
+    GroupProgress group = null;
+    synchronized (this) {
+      StageProgress stage = stages.get(stageId);
+      if (stage == null) {
+        return;
+      }
+      if (successful) {
+        stage.numCompletedTasks++;
+      } else {
+        stage.numFailedTasks++;
+      }
+      stage.shuffleReadBytes += shuffleReadBytes;
+      stage.shuffleWriteBytes += shuffleWriteBytes;
+      stage.memoryBytesSpilled += memoryBytesSpilled;
+      stage.diskBytesSpilled += diskBytesSpilled;
+      group = stage.group;
+    }
+    push(group, false);
+  }
+
+  void onStageCompleted(int stageId) {
+    GroupProgress group = null;
+    synchronized (this) {
+      StageProgress stage = stages.get(stageId);
+      if (stage == null) {
+        return;
+      }
+      stage.completed = true;
+      group = stage.group;
+    }
+    push(group, true);
+  }
+
+  void onJobEnd(int jobId) {
+    GroupProgress group;
+    synchronized (this) {
+      group = jobToGroup.remove(jobId);
+      if (group == null) {
+        return;
+      }
+      group.jobIds.remove(Integer.valueOf(jobId));
+      for (StageProgress stage : group.stages.values()) {
+        if (stage.jobId != jobId) {
+          continue;
+        }
+        // skipped stages never complete, count them as done once the job is over
+        if (!stage.completed) {
+          stage.skipped = stage.numCompletedTasks == 0;
+          stage.completed = true;
+        }
+        // no more events for the stages of the job, the group keeps them for its progress
+        if (stages.get(stage.stageId) == stage) {
+          stages.remove(stage.stageId);
+        }
+      }
+    }
+    push(group, true);
+  }
+
+  /**
+   * @return number of groups, jobs and stages tracked, for tests
+   */
+  synchronized int size() {
+    return groups.size() + jobToGroup.size() + stages.size();
+  }
+
+  /**
+   * Push progress when the percentage changed, or when forced by a stage/job transition.
+   */
+  private void push(GroupProgress group, boolean force) {
+    RemoteEventClientWrapper client;
+    String noteId;
+    String paragraphId;
+    int progress;
+    List<Map<String, Object>> details;
+    synchronized (this) {
+      if (group == null || group.client == null) {
+        return;
+      }
+      progress = group.progress();
+      if (!force && progress == group.lastPushedProgress) {
+        return;
+      }
+      group.lastPushedProgress = progress;
+      client = group.client;
+      noteId = group.noteId;
+      paragraphId = group.paragraphId;
+      details = group.details();
+    }
+
+    try {
+      client.onParagraphProgress(noteId, paragraphId, progress, details);
+    } catch (Exception e) {
+      logger.warn("Can't push progress of paragraph " + paragraphId, e);
+    }
+  }
+
+  private static class GroupProgress {
+    String noteId;
+    String paragraphId;
+    RemoteEventClientWrapper client;
+    int lastPushedProgress = -1;
+    final List<Integer> jobIds = new LinkedList<>();
+    final Map<Integer, StageProgress> stages = new LinkedHashMap<>();
+
+    int progress() {
+      long taskCount = 0;
+      long completedTaskCount = 0;
+      for (StageProgress stage : stages.values()) {
+        if (stage.skipped) {
+          continue;
+        }
+        taskCount += stage.numTasks;
+        completedTaskCount += stage.completed ?
+            stage.numTasks : Math.min(stage.numCompletedTasks, stage.numTasks);
+      }
+      if (taskCount == 0) {
+        return 0;
+      }
+      return (int) (100 * completedTaskCount / taskCount);
+    }
+
+    List<Map<String, Object>> details() {
+      List<Map<String, Object>> details = new LinkedList<>();
+      for (StageProgress stage : stages.values()) {
+        details.add(stage.toMap());
+      }
+      return details;
+    }
+  }
+
+  private static class StageProgress {
+    final GroupProgress group;
+    final int jobId;
+    final int stageId;
+    final String name;
+    int numTasks;
+    int numCompletedTasks;
+    int numFailedTasks;
+    long shuffleReadBytes;
+    long shuffleWriteBytes;
+    long memoryBytesSpilled;
+    long diskBytesSpilled;
+    boolean completed;
+    boolean skipped;
+
+    StageProgress(GroupProgress group, int jobId, int stageId, String name, int numTasks) {
+      this.group = group;
+      this.jobId = jobId;
+      this.stageId = stageId;
+      this.name = name;
+      this.numTasks = numTasks;
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("jobId", jobId);
+      m.put("stageId", stageId);
+      m.put("name", name);
+      m.put("numTasks", numTasks);
+      m.put("numCompletedTasks", numCompletedTasks);
+      m.put("numFailedTasks", numFailedTasks);
+      m.put("shuffleReadBytes", shuffleReadBytes);
+      m.put("shuffleWriteBytes", shuffleWriteBytes);
+      m.put("memoryBytesSpilled", memoryBytesSpilled);
+      m.put("diskBytesSpilled", diskBytesSpilled);
+      m.put("completed", completed);
+      m.put("skipped", skipped);
+      return m;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.spark;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a scala paragraph into as few compilation units as possible.
+ *
+ * Each chunk ends on a top level statement boundary (outside of braces, parentheses,
+ * string literals and comments) and holds at most maxLinesPerChunk lines unless a single
+ * statement is longer than that. Chunks are handed to the REPL one at a time so every
+ * definition stays visible to the following paragraphs, while a paragraph of N statements
+ * costs one scalac run per chunk instead of one per statement.
+ *
+ * Chunk plans are cached by paragraph body, so re-running the same paragraph skips scanning.
+ */
+class ParagraphChunker {
+  private static final String[] CONTINUATION_KEYWORDS = {
+    "else", "catch", "finally", "match", "with", "extends", "yield"
+  };
+
+  private final int maxLinesPerChunk;
+  private final Map<String, List<String>> cache;
+
+  ParagraphChunker(int maxLinesPerChunk, final int cacheSize) {
+    this.maxLinesPerChunk = maxLinesPerChunk;
+    this.cache = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  List<String> chunk(String paragraph) {
+    synchronized (cache) {
+      List<String> chunks = cache.get(paragraph);
+      if (chunks != null) {
+        return chunks;
+      }
+    }
+
+    List<String> chunks = Collections.unmodifiableList(split(paragraph));
+    synchronized (cache) {
+      cache.put(paragraph, chunks);
+    }
+    return chunks;
+  }
+
+  int cachedSize() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  private List<String> split(String paragraph) {
+    String[] lines = paragraph.split("\n");
+    List<String> chunks = new LinkedList<>();
+    ScanState state = new ScanState();
+    StringBuilder chunk = new StringBuilder();
+    int linesInChunk = 0;
+
+    for (int l = 0; l < lines.length; l++) {
+      String line = lines[l];
+      chunk.append(line).append('\n');
+      linesInChunk++;
+      state.scan(line);
+
+      if (!state.atTopLevel() || linesInChunk < maxLinesPerChunk) {
+        continue;
+      }
+
+      if (l + 1 < lines.length && continuesOnNextLine(line, lines[l + 1])) {
+        continue;
+      }
+
+      chunks.add(chunk.toString());
+      chunk.setLength(0);
+      linesInChunk = 0;
+    }
+
+    if (chunk.toString().trim().length() > 0) {
+      chunks.add(chunk.toString());
+    }
+    return chunks;
+  }
+
+  private static boolean continuesOnNextLine(String line, String next) {
+    String nextLine = next.trim();
+    // check if next line starts with "." (but not ".." or "./") it is treated as an invocation
+    if (nextLine.startsWith(".") && !nextLine.startsWith("..") && !nextLine.startsWith("./")) {
+      return true;
+    }
+    for (String keyword : CONTINUATION_KEYWORDS) {
+      if (nextLine.equals(keyword) || nextLine.startsWith(keyword + " ")
+          || nextLine.startsWith(keyword + "{")) {
+        return true;
+      }
+    }
+    String trimmed = line.trim();
+    return trimmed.endsWith("=") || trimmed.endsWith(",") || trimmed.endsWith("=>")
+        || trimmed.endsWith("+") || trimmed.endsWith("&&") || trimmed.endsWith("||");
+  }
+
+  /**
+   * Tracks nesting of scala source across lines.
+   */
+  private static class ScanState {
+    int depth = 0;
+    boolean inBlockComment = false;
+    boolean inTripleQuote = false;
+
+    boolean atTopLevel() {
+      return depth <= 0 && !inBlockComment && !inTripleQuote;
+    }
+
+    void scan(String line) {
+      int i = 0;
+      int len = line.length();
+      while (i < len) {
+        if (inBlockComment) {
+          if (line.startsWith("*/", i)) {
+            inBlockComment = false;
+            i += 2;
+          } else {
+            i++;
+          }
+          continue;
+        }
+
+        if (inTripleQuote) {
+          if (line.startsWith("\"\"\"", i)) {
+            inTripleQuote = false;
+            i += 3;
+          } else {
+            i++;
+          }
+          continue;
+        }
+
+        char c = line.charAt(i);
+        if (line.startsWith("//", i)) {
+          return;
+        } else if (line.startsWith("/*", i)) {
+          inBlockComment = true;
+          i += 2;
+        } else if (line.startsWith("\"\"\"", i)) {
+          inTripleQuote = true;
+          i += 3;
+        } else if (c == '"') {
+          i = skipQuoted(line, i, '"');
+        } else if (c == '\'' && i + 2 < len
+            && (line.charAt(i + 2) == '\'' || line.charAt(i + 1) == '\\')) {
+          // char literal, not a symbol
+          i = skipQuoted(line, i, '\'');
+        } else {
+          if (c == '{' || c == '(' || c == '[') {
+            depth++;
+          } else if (c == '}' || c == ')' || c == ']') {
+            depth--;
+          }
+          i++;
+        }
+      }
+    }
+
+    private int skipQuoted(String line, int start, char quote) {
+      int i = start + 1;
+      while (i < line.length()) {
+        char c = line.charAt(i);
+        if (c == '\\') {
+          i += 2;
+        } else if (c == quote) {
+          return i + 1;
+        } else {
+          i++;
+        }
+      }
+      return i;
+    }
+  }
+}
@@ -33,6 +33,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.exec.CommandLine;
@@ -50,6 +51,7 @@ import org.apache.zeppelin.interpreter.InterpreterHookRegistry.HookType;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
 import org.apache.zeppelin.interpreter.util.InterpreterOutputStream;
+import org.apache.zeppelin.interpreter.util.StatementChannel;
 import org.apache.zeppelin.spark.dep.SparkDependencyContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -257,14 +259,13 @@ public class PySparkInterpreter extends Interpreter implements ExecuteResultHand
     executor.getWatchdog().destroyProcess();
     new File(scriptPath).delete();
     gatewayServer.shutdown();
+    statementChannel.failAll("pyspark interpreter is closed");
   }
 
-  PythonInterpretRequest pythonInterpretRequest = null;
-
   /**
    *
    */
-  public class PythonInterpretRequest {
+  public class PythonInterpretRequest extends StatementChannel.Request {
     public String statements;
     public String jobGroup;
 
@@ -282,32 +283,30 @@ public class PySparkInterpreter extends Interpreter implements ExecuteResultHand
     }
   }
 
-  Integer statementSetNotifier = new Integer(0);
+  private final StatementChannel<PythonInterpretRequest> statementChannel =
+      new StatementChannel<>();
 
   public PythonInterpretRequest getStatements() {
-    synchronized (statementSetNotifier) {
-      while (pythonInterpretRequest == null) {
-        try {
-          statementSetNotifier.wait(1000);
-        } catch (InterruptedException e) {
+    while (true) {
+      try {
+        PythonInterpretRequest req = statementChannel.poll(1, TimeUnit.SECONDS);
+        if (req != null) {
+          return req;
         }
+      } catch (InterruptedException e) {
       }
-      PythonInterpretRequest req = pythonInterpretRequest;
-      pythonInterpretRequest = null;
-      return req;
     }
   }
 
-  String statementOutput = null;
-  boolean statementError = false;
-  Integer statementFinishedNotifier = new Integer(0);
-
+  /**
+   * Complete the request python script is running
+   */
   public void setStatementsFinished(String out, boolean error) {
-    synchronized (statementFinishedNotifier) {
-      statementOutput = out;
-      statementError = error;
-      statementFinishedNotifier.notify();
-    }
+    statementChannel.completeCurrent(out, error);
+  }
+
+  public void setStatementsFinished(int requestId, String out, boolean error) {
+    statementChannel.complete(requestId, out, error);
   }
 
   boolean pythonScriptInitialized = false;
@@ -385,24 +384,23 @@ public class PySparkInterpreter extends Interpreter implements ExecuteResultHand
     ZeppelinContext __zeppelin__ = sparkInterpreter.getZeppelinContext();
     __zeppelin__.setInterpreterContext(context);
     __zeppelin__.setGui(context.getGui());
-    pythonInterpretRequest = new PythonInterpretRequest(st, jobGroup);
-    statementOutput = null;
+    sparkInterpreter.startProgressTracking(context);
 
-    synchronized (statementSetNotifier) {
-      statementSetNotifier.notify();
-    }
-
-    synchronized (statementFinishedNotifier) {
-      while (statementOutput == null) {
+    StatementChannel.Response response;
+    try {
+      response = statementChannel.submit(new PythonInterpretRequest(st, jobGroup));
+      while (!response.isDone()) {
         try {
-          statementFinishedNotifier.wait(1000);
+          response.await(1, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
         }
       }
+    } finally {
+      sparkInterpreter.stopProgressTracking(context);
     }
 
-    if (statementError) {
-      return new InterpreterResult(Code.ERROR, statementOutput);
+    if (response.isError()) {
+      return new InterpreterResult(Code.ERROR, response.output());
     } else {
 
       try {
@@ -463,36 +461,26 @@ public class PySparkInterpreter extends Interpreter implements ExecuteResultHand
       return new LinkedList<>();
     }
 
-    pythonInterpretRequest = new PythonInterpretRequest(completionCommand, "");
-    statementOutput = null;
-
-    synchronized (statementSetNotifier) {
-      statementSetNotifier.notify();
-    }
-
-    String[] completionList = null;
-    synchronized (statementFinishedNotifier) {
-      long startTime = System.currentTimeMillis();
-      while (statementOutput == null
-        && pythonscriptRunning) {
-        try {
-          if (System.currentTimeMillis() - startTime > MAX_TIMEOUT_SEC * 1000) {
-            logger.error("pyspark completion didn't have response for {}sec.", MAX_TIMEOUT_SEC);
-            break;
-          }
-          statementFinishedNotifier.wait(1000);
-        } catch (InterruptedException e) {
-          // not working
-          logger.info("wait drop");
-          return new LinkedList<>();
-        }
-      }
-      if (statementError) {
+    // completion request is queued along with paragraphs and answered by its own id,
+    // so a late answer can't be taken as the result of another request
+    StatementChannel.Response response =
+        statementChannel.submit(new PythonInterpretRequest(completionCommand, ""));
+    try {
+      if (!response.await(MAX_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+        logger.error("pyspark completion didn't have response for {}sec.", MAX_TIMEOUT_SEC);
+        statementChannel.abandon(response);
         return new LinkedList<>();
       }
-      Gson gson = new Gson();
-      completionList = gson.fromJson(statementOutput, String[].class);
+    } catch (InterruptedException e) {
+      logger.info("wait drop");
+      statementChannel.abandon(response);
+      return new LinkedList<>();
+    }
+    if (response.isError()) {
+      return new LinkedList<>();
     }
+    Gson gson = new Gson();
+    String[] completionList = gson.fromJson(response.output(), String[].class);
     //end code for completion
 
     if (completionList == null) {
@@ -628,12 +616,14 @@ public class PySparkInterpreter extends Interpreter implements ExecuteResultHand
   @Override
   public void onProcessComplete(int exitValue) {
     pythonscriptRunning = false;
+    statementChannel.failAll("python process terminated. exit code " + exitValue);
     logger.info("python process terminated. exit code " + exitValue);
   }
 
   @Override
   public void onProcessFailed(ExecuteException e) {
     pythonscriptRunning = false;
+    statementChannel.failAll("python process failed " + e.getMessage());
     logger.error("python process failed", e);
   }
 }
@@ -43,7 +43,6 @@ import org.apache.spark.repl.SparkILoop;
 import org.apache.spark.scheduler.*;
 import org.apache.spark.sql.SQLContext;
 import org.apache.spark.ui.SparkUI;
-import org.apache.spark.JobProgressUtil;
 import org.apache.zeppelin.interpreter.Interpreter;
 import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterException;
@@ -105,6 +104,7 @@ public class SparkInterpreter extends Interpreter {
   private static SparkEnv env;
   private static Object sparkSession;    // spark 2.x
   private static SparkListener sparkListener;
+  private static final JobProgressTracker progressTracker = new JobProgressTracker();
   private static AbstractFile classOutputDir;
   private static Integer sharedInterpreterLock = new Integer(0);
   private static AtomicInteger numReferenceOfSparkContext = new AtomicInteger(0);
@@ -123,6 +123,7 @@ public class SparkInterpreter extends Interpreter {
   private static File outputDir;          // class outputdir for scala 2.11
   private Object classServer;      // classserver for scala 2.11
   private JavaSparkContext jsc;
+  private ParagraphChunker paragraphChunker;
 
 
   public SparkInterpreter(Properties property) {
@@ -168,7 +169,16 @@ public class SparkInterpreter extends Interpreter {
     SparkListener pl = new SparkListener() {
       @Override
       public synchronized void onJobStart(SparkListenerJobStart jobStart) {
-
+        Properties properties = jobStart.properties();
+        String jobGroup = properties == null ?
+            null : properties.getProperty(JobProgressTracker.JOB_GROUP_PROPERTY);
+        Map<Integer, Integer> stageTasks = new java.util.HashMap<>();
+        Map<Integer, String> stageNames = new java.util.HashMap<>();
+        for (StageInfo stageInfo : JavaConversions.seqAsJavaList(jobStart.stageInfos())) {
+          stageTasks.put(stageInfo.stageId(), stageInfo.numTasks());
+          stageNames.put(stageInfo.stageId(), stageInfo.name());
+        }
+        progressTracker.onJobStart(jobStart.jobId(), jobGroup, stageTasks, stageNames);
       }
 
       @Override
@@ -224,22 +234,39 @@ public class SparkInterpreter extends Interpreter {
 
       @Override
       public void onJobEnd(SparkListenerJobEnd jobEnd) {
-
+        progressTracker.onJobEnd(jobEnd.jobId());
       }
 
       @Override
       public void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
-
+        progressTracker.onStageCompleted(stageCompleted.stageInfo().stageId());
       }
 
       @Override
       public void onStageSubmitted(SparkListenerStageSubmitted stageSubmitted) {
-
+        StageInfo stageInfo = stageSubmitted.stageInfo();
+        progressTracker.onStageSubmitted(stageInfo.stageId(), stageInfo.numTasks());
       }
 
       @Override
       public void onTaskEnd(SparkListenerTaskEnd taskEnd) {
-
+        Object metrics = taskEnd.taskMetrics();
+        long shuffleRead = 0;
+        long shuffleWrite = 0;
+        long memorySpilled = 0;
+        long diskSpilled = 0;
+        if (metrics != null) {
+          // shuffle metrics are Option in spark 1.x, plain objects in spark 2.x
+          shuffleRead = metricValue(metrics, "shuffleReadMetrics", "totalBytesRead");
+          shuffleWrite = metricValue(metrics, "shuffleWriteMetrics", "bytesWritten");
+          if (shuffleWrite == 0) {
+            shuffleWrite = metricValue(metrics, "shuffleWriteMetrics", "shuffleBytesWritten");
+          }
+          memorySpilled = metricValue(metrics, null, "memoryBytesSpilled");
+          diskSpilled = metricValue(metrics, null, "diskBytesSpilled");
+        }
+        progressTracker.onTaskEnd(taskEnd.stageId(), taskEnd.taskInfo().successful(),
+            shuffleRead, shuffleWrite, memorySpilled, diskSpilled);
       }
 
       @Override
@@ -289,6 +316,32 @@ public class SparkInterpreter extends Interpreter {
     return pl;
   }
 
+  /**
+   * Read a long metric of TaskMetrics by reflection, as its shape differs by spark version.
+   */
+  private static long metricValue(Object metrics, String group, String name) {
+    try {
+      Object target = metrics;
+      if (group != null) {
+        target = metrics.getClass().getMethod(group).invoke(metrics);
+        if (target instanceof Option) {
+          Option option = (Option) target;
+          if (option.isEmpty()) {
+            return 0;
+          }
+          target = option.get();
+        }
+      }
+      if (target == null) {
+        return 0;
+      }
+      Object value = target.getClass().getMethod(name).invoke(target);
+      return value instanceof Number ? ((Number) value).longValue() : 0;
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      return 0;
+    }
+  }
+
   private boolean useHiveContext() {
     return java.lang.Boolean.parseBoolean(getProperty("zeppelin.spark.useHiveContext"));
   }
@@ -674,6 +727,26 @@ public class SparkInterpreter extends Interpreter {
     return java.lang.Boolean.parseBoolean(getProperty("zeppelin.spark.printREPLOutput"));
   }
 
+  /**
+   * Compile a paragraph in as few chunks as possible instead of line by line.
+   */
+  private boolean compileParagraphAsWhole() {
+    return java.lang.Boolean.parseBoolean(getProperty("zeppelin.spark.compileParagraphAsWhole"));
+  }
+
+  private int getIntProperty(String name, int defaultValue) {
+    String value = getProperty(name);
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid value {} for {}, use {}", value, name, defaultValue);
+      return defaultValue;
+    }
+  }
+
   @Override
   public void open() {
     // set properties and do login before creating any spark stuff for secured cluster
@@ -1057,6 +1130,12 @@ public class SparkInterpreter extends Interpreter {
       }
     }
 
+    if (compileParagraphAsWhole()) {
+      paragraphChunker = new ParagraphChunker(
+          getIntProperty("zeppelin.spark.compileChunkLines", 200),
+          getIntProperty("zeppelin.spark.compileCacheSize", 100));
+    }
+
     numReferenceOfSparkContext.incrementAndGet();
   }
 
@@ -1248,26 +1327,37 @@ public class SparkInterpreter extends Interpreter {
   public InterpreterResult interpret(String[] lines, InterpreterContext context) {
     synchronized (this) {
       z.setGui(context.getGui());
-      sc.setJobGroup(Utils.buildJobGroupId(context), "Zeppelin", false);
-      InterpreterResult r = interpretInput(lines, context);
-      sc.clearJobGroup();
-      return r;
+      String jobGroup = Utils.buildJobGroupId(context);
+      progressTracker.watch(jobGroup, context);
+      sc.setJobGroup(jobGroup, "Zeppelin", false);
+      try {
+        return interpretInput(lines, context);
+      } finally {
+        sc.clearJobGroup();
+        progressTracker.clear(jobGroup);
+      }
     }
   }
 
   public InterpreterResult interpretInput(String[] lines, InterpreterContext context) {
     SparkEnv.set(env);
 
-    String[] linesToRun = new String[lines.length];
-    for (int i = 0; i < lines.length; i++) {
-      linesToRun[i] = lines[i];
+    String[] linesToRun;
+    if (paragraphChunker != null) {
+      List<String> chunks = paragraphChunker.chunk(StringUtils.join(lines, "\n"));
+      linesToRun = chunks.toArray(new String[chunks.size()]);
+    } else {
+      linesToRun = new String[lines.length];
+      for (int i = 0; i < lines.length; i++) {
+        linesToRun[i] = lines[i];
+      }
     }
 
     Console.setOut(context.out);
     out.setInterpreterOutput(context.out);
     context.out.clear();
     Code r = null;
-    String incomplete = "";
+    StringBuilder incomplete = new StringBuilder();
 
     for (int l = 0; l < linesToRun.length; l++) {
       String s = linesToRun[l];
@@ -1275,14 +1365,14 @@ public class SparkInterpreter extends Interpreter {
       if (l + 1 < linesToRun.length) {
         String nextLine = linesToRun[l + 1].trim();
         if (nextLine.startsWith(".") && !nextLine.startsWith("..") && !nextLine.startsWith("./")) {
-          incomplete += s + "\n";
+          incomplete.append(s).append("\n");
           continue;
         }
       }
 
       scala.tools.nsc.interpreter.Results.Result res = null;
       try {
-        res = interpret(incomplete + s);
+        res = interpret(incomplete.append(s).toString());
       } catch (Exception e) {
         sc.clearJobGroup();
         out.setInterpreterOutput(null);
@@ -1297,9 +1387,9 @@ public class SparkInterpreter extends Interpreter {
         out.setInterpreterOutput(null);
         return new InterpreterResult(r, "");
       } else if (r == Code.INCOMPLETE) {
-        incomplete += s + "\n";
+        incomplete.append("\n");
       } else {
-        incomplete = "";
+        incomplete.setLength(0);
       }
     }
 
@@ -1355,7 +1445,19 @@ public class SparkInterpreter extends Interpreter {
   @Override
   public int getProgress(InterpreterContext context) {
     String jobGroup = Utils.buildJobGroupId(context);
-    return JobProgressUtil.progress(sc, jobGroup);
+    return progressTracker.progress(jobGroup);
+  }
+
+  /**
+   * Start tracking progress of a paragraph run by other interpreters sharing the SparkContext
+   * (pyspark, sql, r). Must be paired with {@link #stopProgressTracking(InterpreterContext)}.
+   */
+  public void startProgressTracking(InterpreterContext context) {
+    progressTracker.watch(Utils.buildJobGroupId(context), context);
+  }
+
+  public void stopProgressTracking(InterpreterContext context) {
+    progressTracker.clear(Utils.buildJobGroupId(context));
   }
 
   private Code getResultCode(scala.tools.nsc.interpreter.Results.Result r) {
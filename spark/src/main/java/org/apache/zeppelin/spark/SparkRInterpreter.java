@@ -134,6 +134,7 @@ public class SparkRInterpreter extends Interpreter {
     }
     logger.debug("set JobGroup:" + setJobGroup);
     lines = setJobGroup + "\n" + lines;
+    getSparkInterpreter().startProgressTracking(interpreterContext);
 
     try {
       // render output with knitr
@@ -160,10 +161,7 @@ public class SparkRInterpreter extends Interpreter {
       logger.error("Exception while connecting to R", e);
       return new InterpreterResult(InterpreterResult.Code.ERROR, e.getMessage());
     } finally {
-      try {
-      } catch (Exception e) {
-        // Do nothing...
-      }
+      getSparkInterpreter().stopProgressTracking(interpreterContext);
     }
   }
 
@@ -102,6 +102,16 @@ public class SparkSqlInterpreter extends Interpreter {
     }
 
     sc.setJobGroup(Utils.buildJobGroupId(context), "Zeppelin", false);
+    sparkInterpreter.startProgressTracking(context);
+    try {
+      return interpretSql(sqlc, sc, st, context);
+    } finally {
+      sparkInterpreter.stopProgressTracking(context);
+    }
+  }
+
+  private InterpreterResult interpretSql(SQLContext sqlc, SparkContext sc, String st,
+                                         InterpreterContext context) {
     Object rdd = null;
     try {
       // method signature of sqlc.sql() is changed
@@ -17,7 +17,7 @@
 
 import os, sys, getopt, traceback, json, re
 
-from py4j.java_gateway import java_import, JavaGateway, GatewayClient
+from py4j.java_gateway import java_import, JavaGateway, GatewayClient, JavaObject
 from py4j.protocol import Py4JJavaError
 from pyspark.conf import SparkConf
 from pyspark.context import SparkContext
@@ -57,16 +57,27 @@ class PyZeppelinContext(dict):
   def show(self, obj):
     from pyspark.sql import DataFrame
     if isinstance(obj, DataFrame):
-      print(gateway.jvm.org.apache.zeppelin.spark.ZeppelinContext.showDF(self.z, obj._jdf))
+      # render and write the table on the JVM side, instead of sending it back through py4j
+      self.z.show(obj._jdf)
+      print("")
     else:
       print(str(obj))
 
   # By implementing special methods it makes operating on it more Pythonic
   def __setitem__(self, key, item):
-    self.z.put(key, item)
+    from pyspark.sql import DataFrame
+    if isinstance(item, DataFrame):
+      # share the JVM DataFrame by reference, so other interpreters can use it without copy
+      self.z.put(key, item._jdf)
+    else:
+      self.z.put(key, item)
 
   def __getitem__(self, key):
-    return self.z.get(key)
+    item = self.z.get(key)
+    if self.__isJavaDataFrame(item):
+      from pyspark.sql import DataFrame
+      return DataFrame(item, sqlContext)
+    return item
 
   def __delitem__(self, key):
     self.z.remove(key)
@@ -155,6 +166,12 @@ class PyZeppelinContext(dict):
     import mpl_config
     mpl_config.configure(**kwargs)
 
+  def __isJavaDataFrame(self, item):
+    if not isinstance(item, JavaObject):
+      return False
+    return item.getClass().getName() in ("org.apache.spark.sql.Dataset",
+                                         "org.apache.spark.sql.DataFrame")
+
   def __tupleToScalaTuple2(self, tuple):
     if (len(tuple) == 2):
       return gateway.jvm.scala.Tuple2(tuple[0], tuple[1])
@@ -366,14 +383,14 @@ while True :
       except:
         raise Exception(traceback.format_exc())
 
-    intp.setStatementsFinished("", False)
+    intp.setStatementsFinished(req.id(), "", False)
   except Py4JJavaError:
     excInnerError = traceback.format_exc() # format_tb() does not return the inner exception
     innerErrorStart = excInnerError.find("Py4JJavaError:")
     if innerErrorStart > -1:
        excInnerError = excInnerError[innerErrorStart:]
-    intp.setStatementsFinished(excInnerError + str(sys.exc_info()), True)
+    intp.setStatementsFinished(req.id(), excInnerError + str(sys.exc_info()), True)
   except:
-    intp.setStatementsFinished(traceback.format_exc(), True)
+    intp.setStatementsFinished(req.id(), traceback.format_exc(), True)
 
   output.reset()
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.remote.RemoteEventClientWrapper;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobProgressTrackerTest {
+  private static final String GROUP = "zeppelin-note-paragraph";
+
+  private JobProgressTracker tracker;
+  private RemoteEventClientWrapper client;
+
+  @Before
+  public void setUp() {
+    tracker = new JobProgressTracker();
+    client = mock(RemoteEventClientWrapper.class);
+    InterpreterContext context = mock(InterpreterContext.class);
+    when(context.getNoteId()).thenReturn("note");
+    when(context.getParagraphId()).thenReturn("paragraph");
+    when(context.getClient()).thenReturn(client);
+    tracker.watch(GROUP, context);
+  }
+
+  private void startJob(int jobId, int... stageTasks) {
+    Map<Integer, Integer> tasks = new HashMap<>();
+    Map<Integer, String> names = new HashMap<>();
+    for (int i = 0; i < stageTasks.length; i++) {
+      tasks.put(jobId * 10 + i, stageTasks[i]);
+      names.put(jobId * 10 + i, "stage " + i);
+    }
+    tracker.onJobStart(jobId, GROUP, tasks, names);
+  }
+
+  @Test
+  public void testProgress() {
+    startJob(1, 2, 2);
+    assertEquals(0, tracker.progress(GROUP));
+
+    tracker.onTaskEnd(10, true, 0, 100, 0, 0);
+    assertEquals(25, tracker.progress(GROUP));
+    tracker.onTaskEnd(10, true, 0, 100, 10, 20);
+    tracker.onStageCompleted(10);
+    assertEquals(50, tracker.progress(GROUP));
+
+    tracker.onTaskEnd(11, true, 200, 0, 0, 0);
+    assertEquals(75, tracker.progress(GROUP));
+
+    List<Map<String, Object>> details = tracker.details(GROUP);
+    assertEquals(2, details.size());
+    assertEquals(200L, details.get(0).get("shuffleWriteBytes"));
+    assertEquals(10L, details.get(0).get("memoryBytesSpilled"));
+    assertEquals(20L, details.get(0).get("diskBytesSpilled"));
+    assertEquals(200L, details.get(1).get("shuffleReadBytes"));
+
+    tracker.onJobEnd(1);
+    assertEquals(100, tracker.progress(GROUP));
+  }
+
+  @Test
+  public void testSkippedStage() {
+    startJob(1, 4, 4);
+    tracker.onStageCompleted(11);
+    tracker.onJobEnd(1);
+    assertEquals(100, tracker.progress(GROUP));
+
+    // skipped stage does not count, 4 of 12 tasks are done
+    startJob(2, 4, 4);
+    assertEquals(33, tracker.progress(GROUP));
+  }
+
+  @Test
+  public void testPushOnlyOnChange() {
+    startJob(1, 200);
+    // job start pushes 0%
+    verify(client, times(1)).onParagraphProgress(
+        eq("note"), eq("paragraph"), eq(0), anyList());
+
+    // 200 tasks but only 100 distinct percentages
+    for (int i = 0; i < 200; i++) {
+      tracker.onTaskEnd(10, true, 0, 0, 0, 0);
+    }
+    verify(client, times(1)).onParagraphProgress(
+        eq("note"), eq("paragraph"), eq(50), anyList());
+    verify(client, times(101)).onParagraphProgress(
+        eq("note"), eq("paragraph"), anyInt(), anyList());
+  }
+
+  @Test
+  public void testClear() {
+    startJob(1, 1);
+    tracker.onTaskEnd(10, true, 0, 0, 0, 0);
+    assertEquals(100, tracker.progress(GROUP));
+    tracker.clear(GROUP);
+    assertEquals(0, tracker.progress(GROUP));
+    assertEquals(0, tracker.details(GROUP).size());
+  }
+
+  @Test
+  public void testIgnoreJobWithoutGroup() {
+    Map<Integer, Integer> tasks = new HashMap<>();
+    tasks.put(1, 1);
+    tracker.onJobStart(1, null, tasks, new HashMap<Integer, String>());
+    tracker.onTaskEnd(1, true, 0, 0, 0, 0);
+    assertEquals(0, tracker.progress(GROUP));
+  }
+
+  @Test
+  public void testIgnoreJobOfUnwatchedGroup() {
+    Map<Integer, Integer> tasks = new HashMap<>();
+    tasks.put(1, 1);
+    tracker.onJobStart(1, "streaming-job-group", tasks, new HashMap<Integer, String>());
+    tracker.onTaskEnd(1, true, 0, 0, 0, 0);
+    tracker.onJobEnd(1);
+    assertEquals(0, tracker.progress("streaming-job-group"));
+    // only the watched group
+    assertEquals(1, tracker.size());
+  }
+
+  @Test
+  public void testEndedJobsAreForgotten() {
+    startJob(1, 1, 1);
+    tracker.onTaskEnd(10, true, 0, 0, 0, 0);
+    tracker.onJobEnd(1);
+    startJob(2, 1);
+    tracker.onJobEnd(2);
+    assertEquals(100, tracker.progress(GROUP));
+    assertEquals(3, tracker.details(GROUP).size());
+    assertEquals(1, tracker.size());
+
+    // job still running when the paragraph finishes
+    startJob(3, 1);
+    tracker.clear(GROUP);
+    tracker.onTaskEnd(30, true, 0, 0, 0, 0);
+    tracker.onJobEnd(3);
+    assertEquals(0, tracker.size());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class ParagraphChunkerTest {
+
+  @Test
+  public void testWholeParagraphIsOneChunk() {
+    ParagraphChunker chunker = new ParagraphChunker(200, 10);
+    List<String> chunks = chunker.chunk("val a = 1\nval b = 2\nprintln(a + b)");
+    assertEquals(1, chunks.size());
+    assertEquals("val a = 1\nval b = 2\nprintln(a + b)\n", chunks.get(0));
+  }
+
+  @Test
+  public void testSplitOnTopLevelBoundaries() {
+    ParagraphChunker chunker = new ParagraphChunker(2, 10);
+    List<String> chunks = chunker.chunk(
+        "val a = 1\n" +
+        "def f(x: Int) = {\n" +
+        "  x + 1\n" +
+        "}\n" +
+        "val s = \"{\"\n" +
+        "val c = '('\n" +
+        "// }\n" +
+        "val d = 2");
+    assertEquals(3, chunks.size());
+    assertEquals("val a = 1\ndef f(x: Int) = {\n  x + 1\n}\n", chunks.get(0));
+    assertEquals("val s = \"{\"\nval c = '('\n", chunks.get(1));
+    assertEquals("// }\nval d = 2\n", chunks.get(2));
+  }
+
+  @Test
+  public void testDoNotSplitContinuation() {
+    ParagraphChunker chunker = new ParagraphChunker(1, 10);
+    List<String> chunks = chunker.chunk(
+        "val a = sc.parallelize(1 to 10)\n" +
+        "  .map(_ + 1)\n" +
+        "if (true) 1\n" +
+        "else 2\n" +
+        "val s = \"\"\"a\n" +
+        "b\"\"\"");
+    assertEquals(3, chunks.size());
+    assertEquals("val a = sc.parallelize(1 to 10)\n  .map(_ + 1)\n", chunks.get(0));
+    assertEquals("if (true) 1\nelse 2\n", chunks.get(1));
+    assertEquals("val s = \"\"\"a\nb\"\"\"\n", chunks.get(2));
+  }
+
+  @Test
+  public void testCache() {
+    ParagraphChunker chunker = new ParagraphChunker(200, 2);
+    List<String> first = chunker.chunk("val a = 1");
+    assertSame(first, chunker.chunk("val a = 1"));
+    chunker.chunk("val b = 1");
+    chunker.chunk("val c = 1");
+    assertEquals(2, chunker.cachedSize());
+  }
+}
@@ -138,6 +138,21 @@ public class PySparkInterpreterTest {
     }
   }
 
+  @Test
+  public void testDataFrameInResourcePool() {
+    if (getSparkVersionNumber() > 13) {
+      String code = "df = sqlContext.createDataFrame([(1, 'a'), (2, 'b')], ['id', 'name'])\n" +
+          "z.put('df', df)\n" +
+          "assert z.get('df').count() == 2\n";
+      assertEquals(InterpreterResult.Code.SUCCESS,
+          pySparkInterpreter.interpret(code, context).code());
+
+      // DataFrame is shared with the JVM by reference
+      Object df = context.getResourcePool().get("df").get();
+      assertTrue(df.getClass().getName().startsWith("org.apache.spark.sql."));
+    }
+  }
+
   private class infinityPythonJob implements Runnable {
     @Override
     public void run() {
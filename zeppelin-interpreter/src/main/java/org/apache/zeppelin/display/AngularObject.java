@@ -21,6 +21,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.zeppelin.scheduler.ExecutorFactory;
 import org.slf4j.Logger;
@@ -39,6 +40,8 @@ public class AngularObject<T> {
   
   private transient AngularObjectListener listener;
   private transient List<AngularObjectWatcher> watchers = new LinkedList<>();
+  // incremented on every set(), to find objects changed since a snapshot
+  private transient AtomicLong version = new AtomicLong();
   
   private String noteId;   // noteId belonging to. null for global scope 
   private String paragraphId; // paragraphId belongs to. null for notebook scope
@@ -141,6 +144,24 @@ public class AngularObject<T> {
     return object;
   }
 
+  /**
+   * Get version, which changes every time the value is set
+   * @return version
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Create a copy of this object with the given value, e.g. a serialized form of the value.
+   * The copy has no listener and no watchers, and is not added to any registry
+   * @param value value of the copy
+   * @return copy
+   */
+  public AngularObject<Object> copy(Object value) {
+    return new AngularObject<>(name, value, noteId, paragraphId, null);
+  }
+
   /**
    * fire updated() event for listener
    * Note that it does not invoke watcher.watch()
@@ -169,6 +190,7 @@ public class AngularObject<T> {
     final T before = object;
     final T after = o;
     object = o;
+    version.incrementAndGet();
     if (emit) {
       emit();
     }
@@ -17,11 +17,11 @@
 
 package org.apache.zeppelin.display;
 
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * AngularObjectRegistry keeps all the object that binded to Angular Display System.
@@ -30,9 +30,12 @@ import java.util.Map;
  *  - Paragraphscope : AngularObject is valid in specific paragraph
  *  - Notebook scope: AngularObject is valid in a single notebook
  *  - Global scope : Shared to all notebook that uses the same interpreter group
+ *
+ * Objects are kept in concurrent maps per scope, so reads and writes don't wait for each other
+ * and listeners are called without holding any lock.
  */
 public class AngularObjectRegistry {
-  Map<String, Map<String, AngularObject>> registry = new HashMap<>();
+  volatile ConcurrentMap<String, Map<String, AngularObject>> registry = new ConcurrentHashMap<>();
   private final String GLOBAL_KEY = "_GLOBAL_";
   private AngularObjectRegistryListener listener;
   private String interpreterId;
@@ -88,14 +91,16 @@ public class AngularObjectRegistry {
   }
   
   private Map<String, AngularObject> getRegistryForKey(String noteId, String paragraphId) {
-    synchronized (registry) {
-      String key = getRegistryKey(noteId, paragraphId);
-      if (!registry.containsKey(key)) {
-        registry.put(key, new HashMap<String, AngularObject>());
+    String key = getRegistryKey(noteId, paragraphId);
+    Map<String, AngularObject> r = registry.get(key);
+    if (r == null) {
+      Map<String, AngularObject> created = new ConcurrentHashMap<>();
+      r = registry.putIfAbsent(key, created);
+      if (r == null) {
+        r = created;
       }
-      
-      return registry.get(key);
     }
+    return r;
   }
 
   /**
@@ -116,12 +121,9 @@ public class AngularObjectRegistry {
                            boolean emit) {
     AngularObject ao = createNewAngularObject(name, o, noteId, paragraphId);
 
-    synchronized (registry) {
-      Map<String, AngularObject> noteLocalRegistry = getRegistryForKey(noteId, paragraphId);
-      noteLocalRegistry.put(name, ao);
-      if (listener != null && emit) {
-        listener.onAdd(interpreterId, ao);
-      }
+    getRegistryForKey(noteId, paragraphId).put(name, ao);
+    if (listener != null && emit) {
+      listener.onAdd(interpreterId, ao);
     }
 
     return ao;
@@ -158,14 +160,12 @@ public class AngularObjectRegistry {
    * @return removed object. null if object is not found in registry
    */
   public AngularObject remove(String name, String noteId, String paragraphId, boolean emit) {
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
-      AngularObject o = r.remove(name);
-      if (listener != null && emit) {
-        listener.onRemove(interpreterId, name, noteId, paragraphId);
-      }
-      return o;
+    Map<String, AngularObject> r = registry.get(getRegistryKey(noteId, paragraphId));
+    AngularObject o = r == null ? null : r.remove(name);
+    if (listener != null && emit) {
+      listener.onRemove(interpreterId, name, noteId, paragraphId);
     }
+    return o;
   }
 
   /**
@@ -179,11 +179,9 @@ public class AngularObjectRegistry {
    * @param paragraphId paragraphId
    */
   public void removeAll(String noteId, String paragraphId) {
-    synchronized (registry) {
-      List<AngularObject> all = getAll(noteId, paragraphId);
-      for (AngularObject ao : all) {
-        remove(ao.getName(), noteId, paragraphId);
-      }
+    List<AngularObject> all = getAll(noteId, paragraphId);
+    for (AngularObject ao : all) {
+      remove(ao.getName(), noteId, paragraphId);
     }
   }
 
@@ -195,10 +193,8 @@ public class AngularObjectRegistry {
    * @return angularobject. null when not found
    */
   public AngularObject get(String name, String noteId, String paragraphId) {
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
-      return r.get(name);
-    }
+    Map<String, AngularObject> r = registry.get(getRegistryKey(noteId, paragraphId));
+    return r == null ? null : r.get(name);
   }
 
   /**
@@ -209,11 +205,9 @@ public class AngularObjectRegistry {
    */
   public List<AngularObject> getAll(String noteId, String paragraphId) {
     List<AngularObject> all = new LinkedList<>();
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
-      if (r != null) {
-        all.addAll(r.values());
-      }
+    Map<String, AngularObject> r = registry.get(getRegistryKey(noteId, paragraphId));
+    if (r != null) {
+      all.addAll(r.values());
     }
     return all;
   }
@@ -228,15 +222,13 @@ public class AngularObjectRegistry {
    */
   public List<AngularObject> getAllWithGlobal(String noteId) {
     List<AngularObject> all = new LinkedList<>();
-    synchronized (registry) {
-      Map<String, AngularObject> global = getRegistryForKey(null, null);
-      if (global != null) {
-        all.addAll(global.values());
-      }
-      for (String key : registry.keySet()) {
-        if (key.startsWith(noteId)) {
-          all.addAll(registry.get(key).values());
-        }
+    Map<String, AngularObject> global = registry.get(GLOBAL_KEY);
+    if (global != null) {
+      all.addAll(global.values());
+    }
+    for (Map.Entry<String, Map<String, AngularObject>> entry : registry.entrySet()) {
+      if (entry.getKey().startsWith(noteId)) {
+        all.addAll(entry.getValue().values());
       }
     }
     return all;
@@ -251,6 +243,36 @@ public class AngularObjectRegistry {
   }
 
   public void setRegistry(Map<String, Map<String, AngularObject>> registry) {
-    this.registry = registry;
+    ConcurrentMap<String, Map<String, AngularObject>> copy = new ConcurrentHashMap<>();
+    addAll(copy, registry);
+    this.registry = copy;
+  }
+
+  /**
+   * Add the objects of another registry, e.g. a part of it, replacing the objects of the same
+   * scope and name. Listeners are not notified
+   * @param objects objects by scope and name, in the format of getRegistry()
+   */
+  public void addAll(Map<String, Map<String, AngularObject>> objects) {
+    addAll(registry, objects);
+  }
+
+  private static void addAll(ConcurrentMap<String, Map<String, AngularObject>> registry,
+      Map<String, Map<String, AngularObject>> objects) {
+    for (Map.Entry<String, Map<String, AngularObject>> entry : objects.entrySet()) {
+      Map<String, AngularObject> scope = registry.get(entry.getKey());
+      if (scope == null) {
+        Map<String, AngularObject> created = new ConcurrentHashMap<>();
+        scope = registry.putIfAbsent(entry.getKey(), created);
+        if (scope == null) {
+          scope = created;
+        }
+      }
+      for (Map.Entry<String, AngularObject> object : entry.getValue().entrySet()) {
+        if (object.getKey() != null && object.getValue() != null) {
+          scope.put(object.getKey(), object.getValue());
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.display;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * Script with simple forms, parsed into the text between forms and the forms. Rendering it
+ * appends them in a single pass instead of matching the script again. Parsed scripts are cached,
+ * paragraphs are rendered with the same script on every run and form change.
+ */
+class FormTemplate {
+  private static final int MAX_CACHED_TEMPLATES = 512;
+
+  private static final Map<String, FormTemplate> cache = Collections.synchronizedMap(
+      new LinkedHashMap<String, FormTemplate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FormTemplate> eldest) {
+          return size() > MAX_CACHED_TEMPLATES;
+        }
+      });
+
+  // texts.length == forms.length + 1, texts[i] comes before forms[i]
+  private final String[] texts;
+  private final Input[] forms;
+  private final int textLength;
+
+  private FormTemplate(String[] texts, Input[] forms) {
+    this.texts = texts;
+    this.forms = forms;
+    int length = 0;
+    for (String text : texts) {
+      length += text.length();
+    }
+    this.textLength = length;
+  }
+
+  /**
+   * @return cached template of the script
+   */
+  static FormTemplate of(String script) {
+    FormTemplate template = cache.get(script);
+    if (template == null) {
+      template = compile(script);
+      cache.put(script, template);
+    }
+    return template;
+  }
+
+  static FormTemplate compile(String script) {
+    List<String> texts = new ArrayList<>();
+    List<Input> forms = new ArrayList<>();
+    Matcher match = Input.VAR_PTN.matcher(script);
+    int end = 0;
+    while (match.find()) {
+      texts.add(script.substring(end, match.start()));
+      forms.add(Input.getInputForm(match));
+      end = match.end();
+    }
+    texts.add(script.substring(end));
+    return new FormTemplate(texts.toArray(new String[texts.size()]),
+        forms.toArray(new Input[forms.size()]));
+  }
+
+  /**
+   * @return copy of the forms by name, the last one wins when a name is used twice
+   */
+  LinkedHashMap<String, Input> getForms() {
+    LinkedHashMap<String, Input> result = new LinkedHashMap<>();
+    for (Input form : forms) {
+      result.put(form.name, form.copy());
+    }
+    result.remove("pql");
+    return result;
+  }
+
+  String render(Map<String, Object> params) {
+    if (forms.length == 0) {
+      return texts[0];
+    }
+    StringBuilder sb = new StringBuilder(textLength + forms.length * 16);
+    for (int i = 0; i < forms.length; i++) {
+      sb.append(texts[i]);
+      sb.append(Input.expand(forms[i], params));
+    }
+    sb.append(texts[forms.length]);
+    return sb.toString();
+  }
+}
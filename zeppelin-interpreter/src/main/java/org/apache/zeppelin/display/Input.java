@@ -162,6 +162,19 @@ public class Input implements Serializable {
     return hidden;
   }
 
+  Input copy() {
+    Object defaultValueCopy = defaultValue instanceof Object[] ?
+        ((Object[]) defaultValue).clone() : defaultValue;
+    ParamOption[] optionsCopy = null;
+    if (options != null) {
+      optionsCopy = new ParamOption[options.length];
+      for (int i = 0; i < options.length; i++) {
+        optionsCopy[i] = new ParamOption(options[i].value, options[i].displayName);
+      }
+    }
+    return new Input(name, displayName, type, argument, defaultValueCopy, optionsCopy, hidden);
+  }
+
   // Syntax of variables: ${TYPE:NAME=DEFAULT_VALUE1|DEFAULT_VALUE2|...,VALUE1|VALUE2|...}
   // Type is optional. Type may contain an optional argument with syntax: TYPE(ARG)
   // NAME and VALUEs may contain an optional display name with syntax: NAME(DISPLAY_NAME)
@@ -173,11 +186,12 @@ public class Input implements Serializable {
   //            ${checkbox( or ):country(Country)=US|JP,US(United States)|UK|JP}
   //                                                checkbox form with " or " as delimiter: will be
   //                                                expanded to "US or JP"
-  private static final Pattern VAR_PTN = Pattern.compile("([_])?[$][{]([^=}]*([=][^}]*)?)[}]");
+  static final Pattern VAR_PTN = Pattern.compile("([_])?[$][{]([^=}]*([=][^}]*)?)[}]");
+  private static final Pattern NAME_PTN = Pattern.compile("([^(]*)\\s*[(]([^)]*)[)]");
+  private static final Pattern TYPE_PTN = Pattern.compile("([^:()]*)\\s*([(][^()]*[)])?\\s*:(.*)");
 
   private static String[] getNameAndDisplayName(String str) {
-    Pattern p = Pattern.compile("([^(]*)\\s*[(]([^)]*)[)]");
-    Matcher m = p.matcher(str.trim());
+    Matcher m = NAME_PTN.matcher(str.trim());
     if (m == null || m.find() == false) {
       return null;
     }
@@ -188,8 +202,7 @@ public class Input implements Serializable {
   }
 
   private static String[] getType(String str) {
-    Pattern p = Pattern.compile("([^:()]*)\\s*([(][^()]*[)])?\\s*:(.*)");
-    Matcher m = p.matcher(str.trim());
+    Matcher m = TYPE_PTN.matcher(str.trim());
     if (m == null || m.find() == false) {
       return null;
     }
@@ -202,7 +215,7 @@ public class Input implements Serializable {
     return ret;
   }
 
-  private static Input getInputForm(Matcher match) {
+  static Input getInputForm(Matcher match) {
     String hiddenPart = match.group(1);
     boolean hidden = false;
     if ("_".equals(hiddenPart)) {
@@ -285,65 +298,58 @@ public class Input implements Serializable {
     return new Input(varName, displayName, type, arg, defaultValue, paramOptions, hidden);
   }
 
+  /**
+   * Forms in the script. The script is parsed once and cached, see {@link FormTemplate}
+   */
   public static LinkedHashMap<String, Input> extractSimpleQueryForm(String script) {
-    LinkedHashMap<String, Input> forms = new LinkedHashMap<>();
     if (script == null) {
-      return forms;
+      return new LinkedHashMap<>();
     }
-    String replaced = script;
-
-    Matcher match = VAR_PTN.matcher(replaced);
-    while (match.find()) {
-      Input form = getInputForm(match);
-      forms.put(form.name, form);
-    }
-
-    forms.remove("pql");
-    return forms;
+    return FormTemplate.of(script).getForms();
   }
 
   private static final String DEFAULT_DELIMITER = ",";
 
+  /**
+   * Script with forms replaced by their values in params, or their default values. Values are
+   * inserted as is, they are not scanned for forms again.
+   */
   public static String getSimpleQuery(Map<String, Object> params, String script) {
-    String replaced = script;
-
-    Matcher match = VAR_PTN.matcher(replaced);
-    while (match.find()) {
-      Input input = getInputForm(match);
-      Object value;
-      if (params.containsKey(input.name)) {
-        value = params.get(input.name);
-      } else {
-        value = input.defaultValue;
-      }
+    return FormTemplate.of(script).render(params);
+  }
 
-      String expanded;
-      if (value instanceof Object[] || value instanceof Collection) {  // multi-selection
-        String delimiter = input.argument;
-        if (delimiter == null) {
-          delimiter = DEFAULT_DELIMITER;
-        }
-        Collection<Object> checked = value instanceof Collection ? (Collection<Object>) value
-                : Arrays.asList((Object[]) value);
-        List<Object> validChecked = new LinkedList<>();
-        for (Object o : checked) {  // filter out obsolete checked values
-          for (ParamOption option : input.getOptions()) {
-            if (option.getValue().equals(o)) {
-              validChecked.add(o);
-              break;
-            }
+  /**
+   * @return value of the form in params or its default value, as it's inserted in the script
+   */
+  static String expand(Input input, Map<String, Object> params) {
+    Object value;
+    if (params.containsKey(input.name)) {
+      value = params.get(input.name);
+    } else {
+      value = input.defaultValue;
+    }
+
+    if (value instanceof Object[] || value instanceof Collection) {  // multi-selection
+      String delimiter = input.argument;
+      if (delimiter == null) {
+        delimiter = DEFAULT_DELIMITER;
+      }
+      Collection<Object> checked = value instanceof Collection ? (Collection<Object>) value
+              : Arrays.asList((Object[]) value);
+      List<Object> validChecked = new LinkedList<>();
+      for (Object o : checked) {  // filter out obsolete checked values
+        for (ParamOption option : input.getOptions()) {
+          if (option.getValue().equals(o)) {
+            validChecked.add(o);
+            break;
           }
         }
-        params.put(input.name, validChecked);
-        expanded = StringUtils.join(validChecked, delimiter);
-      } else {  // single-selection
-        expanded = value.toString();
       }
-      replaced = match.replaceFirst(expanded);
-      match = VAR_PTN.matcher(replaced);
+      params.put(input.name, validChecked);
+      return StringUtils.join(validChecked, delimiter);
+    } else {  // single-selection
+      return value.toString();
     }
-
-    return replaced;
   }
 
 
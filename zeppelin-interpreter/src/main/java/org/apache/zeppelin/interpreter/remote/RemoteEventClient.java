@@ -1,5 +1,6 @@
 package org.apache.zeppelin.interpreter.remote;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,4 +22,10 @@ public class RemoteEventClient implements RemoteEventClientWrapper {
     client.onMetaInfosReceived(infos);
   }
 
+  @Override
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details) {
+    client.onParagraphProgress(noteId, paragraphId, progress, details);
+  }
+
 }
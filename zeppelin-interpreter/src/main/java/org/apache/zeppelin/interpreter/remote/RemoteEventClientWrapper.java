@@ -1,5 +1,6 @@
 package org.apache.zeppelin.interpreter.remote;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -12,4 +13,7 @@ public interface RemoteEventClientWrapper {
 
   public void onMetaInfosReceived(Map<String, String> infos);
 
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details);
+
 }
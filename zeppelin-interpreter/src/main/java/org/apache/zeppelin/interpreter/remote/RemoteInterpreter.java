@@ -45,6 +45,8 @@ import com.google.gson.reflect.TypeToken;
  */
 public class RemoteInterpreter extends Interpreter {
   private static final Logger logger = LoggerFactory.getLogger(RemoteInterpreter.class);
+  // angular objects pushed to a started interpreter process are sent in parts of this size
+  static final int ANGULAR_REGISTRY_PUSH_CHUNK_SIZE = 1024 * 1024;
 
   private final RemoteInterpreterProcessListener remoteInterpreterProcessListener;
   private final ApplicationEventListener applicationEventListener;
@@ -538,7 +540,9 @@ public class RemoteInterpreter extends Interpreter {
   /**
    * Push local angular object registry to
    * remote interpreter. This method should be
-   * call ONLY inside the init() method
+   * call ONLY inside the init() method.
+   * The registry is pushed in parts of about ANGULAR_REGISTRY_PUSH_CHUNK_SIZE characters,
+   * which the remote interpreter adds to its registry.
    */
   void pushAngularObjectRegistryToRemote(Client client) throws TException {
     final AngularObjectRegistry angularObjectRegistry = this.getInterpreterGroup()
@@ -551,13 +555,47 @@ public class RemoteInterpreter extends Interpreter {
       logger.info("Push local angular object registry from ZeppelinServer to" +
           " remote interpreter group {}", this.getInterpreterGroup().getId());
 
-      final java.lang.reflect.Type registryType = new TypeToken<Map<String,
-          Map<String, AngularObject>>>() {
-      }.getType();
+      List<String> chunks =
+          splitAngularObjectRegistry(registry, ANGULAR_REGISTRY_PUSH_CHUNK_SIZE);
+      for (String chunk : chunks) {
+        client.angularRegistryPush(chunk);
+      }
+      logger.debug("Pushed angular object registry in {} parts", chunks.size());
+    }
+  }
 
-      Gson gson = new Gson();
-      client.angularRegistryPush(gson.toJson(registry, registryType));
+  /**
+   * Serialize the registry into JSON objects of the format of the whole registry, each of
+   * about maxSize characters unless a single object is larger.
+   */
+  static List<String> splitAngularObjectRegistry(
+      Map<String, Map<String, AngularObject>> registry, int maxSize) {
+    Gson gson = new Gson();
+    List<String> chunks = new LinkedList<>();
+    StringBuilder chunk = new StringBuilder("{");
+    String openScope = null;
+    for (Map.Entry<String, Map<String, AngularObject>> scope : registry.entrySet()) {
+      for (Map.Entry<String, AngularObject> object : scope.getValue().entrySet()) {
+        String json = gson.toJson(object.getValue());
+        if (openScope != null && chunk.length() + json.length() > maxSize) {
+          chunks.add(chunk.append("}}").toString());
+          chunk = new StringBuilder("{");
+          openScope = null;
+        }
+        if (scope.getKey().equals(openScope)) {
+          chunk.append(',');
+        } else {
+          if (openScope != null) {
+            chunk.append("},");
+          }
+          chunk.append(gson.toJson(scope.getKey())).append(":{");
+          openScope = scope.getKey();
+        }
+        chunk.append(gson.toJson(object.getKey())).append(':').append(json);
+      }
     }
+    chunks.add(chunk.append(openScope == null ? "}" : "}}").toString());
+    return chunks;
   }
 
   public Map<String, String> getEnv() {
@@ -31,7 +31,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +50,11 @@ import java.util.Map;
 public class RemoteInterpreterEventClient implements ResourcePoolConnector {
   private final Logger logger = LoggerFactory.getLogger(RemoteInterpreterEvent.class);
   private final List<RemoteInterpreterEvent> eventQueue = new LinkedList<>();
+  // ANGULAR_OBJECT_UPDATE events in eventQueue by object (noteId, paragraphId, name).
+  // guarded by eventQueue
+  private final Map<List<String>, RemoteInterpreterEvent> queuedAngularObjectUpdates =
+      new HashMap<>();
+  private long coalescedAngularObjectUpdates;
   private final List<ResourceSet> getAllResourceResponse = new LinkedList<>();
   private final Map<ResourceId, Object> getResourceResponse = new HashMap<>();
   private final Gson gson = new Gson();
@@ -88,11 +95,25 @@ public class RemoteInterpreterEventClient implements ResourcePoolConnector {
   }
 
   /**
-   * notify angularObject update
+   * notify angularObject update.
+   * An update of the object still waiting in the queue is replaced, instead of queueing another
    */
   public void angularObjectUpdate(AngularObject object) {
-    sendEvent(new RemoteInterpreterEvent(
-        RemoteInterpreterEventType.ANGULAR_OBJECT_UPDATE, gson.toJson(object)));
+    String data = gson.toJson(object);
+    List<String> key = Arrays.asList(object.getNoteId(), object.getParagraphId(),
+        object.getName());
+    synchronized (eventQueue) {
+      RemoteInterpreterEvent queued = queuedAngularObjectUpdates.get(key);
+      if (queued != null) {
+        queued.setData(data);
+        coalescedAngularObjectUpdates++;
+        return;
+      }
+      RemoteInterpreterEvent event = new RemoteInterpreterEvent(
+          RemoteInterpreterEventType.ANGULAR_OBJECT_UPDATE, data);
+      queuedAngularObjectUpdates.put(key, event);
+      sendEvent(event);
+    }
   }
 
   /**
@@ -104,8 +125,21 @@ public class RemoteInterpreterEventClient implements ResourcePoolConnector {
     removeObject.put("noteId", noteId);
     removeObject.put("paragraphId", paragraphId);
 
-    sendEvent(new RemoteInterpreterEvent(
-        RemoteInterpreterEventType.ANGULAR_OBJECT_REMOVE, gson.toJson(removeObject)));
+    synchronized (eventQueue) {
+      // updates made after the removal must follow it
+      queuedAngularObjectUpdates.remove(Arrays.asList(noteId, paragraphId, name));
+      sendEvent(new RemoteInterpreterEvent(
+          RemoteInterpreterEventType.ANGULAR_OBJECT_REMOVE, gson.toJson(removeObject)));
+    }
+  }
+
+  /**
+   * @return number of angular object updates merged into an update waiting in the queue
+   */
+  public long getCoalescedAngularObjectUpdates() {
+    synchronized (eventQueue) {
+      return coalescedAngularObjectUpdates;
+    }
   }
 
 
@@ -226,6 +260,15 @@ public class RemoteInterpreterEventClient implements ResourcePoolConnector {
         return new RemoteInterpreterEvent(RemoteInterpreterEventType.NO_OP, "");
       } else {
         RemoteInterpreterEvent event = eventQueue.remove(0);
+        if (event.getType() == RemoteInterpreterEventType.ANGULAR_OBJECT_UPDATE) {
+          Iterator<RemoteInterpreterEvent> it = queuedAngularObjectUpdates.values().iterator();
+          while (it.hasNext()) {
+            if (it.next() == event) {
+              it.remove();
+              break;
+            }
+          }
+        }
         logger.debug("Send event {}", event.getType());
         return event;
       }
@@ -327,6 +370,22 @@ public class RemoteInterpreterEventClient implements ResourcePoolConnector {
         gson.toJson(infos)));
   }
 
+  /**
+   * notify progress of a running paragraph
+   * @param details optional interpreter specific progress details (e.g. per stage)
+   */
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details) {
+    Map<String, Object> paragraphProgress = new HashMap<>();
+    paragraphProgress.put("noteId", noteId);
+    paragraphProgress.put("paragraphId", paragraphId);
+    paragraphProgress.put("progress", progress);
+    paragraphProgress.put("details", details);
+
+    sendEvent(new RemoteInterpreterEvent(RemoteInterpreterEventType.PARAGRAPH_PROGRESS,
+        gson.toJson(paragraphProgress)));
+  }
+
   /**
    * Wait for eventQueue becomes empty
    */
@@ -340,8 +399,10 @@ public class RemoteInterpreterEventClient implements ResourcePoolConnector {
           // ignore exception
         }
       }
-      if (!eventQueue.isEmpty())
+      if (!eventQueue.isEmpty()) {
         eventQueue.clear();
+        queuedAngularObjectUpdates.clear();
+      }
     }
   }
 }
@@ -239,6 +239,16 @@ public class RemoteInterpreterEventPoller extends Thread {
           int indexOfColon = id.indexOf(":");
           String settingId = id.substring(0, indexOfColon);
           listener.onMetaInfosReceived(settingId, metaInfos);
+        } else if (event.getType() == RemoteInterpreterEventType.PARAGRAPH_PROGRESS) {
+          Map<String, Object> paragraphProgress = gson.fromJson(event.getData(),
+              new TypeToken<Map<String, Object>>() {
+              }.getType());
+          String noteId = (String) paragraphProgress.get("noteId");
+          String paragraphId = (String) paragraphProgress.get("paragraphId");
+          int progress = ((Number) paragraphProgress.get("progress")).intValue();
+          List<Map<String, Object>> details =
+              (List<Map<String, Object>>) paragraphProgress.get("details");
+          listener.onParagraphProgress(noteId, paragraphId, progress, details);
         }
         logger.debug("Event from remote process {}", event.getType());
       } catch (Exception e) {
@@ -18,6 +18,7 @@ package org.apache.zeppelin.interpreter.remote;
 
 import org.apache.zeppelin.interpreter.InterpreterResult;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,6 +30,8 @@ public interface RemoteInterpreterProcessListener {
       String noteId, String paragraphId, int index, InterpreterResult.Type type, String output);
   public void onOutputClear(String noteId, String paragraphId);
   public void onMetaInfosReceived(String settingId, Map<String, String> metaInfos);
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details);
   public void onRemoteRunParagraph(String noteId, String ParagraphID) throws Exception;
   public void onGetParagraphRunners(
       String noteId, String paragraphId, RemoteWorksEventListener callback);
@@ -965,7 +965,8 @@ public class RemoteInterpreterServer
       Map<String, Map<String, AngularObject>> deserializedRegistry = gson
               .fromJson(registryAsString,
                       new TypeToken<Map<String, Map<String, AngularObject>>>() { }.getType());
-      interpreterGroup.getAngularObjectRegistry().setRegistry(deserializedRegistry);
+      // the registry is pushed in several parts
+      interpreterGroup.getAngularObjectRegistry().addAll(deserializedRegistry);
     } catch (Exception e) {
       logger.info("Exception in RemoteInterpreterServer while angularRegistryPush, nolock", e);
     }
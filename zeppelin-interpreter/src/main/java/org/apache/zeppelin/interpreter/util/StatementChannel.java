@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request/response channel between an interpreter and the external process executing statements
+ * (e.g. python script through py4j).
+ *
+ * Interpreter threads submit requests and wait on their own Response. The process takes requests
+ * one by one and completes them by id, so several requests (paragraph, completions) can be in
+ * flight at the same time and a late or duplicated completion never leaks into another request.
+ * Output of a statement is streamed separately, Response only carries the final result.
+ */
+public class StatementChannel<T extends StatementChannel.Request> {
+  private final AtomicInteger idGenerator = new AtomicInteger(0);
+  private final BlockingQueue<T> requests = new LinkedBlockingQueue<>();
+  private final Map<Integer, Response> pending = new ConcurrentHashMap<>();
+  private volatile T current;
+
+  /**
+   * Request sent to the process. Subclass it to carry statements and other information
+   */
+  public abstract static class Request {
+    private int id = -1;
+
+    public int id() {
+      return id;
+    }
+  }
+
+  /**
+   * Result of a request
+   */
+  public static class Response {
+    private final int id;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile String output;
+    private volatile boolean error;
+
+    private Response(int id) {
+      this.id = id;
+    }
+
+    private void complete(String output, boolean error) {
+      this.output = output;
+      this.error = error;
+      done.countDown();
+    }
+
+    /**
+     * @return true if the response arrived within given time
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+      return done.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+      return done.getCount() == 0;
+    }
+
+    public String output() {
+      return output;
+    }
+
+    public boolean isError() {
+      return error;
+    }
+  }
+
+  /**
+   * Queue a request
+   * @return response to wait for
+   */
+  public Response submit(T request) {
+    int id = idGenerator.incrementAndGet();
+    ((Request) request).id = id;
+    Response response = new Response(id);
+    pending.put(id, response);
+    requests.add(request);
+    return response;
+  }
+
+  /**
+   * Called by the process to get next request
+   * @return next request, null if nothing is queued within given time
+   */
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    T request = requests.poll(timeout, unit);
+    if (request != null) {
+      current = request;
+    }
+    return request;
+  }
+
+  /**
+   * Complete a request by id. Ignored when the request is already completed or abandoned.
+   */
+  public boolean complete(int id, String output, boolean error) {
+    Response response = pending.remove(id);
+    if (response == null) {
+      return false;
+    }
+    response.complete(output, error);
+    return true;
+  }
+
+  /**
+   * Complete the request the process took last
+   */
+  public boolean completeCurrent(String output, boolean error) {
+    T request = current;
+    return request != null && complete(request.id(), output, error);
+  }
+
+  /**
+   * Give up waiting on a request, e.g. on timeout. Its result will be dropped when it arrives.
+   */
+  public void abandon(Response response) {
+    pending.remove(response.id);
+    Iterator<T> it = requests.iterator();
+    while (it.hasNext()) {
+      if (it.next().id() == response.id) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Fail every queued and in-flight request, e.g. when the process terminates
+   */
+  public void failAll(String message) {
+    requests.clear();
+    for (Integer id : pending.keySet()) {
+      complete(id, message, true);
+    }
+  }
+
+  public int numPending() {
+    return pending.size();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Replacement of System.out / System.err which routes writes to the stream registered by the
+ * writing thread.
+ *
+ * Interpreters backed by libraries printing to the console (pig, alluxio shell, scala repl) used
+ * to swap System.out for the time of a paragraph, which only works when a single paragraph runs
+ * at a time. With the multiplexer installed, each paragraph thread redirects its own writes,
+ * e.g. to InterpreterOutput, and threads without redirection keep writing to the original
+ * console.
+ *
+ * <pre>
+ *   ThreadOutputMultiplexer.Redirection redirection =
+ *       ThreadOutputMultiplexer.stdout().redirect(context.out);
+ *   try {
+ *     ...
+ *   } finally {
+ *     redirection.close();
+ *   }
+ * </pre>
+ */
+public class ThreadOutputMultiplexer extends OutputStream {
+  private static ThreadOutputMultiplexer stdout;
+  private static ThreadOutputMultiplexer stderr;
+
+  private final PrintStream console;
+  private final ThreadLocal<OutputStream> target = new ThreadLocal<>();
+
+  private ThreadOutputMultiplexer(PrintStream console) {
+    this.console = console;
+  }
+
+  /**
+   * @return multiplexer of System.out, installed on first call
+   */
+  public static synchronized ThreadOutputMultiplexer stdout() {
+    if (stdout == null) {
+      stdout = new ThreadOutputMultiplexer(System.out);
+      System.setOut(new PrintStream(stdout, true));
+    }
+    return stdout;
+  }
+
+  /**
+   * @return multiplexer of System.err, installed on first call
+   */
+  public static synchronized ThreadOutputMultiplexer stderr() {
+    if (stderr == null) {
+      stderr = new ThreadOutputMultiplexer(System.err);
+      System.setErr(new PrintStream(stderr, true));
+    }
+    return stderr;
+  }
+
+  /**
+   * Route the writes of the current thread to the given stream until the returned redirection
+   * is closed. Redirections can be nested, closing one restores the previous target.
+   */
+  public Redirection redirect(OutputStream out) {
+    Redirection redirection = new Redirection(target.get());
+    target.set(out);
+    return redirection;
+  }
+
+  /**
+   * @return stream the current thread writes to
+   */
+  public OutputStream current() {
+    OutputStream out = target.get();
+    return out == null ? console : out;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    current().write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    current().write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    current().flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // the console is never closed, and targets are owned by whom redirected to them
+    flush();
+  }
+
+  /**
+   * Redirection of the current thread
+   */
+  public class Redirection implements Closeable {
+    private final OutputStream previous;
+    private final Thread thread;
+
+    private Redirection(OutputStream previous) {
+      this.previous = previous;
+      this.thread = Thread.currentThread();
+    }
+
+    /**
+     * Flush the target and restore the previous one. Must be called by the redirected thread.
+     */
+    @Override
+    public void close() throws IOException {
+      if (Thread.currentThread() != thread) {
+        throw new IllegalStateException("Redirection must be closed by " + thread.getName());
+      }
+      try {
+        flush();
+      } finally {
+        if (previous == null) {
+          target.remove();
+        } else {
+          target.set(previous);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File rewritten in background after its content changed.
+ *
+ * Changes are coalesced: the content is serialized and written once per delay, whatever the
+ * number of changes in between, so saving after every change of a large map doesn't rewrite
+ * the file every time. The file is replaced atomically and readers of the in-memory data never
+ * wait for the disk. With a delay of 0, every change is written before {@link #changed()}
+ * returns.
+ */
+public class WriteBehindFile {
+  private static final Logger LOG = LoggerFactory.getLogger(WriteBehindFile.class);
+
+  private static final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "WriteBehindFile");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Serializer of the file content, called from the writing thread.
+   */
+  public interface Content {
+    String serialize();
+  }
+
+  private final File file;
+  private final Content content;
+  private final long delayMs;
+  private final Set<PosixFilePermission> permissions;
+  private final AtomicBoolean dirty = new AtomicBoolean();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final Runnable writeTask = new Runnable() {
+    @Override
+    public void run() {
+      scheduled.set(false);
+      try {
+        write();
+      } catch (IOException e) {
+        LOG.error("Error saving " + file, e);
+      } catch (RuntimeException e) {
+        // e.g. the content changed while it was serialized, try again later
+        LOG.error("Error serializing " + file, e);
+        schedule();
+      }
+    }
+  };
+
+  /**
+   * @param permissions permissions of the file, null to keep the default ones
+   */
+  public WriteBehindFile(File file, Content content, long delayMs,
+      Set<PosixFilePermission> permissions) {
+    this.file = file;
+    this.content = content;
+    this.delayMs = delayMs;
+    this.permissions = permissions;
+  }
+
+  /**
+   * Mark the content as changed, the file is written after the delay.
+   */
+  public void changed() throws IOException {
+    dirty.set(true);
+    if (delayMs <= 0) {
+      write();
+    } else {
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      executor.schedule(writeTask, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Write pending changes now.
+   */
+  public void flush() throws IOException {
+    write();
+  }
+
+  private synchronized void write() throws IOException {
+    if (!dirty.getAndSet(false)) {
+      return;
+    }
+    String json;
+    try {
+      json = content.serialize();
+    } catch (RuntimeException e) {
+      // written next time
+      dirty.set(true);
+      throw e;
+    }
+    File parent = file.getAbsoluteFile().getParentFile();
+    File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+    try {
+      if (permissions != null) {
+        Files.setPosixFilePermissions(tmp.toPath(), permissions);
+      }
+      try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp),
+          StandardCharsets.UTF_8)) {
+        out.write(json);
+      }
+      try {
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // written next time
+      dirty.set(true);
+      throw e;
+    } finally {
+      tmp.delete();
+    }
+  }
+}
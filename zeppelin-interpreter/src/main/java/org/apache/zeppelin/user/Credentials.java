@@ -20,16 +20,14 @@ package org.apache.zeppelin.user;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import org.apache.zeppelin.interpreter.util.WriteBehindFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.attribute.PosixFilePermission;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static java.nio.file.attribute.PosixFilePermission.OWNER_READ;
@@ -45,8 +43,17 @@ public class Credentials {
   private Gson gson;
   private Boolean credentialsPersist = true;
   File credentialsFile;
+  private WriteBehindFile writer;
 
   public Credentials(Boolean credentialsPersist, String credentialsPath) {
+    this(credentialsPersist, credentialsPath, 0);
+  }
+
+  /**
+   * @param persistDelayMs delay of saving changes to the credentials file, 0 to save them
+   *                       synchronously
+   */
+  public Credentials(Boolean credentialsPersist, String credentialsPath, long persistDelayMs) {
     this.credentialsPersist = credentialsPersist;
     if (credentialsPath != null) {
       credentialsFile = new File(credentialsPath);
@@ -58,6 +65,16 @@ public class Credentials {
       builder.setPrettyPrinting();
       gson = builder.create();
       loadFromFile();
+      writer = new WriteBehindFile(credentialsFile, new WriteBehindFile.Content() {
+        @Override
+        public String serialize() {
+          synchronized (credentialsMap) {
+            CredentialsInfoSaving info = new CredentialsInfoSaving();
+            info.credentialsMap = credentialsMap;
+            return gson.toJson(info);
+          }
+        }
+      }, persistDelayMs, EnumSet.of(OWNER_READ, OWNER_WRITE));
     }
   }
 
@@ -70,13 +87,17 @@ public class Credentials {
   }
 
   public void putUserCredentials(String username, UserCredentials uc) throws IOException {
-    credentialsMap.put(username, uc);
+    synchronized (credentialsMap) {
+      credentialsMap.put(username, uc);
+    }
     saveCredentials();
   }
 
   public UserCredentials removeUserCredentials(String username) throws IOException {
     UserCredentials uc;
-    uc = credentialsMap.remove(username);
+    synchronized (credentialsMap) {
+      uc = credentialsMap.remove(username);
+    }
     saveCredentials();
     return uc;
   }
@@ -94,7 +115,16 @@ public class Credentials {
 
   public void saveCredentials() throws IOException {
     if (credentialsPersist) {
-      saveToFile();
+      writer.changed();
+    }
+  }
+
+  /**
+   * Save pending changes to the credentials file.
+   */
+  public void flush() throws IOException {
+    if (credentialsPersist) {
+      writer.flush();
     }
   }
 
@@ -125,31 +155,4 @@ public class Credentials {
       e.printStackTrace();
     }
   }
-
-  private void saveToFile() throws IOException {
-    String jsonString;
-
-    synchronized (credentialsMap) {
-      CredentialsInfoSaving info = new CredentialsInfoSaving();
-      info.credentialsMap = credentialsMap;
-      jsonString = gson.toJson(info);
-    }
-
-    try {
-      if (!credentialsFile.exists()) {
-        credentialsFile.createNewFile();
-
-        Set<PosixFilePermission> permissions = EnumSet.of(OWNER_READ, OWNER_WRITE);
-        Files.setPosixFilePermissions(credentialsFile.toPath(), permissions);
-      }
-
-      FileOutputStream fos = new FileOutputStream(credentialsFile, false);
-      OutputStreamWriter out = new OutputStreamWriter(fos);
-      out.append(jsonString);
-      out.close();
-      fos.close();
-    } catch (IOException e) {
-      LOG.error("Error saving credentials file", e);
-    }
-  }
 }
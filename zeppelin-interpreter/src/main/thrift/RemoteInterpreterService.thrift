@@ -55,7 +55,8 @@ enum RemoteInterpreterEventType {
   ANGULAR_REGISTRY_PUSH = 11,
   APP_STATUS_UPDATE = 12,
   META_INFOS = 13,
-  REMOTE_ZEPPELIN_SERVER_RESOURCE = 14
+  REMOTE_ZEPPELIN_SERVER_RESOURCE = 14,
+  PARAGRAPH_PROGRESS = 15
 }
 
 
@@ -21,6 +21,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
@@ -111,4 +115,104 @@ public class AngularObjectRegistryTest {
     assertEquals(5, registry.getAllWithGlobal("noteId1").size());
   }
 
+  @Test
+  public void testConcurrentAccess() throws InterruptedException {
+    final AtomicInteger onAdd = new AtomicInteger(0);
+    final AtomicInteger onRemove = new AtomicInteger(0);
+    final AngularObjectRegistry registry = new AngularObjectRegistry("intpId",
+        new AngularObjectRegistryListener() {
+          @Override
+          public void onAdd(String interpreterGroupId, AngularObject object) {
+            onAdd.incrementAndGet();
+          }
+
+          @Override
+          public void onUpdate(String interpreterGroupId, AngularObject object) {
+          }
+
+          @Override
+          public void onRemove(String interpreterGroupId, String name, String noteId,
+              String paragraphId) {
+            onRemove.incrementAndGet();
+          }
+        });
+
+    List<Thread> threads = new LinkedList<>();
+    for (int t = 0; t < 8; t++) {
+      final String paragraphId = "paragraph" + t;
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 1000; i++) {
+            registry.add("name" + i, i, "note1", paragraphId);
+            registry.get("name" + i, "note1", paragraphId).set(i + 1);
+            registry.getAllWithGlobal("note1");
+            if (i % 2 == 0) {
+              registry.remove("name" + i, "note1", paragraphId);
+            }
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(8000, onAdd.get());
+    assertEquals(4000, onRemove.get());
+    assertEquals(4000, registry.getAllWithGlobal("note1").size());
+    assertEquals(1000, registry.get("name999", "note1", "paragraph3").get());
+  }
+
+  @Test
+  public void testSetRegistry() {
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpId", null);
+    Map<String, AngularObject> objects = new HashMap<>();
+    objects.put("name1", new AngularObject("name1", "o1", "noteId1", null, null));
+    Map<String, Map<String, AngularObject>> pushed = new HashMap<>();
+    pushed.put("noteId1", objects);
+    registry.setRegistry(pushed);
+
+    assertEquals("o1", registry.get("name1", "noteId1", null).get());
+    registry.add("name2", "o2", "noteId1", null);
+    assertEquals(2, registry.getAll("noteId1", null).size());
+    // the registry keeps its own maps
+    assertEquals(1, objects.size());
+  }
+
+  @Test
+  public void testAddAll() {
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpId", null);
+    registry.add("name1", "o1", "noteId1", null);
+    registry.add("name2", "o2", "noteId1", null);
+
+    Map<String, AngularObject> objects = new HashMap<>();
+    objects.put("name2", new AngularObject("name2", "o2'", "noteId1", null, null));
+    objects.put("name3", new AngularObject("name3", "o3", "noteId1", null, null));
+    Map<String, Map<String, AngularObject>> part = new HashMap<>();
+    part.put("noteId1", objects);
+    registry.addAll(part);
+
+    assertEquals(3, registry.getAll("noteId1", null).size());
+    assertEquals("o1", registry.get("name1", "noteId1", null).get());
+    assertEquals("o2'", registry.get("name2", "noteId1", null).get());
+  }
+
+  @Test
+  public void testVersion() {
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpId", null);
+    AngularObject ao = registry.add("name1", "o1", "noteId1", null);
+    long version = ao.getVersion();
+    ao.set("o2");
+    assertEquals(version + 1, ao.getVersion());
+
+    AngularObject copy = ao.copy("serialized");
+    assertEquals("name1", copy.getName());
+    assertEquals("noteId1", copy.getNoteId());
+    assertEquals("serialized", copy.get());
+    assertEquals("o2", ao.get());
+  }
 }
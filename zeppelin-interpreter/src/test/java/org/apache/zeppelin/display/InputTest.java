@@ -26,11 +26,15 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 
 import org.apache.zeppelin.display.Input.ParamOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class InputTest {
+	private static final Logger LOG = LoggerFactory.getLogger(InputTest.class);
 
 	@Before
 	public void setUp() throws Exception {
@@ -125,4 +129,54 @@ public class InputTest {
 		assertEquals("INPUT=some_inputSELECTED=s_op2\nCHECKED=c_op1\n" +
 				"NEW_CHECKED=nc_a and nc_c", replaced);
 	}
+
+	@Test
+	public void testFormSubstitutionInsertsValuesAsIs() {
+		String script = "a=${a} b=${b=x} c=${a}";
+		Map<String, Object> params = new HashMap<>();
+		params.put("a", "$1 \\ ${b}");
+		assertEquals("a=$1 \\ ${b} b=x c=$1 \\ ${b}", Input.getSimpleQuery(params, script));
+	}
+
+	@Test
+	public void testExtractedFormsAreCopies() {
+		String script = "${checkbox:checkbox_form=op1,op1|op2|op3}";
+		Input form1 = Input.extractSimpleQueryForm(script).get("checkbox_form");
+		Input form2 = Input.extractSimpleQueryForm(script).get("checkbox_form");
+		assertNotSame(form1, form2);
+		assertNotSame(form1.options, form2.options);
+		form1.setDefaultValue(new Object[]{"op2"});
+		assertArrayEquals(new Object[]{"op1"}, (Object[]) form2.defaultValue);
+	}
+
+	@Test
+	public void testCachedTemplate() {
+		// dashboard query with many forms rendered repeatedly
+		StringBuilder script = new StringBuilder("SELECT * FROM t WHERE 1=1");
+		StringBuilder expected = new StringBuilder("SELECT * FROM t WHERE 1=1");
+		Map<String, Object> params = new HashMap<>();
+		for (int i = 0; i < 250; i++) {
+			script.append(" AND c" + i + " IN (${checkbox:f" + i + "=v1,v1|v2|v3})");
+			script.append(" OR d" + i + " = '${s" + i + "(S" + i + ")=x,x|y|z}'");
+			params.put("s" + i, "y");
+			expected.append(" AND c" + i + " IN (v1) OR d" + i + " = 'y'");
+		}
+		String template = script.toString();
+		assertEquals(expected.toString(), Input.getSimpleQuery(params, template));
+		assertEquals(500, Input.extractSimpleQueryForm(template).size());
+
+		int runs = 100;
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			FormTemplate.compile(template).render(params);
+		}
+		long uncached = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			Input.getSimpleQuery(params, template);
+		}
+		long cached = System.nanoTime() - start;
+		LOG.info("Rendering 500 forms: parsed {} us, cached {} us",
+				uncached / runs / 1000, cached / runs / 1000);
+	}
 }
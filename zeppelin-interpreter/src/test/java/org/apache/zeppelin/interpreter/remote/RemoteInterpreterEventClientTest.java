@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.zeppelin.display.AngularObject;
+import org.apache.zeppelin.display.AngularObjectRegistry;
+import org.apache.zeppelin.display.AngularObjectRegistryListener;
+import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterEvent;
+import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterEventType;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RemoteInterpreterEventClientTest implements AngularObjectRegistryListener {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(RemoteInterpreterEventClientTest.class);
+
+  private RemoteInterpreterEventClient eventClient;
+  private AngularObjectRegistry registry;
+
+  @Before
+  public void setUp() {
+    eventClient = new RemoteInterpreterEventClient();
+    registry = new AngularObjectRegistry("intpId", this);
+  }
+
+  @Override
+  public void onAdd(String interpreterGroupId, AngularObject object) {
+    eventClient.angularObjectAdd(object);
+  }
+
+  @Override
+  public void onUpdate(String interpreterGroupId, AngularObject object) {
+    eventClient.angularObjectUpdate(object);
+  }
+
+  @Override
+  public void onRemove(String interpreterGroupId, String name, String noteId,
+      String paragraphId) {
+    eventClient.angularObjectRemove(name, noteId, paragraphId);
+  }
+
+  @Test
+  public void testQueuedAngularObjectUpdatesAreCoalesced() {
+    AngularObject ao1 = registry.add("name1", "v0", "note1", null);
+    AngularObject ao2 = registry.add("name2", "v0", "note1", null);
+    ao1.set("v1");
+    ao2.set("v1");
+    ao1.set("v2");
+
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_ADD, eventClient.pollEvent().getType());
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_ADD, eventClient.pollEvent().getType());
+    RemoteInterpreterEvent update1 = eventClient.pollEvent();
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_UPDATE, update1.getType());
+    assertTrue(update1.getData().contains("\"name1\""));
+    assertTrue(update1.getData().contains("\"v2\""));
+    RemoteInterpreterEvent update2 = eventClient.pollEvent();
+    assertTrue(update2.getData().contains("\"name2\""));
+
+    // polled updates are not changed anymore
+    ao1.set("v3");
+    assertTrue(update1.getData().contains("\"v2\""));
+    assertTrue(eventClient.pollEvent().getData().contains("\"v3\""));
+    assertEquals(1, eventClient.getCoalescedAngularObjectUpdates());
+  }
+
+  @Test
+  public void testUpdateAfterRemoveIsNotMergedBeforeIt() {
+    AngularObject ao = registry.add("name1", "v0", "note1", null);
+    ao.set("v1");
+    registry.remove("name1", "note1", null);
+    ao = registry.add("name1", "v2", "note1", null);
+    ao.set("v3");
+
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_ADD, eventClient.pollEvent().getType());
+    assertTrue(eventClient.pollEvent().getData().contains("\"v1\""));
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_REMOVE,
+        eventClient.pollEvent().getType());
+    assertEquals(RemoteInterpreterEventType.ANGULAR_OBJECT_ADD, eventClient.pollEvent().getType());
+    assertTrue(eventClient.pollEvent().getData().contains("\"v3\""));
+  }
+
+  @Test
+  public void testFrequentUpdatesOfOneObject() throws InterruptedException {
+    final AngularObject ao = registry.add("counter", 0, "note1", "paragraph1");
+    eventClient.pollEvent();
+
+    // 10k updates per second, while the server polls events every millisecond
+    Thread updater = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= 10000; i++) {
+          ao.set(i);
+          if (i % 10 == 0) {
+            try {
+              Thread.sleep(1);
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+        }
+      }
+    };
+    long start = System.currentTimeMillis();
+    updater.start();
+    int polled = 0;
+    String last = null;
+    while (updater.isAlive() || last == null || !last.contains("10000")) {
+      RemoteInterpreterEvent event = eventClient.pollEvent();
+      if (event.getType() == RemoteInterpreterEventType.ANGULAR_OBJECT_UPDATE) {
+        polled++;
+        last = event.getData();
+      }
+      Thread.sleep(1);
+    }
+    updater.join();
+
+    LOG.info("10000 updates sent as {} events in {} ms", polled,
+        System.currentTimeMillis() - start);
+    assertEquals(10000, polled + eventClient.getCoalescedAngularObjectUpdates());
+    assertTrue(polled < 10000);
+  }
+}
@@ -29,6 +29,7 @@ import org.junit.Test;
 import java.io.File;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -171,6 +172,12 @@ public class RemoteInterpreterOutputTestStream implements RemoteInterpreterProce
 
   }
 
+  @Override
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details) {
+
+  }
+
   @Override
   public void onGetParagraphRunners(String noteId, String paragraphId, RemoteWorksEventListener callback) {
     if (callback != null) {
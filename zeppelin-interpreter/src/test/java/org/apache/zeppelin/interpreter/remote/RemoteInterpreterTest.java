@@ -779,6 +779,36 @@ public class RemoteInterpreterTest {
     Mockito.verify(client).angularRegistryPush(expected);
   }
 
+  @Test
+  public void testSplitAngularObjectRegistry() {
+    AngularObjectRegistry registry = new AngularObjectRegistry("spark", null);
+    for (int i = 0; i < 100; i++) {
+      registry.add("name" + i, "value" + i, "noteId", "paragraphId" + (i % 3));
+      registry.add("name" + i, i, "noteId", null);
+    }
+
+    List<String> chunks = RemoteInterpreter.splitAngularObjectRegistry(registry.getRegistry(),
+        1000);
+    assertTrue(chunks.size() > 1);
+
+    // the remote interpreter adds every part to its registry
+    final java.lang.reflect.Type registryType = new TypeToken<Map<String,
+        Map<String, AngularObject>>>() {}.getType();
+    AngularObjectRegistry remote = new AngularObjectRegistry("spark", null);
+    for (String chunk : chunks) {
+      assertTrue(chunk.length() < 1100);
+      Map<String, Map<String, AngularObject>> part = new Gson().fromJson(chunk, registryType);
+      remote.addAll(part);
+    }
+    assertEquals(200, remote.getAllWithGlobal("noteId").size());
+    assertEquals("value4", remote.get("name4", "noteId", "paragraphId1").get());
+    assertEquals(99.0, remote.get("name99", "noteId", null).get());
+
+    // an empty registry is pushed too
+    assertEquals(1, RemoteInterpreter.splitAngularObjectRegistry(
+        new HashMap<String, Map<String, AngularObject>>(), 1000).size());
+  }
+
   @Test
   public void testEnvStringPattern() {
     assertFalse(RemoteInterpreter.isEnvString(null));
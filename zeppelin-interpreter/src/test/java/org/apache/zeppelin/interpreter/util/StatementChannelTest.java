@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatementChannelTest {
+  private StatementChannel<TestRequest> channel;
+
+  static class TestRequest extends StatementChannel.Request {
+    final String statements;
+
+    TestRequest(String statements) {
+      this.statements = statements;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    channel = new StatementChannel<>();
+  }
+
+  @Test
+  public void testPipelinedRequests() throws InterruptedException {
+    TestRequest first = new TestRequest("a = 1");
+    TestRequest second = new TestRequest("completion");
+    StatementChannel.Response firstResponse = channel.submit(first);
+    StatementChannel.Response secondResponse = channel.submit(second);
+    assertTrue(first.id() != second.id());
+    assertEquals(2, channel.numPending());
+
+    assertSame(first, channel.poll(1, TimeUnit.SECONDS));
+    assertSame(second, channel.poll(1, TimeUnit.SECONDS));
+    assertNull(channel.poll(10, TimeUnit.MILLISECONDS));
+
+    // answered out of order
+    assertTrue(channel.complete(second.id(), "[\"abs\"]", false));
+    assertFalse(firstResponse.isDone());
+    assertTrue(secondResponse.await(1, TimeUnit.SECONDS));
+    assertEquals("[\"abs\"]", secondResponse.output());
+
+    assertTrue(channel.complete(first.id(), "", false));
+    assertTrue(firstResponse.isDone());
+    assertFalse(firstResponse.isError());
+    assertEquals(0, channel.numPending());
+  }
+
+  @Test
+  public void testDuplicatedCompletionIsIgnored() throws InterruptedException {
+    TestRequest request = new TestRequest("a = 1");
+    StatementChannel.Response response = channel.submit(request);
+    channel.poll(1, TimeUnit.SECONDS);
+
+    assertTrue(channel.completeCurrent("out", true));
+    assertFalse(channel.complete(request.id(), "", false));
+    assertTrue(response.isError());
+    assertEquals("out", response.output());
+  }
+
+  @Test
+  public void testAbandon() throws InterruptedException {
+    TestRequest request = new TestRequest("completion");
+    StatementChannel.Response response = channel.submit(request);
+    assertFalse(response.await(10, TimeUnit.MILLISECONDS));
+    channel.abandon(response);
+
+    // neither taken by the process nor completed later
+    assertNull(channel.poll(10, TimeUnit.MILLISECONDS));
+    assertFalse(channel.complete(request.id(), "late", false));
+    assertEquals(0, channel.numPending());
+  }
+
+  @Test
+  public void testFailAll() throws InterruptedException {
+    StatementChannel.Response running = channel.submit(new TestRequest("a = 1"));
+    StatementChannel.Response queued = channel.submit(new TestRequest("b = 1"));
+    channel.poll(1, TimeUnit.SECONDS);
+
+    channel.failAll("process terminated");
+    assertTrue(running.isError());
+    assertTrue(queued.isError());
+    assertEquals("process terminated", queued.output());
+    assertNull(channel.poll(10, TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zeppelin.interpreter.InterpreterOutput;
+import org.junit.Test;
+
+public class ThreadOutputMultiplexerTest {
+
+  @Test
+  public void testConcurrentParagraphs() throws Exception {
+    final int numParagraphs = 10;
+    final int numLines = 200;
+    final ThreadOutputMultiplexer multiplexer = ThreadOutputMultiplexer.stdout();
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<InterpreterOutput> outputs = new ArrayList<>();
+    final List<Future<?>> paragraphs = new ArrayList<>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(numParagraphs);
+    try {
+      for (int i = 0; i < numParagraphs; i++) {
+        final int paragraph = i;
+        final InterpreterOutput out = new InterpreterOutput(null);
+        outputs.add(out);
+        paragraphs.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            ThreadOutputMultiplexer.Redirection redirection = multiplexer.redirect(out);
+            try {
+              start.await();
+              for (int line = 0; line < numLines; line++) {
+                System.out.println("paragraph " + paragraph + " line " + line);
+              }
+            } finally {
+              redirection.close();
+            }
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<?> f : paragraphs) {
+        f.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int i = 0; i < numParagraphs; i++) {
+      String[] lines = new String(outputs.get(i).toByteArray()).split("\n");
+      assertEquals(numLines, lines.length);
+      for (int line = 0; line < numLines; line++) {
+        assertEquals("paragraph " + i + " line " + line, lines[line]);
+      }
+    }
+  }
+
+  @Test
+  public void testNestedRedirection() throws IOException {
+    ThreadOutputMultiplexer multiplexer = ThreadOutputMultiplexer.stdout();
+    OutputStream console = multiplexer.current();
+    ByteArrayOutputStream outer = new ByteArrayOutputStream();
+    ByteArrayOutputStream inner = new ByteArrayOutputStream();
+
+    ThreadOutputMultiplexer.Redirection outerRedirection = multiplexer.redirect(outer);
+    System.out.print("a");
+    ThreadOutputMultiplexer.Redirection innerRedirection = multiplexer.redirect(inner);
+    System.out.print("b");
+    innerRedirection.close();
+    System.out.print("c");
+    outerRedirection.close();
+
+    assertEquals("ac", outer.toString());
+    assertEquals("b", inner.toString());
+    assertSame(console, multiplexer.current());
+  }
+
+  @Test
+  public void testRedirectionIsPerThread() throws Exception {
+    final ThreadOutputMultiplexer multiplexer = ThreadOutputMultiplexer.stdout();
+    final OutputStream console = multiplexer.current();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ThreadOutputMultiplexer.Redirection redirection = multiplexer.redirect(out);
+    try {
+      final OutputStream[] other = new OutputStream[1];
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          other[0] = multiplexer.current();
+        }
+      };
+      thread.start();
+      thread.join();
+      assertSame(console, other[0]);
+      assertSame(out, multiplexer.current());
+    } finally {
+      redirection.close();
+    }
+  }
+}
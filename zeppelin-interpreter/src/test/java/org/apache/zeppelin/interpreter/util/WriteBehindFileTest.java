@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBehindFileTest {
+  private File file;
+  private final AtomicInteger value = new AtomicInteger();
+  private final AtomicInteger writes = new AtomicInteger();
+  private final WriteBehindFile.Content content = new WriteBehindFile.Content() {
+    @Override
+    public String serialize() {
+      writes.incrementAndGet();
+      return String.valueOf(value.get());
+    }
+  };
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("WriteBehindFileTest", ".json");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private String read() throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testSynchronousWrite() throws IOException {
+    WriteBehindFile writer = new WriteBehindFile(file, content, 0, null);
+    value.set(1);
+    writer.changed();
+    assertEquals("1", read());
+    value.set(2);
+    writer.changed();
+    assertEquals("2", read());
+    assertEquals(2, writes.get());
+  }
+
+  @Test
+  public void testChangesAreCoalesced() throws IOException, InterruptedException {
+    WriteBehindFile writer = new WriteBehindFile(file, content, 200, null);
+    for (int i = 1; i <= 10000; i++) {
+      value.set(i);
+      writer.changed();
+    }
+
+    long timeout = System.currentTimeMillis() + 10000;
+    while (!(file.exists() && read().equals("10000")) && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+    assertEquals("10000", read());
+    assertTrue(writes.get() < 10);
+  }
+
+  @Test
+  public void testFlush() throws IOException {
+    WriteBehindFile writer = new WriteBehindFile(file, content, 60000, null);
+    value.set(1);
+    writer.changed();
+    writer.flush();
+    assertEquals("1", read());
+
+    // nothing changed since
+    writer.flush();
+    assertEquals(1, writes.get());
+  }
+
+  @Test
+  public void testFailedSerializationIsRetried() throws IOException, InterruptedException {
+    final AtomicInteger failures = new AtomicInteger(1);
+    WriteBehindFile writer = new WriteBehindFile(file, new WriteBehindFile.Content() {
+      @Override
+      public String serialize() {
+        if (failures.getAndDecrement() > 0) {
+          throw new IllegalStateException("changed while serialized");
+        }
+        return content.serialize();
+      }
+    }, 100, null);
+    value.set(1);
+    writer.changed();
+
+    long timeout = System.currentTimeMillis() + 10000;
+    while (!file.exists() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+    assertEquals("1", read());
+  }
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -346,6 +347,12 @@ public class RemoteSchedulerTest implements RemoteInterpreterProcessListener {
 
   }
 
+  @Override
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details) {
+
+  }
+
   @Override
   public void onGetParagraphRunners(String noteId, String paragraphId, RemoteWorksEventListener callback) {
     if (callback != null) {
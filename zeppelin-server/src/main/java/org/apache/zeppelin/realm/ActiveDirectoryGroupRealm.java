@@ -297,6 +297,14 @@ public class ActiveDirectoryGroupRealm extends AbstractLdapRealm {
     return userNameList;
   }
 
+  /**
+   * @return names of all users, to be cached for autocomplete
+   */
+  public List<String> listUserNames(LdapContext ldapContext) throws NamingException {
+    return DirectoryCache.searchAttribute(ldapContext, searchBase,
+        "(&(objectClass=*)(userPrincipalName=*))", "cn");
+  }
+
   private Set<String> getRoleNamesForUser(String username, LdapContext ldapContext)
       throws NamingException {
     Set<String> roleNames = new LinkedHashSet<>();
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.realm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Users of a directory, such as an LDAP server, kept in memory to autocomplete user names
+ * without searching the directory on every keystroke. Users are loaded on the first search and
+ * reloaded in the background once they are older than the refresh interval, the previous users
+ * are served meanwhile and when reloading fails.
+ */
+public class DirectoryCache {
+  private static final Logger LOG = LoggerFactory.getLogger(DirectoryCache.class);
+  private static final int PAGE_SIZE = 500;
+
+  private static final ExecutorService refresher = Executors.newSingleThreadExecutor(
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "DirectoryCacheRefresher");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Directory the users are loaded from
+   */
+  public interface Directory {
+    List<String> listUsers() throws NamingException;
+  }
+
+  private final Directory directory;
+  private final long refreshIntervalMs;
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private volatile Snapshot snapshot;
+  private volatile long lastRefresh;
+
+  public DirectoryCache(Directory directory, long refreshIntervalMs) {
+    this.directory = directory;
+    this.refreshIntervalMs = refreshIntervalMs;
+  }
+
+  /**
+   * @return users starting with the text followed by users containing it, ignoring case
+   * @throws NamingException when users were never loaded and loading them fails
+   */
+  public List<String> searchUsers(String text, int limit) throws NamingException {
+    Snapshot current = snapshot;
+    if (current == null) {
+      current = load();
+    } else if (System.currentTimeMillis() - lastRefresh > refreshIntervalMs) {
+      refreshInBackground();
+    }
+    return current.search(text, limit);
+  }
+
+  public int getUserCount() {
+    Snapshot current = snapshot;
+    return current == null ? 0 : current.users.size();
+  }
+
+  private synchronized Snapshot load() throws NamingException {
+    if (snapshot == null) {
+      lastRefresh = System.currentTimeMillis();
+      snapshot = new Snapshot(directory.listUsers());
+    }
+    return snapshot;
+  }
+
+  private void refreshInBackground() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    // retried after another interval when it fails
+    lastRefresh = System.currentTimeMillis();
+    refresher.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          snapshot = new Snapshot(directory.listUsers());
+        } catch (Exception e) {
+          LOG.error("Can't refresh users of the directory, keep the previous ones", e);
+        } finally {
+          refreshing.set(false);
+        }
+      }
+    });
+  }
+
+  /**
+   * Search the directory page by page, servers limit the number of results of a single search
+   *
+   * @return values of the attribute in all matching entries
+   */
+  public static List<String> searchAttribute(LdapContext ctx, String base, String filter,
+      String attribute) throws NamingException {
+    List<String> values = new ArrayList<>();
+    SearchControls constraints = new SearchControls();
+    constraints.setSearchScope(SearchControls.SUBTREE_SCOPE);
+    constraints.setReturningAttributes(new String[]{attribute});
+    byte[] cookie = null;
+    try {
+      ctx.setRequestControls(new Control[]{
+          new PagedResultsControl(PAGE_SIZE, Control.NONCRITICAL)});
+      do {
+        NamingEnumeration<SearchResult> result = ctx.search(base, filter, constraints);
+        try {
+          while (result.hasMore()) {
+            Attribute attr = result.next().getAttributes().get(attribute);
+            if (attr == null) {
+              continue;
+            }
+            NamingEnumeration<?> attrValues = attr.getAll();
+            while (attrValues.hasMore()) {
+              values.add(attrValues.next().toString().trim());
+            }
+          }
+        } finally {
+          result.close();
+        }
+
+        cookie = null;
+        Control[] controls = ctx.getResponseControls();
+        if (controls != null) {
+          for (Control control : controls) {
+            if (control instanceof PagedResultsResponseControl) {
+              cookie = ((PagedResultsResponseControl) control).getCookie();
+            }
+          }
+        }
+        if (cookie != null && cookie.length > 0) {
+          ctx.setRequestControls(new Control[]{
+              new PagedResultsControl(PAGE_SIZE, cookie, Control.CRITICAL)});
+        }
+      } while (cookie != null && cookie.length > 0);
+    } catch (IOException e) {
+      throw new NamingException("Can't set up paged results: " + e.getMessage());
+    }
+    return values;
+  }
+
+  private static class Snapshot {
+    private final List<String> users;
+    private final String[] lowerCaseUsers;
+    private final PrefixTrie trie = new PrefixTrie();
+
+    Snapshot(List<String> loaded) {
+      users = new ArrayList<>(new TreeSet<>(loaded));
+      lowerCaseUsers = new String[users.size()];
+      for (int i = 0; i < users.size(); i++) {
+        lowerCaseUsers[i] = users.get(i).toLowerCase();
+        trie.add(users.get(i));
+      }
+      LOG.info("Loaded " + users.size() + " users of the directory");
+    }
+
+    List<String> search(String text, int limit) {
+      Set<String> result = new LinkedHashSet<>(trie.search(text, limit));
+      String key = text.toLowerCase();
+      for (int i = 0; i < lowerCaseUsers.length && result.size() < limit; i++) {
+        if (lowerCaseUsers[i].contains(key)) {
+          result.add(users.get(i));
+        }
+      }
+      return new ArrayList<>(result);
+    }
+  }
+}
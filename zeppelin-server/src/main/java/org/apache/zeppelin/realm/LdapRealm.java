@@ -50,6 +50,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.naming.AuthenticationException;
@@ -107,6 +109,8 @@ import javax.naming.ldap.PagedResultsControl;
  * dc=org
  * # enable support for nested groups using the LDAP_MATCHING_RULE_IN_CHAIN operator
  * ldapRealm.groupSearchEnableMatchingRuleInChain = true
+ * # milliseconds roles of a user are cached for, 0 looks them up on every login
+ * ldapRealm.rolesCacheTtl = 60000
  *
  * <p># optional mapping from physical groups to logical application roles
  * ldapRealm.rolesByGroup = \ LDN_USERS: user_role,\ NYK_USERS: user_role,\
@@ -193,6 +197,10 @@ public class LdapRealm extends JndiLdapRealm {
 
   private HashService hashService = new DefaultHashService();
 
+  private static final int MAX_CACHED_ROLES = 10000;
+  private long rolesCacheTtl = 60000;
+  private final ConcurrentMap<String, CachedRoles> rolesCache = new ConcurrentHashMap<>();
+
   public LdapRealm() {
     HashedCredentialsMatcher credentialsMatcher = new HashedCredentialsMatcher(HASHING_ALGORITHM);
     setCredentialsMatcher(credentialsMatcher);
@@ -282,6 +290,12 @@ public class LdapRealm extends JndiLdapRealm {
         final LdapContextFactory ldapContextFactory)
       throws NamingException {
     final String username = (String) getAvailablePrincipal(principals);
+    CachedRoles cached = rolesCache.get(username);
+    if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+      setRoles(principals, username, new HashSet<>(cached.roleNames),
+          new HashSet<>(cached.groupNames));
+      return new HashSet<>(cached.roleNames);
+    }
 
     LdapContext systemLdapCtx = null;
     try {
@@ -400,6 +414,19 @@ public class LdapRealm extends JndiLdapRealm {
     } catch (IOException e) {
       log.error("Unabled to setup paged results");
     }
+    if (rolesCacheTtl > 0) {
+      if (rolesCache.size() >= MAX_CACHED_ROLES) {
+        rolesCache.clear();
+      }
+      rolesCache.put(userNameIn, new CachedRoles(roleNames, groupNames,
+          System.currentTimeMillis() + rolesCacheTtl));
+    }
+    setRoles(principals, userName, roleNames, groupNames);
+    return roleNames;
+  }
+
+  private void setRoles(PrincipalCollection principals, String userName,
+      Set<String> roleNames, Set<String> groupNames) {
     // save role names and group names in session so that they can be
     // easily looked up outside of this object
     SecurityUtils.getSubject().getSession().setAttribute(SUBJECT_USER_ROLES, roleNames);
@@ -410,7 +437,6 @@ public class LdapRealm extends JndiLdapRealm {
     if (log.isDebugEnabled()) {
       log.debug("User RoleNames: " + userName + "::" + roleNames);  
     }
-    return roleNames;
   }
 
   private void addRoleIfMember(final String userDn, final SearchResult group, 
@@ -604,6 +630,18 @@ public class LdapRealm extends JndiLdapRealm {
     return permissionsByRole;
   }
 
+  public long getRolesCacheTtl() {
+    return rolesCacheTtl;
+  }
+
+  /**
+   * @param rolesCacheTtl milliseconds roles of a user are cached for, 0 disables the cache
+   */
+  public void setRolesCacheTtl(long rolesCacheTtl) {
+    this.rolesCacheTtl = rolesCacheTtl;
+    rolesCache.clear();
+  }
+
   public boolean isAuthorizationEnabled() {
     return authorizationEnabled;
   }
@@ -950,4 +988,16 @@ public class LdapRealm extends JndiLdapRealm {
     }
     return output;
   }
+
+  private static class CachedRoles {
+    private final Set<String> roleNames;
+    private final Set<String> groupNames;
+    private final long expiresAt;
+
+    CachedRoles(Set<String> roleNames, Set<String> groupNames, long expiresAt) {
+      this.roleNames = Collections.unmodifiableSet(new HashSet<>(roleNames));
+      this.groupNames = Collections.unmodifiableSet(new HashSet<>(groupNames));
+      this.expiresAt = expiresAt;
+    }
+  }
 }
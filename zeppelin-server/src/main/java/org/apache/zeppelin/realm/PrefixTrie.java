@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.realm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strings indexed by prefix, ignoring case. Not thread safe, fill it before sharing it.
+ * Children are kept in sorted arrays, directories can hold many users.
+ */
+public class PrefixTrie {
+  private final Node root = new Node();
+  private int size;
+
+  public void add(String value) {
+    Node node = root;
+    String key = value.toLowerCase();
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      Node child = node.get(c);
+      if (child == null) {
+        child = node.put(c);
+      }
+      node = child;
+    }
+    node.add(value);
+    size++;
+  }
+
+  /**
+   * @return at most limit values starting with the prefix, in lower cased order
+   */
+  public List<String> search(String prefix, int limit) {
+    List<String> result = new ArrayList<>();
+    Node node = root;
+    String key = prefix.toLowerCase();
+    for (int i = 0; i < key.length() && node != null; i++) {
+      node = node.get(key.charAt(i));
+    }
+    if (node != null) {
+      collect(node, result, limit);
+    }
+    return result;
+  }
+
+  private void collect(Node node, List<String> result, int limit) {
+    for (int i = 0; i < node.valueCount; i++) {
+      if (result.size() >= limit) {
+        return;
+      }
+      result.add(node.values[i]);
+    }
+    for (int i = 0; i < node.childCount; i++) {
+      if (result.size() >= limit) {
+        return;
+      }
+      collect(node.children[i], result, limit);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private static class Node {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final String[] NO_VALUES = new String[0];
+
+    private char[] keys = NO_KEYS;
+    private Node[] children = NO_CHILDREN;
+    private int childCount;
+    private String[] values = NO_VALUES;
+    private int valueCount;
+
+    private Node get(char c) {
+      int pos = Arrays.binarySearch(keys, 0, childCount, c);
+      return pos < 0 ? null : children[pos];
+    }
+
+    private Node put(char c) {
+      int pos = -(Arrays.binarySearch(keys, 0, childCount, c) + 1);
+      if (childCount == keys.length) {
+        int capacity = Math.max(1, childCount * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        children = Arrays.copyOf(children, capacity);
+      }
+      System.arraycopy(keys, pos, keys, pos + 1, childCount - pos);
+      System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+      Node child = new Node();
+      keys[pos] = c;
+      children[pos] = child;
+      childCount++;
+      return child;
+    }
+
+    private void add(String value) {
+      if (valueCount == values.length) {
+        values = Arrays.copyOf(values, Math.max(1, valueCount * 2));
+      }
+      values[valueCount++] = value;
+    }
+  }
+}
@@ -19,20 +19,22 @@ package org.apache.zeppelin.rest;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.shiro.realm.Realm;
 import org.apache.shiro.realm.jdbc.JdbcRealm;
 import org.apache.shiro.realm.ldap.JndiLdapContextFactory;
 import org.apache.shiro.realm.ldap.JndiLdapRealm;
+import org.apache.shiro.realm.ldap.LdapUtils;
 import org.apache.shiro.realm.text.IniRealm;
 import org.apache.shiro.util.JdbcUtils;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 import org.apache.zeppelin.realm.ActiveDirectoryGroupRealm;
+import org.apache.zeppelin.realm.DirectoryCache;
 import org.apache.zeppelin.realm.LdapRealm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.naming.NamingEnumeration;
-import javax.naming.directory.Attributes;
-import javax.naming.directory.SearchControls;
-import javax.naming.directory.SearchResult;
+import javax.naming.NamingException;
 import javax.naming.ldap.LdapContext;
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -42,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * This is class which help fetching users from different realms.
@@ -51,6 +54,9 @@ import java.util.Map;
 public class GetUserList {
 
   private static final Logger LOG = LoggerFactory.getLogger(GetUserList.class);
+  private static final int MAX_CACHED_SUGGESTIONS = 100;
+  // users of directory realms, the realms live as long as the security manager
+  private static final Map<Realm, DirectoryCache> directoryCaches = new WeakHashMap<>();
 
   /**
    * function to extract users from shiro.ini
@@ -90,28 +96,35 @@ public class GetUserList {
   /**
    * function to extract users from LDAP
    */
-  public List<String> getUserList(JndiLdapRealm r, String searchText) {
+  public List<String> getUserList(final JndiLdapRealm r, String searchText) {
     List<String> userList = new ArrayList<>();
     String userDnTemplate = r.getUserDnTemplate();
     String userDn[] = userDnTemplate.split(",", 2);
-    String userDnPrefix = userDn[0].split("=")[0];
-    String userDnSuffix = userDn[1];
-    JndiLdapContextFactory CF = (JndiLdapContextFactory) r.getContextFactory();
+    final String userDnPrefix = userDn[0].split("=")[0];
+    final String userDnSuffix = userDn[1];
+    final JndiLdapContextFactory CF = (JndiLdapContextFactory) r.getContextFactory();
     try {
-      LdapContext ctx = CF.getSystemLdapContext();
-      SearchControls constraints = new SearchControls();
-      constraints.setSearchScope(SearchControls.SUBTREE_SCOPE);
-      String[] attrIDs = {userDnPrefix};
-      constraints.setReturningAttributes(attrIDs);
-      NamingEnumeration result = ctx.search(userDnSuffix, "(" + userDnPrefix + "=*" + searchText +
-          "*)", constraints);
-      while (result.hasMore()) {
-        Attributes attrs = ((SearchResult) result.next()).getAttributes();
-        if (attrs.get(userDnPrefix) != null) {
-          String currentUser = attrs.get(userDnPrefix).toString();
-          userList.add(currentUser.split(":")[1].trim());
+      userList = searchUsers(r, searchText, new UserSearch() {
+        @Override
+        public List<String> search(String searchText) throws NamingException {
+          return searchPattern("*" + searchText + "*");
         }
-      }
+
+        @Override
+        public List<String> listUsers() throws NamingException {
+          return searchPattern("*");
+        }
+
+        private List<String> searchPattern(String pattern) throws NamingException {
+          LdapContext ctx = CF.getSystemLdapContext();
+          try {
+            return DirectoryCache.searchAttribute(ctx, userDnSuffix,
+                "(" + userDnPrefix + "=" + pattern + ")", userDnPrefix);
+          } finally {
+            LdapUtils.closeContext(ctx);
+          }
+        }
+      });
     } catch (Exception e) {
       LOG.error("Error retrieving User list from Ldap Realm", e);
     }
@@ -122,41 +135,45 @@ public class GetUserList {
   /**
    * function to extract users from Zeppelin LdapRealm
    */
-  public List<String> getUserList(LdapRealm r, String searchText) {
+  public List<String> getUserList(final LdapRealm r, String searchText) {
     List<String> userList = new ArrayList<>();
     if (LOG.isDebugEnabled()) {
       LOG.debug("SearchText: " + searchText);
     }
-    String userAttribute = r.getUserSearchAttributeName();
-    String userSearchRealm = r.getUserSearchBase();
-    String userObjectClass = r.getUserObjectClass();
-    JndiLdapContextFactory CF = (JndiLdapContextFactory) r.getContextFactory();
+    final String userAttribute = r.getUserSearchAttributeName();
+    final String userSearchRealm = r.getUserSearchBase();
+    final String userObjectClass = r.getUserObjectClass();
+    final JndiLdapContextFactory CF = (JndiLdapContextFactory) r.getContextFactory();
     try {
-      LdapContext ctx = CF.getSystemLdapContext();
-      SearchControls constraints = new SearchControls();
-      constraints.setSearchScope(SearchControls.SUBTREE_SCOPE);
-      String[] attrIDs = {userAttribute};
-      constraints.setReturningAttributes(attrIDs);
-      NamingEnumeration result = ctx.search(userSearchRealm, "(&(objectclass=" + 
-            userObjectClass + ")(" 
-            + userAttribute + "=" + searchText + "))", constraints);
-      while (result.hasMore()) {
-        Attributes attrs = ((SearchResult) result.next()).getAttributes();
-        if (attrs.get(userAttribute) != null) {
-          String currentUser;
-          if (r.getUserLowerCase()) {
-            LOG.debug("userLowerCase true");
-            currentUser = ((String) attrs.get(userAttribute).get()).toLowerCase();
-          } else {
-            LOG.debug("userLowerCase false");
-            currentUser = (String) attrs.get(userAttribute).get();            
-          }
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("CurrentUser: " + currentUser);
+      userList = searchUsers(r, searchText, new UserSearch() {
+        @Override
+        public List<String> search(String searchText) throws NamingException {
+          return searchPattern(searchText);
+        }
+
+        @Override
+        public List<String> listUsers() throws NamingException {
+          return searchPattern("*");
+        }
+
+        private List<String> searchPattern(String pattern) throws NamingException {
+          LdapContext ctx = CF.getSystemLdapContext();
+          try {
+            List<String> users = DirectoryCache.searchAttribute(ctx, userSearchRealm,
+                "(&(objectclass=" + userObjectClass + ")(" + userAttribute + "=" + pattern + "))",
+                userAttribute);
+            if (r.getUserLowerCase()) {
+              LOG.debug("userLowerCase true");
+              for (int i = 0; i < users.size(); i++) {
+                users.set(i, users.get(i).toLowerCase());
+              }
+            }
+            return users;
+          } finally {
+            LdapUtils.closeContext(ctx);
           }
-          userList.add(currentUser.trim());
         }
-      }
+      });
     } catch (Exception e) {
       LOG.error("Error retrieving User list from Ldap Realm", e);
     }
@@ -186,17 +203,71 @@ public class GetUserList {
   }
   
 
-  public List<String> getUserList(ActiveDirectoryGroupRealm r, String searchText) {
+  public List<String> getUserList(final ActiveDirectoryGroupRealm r, String searchText) {
     List<String> userList = new ArrayList<>();
     try {
-      LdapContext ctx = r.getLdapContextFactory().getSystemLdapContext();
-      userList = r.searchForUserName(searchText, ctx);
+      userList = searchUsers(r, searchText, new UserSearch() {
+        @Override
+        public List<String> search(String searchText) throws NamingException {
+          LdapContext ctx = r.getLdapContextFactory().getSystemLdapContext();
+          try {
+            return r.searchForUserName(searchText, ctx);
+          } finally {
+            LdapUtils.closeContext(ctx);
+          }
+        }
+
+        @Override
+        public List<String> listUsers() throws NamingException {
+          LdapContext ctx = r.getLdapContextFactory().getSystemLdapContext();
+          try {
+            return r.listUserNames(ctx);
+          } finally {
+            LdapUtils.closeContext(ctx);
+          }
+        }
+      });
     } catch (Exception e) {
       LOG.error("Error retrieving User list from ActiveDirectory Realm", e);
     }
     return userList;
   }
 
+  /**
+   * Search users of the realm in its directory cache, or in the directory when the cache is
+   * disabled or users couldn't be loaded yet.
+   */
+  private List<String> searchUsers(Realm realm, String searchText, UserSearch userSearch)
+      throws NamingException {
+    long refreshInterval = ZeppelinConfiguration.create()
+        .getLong(ConfVars.ZEPPELIN_DIRECTORY_CACHE_REFRESH_INTERVAL);
+    if (refreshInterval <= 0) {
+      return userSearch.search(searchText);
+    }
+
+    DirectoryCache cache;
+    synchronized (directoryCaches) {
+      cache = directoryCaches.get(realm);
+      if (cache == null) {
+        cache = new DirectoryCache(userSearch, refreshInterval);
+        directoryCaches.put(realm, cache);
+      }
+    }
+    try {
+      return cache.searchUsers(searchText, MAX_CACHED_SUGGESTIONS);
+    } catch (NamingException e) {
+      LOG.warn("Can't load users of the directory, search it instead", e);
+      return userSearch.search(searchText);
+    }
+  }
+
+  /**
+   * Searches users of a directory, closing contexts so pooled connections are reused
+   */
+  private interface UserSearch extends DirectoryCache.Directory {
+    List<String> search(String searchText) throws NamingException;
+  }
+
   /**
    * function to extract users from JDBCs
    */
@@ -17,8 +17,15 @@
 
 package org.apache.zeppelin.rest;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -36,12 +44,14 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.zeppelin.annotation.ZeppelinApi;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.notebook.Note;
+import org.apache.zeppelin.notebook.NoteExecution;
 import org.apache.zeppelin.notebook.Notebook;
 import org.apache.zeppelin.notebook.NotebookAuthorization;
 import org.apache.zeppelin.notebook.Paragraph;
@@ -58,6 +68,7 @@ import org.apache.zeppelin.socket.NotebookServer;
 import org.apache.zeppelin.types.InterpreterSettingsList;
 import org.apache.zeppelin.user.AuthenticationInfo;
 import org.apache.zeppelin.utils.InterpreterBindingUtils;
+import org.apache.zeppelin.utils.JsonStringWriter;
 import org.apache.zeppelin.utils.SecurityUtils;
 import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 import org.quartz.CronExpression;
@@ -308,23 +319,46 @@ public class NotebookRestApi {
   }
 
   /**
-   * export note REST API
+   * export note REST API.
+   * The note JSON is written to the response while it is serialized
    *
    * @param noteId ID of Note
+   * @param results "exclude" to leave out the results of the paragraphs
    * @return note JSON with status.OK
    * @throws IOException
    */
   @GET
   @Path("export/{noteId}")
   @ZeppelinApi
-  public Response exportNote(@PathParam("noteId") String noteId) throws IOException {
+  public Response exportNote(@PathParam("noteId") final String noteId,
+      @QueryParam("results") @DefaultValue("include") String results) throws IOException {
     checkIfUserCanRead(noteId, "Insufficient privileges you cannot export this note");
-    String exportJson = notebook.exportNote(noteId);
-    return new JsonResponse<>(Status.OK, "", exportJson).build();
+    checkIfNoteIsNotNull(notebook.getNote(noteId));
+    final boolean includeResults = !"exclude".equals(results);
+    StreamingOutput body = new StreamingOutput() {
+      @Override
+      public void write(OutputStream output) throws IOException {
+        // same as the JSON of JsonResponse, with the note JSON as a string body
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+          writer.write("{\"status\":\"OK\",\"message\":\"\",\"body\":\"");
+          notebook.exportNote(noteId, new JsonStringWriter(writer), includeResults);
+          writer.write("\"}");
+          writer.flush();
+        } catch (IOException | RuntimeException e) {
+          // the response is committed already, the client only gets a truncated body
+          LOG.error("Error exporting note " + noteId, e);
+          throw e;
+        }
+      }
+    };
+    return Response.ok(body, MediaType.APPLICATION_JSON).build();
   }
 
   /**
-   * import new note REST API
+   * import new note REST API.
+   * The note is parsed while the request is read
    *
    * @param req - note Json
    * @return JSON with new note ID
@@ -333,9 +367,10 @@ public class NotebookRestApi {
   @POST
   @Path("import")
   @ZeppelinApi
-  public Response importNote(String req) throws IOException {
+  public Response importNote(InputStream req) throws IOException {
     AuthenticationInfo subject = new AuthenticationInfo(SecurityUtils.getPrincipal());
-    Note newNote = notebook.importNote(req, null, subject);
+    Note newNote = notebook.importNote(new InputStreamReader(req, StandardCharsets.UTF_8), null,
+        subject);
     return new JsonResponse<>(Status.CREATED, "", newNote.getId()).build();
   }
 
@@ -675,7 +710,11 @@ public class NotebookRestApi {
     checkIfUserCanWrite(noteId, "Insufficient privileges you cannot run job for this note");
 
     try {
-      note.runAll(subject);
+      NoteExecution execution = note.runAll(subject);
+      // paragraphs waiting for others are submitted later, their errors are only set on them
+      if (execution.getSubmitError() != null) {
+        throw execution.getSubmitError();
+      }
     } catch (Exception ex) {
       LOG.error("Exception from run", ex);
       return new JsonResponse<>(Status.PRECONDITION_FAILED,
@@ -19,11 +19,14 @@ package org.apache.zeppelin.rest;
 
 import org.apache.zeppelin.annotation.ZeppelinApi;
 import org.apache.zeppelin.server.JsonResponse;
+import org.apache.zeppelin.server.ZeppelinServer;
+import org.apache.zeppelin.socket.NotebookMessageDispatcher;
 import org.apache.zeppelin.util.Util;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Response;
+import java.util.Collections;
 
 /**
  * Zeppelin root rest api endpoint.
@@ -52,4 +55,19 @@ public class ZeppelinRestApi {
   public Response getVersion() {
     return new JsonResponse<>(Response.Status.OK, "Zeppelin version", Util.getVersion()).build();
   }
+
+  /**
+   * Get the latency histograms of websocket messages, per operation.
+   *
+   * @return 200 response
+   */
+  @GET
+  @Path("websocket/latencies")
+  @ZeppelinApi
+  public Response getWebsocketLatencies() {
+    NotebookMessageDispatcher dispatcher = ZeppelinServer.notebookWsServer == null ? null :
+        ZeppelinServer.notebookWsServer.getMessageDispatcher();
+    Object latencies = dispatcher == null ? Collections.emptyMap() : dispatcher.getLatencies();
+    return new JsonResponse<>(Response.Status.OK, "Websocket latencies", latencies).build();
+  }
 }
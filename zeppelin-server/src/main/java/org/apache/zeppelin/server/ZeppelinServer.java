@@ -132,9 +132,9 @@ public class ZeppelinServer extends Application {
         heliumVisualizationFactory,
         heliumApplicationFactory);
 
-    // create visualization bundle
+    // create visualization bundle, the previously built one is served until it's done
     try {
-      heliumVisualizationFactory.bundle(helium.getVisualizationPackagesToBundle());
+      heliumVisualizationFactory.bundleInBackground(helium.getVisualizationPackagesToBundle());
     } catch (Exception e) {
       LOG.error(e.getMessage(), e);
     }
@@ -146,9 +146,10 @@ public class ZeppelinServer extends Application {
         notebookWsServer, heliumApplicationFactory, depResolver, SecurityUtils.isAuthenticated(),
         interpreterSettingManager);
     this.notebookRepo = new NotebookRepoSync(conf);
-    this.noteSearchService = new LuceneSearch();
+    this.noteSearchService = new LuceneSearch(conf.getLong(ConfVars.ZEPPELIN_SEARCH_INDEX_DELAY));
     this.notebookAuthorization = NotebookAuthorization.init(conf);
-    this.credentials = new Credentials(conf.credentialsPersist(), conf.getCredentialsPath());
+    this.credentials = new Credentials(conf.credentialsPersist(), conf.getCredentialsPath(),
+        conf.getConfigPersistDelay());
     notebook = new Notebook(conf,
         notebookRepo, schedulerFactory, replFactory, interpreterSettingManager, notebookWsServer,
             noteSearchService, notebookAuthorization, credentials);
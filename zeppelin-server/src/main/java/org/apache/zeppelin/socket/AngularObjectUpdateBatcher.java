@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zeppelin.display.AngularObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the updates and removals of angular objects and hands them over in batches, at most
+ * one batch per window. The first change after a quiet window is handed over right away.
+ *
+ * Changes of the same object, identified by interpreter group, note, paragraph and name, made
+ * within a window are coalesced: only the last one is handed over, at the position of the first.
+ */
+public class AngularObjectUpdateBatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(AngularObjectUpdateBatcher.class);
+
+  /**
+   * Receives the batches, from a single thread
+   */
+  public interface Listener {
+    void onChanges(List<Change> changes);
+  }
+
+  private final Listener listener;
+  private final long windowMs;
+  // null when changes are handed over by the thread making them
+  private final ScheduledExecutorService executor;
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private Map<List<String>, Change> pending = new LinkedHashMap<>();
+  private boolean scheduled;
+  private long lastFlush;
+  private long received;
+  private long handedOver;
+
+  /**
+   * @param windowMs minimum time between two batches. 0 hands over every change right away
+   */
+  public AngularObjectUpdateBatcher(Listener listener, long windowMs) {
+    this.listener = listener;
+    this.windowMs = windowMs;
+    if (windowMs > 0) {
+      executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "AngularObjectUpdateBatcher");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    } else {
+      executor = null;
+    }
+  }
+
+  public void update(String interpreterGroupId, AngularObject object) {
+    add(new Change(interpreterGroupId, object.getName(), object.getNoteId(),
+        object.getParagraphId(), object));
+  }
+
+  public void remove(String interpreterGroupId, String name, String noteId, String paragraphId) {
+    add(new Change(interpreterGroupId, name, noteId, paragraphId, null));
+  }
+
+  private void add(Change change) {
+    if (executor == null) {
+      synchronized (lock) {
+        received++;
+        handedOver++;
+      }
+      listener.onChanges(Collections.singletonList(change));
+      return;
+    }
+
+    synchronized (lock) {
+      received++;
+      List<String> key = Arrays.asList(change.interpreterGroupId, change.noteId,
+          change.paragraphId, change.name);
+      // a removal after an update, or an update after a removal, replaces it
+      pending.put(key, change);
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+      long delay = Math.max(0, lastFlush + windowMs - System.currentTimeMillis());
+      try {
+        executor.schedule(new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        }, delay, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // closed
+        pending.clear();
+      }
+    }
+  }
+
+  private void flush() {
+    List<Change> changes;
+    synchronized (lock) {
+      changes = new ArrayList<>(pending.values());
+      pending = new LinkedHashMap<>();
+      scheduled = false;
+      lastFlush = System.currentTimeMillis();
+      handedOver += changes.size();
+    }
+    if (changes.isEmpty()) {
+      return;
+    }
+    try {
+      listener.onChanges(changes);
+    } catch (RuntimeException e) {
+      LOG.error("Can't hand over angular object changes", e);
+    }
+  }
+
+  /**
+   * @return number of changes received
+   */
+  public long getReceivedChanges() {
+    synchronized (lock) {
+      return received;
+    }
+  }
+
+  /**
+   * @return number of changes handed over, the rest was coalesced or is pending
+   */
+  public long getHandedOverChanges() {
+    synchronized (lock) {
+      return handedOver;
+    }
+  }
+
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Update or removal of an angular object
+   */
+  public static class Change {
+    private final String interpreterGroupId;
+    private final String name;
+    private final String noteId;
+    private final String paragraphId;
+    // null for a removal
+    private final AngularObject object;
+
+    Change(String interpreterGroupId, String name, String noteId, String paragraphId,
+        AngularObject object) {
+      this.interpreterGroupId = interpreterGroupId;
+      this.name = name;
+      this.noteId = noteId;
+      this.paragraphId = paragraphId;
+      this.object = object;
+    }
+
+    public String getInterpreterGroupId() {
+      return interpreterGroupId;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getNoteId() {
+      return noteId;
+    }
+
+    public String getParagraphId() {
+      return paragraphId;
+    }
+
+    public AngularObject getObject() {
+      return object;
+    }
+
+    public boolean isRemoval() {
+      return object == null;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies, in buckets of fixed upper bounds in milliseconds
+ */
+public class LatencyHistogram {
+  private static final long[] BOUNDS_MS =
+      {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+  // last bucket counts latencies above the last bound
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < BOUNDS_MS.length && ms >= BOUNDS_MS[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    long max;
+    while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+      // retry
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return count, mean and max in milliseconds, and number of latencies below each bound
+   */
+  public Map<String, Object> snapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    long n = count.get();
+    snapshot.put("count", n);
+    snapshot.put("meanMs", n == 0 ? 0 : totalNanos.get() / 1e6 / n);
+    snapshot.put("maxMs", maxNanos.get() / 1e6);
+    Map<String, Long> buckets = new LinkedHashMap<>();
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      buckets.put("<" + BOUNDS_MS[i] + "ms", counts.get(i));
+    }
+    buckets.put(">=" + BOUNDS_MS[BOUNDS_MS.length - 1] + "ms", counts.get(BOUNDS_MS.length));
+    snapshot.put("buckets", buckets);
+    return snapshot;
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.zeppelin.notebook.socket.Message;
+import org.apache.zeppelin.notebook.socket.Message.OP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands the messages received by notebook sockets to a pool of workers, so a slow operation
+ * doesn't hold the websocket thread and the following messages of the connection.
+ *
+ * Every message has one or two ordering keys: the note it applies to, and its connection when
+ * it depends on or changes the note open on the connection, or applies to no note. Messages
+ * sharing a key are handled in the order they were received, except consecutive read-only
+ * messages which run concurrently. Handling latency, from receive to completion, is recorded
+ * per operation.
+ */
+public class NotebookMessageDispatcher implements NotebookSocketListener {
+  private static final Logger LOG = LoggerFactory.getLogger(NotebookMessageDispatcher.class);
+
+  private static final EnumSet<OP> READ_ONLY = EnumSet.of(OP.GET_NOTE, OP.GET_HOME_NOTE,
+      OP.LIST_NOTES, OP.LIST_CONFIGURATIONS, OP.LIST_REVISION_HISTORY, OP.NOTE_REVISION,
+      OP.LIST_NOTE_JOBS, OP.GET_INTERPRETER_BINDINGS, OP.GET_INTERPRETER_SETTINGS,
+      OP.EDITOR_SETTING, OP.COMPLETION, OP.PING);
+  // ops changing the note open on the connection
+  private static final EnumSet<OP> OPEN_NOTE = EnumSet.of(OP.GET_NOTE, OP.GET_HOME_NOTE);
+  // ops whose "id" is a note id
+  private static final EnumSet<OP> NOTE_ID = EnumSet.of(OP.GET_NOTE, OP.NOTE_UPDATE,
+      OP.UPDATE_PERSONALIZED_MODE, OP.NOTE_RENAME, OP.DEL_NOTE, OP.MOVE_NOTE_TO_TRASH,
+      OP.RESTORE_NOTE, OP.PARAGRAPH_CLEAR_ALL_OUTPUT);
+  // ops applied to the note open on the connection
+  private static final EnumSet<OP> ON_OPEN_NOTE = EnumSet.of(OP.COMMIT_PARAGRAPH,
+      OP.RUN_PARAGRAPH, OP.CANCEL_PARAGRAPH, OP.MOVE_PARAGRAPH, OP.INSERT_PARAGRAPH,
+      OP.COPY_PARAGRAPH, OP.PARAGRAPH_REMOVE, OP.PARAGRAPH_CLEAR_OUTPUT, OP.COMPLETION,
+      OP.CLONE_NOTE, OP.EDITOR_SETTING);
+
+  private final NotebookServer server;
+  private final String homeNoteId;
+  // null when messages are handled by the websocket thread
+  private final ExecutorService executor;
+  private final Map<OP, LatencyHistogram> latencies = new EnumMap<>(OP.class);
+
+  private final Object lock = new Object();
+  // tasks of each key in order of reception, running ones included. guarded by lock
+  private final Map<Object, LinkedList<Task>> queues = new HashMap<>();
+  // note open on each connection, as of the last dispatched message. guarded by lock
+  private final Map<NotebookSocket, String> openNotes = new HashMap<>();
+
+  /**
+   * @param threads number of workers, 0 to handle messages in the websocket thread
+   * @param homeNoteId id of the note opened by GET_HOME_NOTE, may be null
+   */
+  public NotebookMessageDispatcher(NotebookServer server, int threads, String homeNoteId) {
+    this.server = server;
+    this.homeNoteId = StringUtils.isBlank(homeNoteId) ? null : homeNoteId;
+    for (OP op : OP.values()) {
+      latencies.put(op, new LatencyHistogram());
+    }
+    if (threads > 0) {
+      final AtomicInteger threadNumber = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "NotebookMessageDispatcher-" +
+              threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    } else {
+      executor = null;
+    }
+  }
+
+  @Override
+  public void onOpen(NotebookSocket socket) {
+    server.onOpen(socket);
+  }
+
+  @Override
+  public void onClose(NotebookSocket socket, int code, String message) {
+    if (executor == null) {
+      server.onClose(socket, code, message);
+      return;
+    }
+    // after the messages of the connection, so they don't register it again
+    Task task = new Task(socket, null, code, message);
+    task.addKey(socket, false);
+    synchronized (lock) {
+      openNotes.remove(socket);
+    }
+    dispatch(task);
+  }
+
+  @Override
+  public void onMessage(NotebookSocket socket, String message) {
+    Message received;
+    try {
+      received = server.deserializeMessage(message);
+    } catch (RuntimeException e) {
+      LOG.error("Can't handle message", e);
+      return;
+    }
+    if (received == null) {
+      return;
+    }
+    if (executor == null) {
+      long start = System.nanoTime();
+      server.onMessage(socket, received);
+      record(received.op, start);
+      return;
+    }
+
+    Task task = new Task(socket, received, 0, null);
+    boolean readOnly = READ_ONLY.contains(received.op);
+    synchronized (lock) {
+      String noteId = null;
+      if (received.get("noteId") instanceof String) {
+        noteId = (String) received.get("noteId");
+      } else if (NOTE_ID.contains(received.op) && received.get("id") instanceof String) {
+        noteId = (String) received.get("id");
+      } else if (ON_OPEN_NOTE.contains(received.op)) {
+        noteId = openNotes.get(socket);
+      }
+
+      if (received.op == OP.GET_NOTE) {
+        openNotes.put(socket, noteId);
+      } else if (received.op == OP.GET_HOME_NOTE) {
+        openNotes.put(socket, homeNoteId);
+      }
+
+      if (noteId != null) {
+        task.addKey(noteId, readOnly);
+      }
+      if (noteId == null || OPEN_NOTE.contains(received.op)
+          || ON_OPEN_NOTE.contains(received.op)) {
+        task.addKey(socket, readOnly && !OPEN_NOTE.contains(received.op));
+      }
+    }
+    dispatch(task);
+  }
+
+  private void dispatch(Task task) {
+    List<Task> ready;
+    synchronized (lock) {
+      for (Object key : task.keys) {
+        LinkedList<Task> queue = queues.get(key);
+        if (queue == null) {
+          queue = new LinkedList<>();
+          queues.put(key, queue);
+        }
+        queue.add(task);
+      }
+      ready = collectRunnable(task.keys);
+    }
+    execute(ready);
+  }
+
+  private void complete(Task task) {
+    List<Task> ready;
+    synchronized (lock) {
+      for (Object key : task.keys) {
+        LinkedList<Task> queue = queues.get(key);
+        queue.remove(task);
+        if (queue.isEmpty()) {
+          queues.remove(key);
+        }
+      }
+      ready = collectRunnable(task.keys);
+    }
+    execute(ready);
+  }
+
+  private void execute(List<Task> tasks) {
+    for (Task task : tasks) {
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        LOG.debug("Dispatcher is closed, message dropped", e);
+      }
+    }
+  }
+
+  /**
+   * @return tasks of the given keys which can start, marked as started
+   */
+  private List<Task> collectRunnable(List<Object> keys) {
+    List<Task> ready = new ArrayList<>();
+    for (Object key : keys) {
+      LinkedList<Task> queue = queues.get(key);
+      if (queue == null) {
+        continue;
+      }
+      for (Task task : queue) {
+        if (!isAdmitted(task, key)) {
+          // later tasks wait for this one
+          break;
+        }
+        if (!task.started && isRunnable(task)) {
+          task.started = true;
+          ready.add(task);
+        }
+      }
+    }
+    return ready;
+  }
+
+  private boolean isRunnable(Task task) {
+    for (Object key : task.keys) {
+      if (!isAdmitted(task, key)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the task is first for the key, or all tasks before it are read-only like it
+   */
+  private boolean isAdmitted(Task task, Object key) {
+    boolean readOnly = task.isReadOnly(key);
+    for (Task before : queues.get(key)) {
+      if (before == task) {
+        return true;
+      }
+      if (!readOnly || !before.isReadOnly(key)) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private void record(OP op, long start) {
+    if (op != null) {
+      latencies.get(op).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return latency histogram of each operation received at least once
+   */
+  public Map<String, Map<String, Object>> getLatencies() {
+    Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+    for (Map.Entry<OP, LatencyHistogram> entry : latencies.entrySet()) {
+      if (entry.getValue().getCount() > 0) {
+        snapshot.put(entry.getKey().name(), entry.getValue().snapshot());
+      }
+    }
+    return snapshot;
+  }
+
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private class Task implements Runnable {
+    private final NotebookSocket socket;
+    // null for the close of the connection
+    private final Message message;
+    private final int closeCode;
+    private final String closeReason;
+    private final long received = System.nanoTime();
+    private final List<Object> keys = new ArrayList<>(2);
+    private final List<Boolean> readOnly = new ArrayList<>(2);
+    // guarded by lock
+    private boolean started;
+
+    Task(NotebookSocket socket, Message message, int closeCode, String closeReason) {
+      this.socket = socket;
+      this.message = message;
+      this.closeCode = closeCode;
+      this.closeReason = closeReason;
+    }
+
+    void addKey(Object key, boolean readOnlyForKey) {
+      keys.add(key);
+      readOnly.add(readOnlyForKey);
+    }
+
+    boolean isReadOnly(Object key) {
+      return readOnly.get(keys.indexOf(key));
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (message == null) {
+          server.onClose(socket, closeCode, closeReason);
+        } else {
+          server.onMessage(socket, message);
+          record(message.op, received);
+        }
+      } catch (RuntimeException e) {
+        LOG.error("Can't handle message", e);
+      } finally {
+        complete(this);
+      }
+    }
+  }
+}
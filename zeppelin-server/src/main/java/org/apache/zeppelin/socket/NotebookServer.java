@@ -30,6 +30,8 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -78,6 +80,7 @@ import org.apache.zeppelin.user.AuthenticationInfo;
 import org.apache.zeppelin.util.WatcherSecurityKey;
 import org.apache.zeppelin.utils.InterpreterBindingUtils;
 import org.apache.zeppelin.utils.SecurityUtils;
+import org.eclipse.jetty.websocket.common.extensions.compress.PerMessageDeflateExtension;
 import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
 import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
 import org.joda.time.DateTime;
@@ -119,6 +122,9 @@ public class NotebookServer extends WebSocketServlet
   final Map<String, List<NotebookSocket>> noteSocketMap = new HashMap<>();
   final Queue<NotebookSocket> connectedSockets = new ConcurrentLinkedQueue<>();
   final Map<String, Queue<NotebookSocket>> userConnectedSockets = new ConcurrentHashMap<>();
+  // sequence number of the NOTE, PARAGRAPH and PARAGRAPH_PATCH messages of each note.
+  // messages are numbered and sent holding the lock of the sequence, so they arrive in order
+  final ConcurrentMap<String, AtomicLong> noteSequences = new ConcurrentHashMap<>();
 
   /**
    * This is a special endpoint in the notebook websoket, Every connection in this Queue
@@ -128,13 +134,45 @@ public class NotebookServer extends WebSocketServlet
    */
   final Queue<NotebookSocket> watcherSockets = Queues.newConcurrentLinkedQueue();
 
+  private NotebookMessageDispatcher messageDispatcher;
+  private AngularObjectUpdateBatcher angularObjectUpdates;
+
   private Notebook notebook() {
     return ZeppelinServer.notebook;
   }
 
   @Override
   public void configure(WebSocketServletFactory factory) {
-    factory.setCreator(new NotebookWebSocketCreator(this));
+    ZeppelinConfiguration conf = ZeppelinConfiguration.create();
+    messageDispatcher = new NotebookMessageDispatcher(this,
+        conf.getInt(ConfVars.ZEPPELIN_WEBSOCKET_DISPATCH_THREADS),
+        conf.getString(ConfVars.ZEPPELIN_NOTEBOOK_HOMESCREEN));
+    if (conf.getBoolean(ConfVars.ZEPPELIN_WEBSOCKET_PERMESSAGE_DEFLATE)) {
+      factory.getExtensionFactory().register(NotebookSocket.PERMESSAGE_DEFLATE,
+          PerMessageDeflateExtension.class);
+    } else {
+      factory.getExtensionFactory().unregister(NotebookSocket.PERMESSAGE_DEFLATE);
+      factory.getExtensionFactory().unregister("deflate-frame");
+      factory.getExtensionFactory().unregister("x-webkit-deflate-frame");
+    }
+    factory.setCreator(new NotebookWebSocketCreator(this, messageDispatcher));
+  }
+
+  public NotebookMessageDispatcher getMessageDispatcher() {
+    return messageDispatcher;
+  }
+
+  @Override
+  public void destroy() {
+    if (messageDispatcher != null) {
+      messageDispatcher.close();
+    }
+    synchronized (this) {
+      if (angularObjectUpdates != null) {
+        angularObjectUpdates.close();
+      }
+    }
+    super.destroy();
   }
 
   public boolean checkOrigin(HttpServletRequest request, String origin) {
@@ -161,9 +199,19 @@ public class NotebookServer extends WebSocketServlet
 
   @Override
   public void onMessage(NotebookSocket conn, String msg) {
+    Message messagereceived;
+    try {
+      messagereceived = deserializeMessage(msg);
+    } catch (Exception e) {
+      LOG.error("Can't handle message", e);
+      return;
+    }
+    onMessage(conn, messagereceived);
+  }
+
+  public void onMessage(NotebookSocket conn, Message messagereceived) {
     Notebook notebook = notebook();
     try {
-      Message messagereceived = deserializeMessage(msg);
       LOG.debug("RECEIVE << " + messagereceived.op);
       LOG.debug("RECEIVE PRINCIPAL << " + messagereceived.principal);
       LOG.debug("RECEIVE TICKET << " + messagereceived.ticket);
@@ -363,6 +411,15 @@ public class NotebookServer extends WebSocketServlet
   public void onClose(NotebookSocket conn, int code, String reason) {
     LOG.info("Closed connection to {} : {}. ({}) {}", conn.getRequest().getRemoteAddr(),
         conn.getRequest().getRemotePort(), code, reason);
+    LOG.debug("Connection {} sent {} messages, average latency {}ms, max latency {}ms, "
+        + "max queue depth {}, coalesced {}, dropped {}", conn, conn.getSentMessages(),
+        conn.getAverageSendLatencyMs(), conn.getMaxSendLatencyMs(), conn.getMaxQueueDepth(),
+        conn.getCoalescedMessages(), conn.getDroppedMessages());
+    if (conn.getBinaryMessages() > 0) {
+      LOG.debug("Connection {} compressed {} messages from {} to {} bytes in {}ms", conn,
+          conn.getBinaryMessages(), conn.getBinaryPayloadBytes(), conn.getBinaryFrameBytes(),
+          conn.getDeflateTimeMs());
+    }
     removeConnectionFromAllNote(conn);
     connectedSockets.remove(conn);
     removeUserConnection(conn.getUser(), conn);
@@ -423,6 +480,7 @@ public class NotebookServer extends WebSocketServlet
     synchronized (noteSocketMap) {
       List<NotebookSocket> socketList = noteSocketMap.remove(noteId);
     }
+    noteSequences.remove(noteId);
   }
 
   private void removeConnectionFromAllNote(NotebookSocket socket) {
@@ -618,8 +676,37 @@ public class NotebookServer extends WebSocketServlet
     return notesInfo;
   }
 
+  private AtomicLong getNoteSequence(String noteId) {
+    AtomicLong sequence = noteSequences.get(noteId);
+    if (sequence == null) {
+      AtomicLong created = new AtomicLong();
+      sequence = noteSequences.putIfAbsent(noteId, created);
+      if (sequence == null) {
+        sequence = created;
+      }
+    }
+    return sequence;
+  }
+
   public void broadcastNote(Note note) {
-    broadcast(note.getId(), new Message(OP.NOTE).put("note", note));
+    AtomicLong sequence = getNoteSequence(note.getId());
+    synchronized (sequence) {
+      broadcast(note.getId(), new Message(OP.NOTE).put("note", note)
+          .put("seq", sequence.incrementAndGet()));
+    }
+  }
+
+  /**
+   * Sends the note, then adds the connection to the ones receiving its updates, so the first
+   * update the connection receives is the one following the note.
+   */
+  private void sendNoteAndAddConnection(NotebookSocket conn, Note note) throws IOException {
+    AtomicLong sequence = getNoteSequence(note.getId());
+    synchronized (sequence) {
+      conn.send(serializeMessage(new Message(OP.NOTE).put("note", note)
+          .put("seq", sequence.get())));
+      addConnectionToNote(note.getId(), conn);
+    }
   }
 
   public void broadcastInterpreterBindings(String noteId, List settingList) {
@@ -630,7 +717,34 @@ public class NotebookServer extends WebSocketServlet
     if (note.isPersonalizedMode()) {
       broadcastParagraphs(p.getUserParagraphMap());
     } else {
-      broadcast(note.getId(), new Message(OP.PARAGRAPH).put("paragraph", p));
+      AtomicLong sequence = getNoteSequence(note.getId());
+      synchronized (sequence) {
+        broadcast(note.getId(), new Message(OP.PARAGRAPH).put("paragraph", p)
+            .put("noteId", note.getId()).put("seq", sequence.incrementAndGet()));
+      }
+    }
+  }
+
+  /**
+   * Sends the changed fields of the paragraph instead of the whole paragraph, so its results,
+   * which can be large, aren't sent again. Clients missing a patch reload the note.
+   * The whole paragraph of each user is sent in personalized mode.
+   *
+   * @param patch changed fields and their values
+   */
+  public void broadcastParagraphPatch(Note note, Paragraph p, Map<String, Object> patch) {
+    if (note.isPersonalizedMode()) {
+      broadcastParagraphs(p.getUserParagraphMap());
+      return;
+    }
+    AtomicLong sequence = getNoteSequence(note.getId());
+    synchronized (sequence) {
+      broadcast(note.getId(), new Message(OP.PARAGRAPH_PATCH)
+          .put("noteId", note.getId())
+          .put("paragraphId", p.getId())
+          .put("seq", sequence.incrementAndGet())
+          .put("fields", new ArrayList<>(patch.keySet()))
+          .put("patch", patch));
     }
   }
 
@@ -727,12 +841,10 @@ public class NotebookServer extends WebSocketServlet
             notebookAuthorization.getReaders(noteId));
         return;
       }
-      addConnectionToNote(note.getId(), conn);
-
       if (note.isPersonalizedMode()) {
         note = note.getUserNote(user);
       }
-      conn.send(serializeMessage(new Message(OP.NOTE).put("note", note)));
+      sendNoteAndAddConnection(conn, note);
       sendAllAngularObjects(note, user, conn);
     } else {
       conn.send(serializeMessage(new Message(OP.NOTE).put("note", null)));
@@ -756,8 +868,7 @@ public class NotebookServer extends WebSocketServlet
             notebookAuthorization.getReaders(noteId));
         return;
       }
-      addConnectionToNote(note.getId(), conn);
-      conn.send(serializeMessage(new Message(OP.NOTE).put("note", note)));
+      sendNoteAndAddConnection(conn, note);
       sendAllAngularObjects(note, user, conn);
     } else {
       removeConnectionFromAllNote(conn);
@@ -1159,7 +1270,13 @@ public class NotebookServer extends WebSocketServlet
           note.getParagraph(paragraphId).getUserParagraphMap();
       broadcastParagraphs(userParagraphMap);
     } else {
-      broadcastParagraph(note, p);
+      Map<String, Object> patch = new HashMap<>();
+      patch.put("text", p.getText());
+      patch.put("title", p.getTitle());
+      patch.put("config", p.getConfig());
+      patch.put("settings", p.settings);
+      patch.put("dateUpdated", p.getDateUpdated());
+      broadcastParagraphPatch(note, p, patch);
     }
   }
 
@@ -1197,7 +1314,8 @@ public class NotebookServer extends WebSocketServlet
     Note note = null;
     if (fromMessage != null) {
       String noteName = (String) ((Map) fromMessage.get("note")).get("name");
-      String noteJson = gson.toJson(fromMessage.get("note"));
+      // the note was parsed with the message, convert it without printing it again
+      JsonElement noteJson = gson.toJsonTree(fromMessage.get("note"));
       AuthenticationInfo subject = null;
       if (fromMessage.principal != null) {
         subject = new AuthenticationInfo(fromMessage.principal);
@@ -1584,6 +1702,8 @@ public class NotebookServer extends WebSocketServlet
         gson.fromJson(String.valueOf(fromMessage.data.get("paragraphs")),
             new TypeToken<List<Map<String, Object>>>() {}.getType());
 
+    List<String> paragraphIds = new ArrayList<>();
+    Paragraph last = null;
     for (Map<String, Object> raw : paragraphs) {
       String paragraphId = (String) raw.get("id");
       if (paragraphId == null) {
@@ -1595,11 +1715,16 @@ public class NotebookServer extends WebSocketServlet
       Map<String, Object> params = (Map<String, Object>) raw.get("params");
       Map<String, Object> config = (Map<String, Object>) raw.get("config");
 
-      Paragraph p = setParagraphUsingMessage(note, fromMessage,
+      last = setParagraphUsingMessage(note, fromMessage,
           paragraphId, text, title, params, config);
+      paragraphIds.add(paragraphId);
+    }
 
-      persistAndExecuteSingleParagraph(conn, note, p);
+    if (last == null || !persistBeforeRun(conn, note, last)) {
+      return;
     }
+    // independent paragraphs run concurrently, errors are set on the paragraphs
+    note.runParagraphs(paragraphIds);
   }
 
   private void runParagraph(NotebookSocket conn, HashSet<String> userAndRoles, Notebook notebook,
@@ -1630,6 +1755,27 @@ public class NotebookServer extends WebSocketServlet
 
   private void persistAndExecuteSingleParagraph(NotebookSocket conn,
                                                 Note note, Paragraph p) throws IOException {
+    if (!persistBeforeRun(conn, note, p)) {
+      return;
+    }
+
+    try {
+      note.run(p.getId());
+    } catch (Exception ex) {
+      LOG.error("Exception from run", ex);
+      if (p != null) {
+        p.setReturn(new InterpreterResult(InterpreterResult.Code.ERROR, ex.getMessage()), ex);
+        p.setStatus(Status.ERROR);
+        broadcastParagraph(note, p);
+      }
+    }
+  }
+
+  /**
+   * @return false if the note can't be persisted, and the paragraph mustn't run
+   */
+  private boolean persistBeforeRun(NotebookSocket conn, Note note, Paragraph p)
+      throws IOException {
     // if it's the last paragraph and empty, let's add a new one
     boolean isTheLastParagraph = note.isLastParagraph(p.getId());
     if (!(p.getText().trim().equals(p.getMagic()) ||
@@ -1647,19 +1793,9 @@ public class NotebookServer extends WebSocketServlet
           "Oops! There is something wrong with the notebook file system. "
               + "Please check the logs for more details.")));
       // don't run the paragraph when there is error on persisting the note information
-      return;
-    }
-
-    try {
-      note.run(p.getId());
-    } catch (Exception ex) {
-      LOG.error("Exception from run", ex);
-      if (p != null) {
-        p.setReturn(new InterpreterResult(InterpreterResult.Code.ERROR, ex.getMessage()), ex);
-        p.setStatus(Status.ERROR);
-        broadcast(note.getId(), new Message(OP.PARAGRAPH).put("paragraph", p));
-      }
+      return false;
     }
+    return true;
   }
 
   private Paragraph setParagraphUsingMessage(Note note, Message fromMessage, String paragraphId,
@@ -2082,7 +2218,17 @@ public class NotebookServer extends WebSocketServlet
       if (job instanceof Paragraph) {
         Paragraph p = (Paragraph) job;
         p.setStatusToUserParagraph(job.getStatus());
-        notebookServer.broadcastParagraph(note, p);
+        if (job.isTerminated()) {
+          notebookServer.broadcastParagraph(note, p);
+        } else {
+          // results don't change until the paragraph terminates
+          Map<String, Object> patch = new HashMap<>();
+          patch.put("status", p.getStatus());
+          patch.put("aborted", p.isAborted());
+          patch.put("dateStarted", p.getDateStarted());
+          patch.put("dateFinished", p.getDateFinished());
+          notebookServer.broadcastParagraphPatch(note, p, patch);
+        }
       }
       try {
         notebookServer.broadcastUpdateNoteJobInfo(System.currentTimeMillis() - 5000);
@@ -2160,48 +2306,81 @@ public class NotebookServer extends WebSocketServlet
 
   @Override
   public void onUpdate(String interpreterGroupId, AngularObject object) {
-    Notebook notebook = notebook();
-    if (notebook == null) {
-      return;
-    }
-
-    List<Note> notes = notebook.getAllNotes();
-    for (Note note : notes) {
-      if (object.getNoteId() != null && !note.getId().equals(object.getNoteId())) {
-        continue;
-      }
+    angularObjectUpdates().update(interpreterGroupId, object);
+  }
 
-      List<InterpreterSetting> intpSettings =
-          notebook.getInterpreterSettingManager().getInterpreterSettings(note.getId());
-      if (intpSettings.isEmpty()) {
-        continue;
-      }
+  @Override
+  public void onRemove(String interpreterGroupId, String name, String noteId, String paragraphId) {
+    angularObjectUpdates().remove(interpreterGroupId, name, noteId, paragraphId);
+  }
 
-      broadcast(note.getId(), new Message(OP.ANGULAR_OBJECT_UPDATE).put("angularObject", object)
-          .put("interpreterGroupId", interpreterGroupId).put("noteId", note.getId())
-          .put("paragraphId", object.getParagraphId()));
+  synchronized AngularObjectUpdateBatcher angularObjectUpdates() {
+    if (angularObjectUpdates == null) {
+      ZeppelinConfiguration conf = ZeppelinConfiguration.create();
+      angularObjectUpdates = new AngularObjectUpdateBatcher(
+          new AngularObjectUpdateBatcher.Listener() {
+            @Override
+            public void onChanges(List<AngularObjectUpdateBatcher.Change> changes) {
+              broadcastAngularObjectChanges(changes);
+            }
+          }, conf.getInt(ConfVars.ZEPPELIN_WEBSOCKET_ANGULAR_OBJECT_UPDATE_WINDOW));
     }
+    return angularObjectUpdates;
   }
 
-  @Override
-  public void onRemove(String interpreterGroupId, String name, String noteId, String paragraphId) {
+  /**
+   * Sends the changes to the notes they apply to, one message per note
+   */
+  private void broadcastAngularObjectChanges(List<AngularObjectUpdateBatcher.Change> changes) {
     Notebook notebook = notebook();
+    if (notebook == null) {
+      return;
+    }
+
     List<Note> notes = notebook.getAllNotes();
     for (Note note : notes) {
-      if (noteId != null && !note.getId().equals(noteId)) {
-        continue;
-      }
+      List<Message> messages = new LinkedList<>();
+      List<InterpreterSetting> intpSettings = null;
+      List<String> settingIds = null;
+      for (AngularObjectUpdateBatcher.Change change : changes) {
+        if (change.getNoteId() != null && !note.getId().equals(change.getNoteId())) {
+          continue;
+        }
 
-      List<String> settingIds =
-          notebook.getInterpreterSettingManager().getInterpreters(note.getId());
-      for (String id : settingIds) {
-        if (interpreterGroupId.contains(id)) {
-          broadcast(note.getId(),
-              new Message(OP.ANGULAR_OBJECT_REMOVE).put("name", name).put("noteId", noteId)
-                  .put("paragraphId", paragraphId));
-          break;
+        if (change.isRemoval()) {
+          if (settingIds == null) {
+            settingIds = notebook.getInterpreterSettingManager().getInterpreters(note.getId());
+          }
+          for (String id : settingIds) {
+            if (change.getInterpreterGroupId().contains(id)) {
+              messages.add(new Message(OP.ANGULAR_OBJECT_REMOVE).put("name", change.getName())
+                  .put("noteId", change.getNoteId())
+                  .put("paragraphId", change.getParagraphId()));
+              break;
+            }
+          }
+        } else {
+          if (intpSettings == null) {
+            intpSettings =
+                notebook.getInterpreterSettingManager().getInterpreterSettings(note.getId());
+          }
+          if (intpSettings.isEmpty()) {
+            continue;
+          }
+          messages.add(new Message(OP.ANGULAR_OBJECT_UPDATE)
+              .put("angularObject", change.getObject())
+              .put("interpreterGroupId", change.getInterpreterGroupId())
+              .put("noteId", note.getId())
+              .put("paragraphId", change.getParagraphId()));
         }
       }
+
+      if (messages.size() == 1) {
+        broadcast(note.getId(), messages.get(0));
+      } else if (messages.size() > 1) {
+        broadcast(note.getId(), new Message(OP.ANGULAR_OBJECTS_UPDATE)
+            .put("noteId", note.getId()).put("messages", messages));
+      }
     }
   }
 
@@ -2234,6 +2413,19 @@ public class NotebookServer extends WebSocketServlet
     interpreterSetting.setInfos(metaInfos);
   }
 
+  /**
+   * Progress pushed by the interpreter process, so viewers don't wait for the next poll
+   */
+  @Override
+  public void onParagraphProgress(String noteId, String paragraphId, int progress,
+      List<Map<String, Object>> details) {
+    Message msg = new Message(OP.PROGRESS).put("id", paragraphId).put("progress", progress);
+    if (details != null) {
+      msg.put("details", details);
+    }
+    broadcast(noteId, msg);
+  }
+
   private void switchConnectionToWatcher(NotebookSocket conn, Message messagereceived)
       throws IOException {
     if (!isSessionAllowedToSwitchToWatcher(conn)) {
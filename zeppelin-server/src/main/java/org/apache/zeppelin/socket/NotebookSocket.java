@@ -16,18 +16,73 @@
  */
 package org.apache.zeppelin.socket;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.zeppelin.notebook.socket.Message;
+import org.apache.zeppelin.notebook.socket.Message.OP;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
 
 /**
  * Notebook websocket
+ *
+ * Messages are queued and written asynchronously, one at a time, so threads broadcasting to a
+ * note never wait for the slowest browser. When the queue of a client falling behind is full,
+ * the overflow policy applies.
+ *
+ * Clients connecting with the "encoding=deflate" parameter can receive large messages as binary
+ * frames holding the zlib compressed JSON, when the connection didn't negotiate
+ * permessage-deflate, e.g. because a proxy dropped the extension.
  */
 public class NotebookSocket extends WebSocketAdapter {
+  private static final Logger LOG = LoggerFactory.getLogger(NotebookSocket.class);
+  public static final int DEFAULT_SEND_QUEUE_SIZE = 1000;
+  public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+  private static final Gson gson = new Gson();
+  private static final String PROGRESS_PREFIX = "{\"op\":\"" + OP.PROGRESS + "\"";
+  private static final String APPEND_OUTPUT_PREFIX =
+      "{\"op\":\"" + OP.PARAGRAPH_APPEND_OUTPUT + "\"";
+  private static final String UPDATE_OUTPUT_PREFIX =
+      "{\"op\":\"" + OP.PARAGRAPH_UPDATE_OUTPUT + "\"";
+
+  /**
+   * What to do with a message sent while the send queue is full
+   */
+  public enum OverflowPolicy {
+    /**
+     * Output appended to the last queued output of the paragraph is merged into it, output and
+     * progress updates replace the queued ones. Other messages are queued.
+     */
+    COALESCE,
+    /**
+     * Progress updates are dropped, the rest is handled like COALESCE.
+     */
+    DROP,
+    /**
+     * Close the connection. The client reconnects and reloads the note.
+     */
+    DISCONNECT
+  }
 
   private Session connection;
   private NotebookSocketListener listener;
@@ -35,22 +90,65 @@ public class NotebookSocket extends WebSocketAdapter {
   private String protocol;
   private String user;
 
+  private final int maxQueueSize;
+  private final OverflowPolicy overflowPolicy;
+  // messages of at least this many characters are sent as binary frames, -1 to disable
+  private final int binaryThreshold;
+  private boolean binaryFrames;
+  // guarded by sendQueue
+  private final Deque<Outbound> sendQueue = new ArrayDeque<>();
+  private boolean sending;
+  private int maxQueueDepth;
+  private long sentMessages;
+  private long coalescedMessages;
+  private long droppedMessages;
+  private long totalSendLatencyNanos;
+  private long maxSendLatencyNanos;
+  private long binaryMessages;
+  private long binaryPayloadBytes;
+  private long binaryFrameBytes;
+  private long deflateNanos;
+
   public NotebookSocket(HttpServletRequest req, String protocol,
       NotebookSocketListener listener) {
+    this(req, protocol, listener, DEFAULT_SEND_QUEUE_SIZE, OverflowPolicy.COALESCE);
+  }
+
+  public NotebookSocket(HttpServletRequest req, String protocol,
+      NotebookSocketListener listener, int maxQueueSize, OverflowPolicy overflowPolicy) {
+    this(req, protocol, listener, maxQueueSize, overflowPolicy, -1);
+  }
+
+  /**
+   * @param binaryThreshold length from which messages are sent as compressed binary frames to
+   *                        clients asking for them, -1 to always send text frames
+   */
+  public NotebookSocket(HttpServletRequest req, String protocol,
+      NotebookSocketListener listener, int maxQueueSize, OverflowPolicy overflowPolicy,
+      int binaryThreshold) {
     this.listener = listener;
     this.request = req;
     this.protocol = protocol;
     this.user = StringUtils.EMPTY;
+    this.maxQueueSize = maxQueueSize;
+    this.overflowPolicy = overflowPolicy;
+    this.binaryThreshold = binaryThreshold;
   }
 
   @Override
   public void onWebSocketClose(int closeCode, String message) {
+    synchronized (sendQueue) {
+      sendQueue.clear();
+    }
     listener.onClose(this, closeCode, message);
   }
 
   @Override
   public void onWebSocketConnect(Session connection) {
     this.connection = connection;
+    this.binaryFrames = binaryThreshold >= 0 && request != null
+        && "deflate".equals(request.getParameter("encoding"))
+        && !isNegotiated(connection, PERMESSAGE_DEFLATE);
     listener.onOpen(this);
   }
 
@@ -60,6 +158,19 @@ public class NotebookSocket extends WebSocketAdapter {
   }
 
 
+  private static boolean isNegotiated(Session connection, String extension) {
+    if (connection.getUpgradeResponse() == null
+        || connection.getUpgradeResponse().getExtensions() == null) {
+      return false;
+    }
+    for (ExtensionConfig config : connection.getUpgradeResponse().getExtensions()) {
+      if (extension.equals(config.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public HttpServletRequest getRequest() {
     return request;
   }
@@ -68,8 +179,153 @@ public class NotebookSocket extends WebSocketAdapter {
     return protocol;
   }
 
-  public synchronized void send(String serializeMessage) throws IOException {
-    connection.getRemote().sendString(serializeMessage);
+  /**
+   * Queue the message, it is written once the previous ones are.
+   */
+  public void send(String serializeMessage) throws IOException {
+    if (connection == null || !connection.isOpen()) {
+      throw new IOException("Connection is not open");
+    }
+    synchronized (sendQueue) {
+      if (sendQueue.size() >= maxQueueSize && !queueOnOverflow(serializeMessage)) {
+        return;
+      }
+      sendQueue.add(new Outbound(serializeMessage));
+      maxQueueDepth = Math.max(maxQueueDepth, sendQueue.size());
+      if (sending) {
+        return;
+      }
+      sending = true;
+    }
+    writeQueued();
+  }
+
+  /**
+   * @return false if the message was merged, dropped or the connection closed
+   */
+  private boolean queueOnOverflow(String message) {
+    if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+      LOG.warn("Send queue of {} is full, closing the connection", this);
+      sendQueue.clear();
+      connection.close(StatusCode.POLICY_VIOLATION, "Send queue overflow");
+      droppedMessages++;
+      return false;
+    }
+
+    if (message.startsWith(PROGRESS_PREFIX)) {
+      if (overflowPolicy == OverflowPolicy.DROP) {
+        droppedMessages++;
+        return false;
+      }
+      // progress of a paragraph doesn't depend on other messages, replace it wherever it is
+      Message progress = parse(message);
+      Iterator<Outbound> it = sendQueue.iterator();
+      while (progress != null && it.hasNext()) {
+        Outbound queued = it.next();
+        if (queued.payload.startsWith(PROGRESS_PREFIX)
+            && sameValue(progress, queued.message(), "id")) {
+          queued.setPayload(message, progress);
+          coalescedMessages++;
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // outputs are only merged into the last queued message, to keep their order
+    boolean append = message.startsWith(APPEND_OUTPUT_PREFIX);
+    if (!append && !message.startsWith(UPDATE_OUTPUT_PREFIX)) {
+      return true;
+    }
+    Outbound last = sendQueue.peekLast();
+    boolean lastIsAppend = last != null && last.payload.startsWith(APPEND_OUTPUT_PREFIX);
+    boolean lastIsUpdate = last != null && last.payload.startsWith(UPDATE_OUTPUT_PREFIX);
+    // appends merge into an append, updates replace both
+    if (!lastIsAppend && (append || !lastIsUpdate)) {
+      return true;
+    }
+    Message output = parse(message);
+    Message queued = last.message();
+    if (output == null || queued == null || !sameValue(output, queued, "noteId")
+        || !sameValue(output, queued, "paragraphId") || !sameValue(output, queued, "index")) {
+      return true;
+    }
+    if (append) {
+      queued.put("data", String.valueOf(queued.get("data")) + output.get("data"));
+      last.setPayload(gson.toJson(queued), queued);
+    } else {
+      // an update replaces the output, including what was appended before
+      last.setPayload(message, output);
+    }
+    coalescedMessages++;
+    return false;
+  }
+
+  private static boolean sameValue(Message m1, Message m2, String key) {
+    Object v1 = m1.get(key);
+    return v1 != null && m2 != null && v1.equals(m2.get(key));
+  }
+
+  private static Message parse(String message) {
+    try {
+      return gson.fromJson(message, Message.class);
+    } catch (JsonSyntaxException e) {
+      return null;
+    }
+  }
+
+  private void writeQueued() {
+    while (true) {
+      Outbound next;
+      synchronized (sendQueue) {
+        next = sendQueue.poll();
+        if (next == null) {
+          sending = false;
+          return;
+        }
+      }
+      SendCallback callback = new SendCallback(next);
+      try {
+        if (binaryFrames && next.payload.length() >= binaryThreshold) {
+          connection.getRemote().sendBytes(deflate(next.payload), callback);
+        } else {
+          connection.getRemote().sendString(next.payload, callback);
+        }
+      } catch (RuntimeException e) {
+        callback.writeFailed(e);
+        return;
+      }
+      // continue here when the write completed synchronously, from the callback otherwise
+      if (!callback.completedInline()) {
+        return;
+      }
+    }
+  }
+
+  private ByteBuffer deflate(String payload) {
+    long start = System.nanoTime();
+    byte[] input = payload.getBytes(StandardCharsets.UTF_8);
+    // fastest level, most of the gain on tables and html comes from the first pass
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 64);
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        int length = deflater.deflate(buffer);
+        output.write(buffer, 0, length);
+      }
+    } finally {
+      deflater.end();
+    }
+    synchronized (sendQueue) {
+      binaryMessages++;
+      binaryPayloadBytes += input.length;
+      binaryFrameBytes += output.size();
+      deflateNanos += System.nanoTime() - start;
+    }
+    return ByteBuffer.wrap(output.toByteArray());
   }
 
   public String getUser() {
@@ -79,4 +335,153 @@ public class NotebookSocket extends WebSocketAdapter {
   public void setUser(String user) {
     this.user = user;
   }
+
+  public int getQueueDepth() {
+    synchronized (sendQueue) {
+      return sendQueue.size();
+    }
+  }
+
+  public int getMaxQueueDepth() {
+    synchronized (sendQueue) {
+      return maxQueueDepth;
+    }
+  }
+
+  public long getSentMessages() {
+    synchronized (sendQueue) {
+      return sentMessages;
+    }
+  }
+
+  public long getCoalescedMessages() {
+    synchronized (sendQueue) {
+      return coalescedMessages;
+    }
+  }
+
+  public long getDroppedMessages() {
+    synchronized (sendQueue) {
+      return droppedMessages;
+    }
+  }
+
+  /**
+   * @return average time between queueing and writing a message, in milliseconds
+   */
+  public double getAverageSendLatencyMs() {
+    synchronized (sendQueue) {
+      return sentMessages == 0 ? 0 : totalSendLatencyNanos / 1e6 / sentMessages;
+    }
+  }
+
+  public double getMaxSendLatencyMs() {
+    synchronized (sendQueue) {
+      return maxSendLatencyNanos / 1e6;
+    }
+  }
+
+  public boolean isBinaryFrames() {
+    return binaryFrames;
+  }
+
+  public long getBinaryMessages() {
+    synchronized (sendQueue) {
+      return binaryMessages;
+    }
+  }
+
+  /**
+   * @return size of the messages sent as binary frames, before compression
+   */
+  public long getBinaryPayloadBytes() {
+    synchronized (sendQueue) {
+      return binaryPayloadBytes;
+    }
+  }
+
+  public long getBinaryFrameBytes() {
+    synchronized (sendQueue) {
+      return binaryFrameBytes;
+    }
+  }
+
+  public double getDeflateTimeMs() {
+    synchronized (sendQueue) {
+      return deflateNanos / 1e6;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return request == null ? super.toString() :
+        request.getRemoteAddr() + ":" + request.getRemotePort();
+  }
+
+  private static class Outbound {
+    private final long queuedAt = System.nanoTime();
+    private String payload;
+    // parsed on overflow only
+    private Message message;
+
+    Outbound(String payload) {
+      this.payload = payload;
+    }
+
+    Message message() {
+      if (message == null) {
+        message = parse(payload);
+      }
+      return message;
+    }
+
+    void setPayload(String payload, Message message) {
+      this.payload = payload;
+      this.message = message;
+    }
+  }
+
+  private class SendCallback implements WriteCallback {
+    private static final int PENDING = 0;
+    private static final int RETURNED = 1;
+    private static final int COMPLETED_INLINE = 2;
+
+    private final Outbound outbound;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    SendCallback(Outbound outbound) {
+      this.outbound = outbound;
+    }
+
+    /**
+     * Called once sendString or sendBytes returned.
+     * @return true if the write already completed
+     */
+    boolean completedInline() {
+      return !state.compareAndSet(PENDING, RETURNED);
+    }
+
+    @Override
+    public void writeSuccess() {
+      long latency = System.nanoTime() - outbound.queuedAt;
+      synchronized (sendQueue) {
+        sentMessages++;
+        totalSendLatencyNanos += latency;
+        maxSendLatencyNanos = Math.max(maxSendLatencyNanos, latency);
+      }
+      if (!state.compareAndSet(PENDING, COMPLETED_INLINE)) {
+        writeQueued();
+      }
+    }
+
+    @Override
+    public void writeFailed(Throwable e) {
+      LOG.error("socket error", e);
+      synchronized (sendQueue) {
+        droppedMessages += sendQueue.size() + 1;
+        sendQueue.clear();
+        sending = false;
+      }
+    }
+  }
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.zeppelin.socket;
 
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
 import org.eclipse.jetty.websocket.servlet.WebSocketCreator;
@@ -31,14 +33,26 @@ public class NotebookWebSocketCreator implements WebSocketCreator {
 
   private static final Logger LOG = LoggerFactory.getLogger(NotebookWebSocketCreator.class);
   private NotebookServer notebookServer;
+  private NotebookSocketListener listener;
+  private int sendQueueSize;
+  private NotebookSocket.OverflowPolicy overflowPolicy;
+  private int binaryThreshold;
 
-  public NotebookWebSocketCreator(NotebookServer notebookServer) {
+  public NotebookWebSocketCreator(NotebookServer notebookServer,
+      NotebookSocketListener listener) {
     this.notebookServer = notebookServer;
+    this.listener = listener;
+    ZeppelinConfiguration conf = ZeppelinConfiguration.create();
+    this.sendQueueSize = conf.getInt(ConfVars.ZEPPELIN_WEBSOCKET_SEND_QUEUE_SIZE);
+    this.overflowPolicy = NotebookSocket.OverflowPolicy.valueOf(
+        conf.getString(ConfVars.ZEPPELIN_WEBSOCKET_SEND_OVERFLOW).trim().toUpperCase());
+    this.binaryThreshold = conf.getInt(ConfVars.ZEPPELIN_WEBSOCKET_BINARY_THRESHOLD);
   }
   public Object createWebSocket(ServletUpgradeRequest request, ServletUpgradeResponse response) {
     String origin = request.getHeader("Origin");
     if (notebookServer.checkOrigin(request.getHttpServletRequest(), origin)) {
-      return new NotebookSocket(request.getHttpServletRequest(), "", notebookServer);
+      return new NotebookSocket(request.getHttpServletRequest(), "", listener,
+          sendQueueSize, overflowPolicy, binaryThreshold);
     } else {
       LOG.error("Websocket request is not allowed by {} settings. Origin: {}",
           ZEPPELIN_ALLOWED_ORIGINS, origin);
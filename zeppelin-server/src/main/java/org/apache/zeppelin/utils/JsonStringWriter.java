@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.utils;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the characters escaped as the content of a JSON string, so a large string value,
+ * e.g. an exported note, can be written to a response without building it in memory.
+ * The quotes around the value are not written.
+ */
+public class JsonStringWriter extends FilterWriter {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  public JsonStringWriter(Writer out) {
+    super(out);
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    switch (c) {
+        case '"':
+          out.write("\\\"");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\t':
+          out.write("\\t");
+          break;
+        default:
+          if (needsEscape(c)) {
+            // control characters, and line and paragraph separators not allowed in javascript
+            out.write("\\u");
+            out.write(HEX[(c >> 12) & 0xf]);
+            out.write(HEX[(c >> 8) & 0xf]);
+            out.write(HEX[(c >> 4) & 0xf]);
+            out.write(HEX[c & 0xf]);
+          } else {
+            out.write(c);
+          }
+    }
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    // write runs of characters that need no escaping at once
+    int start = off;
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      char c = cbuf[i];
+      if (c == '"' || c == '\\' || needsEscape(c)) {
+        out.write(cbuf, start, i - start);
+        write(c);
+        start = i + 1;
+      }
+    }
+    out.write(cbuf, start, end - start);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    int start = off;
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      char c = str.charAt(i);
+      if (c == '"' || c == '\\' || needsEscape(c)) {
+        out.write(str, start, i - start);
+        write(c);
+        start = i + 1;
+      }
+    }
+    out.write(str, start, end - start);
+  }
+
+  private static boolean needsEscape(int c) {
+    return c < 0x20 || c == 0x2028 || c == 0x2029;
+  }
+}
@@ -20,14 +20,17 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.shiro.config.IniSecurityManagerFactory;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.realm.text.IniRealm;
 import org.apache.shiro.subject.Subject;
@@ -121,6 +124,7 @@ public class SecurityUtils {
     Subject subject = org.apache.shiro.SecurityUtils.getSubject();
     HashSet<String> roles = new HashSet<>();
     Map allRoles = null;
+    AuthorizingRealm rolesRealm = null;
 
     if (subject.isAuthenticated()) {
       Collection realmsList = SecurityUtils.getRealmsList();
@@ -129,18 +133,25 @@ public class SecurityUtils {
         String name = realm.getClass().getName();
         if (name.equals("org.apache.shiro.realm.text.IniRealm")) {
           allRoles = ((IniRealm) realm).getIni().get("roles");
+          rolesRealm = (IniRealm) realm;
           break;
         } else if (name.equals("org.apache.zeppelin.realm.LdapRealm")) {
           allRoles = ((LdapRealm) realm).getListRoles();
+          rolesRealm = (LdapRealm) realm;
           break;
         }
       }
       if (allRoles != null) {
-        Iterator it = allRoles.entrySet().iterator();
-        while (it.hasNext()) {
-          Map.Entry pair = (Map.Entry) it.next();
-          if (subject.hasRole((String) pair.getKey())) {
-            roles.add((String) pair.getKey());
+        // check all roles at once in the realm, so it looks up roles of the user once
+        // instead of once per role
+        List<String> roleNames = new ArrayList<>();
+        for (Object role : allRoles.keySet()) {
+          roleNames.add((String) role);
+        }
+        boolean[] hasRoles = rolesRealm.hasRoles(subject.getPrincipals(), roleNames);
+        for (int i = 0; i < roleNames.size(); i++) {
+          if (hasRoles[i]) {
+            roles.add(roleNames.get(i));
           }
         }
       }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.realm;
+
+import org.junit.Test;
+
+import javax.naming.NamingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DirectoryCacheTest {
+
+  @Test
+  public void testPrefixTrie() {
+    PrefixTrie trie = new PrefixTrie();
+    for (String user : Arrays.asList("bob", "Alice", "alan", "al", "bobby", "carol")) {
+      trie.add(user);
+    }
+    assertEquals(6, trie.size());
+    assertEquals(Arrays.asList("al", "alan", "Alice"), trie.search("AL", 10));
+    assertEquals(Arrays.asList("al", "alan"), trie.search("al", 2));
+    assertEquals(Arrays.asList("bob", "bobby"), trie.search("bo", 10));
+    assertEquals(6, trie.search("", 10).size());
+    assertTrue(trie.search("dave", 10).isEmpty());
+  }
+
+  @Test
+  public void testSearchUsers() throws NamingException {
+    StubDirectory directory = new StubDirectory("alice", "alan", "Malcolm", "bob");
+    DirectoryCache cache = new DirectoryCache(directory, 60 * 1000);
+
+    // users starting with the text come first
+    assertEquals(Arrays.asList("alan", "alice", "Malcolm"), cache.searchUsers("al", 10));
+    assertEquals(Arrays.asList("alan"), cache.searchUsers("AL", 1));
+    assertEquals(Arrays.asList("bob"), cache.searchUsers("bo", 10));
+
+    // directory is loaded once
+    assertEquals(1, directory.loadCount.get());
+    assertEquals(4, cache.getUserCount());
+  }
+
+  @Test
+  public void testRefreshInBackground() throws NamingException, InterruptedException {
+    StubDirectory directory = new StubDirectory("alice");
+    DirectoryCache cache = new DirectoryCache(directory, 0);
+
+    assertEquals(Arrays.asList("alice"), cache.searchUsers("a", 10));
+    directory.add("anna");
+    Thread.sleep(10);
+
+    // previous users are served while refreshing
+    assertEquals(Arrays.asList("alice"), cache.searchUsers("a", 10));
+    long timeout = System.currentTimeMillis() + 10 * 1000;
+    while (cache.getUserCount() < 2 && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertEquals(Arrays.asList("alice", "anna"), cache.searchUsers("a", 10));
+  }
+
+  @Test
+  public void testLoadFailure() throws NamingException {
+    StubDirectory directory = new StubDirectory("alice");
+    directory.fail = true;
+    DirectoryCache cache = new DirectoryCache(directory, 60 * 1000);
+    try {
+      cache.searchUsers("a", 10);
+      fail("users can't be loaded");
+    } catch (NamingException e) {
+      // expected
+    }
+
+    directory.fail = false;
+    assertEquals(Arrays.asList("alice"), cache.searchUsers("a", 10));
+  }
+
+  private static class StubDirectory implements DirectoryCache.Directory {
+    private final List<String> users;
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private volatile boolean fail;
+
+    StubDirectory(String... users) {
+      this.users = new ArrayList<>(Arrays.asList(users));
+    }
+
+    synchronized void add(String user) {
+      users.add(user);
+    }
+
+    @Override
+    public synchronized List<String> listUsers() throws NamingException {
+      if (fail) {
+        throw new NamingException("directory is not available");
+      }
+      loadCount.incrementAndGet();
+      return new ArrayList<>(users);
+    }
+  }
+}
@@ -128,6 +128,9 @@ public abstract class AbstractTestRestApi {
     if (!wasRunning) {
       System.setProperty(ZeppelinConfiguration.ConfVars.ZEPPELIN_HOME.getVarName(), "../");
       System.setProperty(ZeppelinConfiguration.ConfVars.ZEPPELIN_WAR.getVarName(), "../zeppelin-web/dist");
+      // tests search for paragraphs right after saving them
+      System.setProperty(
+          ZeppelinConfiguration.ConfVars.ZEPPELIN_SEARCH_INDEX_DELAY.getVarName(), "0");
 
       // some test profile does not build zeppelin-web.
       // to prevent zeppelin starting up fail, create zeppelin-web/dist directory
@@ -322,6 +325,8 @@ public abstract class AbstractTestRestApi {
       LOG.info("Test Zeppelin terminated.");
 
       System.clearProperty(ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETERS.getVarName());
+      System.clearProperty(
+          ZeppelinConfiguration.ConfVars.ZEPPELIN_SEARCH_INDEX_DELAY.getVarName());
       if (isRunningWithAuth) {
         isRunningWithAuth = false;
         System
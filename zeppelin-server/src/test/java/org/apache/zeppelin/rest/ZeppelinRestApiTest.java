@@ -82,6 +82,16 @@ public class ZeppelinRestApiTest extends AbstractTestRestApi {
     httpGetRoot.releaseConnection();
   }
 
+  @Test
+  public void getWebsocketLatencies() throws IOException {
+    GetMethod get = httpGet("/websocket/latencies");
+    assertThat(get, isAllowed());
+    Map<String, Object> resp = gson.fromJson(get.getResponseBodyAsString(),
+        new TypeToken<Map<String, Object>>() {}.getType());
+    assertTrue(resp.get("body") instanceof Map);
+    get.releaseConnection();
+  }
+
   @Test
   public void testGetNoteInfo() throws IOException {
     LOG.info("testGetNoteInfo");
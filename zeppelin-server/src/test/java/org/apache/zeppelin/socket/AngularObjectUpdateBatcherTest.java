@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.zeppelin.display.AngularObject;
+import org.apache.zeppelin.display.AngularObjectRegistry;
+import org.apache.zeppelin.display.AngularObjectRegistryListener;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AngularObjectUpdateBatcherTest {
+  private static final Logger LOG = LoggerFactory.getLogger(AngularObjectUpdateBatcherTest.class);
+
+  private final List<List<AngularObjectUpdateBatcher.Change>> batches = new ArrayList<>();
+  private AngularObjectUpdateBatcher batcher;
+  private AngularObjectRegistry registry;
+
+  private void createBatcher(long windowMs) {
+    batcher = new AngularObjectUpdateBatcher(new AngularObjectUpdateBatcher.Listener() {
+      @Override
+      public void onChanges(List<AngularObjectUpdateBatcher.Change> changes) {
+        synchronized (batches) {
+          batches.add(changes);
+          batches.notifyAll();
+        }
+      }
+    }, windowMs);
+    registry = new AngularObjectRegistry("intpGroup", new AngularObjectRegistryListener() {
+      @Override
+      public void onAdd(String interpreterGroupId, AngularObject object) {
+        batcher.update(interpreterGroupId, object);
+      }
+
+      @Override
+      public void onUpdate(String interpreterGroupId, AngularObject object) {
+        batcher.update(interpreterGroupId, object);
+      }
+
+      @Override
+      public void onRemove(String interpreterGroupId, String name, String noteId,
+          String paragraphId) {
+        batcher.remove(interpreterGroupId, name, noteId, paragraphId);
+      }
+    });
+  }
+
+  private void waitForChanges(int changes) throws InterruptedException {
+    synchronized (batches) {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (System.currentTimeMillis() < deadline) {
+        int received = 0;
+        for (List<AngularObjectUpdateBatcher.Change> batch : batches) {
+          received += batch.size();
+        }
+        if (received >= changes) {
+          return;
+        }
+        batches.wait(100);
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    batcher.close();
+  }
+
+  @Test
+  public void testWithoutWindow() {
+    createBatcher(0);
+    AngularObject ao = registry.add("name1", "v0", "note1", null);
+    ao.set("v1");
+    registry.remove("name1", "note1", null);
+
+    assertEquals(3, batches.size());
+    assertFalse(batches.get(1).get(0).isRemoval());
+    assertTrue(batches.get(2).get(0).isRemoval());
+  }
+
+  @Test
+  public void testChangesOfAnObjectAreCoalesced() throws InterruptedException {
+    createBatcher(200);
+    AngularObject ao1 = registry.add("name1", "v0", "note1", null);
+    waitForChanges(1);
+
+    // within the window
+    ao1.set("v1");
+    registry.add("name2", "v0", "note1", "paragraph1");
+    ao1.set("v2");
+    registry.remove("name2", "note1", "paragraph1");
+    waitForChanges(3);
+
+    synchronized (batches) {
+      assertEquals(2, batches.size());
+      List<AngularObjectUpdateBatcher.Change> batch = batches.get(1);
+      assertEquals(2, batch.size());
+      assertEquals("name1", batch.get(0).getName());
+      assertEquals("v2", batch.get(0).getObject().get());
+      assertEquals("name2", batch.get(1).getName());
+      assertEquals("paragraph1", batch.get(1).getParagraphId());
+      assertTrue(batch.get(1).isRemoval());
+    }
+    assertEquals(5, batcher.getReceivedChanges());
+  }
+
+  @Test
+  public void testFrequentUpdatesOfOneObject() throws InterruptedException {
+    createBatcher(50);
+    AngularObject ao = registry.add("counter", 0, "note1", "paragraph1");
+    waitForChanges(1);
+
+    // 10k updates per second
+    long start = System.currentTimeMillis();
+    for (int i = 1; i <= 10000; i++) {
+      ao.set(i);
+      if (i % 10 == 0) {
+        Thread.sleep(1);
+      }
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    synchronized (batches) {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!lastValue().equals(10000) && System.currentTimeMillis() < deadline) {
+        batches.wait(100);
+      }
+    }
+
+    LOG.info("{} updates in {} ms sent in {} batches", batcher.getReceivedChanges() - 1,
+        elapsed, batches.size() - 1);
+    assertEquals(10000, lastValue());
+    // at most one batch per window, plus the ones started before and after the updates
+    assertTrue(batches.size() - 1 <= elapsed / 50 + 3);
+  }
+
+  private Object lastValue() {
+    synchronized (batches) {
+      List<AngularObjectUpdateBatcher.Change> last = batches.get(batches.size() - 1);
+      return last.get(last.size() - 1).getObject().get();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.zeppelin.notebook.Note;
+import org.apache.zeppelin.notebook.Notebook;
+import org.apache.zeppelin.notebook.Paragraph;
+import org.apache.zeppelin.notebook.socket.Message;
+import org.apache.zeppelin.notebook.socket.Message.OP;
+import org.apache.zeppelin.rest.AbstractTestRestApi;
+import org.apache.zeppelin.server.ZeppelinServer;
+import org.apache.zeppelin.user.AuthenticationInfo;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Drives simulated websocket clients through the dispatcher and the real NotebookServer
+ */
+public class NotebookMessageDispatcherTest extends AbstractTestRestApi {
+  private static final int NUM_NOTES = 20;
+  private static final int NUM_CLIENTS = 200;
+  private static final int NUM_COMMITS = 10;
+
+  private static Notebook notebook;
+  private static NotebookServer notebookServer;
+  private static Gson gson = new Gson();
+
+  @BeforeClass
+  public static void init() throws Exception {
+    AbstractTestRestApi.startUp();
+    notebook = ZeppelinServer.notebook;
+    notebookServer = ZeppelinServer.notebookWsServer;
+  }
+
+  @AfterClass
+  public static void destroy() throws Exception {
+    AbstractTestRestApi.shutDown();
+  }
+
+  @Test
+  public void testClientsKeepPerNoteOrder() throws Exception {
+    AuthenticationInfo anonymous = new AuthenticationInfo("anonymous");
+    final NotebookMessageDispatcher dispatcher =
+        new NotebookMessageDispatcher(notebookServer, 16, null);
+    HttpServletRequest request = mock(HttpServletRequest.class);
+
+    List<Note> notes = new ArrayList<>();
+    for (int i = 0; i < NUM_NOTES; i++) {
+      notes.add(notebook.createNote(anonymous));
+    }
+    final List<Paragraph> paragraphs = new ArrayList<>();
+    List<Thread> clients = new ArrayList<>();
+    try {
+      for (int i = 0; i < NUM_CLIENTS; i++) {
+        final int client = i;
+        final Note note = notes.get(i % NUM_NOTES);
+        final Paragraph paragraph = note.addParagraph(anonymous);
+        paragraphs.add(paragraph);
+        final NotebookSocket socket = mock(NotebookSocket.class);
+        when(socket.getRequest()).thenReturn(request);
+
+        // one thread per connection, like jetty
+        clients.add(new Thread() {
+          @Override
+          public void run() {
+            dispatcher.onOpen(socket);
+            dispatcher.onMessage(socket, gson.toJson(new Message(OP.GET_NOTE)
+                .put("id", note.getId())));
+            dispatcher.onMessage(socket, gson.toJson(new Message(OP.LIST_NOTES)));
+            for (int commit = 0; commit < NUM_COMMITS; commit++) {
+              dispatcher.onMessage(socket, gson.toJson(new Message(OP.COMMIT_PARAGRAPH)
+                  .put("id", paragraph.getId())
+                  .put("title", "client " + client)
+                  .put("paragraph", "client " + client + " commit " + commit)
+                  .put("config", new HashMap<String, Object>())
+                  .put("params", new HashMap<String, Object>())));
+            }
+          }
+        });
+      }
+
+      long start = System.currentTimeMillis();
+      for (Thread client : clients) {
+        client.start();
+      }
+      for (Thread client : clients) {
+        client.join();
+      }
+
+      // the last commit of each client wins
+      long timeout = System.currentTimeMillis() + 120 * 1000;
+      while (commitCount(dispatcher) < NUM_CLIENTS * NUM_COMMITS
+          && System.currentTimeMillis() < timeout) {
+        Thread.sleep(100);
+      }
+      LOG.info("{} clients handled in {}ms, latencies: {}", NUM_CLIENTS,
+          System.currentTimeMillis() - start, dispatcher.getLatencies());
+
+      assertEquals(NUM_CLIENTS * NUM_COMMITS, commitCount(dispatcher));
+      for (int i = 0; i < NUM_CLIENTS; i++) {
+        assertEquals("client " + i + " commit " + (NUM_COMMITS - 1),
+            paragraphs.get(i).getText());
+      }
+      assertTrue(dispatcher.getLatencies().containsKey(OP.GET_NOTE.name()));
+    } finally {
+      dispatcher.close();
+      for (Note note : notes) {
+        notebook.removeNote(note.getId(), anonymous);
+      }
+    }
+  }
+
+  private long commitCount(NotebookMessageDispatcher dispatcher) {
+    Map<String, Object> commits = dispatcher.getLatencies().get(OP.COMMIT_PARAGRAPH.name());
+    return commits == null ? 0 : (Long) commits.get("count");
+  }
+}
@@ -22,6 +22,7 @@ import org.apache.zeppelin.display.AngularObject;
 import org.apache.zeppelin.display.AngularObjectBuilder;
 import org.apache.zeppelin.display.AngularObjectRegistry;
 import org.apache.zeppelin.interpreter.InterpreterGroup;
+import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterSetting;
 import org.apache.zeppelin.interpreter.remote.RemoteAngularObjectRegistry;
 import org.apache.zeppelin.notebook.Note;
@@ -30,20 +31,24 @@ import org.apache.zeppelin.notebook.Paragraph;
 import org.apache.zeppelin.notebook.socket.Message;
 import org.apache.zeppelin.notebook.socket.Message.OP;
 import org.apache.zeppelin.rest.AbstractTestRestApi;
+import org.apache.zeppelin.scheduler.Job.Status;
 import org.apache.zeppelin.server.ZeppelinServer;
 import org.apache.zeppelin.user.AuthenticationInfo;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import javax.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
@@ -360,6 +365,57 @@ public class NotebookServerTest extends AbstractTestRestApi {
     verify(otherConn).send(mdMsg1);
   }
 
+  @Test
+  public void testParagraphStatusChangeIsSentAsPatch() throws IOException {
+    Note note = notebook.createNote(anonymous);
+    Paragraph p = note.addParagraph(anonymous);
+    StringBuilder table = new StringBuilder("%table a\tb\n");
+    for (int i = 0; i < 10000; i++) {
+      table.append(i).append("\t").append(i * i).append("\n");
+    }
+    p.setResult(new InterpreterResult(InterpreterResult.Code.SUCCESS, table.toString()));
+
+    NotebookSocket sock = createWebSocket();
+    notebookServer.onOpen(sock);
+    notebookServer.onMessage(sock, gson.toJson(new Message(OP.GET_NOTE).put("id", note.getId())));
+
+    p.setListener(notebookServer.getParagraphJobListener(note));
+    p.setStatus(Status.PENDING);
+    p.setStatus(Status.RUNNING);
+
+    ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+    verify(sock, atLeastOnce()).send(sent.capture());
+    List<Message> messages = new ArrayList<>();
+    int noteSize = 0;
+    int patchSize = 0;
+    for (String json : sent.getAllValues()) {
+      Message m = gson.fromJson(json, Message.class);
+      if (m.op == OP.NOTE) {
+        noteSize = json.length();
+        messages.add(m);
+      } else if (m.op == OP.PARAGRAPH_PATCH || m.op == OP.PARAGRAPH) {
+        patchSize += json.length();
+        messages.add(m);
+      }
+    }
+    LOG.info("Note of {} bytes, status changes sent in {} bytes", noteSize, patchSize);
+
+    // each status change is a patch without the results, numbered after the note
+    assertEquals(3, messages.size());
+    double seq = (Double) messages.get(0).get("seq");
+    for (int i = 1; i < 3; i++) {
+      assertEquals(OP.PARAGRAPH_PATCH, messages.get(i).op);
+      assertEquals(p.getId(), messages.get(i).get("paragraphId"));
+      assertEquals(seq + i, messages.get(i).get("seq"));
+    }
+    assertEquals("PENDING", ((Map) messages.get(1).get("patch")).get("status"));
+    assertEquals("RUNNING", ((Map) messages.get(2).get("patch")).get("status"));
+    assertTrue(noteSize > table.length());
+    assertTrue(patchSize < 1000);
+
+    notebook.removeNote(note.getId(), anonymous);
+  }
+
   @Test
   public void testCreateNoteWithDefaultInterpreterId() throws IOException {
     // create two sockets and open it
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.zeppelin.notebook.socket.Message;
+import org.apache.zeppelin.notebook.socket.Message.OP;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.gson.Gson;
+
+public class NotebookSocketTest {
+  private Gson gson = new Gson();
+  private Session session;
+  private final List<String> written = new ArrayList<>();
+  private final List<WriteCallback> pending = new ArrayList<>();
+  private final List<ByteBuffer> writtenBytes = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    session = mock(Session.class);
+    RemoteEndpoint remote = mock(RemoteEndpoint.class);
+    when(session.isOpen()).thenReturn(true);
+    when(session.getRemote()).thenReturn(remote);
+    // writes complete when the test says so, like a slow client
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        written.add((String) invocation.getArguments()[0]);
+        pending.add((WriteCallback) invocation.getArguments()[1]);
+        return null;
+      }
+    }).when(remote).sendString(anyString(), any(WriteCallback.class));
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        writtenBytes.add((ByteBuffer) invocation.getArguments()[0]);
+        ((WriteCallback) invocation.getArguments()[1]).writeSuccess();
+        return null;
+      }
+    }).when(remote).sendBytes(any(ByteBuffer.class), any(WriteCallback.class));
+  }
+
+  private NotebookSocket connect(int queueSize, NotebookSocket.OverflowPolicy policy) {
+    NotebookSocket socket = new NotebookSocket(null, "", mock(NotebookSocketListener.class),
+        queueSize, policy);
+    socket.onWebSocketConnect(session);
+    return socket;
+  }
+
+  private void completeWrites() {
+    while (!pending.isEmpty()) {
+      pending.remove(0).writeSuccess();
+    }
+  }
+
+  private String append(String paragraphId, String data) {
+    return gson.toJson(new Message(OP.PARAGRAPH_APPEND_OUTPUT).put("noteId", "note")
+        .put("paragraphId", paragraphId).put("index", 0).put("data", data));
+  }
+
+  private String progress(String paragraphId, int progress) {
+    return gson.toJson(new Message(OP.PROGRESS).put("id", paragraphId).put("progress", progress));
+  }
+
+  @Test
+  public void testMessagesAreWrittenInOrder() throws Exception {
+    NotebookSocket socket = connect(10, NotebookSocket.OverflowPolicy.COALESCE);
+    socket.send("1");
+    socket.send("2");
+    socket.send("3");
+
+    // one write at a time
+    assertEquals(1, written.size());
+    assertEquals(2, socket.getQueueDepth());
+
+    completeWrites();
+    assertEquals(3, written.size());
+    assertEquals("1", written.get(0));
+    assertEquals("3", written.get(2));
+    assertEquals(0, socket.getQueueDepth());
+    assertEquals(3, socket.getSentMessages());
+  }
+
+  @Test
+  public void testAppendsAreCoalescedOnOverflow() throws Exception {
+    NotebookSocket socket = connect(2, NotebookSocket.OverflowPolicy.COALESCE);
+    socket.send("first");
+    socket.send(progress("p1", 10));
+    socket.send(append("p1", "a"));
+    socket.send(append("p1", "b"));
+    socket.send(append("p1", "c"));
+    socket.send(progress("p1", 20));
+
+    completeWrites();
+    assertEquals(3, written.size());
+    Message progress = gson.fromJson(written.get(1), Message.class);
+    assertEquals(20.0, progress.get("progress"));
+    Message output = gson.fromJson(written.get(2), Message.class);
+    assertEquals(OP.PARAGRAPH_APPEND_OUTPUT, output.op);
+    assertEquals("abc", output.get("data"));
+    assertEquals(3, socket.getCoalescedMessages());
+  }
+
+  @Test
+  public void testAppendsOfOtherParagraphsAreQueued() throws Exception {
+    NotebookSocket socket = connect(1, NotebookSocket.OverflowPolicy.COALESCE);
+    socket.send("first");
+    socket.send(append("p1", "a"));
+    socket.send(append("p2", "b"));
+    socket.send(append("p1", "c"));
+
+    completeWrites();
+    assertEquals(4, written.size());
+    assertEquals(0, socket.getCoalescedMessages());
+  }
+
+  @Test
+  public void testProgressIsDroppedOnOverflow() throws Exception {
+    NotebookSocket socket = connect(1, NotebookSocket.OverflowPolicy.DROP);
+    socket.send("first");
+    socket.send("second");
+    socket.send(progress("p1", 10));
+
+    completeWrites();
+    assertEquals(2, written.size());
+    assertEquals(1, socket.getDroppedMessages());
+  }
+
+  @Test
+  public void testDisconnectOnOverflow() throws Exception {
+    NotebookSocket socket = connect(1, NotebookSocket.OverflowPolicy.DISCONNECT);
+    socket.send("first");
+    socket.send("second");
+    socket.send("third");
+
+    verify(session).close(anyInt(), anyString());
+    completeWrites();
+    assertEquals(1, written.size());
+  }
+
+  @Test
+  public void testLargeMessagesAreSentAsBinaryFrames() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getParameter("encoding")).thenReturn("deflate");
+    NotebookSocket socket = new NotebookSocket(request, "", mock(NotebookSocketListener.class),
+        10, NotebookSocket.OverflowPolicy.COALESCE, 100);
+    socket.onWebSocketConnect(session);
+
+    StringBuilder table = new StringBuilder("%table a\tb\n");
+    for (int i = 0; i < 1000; i++) {
+      table.append(i).append("\t").append(i % 7).append("\n");
+    }
+    String large = append("p1", table.toString());
+    socket.send(progress("p1", 10));
+    socket.send(large);
+    completeWrites();
+
+    assertEquals(1, written.size());
+    assertEquals(1, writtenBytes.size());
+    ByteBuffer frame = writtenBytes.get(0);
+    Inflater inflater = new Inflater();
+    inflater.setInput(frame.array(), frame.position(), frame.remaining());
+    byte[] inflated = new byte[large.length() * 2];
+    int length = inflater.inflate(inflated);
+    inflater.end();
+    assertEquals(large, new String(inflated, 0, length, StandardCharsets.UTF_8));
+    assertEquals(1, socket.getBinaryMessages());
+    assertTrue(socket.getBinaryFrameBytes() < socket.getBinaryPayloadBytes() / 2);
+  }
+
+  @Test
+  public void testTextFramesWithoutEncodingParameter() throws Exception {
+    NotebookSocket socket = new NotebookSocket(mock(HttpServletRequest.class), "",
+        mock(NotebookSocketListener.class), 10, NotebookSocket.OverflowPolicy.COALESCE, 0);
+    socket.onWebSocketConnect(session);
+    socket.send("message");
+    completeWrites();
+
+    assertEquals(1, written.size());
+    assertEquals(0, writtenBytes.size());
+  }
+}
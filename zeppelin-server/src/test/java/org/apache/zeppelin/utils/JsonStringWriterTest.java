@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+public class JsonStringWriterTest {
+
+  private String toJsonString(String value) throws IOException {
+    StringWriter out = new StringWriter();
+    out.write('"');
+    Writer writer = new JsonStringWriter(out);
+    // both single characters and parts of strings
+    writer.write(value.charAt(0));
+    writer.write(value, 1, value.length() - 1);
+    writer.flush();
+    out.write('"');
+    return out.toString();
+  }
+
+  @Test
+  public void testEscapedValueIsParsedBack() throws IOException {
+    String value = "{\n  \"text\": \"a\\tb\",\r\n\t\"c\": \"\u0001\u2028\u2029\u00e9\"\n}";
+    String json = toJsonString(value);
+
+    assertEquals(value, new Gson().fromJson(json, String.class));
+    assertEquals("\"{\\n  \\\"text\\\": \\\"a\\\\tb\\\",\\r\\n\\t\\\"c\\\": "
+        + "\\\"\\u0001\\u2028\\u2029\u00e9\\\"\\n}\"", json);
+  }
+
+  @Test
+  public void testCharArray() throws IOException {
+    StringWriter out = new StringWriter();
+    Writer writer = new JsonStringWriter(out);
+    char[] chars = "xx\"a\"b\\yy".toCharArray();
+    writer.write(chars, 2, chars.length - 4);
+    writer.flush();
+    assertEquals("\\\"a\\\"b\\\\", out.toString());
+  }
+}
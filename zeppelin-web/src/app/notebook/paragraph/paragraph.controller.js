@@ -1000,7 +1000,7 @@ function ParagraphCtrl($scope, $rootScope, $route, $window, $routeParams, $locat
     }
   });
 
-  $scope.$on('updateParagraph', function(event, data) {
+  var updateParagraph = function(event, data) {
     if (data.paragraph.id === $scope.paragraph.id &&
       (data.paragraph.dateCreated !== $scope.paragraph.dateCreated ||
       data.paragraph.text !== $scope.paragraph.text ||
@@ -1096,6 +1096,18 @@ function ParagraphCtrl($scope, $rootScope, $route, $window, $routeParams, $locat
         }
       }
     }
+  };
+
+  $scope.$on('updateParagraph', updateParagraph);
+
+  $scope.$on('patchParagraph', function(event, data) {
+    if (data.paragraphId === $scope.paragraph.id) {
+      var paragraph = angular.extend({}, $scope.paragraph);
+      for (var i = 0; i < data.fields.length; i++) {
+        paragraph[data.fields[i]] = data.patch[data.fields[i]];
+      }
+      updateParagraph(event, {paragraph: paragraph});
+    }
   });
 
   $scope.$on('updateProgress', function(event, data) {
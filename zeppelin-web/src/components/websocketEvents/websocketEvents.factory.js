@@ -19,12 +19,24 @@ websocketEvents.$inject = ['$rootScope', '$websocket', '$location', 'baseUrlSrv'
 function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
   var websocketCalls = {};
   var pingIntervalId;
+  // sequence number of the last NOTE, PARAGRAPH or PARAGRAPH_PATCH message of each note
+  var noteSequences = {};
+  // notes reloaded after a missed message. their patches are dropped until the NOTE arrives
+  var reloadingNotes = {};
 
-  websocketCalls.ws = $websocket(baseUrlSrv.getWebsocketUrl());
+  // the server may send large messages as binary frames of zlib compressed JSON
+  var supportsDeflate = window.DecompressionStream !== undefined && window.Response !== undefined;
+  // number of messages waiting for a binary frame to be decoded, and the end of the decoding
+  var decoding = 0;
+  var decoded = Promise.resolve();
+
+  websocketCalls.ws = $websocket(baseUrlSrv.getWebsocketUrl() +
+    (supportsDeflate ? '?encoding=deflate' : ''));
   websocketCalls.ws.reconnectIfNotNormalClose = true;
 
   websocketCalls.ws.onOpen(function() {
     console.log('Websocket created');
+    reloadingNotes = {};
     $rootScope.$broadcast('setConnectedStatus', true);
     pingIntervalId = setInterval(function() {
       websocketCalls.sendNewEvent({op: 'PING'});
@@ -49,7 +61,32 @@ function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
     return (websocketCalls.ws.socket.readyState === 1);
   };
 
+  var inflate = function(blob) {
+    var stream = blob.stream().pipeThrough(new window.DecompressionStream('deflate'));
+    return new window.Response(stream).text();
+  };
+
   websocketCalls.ws.onMessage(function(event) {
+    if (typeof event.data === 'string' && decoding === 0) {
+      handleMessage(event);
+      return;
+    }
+    // messages are handled in order, so the ones following a binary frame wait for it
+    decoding++;
+    decoded = decoded.then(function() {
+      return typeof event.data === 'string' ? event.data : inflate(event.data);
+    }).then(function(json) {
+      $rootScope.$apply(function() {
+        handleMessage({data: json});
+      });
+    })['catch'](function(error) {
+      console.log('Can not decode message: ', error);
+    }).then(function() {
+      decoding--;
+    });
+  });
+
+  function handleMessage(event) {
     var payload;
     if (event.data) {
       payload = angular.fromJson(event.data);
@@ -58,6 +95,12 @@ function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
     var op = payload.op;
     var data = payload.data;
     if (op === 'NOTE') {
+      if (data.note) {
+        delete reloadingNotes[data.note.id];
+        if (data.seq !== undefined) {
+          noteSequences[data.note.id] = data.seq;
+        }
+      }
       $rootScope.$broadcast('setNoteContent', data.note);
     } else if (op === 'NEW_NOTE') {
       $location.path('/notebook/' + data.note.id);
@@ -110,7 +153,24 @@ function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
       });
 
     } else if (op === 'PARAGRAPH') {
+      if (data.seq !== undefined && !reloadingNotes[data.noteId]) {
+        noteSequences[data.noteId] = data.seq;
+      }
       $rootScope.$broadcast('updateParagraph', data);
+    } else if (op === 'PARAGRAPH_PATCH') {
+      if (reloadingNotes[data.noteId]) {
+        // dropped, the reloaded note has the change
+      } else if (noteSequences[data.noteId] === undefined ||
+          data.seq !== noteSequences[data.noteId] + 1) {
+        // a message of the note was missed, reload it once
+        console.log('Missing messages of note %o, reloading', data.noteId);
+        reloadingNotes[data.noteId] = true;
+        delete noteSequences[data.noteId];
+        websocketCalls.sendNewEvent({op: 'GET_NOTE', data: {id: data.noteId}});
+      } else {
+        noteSequences[data.noteId] = data.seq;
+        $rootScope.$broadcast('patchParagraph', data);
+      }
     } else if (op === 'PARAGRAPH_APPEND_OUTPUT') {
       $rootScope.$broadcast('appendParagraphOutput', data);
     } else if (op === 'PARAGRAPH_UPDATE_OUTPUT') {
@@ -125,6 +185,15 @@ function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
       $rootScope.$broadcast('angularObjectUpdate', data);
     } else if (op === 'ANGULAR_OBJECT_REMOVE') {
       $rootScope.$broadcast('angularObjectRemove', data);
+    } else if (op === 'ANGULAR_OBJECTS_UPDATE') {
+      for (var i = 0; i < data.messages.length; i++) {
+        var message = data.messages[i];
+        if (message.op === 'ANGULAR_OBJECT_UPDATE') {
+          $rootScope.$broadcast('angularObjectUpdate', message.data);
+        } else if (message.op === 'ANGULAR_OBJECT_REMOVE') {
+          $rootScope.$broadcast('angularObjectRemove', message.data);
+        }
+      }
     } else if (op === 'APP_APPEND_OUTPUT') {
       $rootScope.$broadcast('appendAppOutput', data);
     } else if (op === 'APP_UPDATE_OUTPUT') {
@@ -171,7 +240,7 @@ function websocketEvents($rootScope, $websocket, $location, baseUrlSrv) {
     } else if (op === 'SET_NOTE_REVISION') {
       $rootScope.$broadcast('setNoteRevisionResult', data);
     }
-  });
+  }
 
   websocketCalls.ws.onError(function(event) {
     console.log('error message: ', event);
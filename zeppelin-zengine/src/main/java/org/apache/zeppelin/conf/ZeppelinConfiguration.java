@@ -413,6 +413,10 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getBoolean(ConfVars.ZEPPELIN_CREDENTIALS_PERSIST);
   }
 
+  public long getConfigPersistDelay() {
+    return getLong(ConfVars.ZEPPELIN_CONFIG_PERSIST_DELAY);
+  }
+
   public String getCredentialsPath() {
     return getRelativeDir(String.format("%s/credentials.json", getConfDir()));
   }
@@ -637,13 +641,25 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_DEP_LOCALREPO("zeppelin.dep.localrepo", "local-repo"),
     ZEPPELIN_HELIUM_LOCALREGISTRY_DEFAULT("zeppelin.helium.localregistry.default", "helium"),
     ZEPPELIN_HELIUM_NPM_REGISTRY("zeppelin.helium.npm.registry", "http://registry.npmjs.org/"),
+    // Number of built visualization bundles kept in the bundle cache
+    ZEPPELIN_HELIUM_BUNDLE_CACHE_SIZE("zeppelin.helium.bundle.cache.size", 5),
     // Allows a way to specify a ',' separated list of allowed origins for rest and websockets
     // i.e. http://localhost:8080
     ZEPPELIN_ALLOWED_ORIGINS("zeppelin.server.allowed.origins", "*"),
     ZEPPELIN_ANONYMOUS_ALLOWED("zeppelin.anonymous.allowed", true),
+    // Users of LDAP and Active Directory realms are cached for autocomplete, 0 disables it
+    ZEPPELIN_DIRECTORY_CACHE_REFRESH_INTERVAL("zeppelin.directory.cache.refresh.interval",
+        600000L),
     ZEPPELIN_RESULT_DATA_DIR("zeppelin.paragraph.result.dir", "/tmp/zeppelin-" + System.getProperty("user.name")),
     ZEPPELIN_CREDENTIALS_PERSIST("zeppelin.credentials.persist", true),
     ZEPPELIN_WEBSOCKET_MAX_TEXT_MESSAGE_SIZE("zeppelin.websocket.max.text.message.size", "1024000"),
+    ZEPPELIN_WEBSOCKET_SEND_QUEUE_SIZE("zeppelin.websocket.send.queue.size", 1000),
+    ZEPPELIN_WEBSOCKET_SEND_OVERFLOW("zeppelin.websocket.send.overflow", "coalesce"),
+    ZEPPELIN_WEBSOCKET_DISPATCH_THREADS("zeppelin.websocket.dispatch.threads", 16),
+    ZEPPELIN_WEBSOCKET_PERMESSAGE_DEFLATE("zeppelin.websocket.permessage.deflate", true),
+    ZEPPELIN_WEBSOCKET_BINARY_THRESHOLD("zeppelin.websocket.binary.threshold", -1),
+    ZEPPELIN_WEBSOCKET_ANGULAR_OBJECT_UPDATE_WINDOW(
+        "zeppelin.websocket.angular.object.update.window", 50),
     ZEPPELIN_SERVER_DEFAULT_DIR_ALLOWED("zeppelin.server.default.dir.allowed", false),
     ZEPPELIN_SERVER_XFRAME_OPTIONS("zeppelin.server.xframe.options", "SAMEORIGIN"),
     ZEPPELIN_SERVER_JETTY_NAME("zeppelin.server.jetty.name", null),
@@ -651,7 +667,15 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_SERVER_X_XSS_PROTECTION("zeppelin.server.xxss.protection", "1"),
     ZEPPELIN_NOTEBOOK_CRON_ENABLE("zeppelin.notebook.cron.enable", false),
     ZEPPELIN_NOTEBOOK_CRON_FOLDERS("zeppelin.notebook.cron.folders", null),
-    ZEPPELIN_OWNER_ROLE("zeppelin.notebook.default.owner.username", "");
+    ZEPPELIN_NOTEBOOK_CRON_CONCURRENCY("zeppelin.notebook.cron.concurrency", 10),
+    ZEPPELIN_NOTEBOOK_CRON_OVERLAP("zeppelin.notebook.cron.overlap", "skip"),
+    ZEPPELIN_NOTEBOOK_CRON_MISFIRE("zeppelin.notebook.cron.misfire", "fire_once"),
+    ZEPPELIN_NOTEBOOK_RUN_ALL_PARALLELISM("zeppelin.notebook.runall.parallelism", 8),
+    ZEPPELIN_NOTEBOOK_ANGULAR_OBJECT_MAX_SIZE("zeppelin.notebook.angular.object.max.size", -1),
+    // Maximum time a saved note waits to be indexed for search, 0 indexes it while saving
+    ZEPPELIN_SEARCH_INDEX_DELAY("zeppelin.search.index.delay", 1000L),
+    ZEPPELIN_OWNER_ROLE("zeppelin.notebook.default.owner.username", ""),
+    ZEPPELIN_CONFIG_PERSIST_DELAY("zeppelin.config.persist.delay", 1000L);
 
     private String varName;
     @SuppressWarnings("rawtypes")
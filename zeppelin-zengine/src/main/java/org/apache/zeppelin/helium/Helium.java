@@ -220,7 +220,7 @@ public class Helium {
 
     // if package is visualization, rebuild bundle
     if (pkgInfo.getPkg().getType() == HeliumPackage.Type.VISUALIZATION) {
-      visualizationFactory.bundle(getVisualizationPackagesToBundle());
+      visualizationFactory.bundleInBackground(getVisualizationPackagesToBundle());
     }
 
     save();
@@ -237,7 +237,7 @@ public class Helium {
 
     HeliumPackageSearchResult pkg = getPackageInfo(name, artifact);
     if (pkg == null || pkg.getPkg().getType() == HeliumPackage.Type.VISUALIZATION) {
-      visualizationFactory.bundle(getVisualizationPackagesToBundle());
+      visualizationFactory.bundleInBackground(getVisualizationPackagesToBundle());
     }
 
     save();
@@ -345,7 +345,7 @@ public class Helium {
     heliumConf.setVisualizationDisplayOrder(orderedPackageList);
 
     // if package is visualization, rebuild bundle
-    visualizationFactory.bundle(getVisualizationPackagesToBundle());
+    visualizationFactory.bundleInBackground(getVisualizationPackagesToBundle());
 
     save();
   }
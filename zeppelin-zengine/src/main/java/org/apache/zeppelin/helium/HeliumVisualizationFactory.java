@@ -18,6 +18,8 @@ package org.apache.zeppelin.helium;
 
 import com.github.eirslett.maven.plugins.frontend.lib.*;
 import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Resources;
 import com.google.gson.Gson;
 import org.apache.commons.io.FileUtils;
@@ -33,9 +35,17 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 
 /**
  * Load helium visualization
@@ -59,8 +69,28 @@ public class HeliumVisualizationFactory {
   private Gson gson;
   private boolean nodeAndNpmInstalled = false;
 
-  String bundleCacheKey = "";
-  File currentBundle;
+  private final File bundleCacheDirectory;
+  private final int bundleCacheSize;
+  // held while node_modules of the working directory is modified
+  private final Object buildLock = new Object();
+  private final AtomicLong bundleRequests = new AtomicLong();
+  private long publishedRequest;
+  private volatile File currentBundle;
+  private final AtomicReference<PendingBundle> pendingBundle = new AtomicReference<>();
+  private final ExecutorService bundleExecutor;
+  private NpmRunner npmRunner;
+
+  private static final FileFilter npmPackageCopyFilter = new FileFilter() {
+    @Override
+    public boolean accept(File pathname) {
+      String fileName = pathname.getName();
+      if (fileName.startsWith(".") || fileName.startsWith("#") || fileName.startsWith("~")) {
+        return false;
+      } else {
+        return true;
+      }
+    }
+  };
 
   ByteArrayOutputStream out  = new ByteArrayOutputStream();
 
@@ -86,8 +116,23 @@ public class HeliumVisualizationFactory {
     frontEndPluginFactory = new FrontendPluginFactory(
         workingDirectory, installDirectory);
 
-    currentBundle = new File(workingDirectory, "vis.bundle.cache.js");
+    bundleCacheDirectory = new File(workingDirectory, "bundles");
+    bundleCacheSize = Math.max(1, conf.getInt(ConfVars.ZEPPELIN_HELIUM_BUNDLE_CACHE_SIZE));
+    bundleExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "HeliumVisualizationBundle");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
     gson = new Gson();
+
+    // serve the last bundle built by the previous run until a bundle is requested
+    File[] bundles = listCachedBundles();
+    if (bundles != null && bundles.length > 0) {
+      currentBundle = bundles[0];
+    }
   }
 
   void installNodeAndNpm() {
@@ -162,38 +207,87 @@ public class HeliumVisualizationFactory {
     return bundle(pkgs, false);
   }
 
-  public synchronized File bundle(List<HeliumPackage> pkgs, boolean forceRefresh)
+  /**
+   * Bundle the packages, or take the bundle from the cache when one was already built from the
+   * same packages and contents. The bundle becomes the current bundle.
+   */
+  public File bundle(List<HeliumPackage> pkgs, boolean forceRefresh) throws IOException {
+    return bundle(copyOf(pkgs), forceRefresh, bundleRequests.incrementAndGet());
+  }
+
+  /**
+   * Bundle the packages in the background. The current bundle keeps being served while the
+   * bundle is built and when the build fails. Requests made during a build are coalesced and
+   * only the latest one is built.
+   */
+  public void bundleInBackground(List<HeliumPackage> pkgs) {
+    List<HeliumPackage> packages = copyOf(pkgs);
+    long request = bundleRequests.incrementAndGet();
+    try {
+      if (useCachedBundle(getBundleFile(packages), packages, request)) {
+        return;
+      }
+    } catch (IOException e) {
+      logger.error(e.getMessage(), e);
+    }
+
+    pendingBundle.set(new PendingBundle(packages, request));
+    bundleExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+        PendingBundle pending = pendingBundle.getAndSet(null);
+        if (pending == null) {
+          // already built by a previous task
+          return;
+        }
+        try {
+          bundle(pending.packages, false, pending.request);
+        } catch (Exception e) {
+          logger.error("Can't bundle visualization packages, keep serving " + currentBundle, e);
+        }
+      }
+    });
+  }
+
+  private File bundle(List<HeliumPackage> pkgs, boolean forceRefresh, long request)
       throws IOException {
-    if (pkgs == null || pkgs.size() == 0) {
-      // when no package is selected, simply return an empty file instead of try bundle package
-      synchronized (this) {
-        currentBundle.getParentFile().mkdirs();
-        currentBundle.delete();
-        currentBundle.createNewFile();
-        bundleCacheKey = "";
-        return currentBundle;
+    File bundle = getBundleFile(pkgs);
+    boolean useCache = !forceRefresh || pkgs.isEmpty();
+    if (useCache && useCachedBundle(bundle, pkgs, request)) {
+      return bundle;
+    }
+
+    synchronized (buildLock) {
+      // may have been built while waiting for the lock
+      if (useCache && useCachedBundle(bundle, pkgs, request)) {
+        return bundle;
       }
+      storeBundle(build(pkgs), bundle);
+      publish(bundle, request);
+      pruneBundleCache();
     }
+    return bundle;
+  }
 
-    installNodeAndNpm();
+  private boolean useCachedBundle(File bundle, List<HeliumPackage> pkgs, long request)
+      throws IOException {
+    if (!bundle.isFile()) {
+      if (!pkgs.isEmpty()) {
+        return false;
+      }
+      // when no package is selected, simply use an empty file instead of try bundle package
+      bundleCacheDirectory.mkdirs();
+      storeBundle(File.createTempFile("vis.bundle", ".tmp", bundleCacheDirectory), bundle);
+    }
+    publish(bundle, request);
+    return true;
+  }
 
+  private File build(List<HeliumPackage> pkgs) throws IOException {
     // package.json
     URL pkgUrl = Resources.getResource("helium/package.json");
     String pkgJson = Resources.toString(pkgUrl, Charsets.UTF_8);
     StringBuilder dependencies = new StringBuilder();
-    StringBuilder cacheKeyBuilder = new StringBuilder();
-
-    FileFilter npmPackageCopyFilter = new FileFilter() {
-      @Override
-      public boolean accept(File pathname) {
-        String fileName = pathname.getName();
-        if (fileName.startsWith(".") || fileName.startsWith("#") || fileName.startsWith("~")) {
-          return false;
-        } else {
-          return true;
-        }
-      }
-    };
 
     for (HeliumPackage pkg : pkgs) {
       String[] moduleNameVersion = getNpmModuleNameAndVersion(pkg);
@@ -205,7 +299,6 @@ public class HeliumVisualizationFactory {
         dependencies.append(",\n");
       }
       dependencies.append("\"" + moduleNameVersion[0] + "\": \"" + moduleNameVersion[1] + "\"");
-      cacheKeyBuilder.append(pkg.getName() + pkg.getArtifact());
 
       File pkgInstallDir = new File(workingDirectory, "node_modules/" + pkg.getName());
       if (pkgInstallDir.exists()) {
@@ -221,12 +314,6 @@ public class HeliumVisualizationFactory {
     }
     pkgJson = pkgJson.replaceFirst("DEPENDENCIES", dependencies.toString());
 
-    // check if we can use previous bundle or not
-    if (cacheKeyBuilder.toString().equals(bundleCacheKey)
-        && currentBundle.isFile() && !forceRefresh) {
-      return currentBundle;
-    }
-
     // webpack.config.js
     URL webpackConfigUrl = Resources.getResource("helium/webpack.config.js");
     String webpackConfig = Resources.toString(webpackConfigUrl, Charsets.UTF_8);
@@ -308,17 +395,118 @@ public class HeliumVisualizationFactory {
     }
 
     WebpackResult result = getWebpackResultFromOutput(new String(out.toByteArray()));
-    if (result.errors.length > 0) {
+    if (result != null && result.errors.length > 0) {
       visBundleJs.delete();
       throw new IOException(result.errors[0]);
     }
 
-    synchronized (this) {
-      currentBundle.delete();
-      FileUtils.moveFile(visBundleJs, currentBundle);
-      bundleCacheKey = cacheKeyBuilder.toString();
+    return visBundleJs;
+  }
+
+  /**
+   * Bundles are named after the hash of everything they are built from: the packages in order,
+   * contents of local packages, the build templates and the tabledata and visualization modules.
+   */
+  File getBundleFile(List<HeliumPackage> pkgs) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, Resources.toString(
+        Resources.getResource("helium/package.json"), Charsets.UTF_8));
+    putString(hasher, Resources.toString(
+        Resources.getResource("helium/webpack.config.js"), Charsets.UTF_8));
+    putDirectory(hasher, tabledataModulePath);
+    putDirectory(hasher, visualizationModulePath);
+
+    for (HeliumPackage pkg : pkgs) {
+      putString(hasher, pkg.getName());
+      putString(hasher, pkg.getArtifact());
+      putString(hasher, gson.toJson(pkg.getIcon()));
+      if (isLocalPackage(pkg)) {
+        putDirectory(hasher, new File(pkg.getArtifact()));
+      }
+    }
+    return new File(bundleCacheDirectory, hasher.hash().toString() + ".js");
+  }
+
+  private void putString(Hasher hasher, String value) {
+    if (value == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(value.length());
+      hasher.putString(value, Charsets.UTF_8);
+    }
+  }
+
+  private void putDirectory(Hasher hasher, File dir) throws IOException {
+    File[] files = dir == null ? null : dir.listFiles(npmPackageCopyFilter);
+    if (files == null) {
+      hasher.putInt(-1);
+      return;
+    }
+    Arrays.sort(files);
+    hasher.putInt(files.length);
+    for (File file : files) {
+      putString(hasher, file.getName());
+      if (file.isDirectory()) {
+        putDirectory(hasher, file);
+      } else {
+        byte[] content = FileUtils.readFileToByteArray(file);
+        hasher.putInt(content.length);
+        hasher.putBytes(content);
+      }
+    }
+  }
+
+  private void storeBundle(File source, File bundle) throws IOException {
+    bundleCacheDirectory.mkdirs();
+    // readers never see a partially written bundle
+    Files.move(source.toPath(), bundle.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private synchronized void publish(File bundle, long request) {
+    // a bundle requested earlier can finish after a later one
+    if (request >= publishedRequest) {
+      publishedRequest = request;
+      currentBundle = bundle;
+    }
+  }
+
+  private void pruneBundleCache() {
+    File[] bundles = listCachedBundles();
+    if (bundles == null || bundles.length <= bundleCacheSize) {
+      return;
+    }
+    for (int i = bundleCacheSize; i < bundles.length; i++) {
+      if (!bundles[i].equals(currentBundle)) {
+        logger.info("Remove visualization bundle " + bundles[i]);
+        bundles[i].delete();
+      }
     }
-    return currentBundle;
+  }
+
+  /**
+   * @return cached bundles, most recently built first
+   */
+  private File[] listCachedBundles() {
+    File[] bundles = bundleCacheDirectory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().endsWith(".js");
+      }
+    });
+    if (bundles != null) {
+      Arrays.sort(bundles, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          return Long.compare(b.lastModified(), a.lastModified());
+        }
+      });
+    }
+    return bundles;
+  }
+
+  private List<HeliumPackage> copyOf(List<HeliumPackage> pkgs) {
+    return pkgs == null ? new LinkedList<HeliumPackage>() : new LinkedList<>(pkgs);
   }
 
   private WebpackResult getWebpackResultFromOutput(String output) {
@@ -359,12 +547,11 @@ public class HeliumVisualizationFactory {
   }
 
   public File getCurrentBundle() {
-    synchronized (this) {
-      if (currentBundle.isFile()) {
-        return currentBundle;
-      } else {
-        return null;
-      }
+    File bundle = currentBundle;
+    if (bundle != null && bundle.isFile()) {
+      return bundle;
+    } else {
+      return null;
     }
   }
 
@@ -414,12 +601,21 @@ public class HeliumVisualizationFactory {
     }
   }
 
-  synchronized void install(HeliumPackage pkg) throws TaskRunnerException {
+  void install(HeliumPackage pkg) throws TaskRunnerException {
     String commandForNpmInstallArtifact =
         String.format("install %s --fetch-retries=%d --fetch-retry-factor=%d " +
                         "--fetch-retry-mintimeout=%d", pkg.getArtifact(),
                 FETCH_RETRY_COUNT, FETCH_RETRY_FACTOR_COUNT, FETCH_RETRY_MIN_TIMEOUT);
-    npmCommand(commandForNpmInstallArtifact);
+    synchronized (buildLock) {
+      npmCommand(commandForNpmInstallArtifact);
+    }
+  }
+
+  /**
+   * Use the given npm runner instead of installing node and npm, for tests
+   */
+  void setNpmRunner(NpmRunner npmRunner) {
+    this.npmRunner = npmRunner;
   }
 
   private void npmCommand(String args) throws TaskRunnerException {
@@ -427,9 +623,12 @@ public class HeliumVisualizationFactory {
   }
 
   private void npmCommand(String args, Map<String, String> env) throws TaskRunnerException {
-    installNodeAndNpm();
-    NpmRunner npm = frontEndPluginFactory.getNpmRunner(
-        getProxyConfig(isSecure(defaultNpmRegistryUrl)), defaultNpmRegistryUrl);
+    NpmRunner npm = npmRunner;
+    if (npm == null) {
+      installNodeAndNpm();
+      npm = frontEndPluginFactory.getNpmRunner(
+          getProxyConfig(isSecure(defaultNpmRegistryUrl)), defaultNpmRegistryUrl);
+    }
     npm.execute(args, env);
   }
 
@@ -459,4 +658,14 @@ public class HeliumVisualizationFactory {
         out
     ));
   }
+
+  private static class PendingBundle {
+    private final List<HeliumPackage> packages;
+    private final long request;
+
+    PendingBundle(List<HeliumPackage> packages, long request) {
+      this.packages = packages;
+      this.request = request;
+    }
+  }
 }
@@ -94,6 +94,8 @@ public class InterpreterFactory implements InterpreterGroupFactory {
   private ZeppelinConfiguration conf;
 
   private final InterpreterSettingManager interpreterSettingManager;
+  private final InterpreterResolutionCache<Interpreter> resolved =
+      new InterpreterResolutionCache<>();
 
   private Gson gson;
 
@@ -378,7 +380,31 @@ public class InterpreterFactory implements InterpreterGroupFactory {
     return null;
   }
 
+  /**
+   * Get the interpreter of the repl name for the note and user. Resolutions are cached until
+   * the settings, the note bindings or the interpreter groups change.
+   *
+   * @param replName repl name without '%', null or empty for the default interpreter
+   * @return null if no interpreter is bound to the note
+   * @throws InterpreterException if the repl name doesn't match a bound interpreter
+   */
   public Interpreter getInterpreter(String user, String noteId, String replName) {
+    List<String> key = InterpreterResolutionCache.key(noteId, user, replName);
+    long version = interpreterSettingManager.getVersion();
+    InterpreterResolutionCache.Entry<Interpreter> cached = resolved.get(key, version);
+    if (cached != null) {
+      return cached.getValue();
+    }
+    Interpreter interpreter = resolveInterpreter(user, noteId, replName);
+    resolved.put(key, version, interpreter);
+    return interpreter;
+  }
+
+  InterpreterResolutionCache<Interpreter> getResolutionCache() {
+    return resolved;
+  }
+
+  Interpreter resolveInterpreter(String user, String noteId, String replName) {
     List<InterpreterSetting> settings = interpreterSettingManager.getInterpreterSettings(noteId);
     InterpreterSetting setting;
     Interpreter interpreter;
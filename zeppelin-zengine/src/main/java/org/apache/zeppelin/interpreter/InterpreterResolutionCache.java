@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Values resolved from the interpreter settings and note bindings, such as the interpreter of
+ * a repl name. Every value is stored with the version of the settings it was resolved from,
+ * see InterpreterSettingManager.getVersion(), and is dropped once the version changes.
+ *
+ * @param <V> resolved value, may be null
+ */
+public class InterpreterResolutionCache<V> {
+  // values of repl names typed in the editor are cached too, keep them bounded
+  private static final int MAX_ENTRIES = 10000;
+
+  private final ConcurrentMap<List<String>, Entry<V>> entries = new ConcurrentHashMap<>();
+  private volatile long version;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public static List<String> key(String... parts) {
+    return Arrays.asList(parts);
+  }
+
+  /**
+   * @param version current version of the settings
+   * @return the cached value, null if there is none for this version
+   */
+  public Entry<V> get(List<String> key, long version) {
+    if (version != this.version) {
+      synchronized (this) {
+        if (version > this.version) {
+          entries.clear();
+          this.version = version;
+        }
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    Entry<V> entry = entries.get(key);
+    if (entry == null || entry.version != version) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry;
+  }
+
+  /**
+   * @param version version of the settings read before resolving the value
+   */
+  public void put(List<String> key, long version, V value) {
+    if (version != this.version) {
+      // settings changed while resolving
+      return;
+    }
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.clear();
+    }
+    entries.put(key, new Entry<>(version, value));
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Cached value
+   *
+   * @param <V> resolved value, may be null
+   */
+  public static class Entry<V> {
+    private final long version;
+    private final V value;
+
+    Entry(long version, V value) {
+      this.version = version;
+      this.value = value;
+    }
+
+    public V getValue() {
+      return value;
+    }
+  }
+}
@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
@@ -119,6 +120,11 @@ public class InterpreterSettingManager {
 
   private final Gson gson;
 
+  // incremented after every change of the settings, the note bindings or the interpreter groups
+  private final AtomicLong version = new AtomicLong();
+  private final InterpreterResolutionCache<Map<String, Object>> editorSettings =
+      new InterpreterResolutionCache<>();
+
   public InterpreterSettingManager(ZeppelinConfiguration zeppelinConfiguration,
       DependencyResolver dependencyResolver, InterpreterOption interpreterOption)
       throws IOException, RepositoryException {
@@ -208,6 +214,7 @@ public class InterpreterSettingManager {
       }
 
       interpreterBindings.putAll(infoSaving.interpreterBindings);
+      changed();
 
       if (infoSaving.interpreterRepositories != null) {
         for (RemoteRepository repo : infoSaving.interpreterRepositories) {
@@ -497,8 +504,37 @@ public class InterpreterSettingManager {
     return properties;
   }
 
+  /**
+   * Version of the settings, the note bindings and the interpreter groups. Values resolved from
+   * them are valid while it doesn't change.
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  private void changed() {
+    version.incrementAndGet();
+  }
+
   public Map<String, Object> getEditorSetting(Interpreter interpreter, String user, String noteId,
       String replName) {
+    if (interpreter == null || replName == null) {
+      return resolveEditorSetting(interpreter, user, noteId, replName);
+    }
+    List<String> key = InterpreterResolutionCache.key(noteId, replName,
+        interpreter.getClassName());
+    long version = getVersion();
+    InterpreterResolutionCache.Entry<Map<String, Object>> cached = editorSettings.get(key, version);
+    if (cached != null) {
+      return cached.getValue();
+    }
+    Map<String, Object> editor = resolveEditorSetting(interpreter, user, noteId, replName);
+    editorSettings.put(key, version, editor);
+    return editor;
+  }
+
+  private Map<String, Object> resolveEditorSetting(Interpreter interpreter, String user,
+      String noteId, String replName) {
     Map<String, Object> editor = DEFAULT_EDITOR;
     String group = StringUtils.EMPTY;
     try {
@@ -689,6 +725,7 @@ public class InterpreterSettingManager {
     setting.setProperties(p);
     setting.setInterpreterGroupFactory(interpreterGroupFactory);
     interpreterSettings.put(setting.getId(), setting);
+    changed();
     loadInterpreterDependencies(setting);
     saveToFile();
     return setting;
@@ -767,6 +804,7 @@ public class InterpreterSettingManager {
     }
 
     interpreterSetting.setInterpreterGroupFactory(interpreterGroupFactory);
+    changed();
     return interpreterSetting;
   }
 
@@ -794,6 +832,7 @@ public class InterpreterSettingManager {
         }
       }
       interpreterBindings.put(noteId, settingList);
+      changed();
       saveToFile();
 
       for (String settingId : unBindedSettings) {
@@ -810,6 +849,7 @@ public class InterpreterSettingManager {
     if (!(InterpreterOption.SHARED.equals(interpreterOption.perNote)
         && InterpreterOption.SHARED.equals(interpreterOption.perUser))) {
       interpreterSetting.closeAndRemoveInterpreterGroup(noteId, "");
+      changed();
     }
   }
 
@@ -891,6 +931,7 @@ public class InterpreterSettingManager {
 
   public void removeNoteInterpreterSettingBinding(String user, String noteId) throws IOException {
     List<String> settingIds = interpreterBindings.remove(noteId);
+    changed();
     if (settingIds != null) {
       for (String settingId : settingIds) {
         this.removeInterpretersForNote(get(settingId), user, noteId);
@@ -920,6 +961,8 @@ public class InterpreterSettingManager {
         } catch (Exception e) {
           loadFromFile();
           throw e;
+        } finally {
+          changed();
         }
       } else {
         throw new InterpreterException("Interpreter setting id " + id + " not found");
@@ -945,6 +988,7 @@ public class InterpreterSettingManager {
         } else {
           intpSetting.closeAndRemoveInterpreterGroup(noteId, user);
         }
+        changed();
 
       } else {
         throw new InterpreterException("Interpreter setting id " + settingId + " not found");
@@ -999,6 +1043,7 @@ public class InterpreterSettingManager {
             }
           }
         }
+        changed();
         saveToFile();
       }
     }
@@ -1063,6 +1108,7 @@ public class InterpreterSettingManager {
 
   public void close(InterpreterSetting interpreterSetting) {
     interpreterSetting.closeAndRemoveAllInterpreterGroups();
+    changed();
   }
 
   public void close() {
@@ -1087,6 +1133,7 @@ public class InterpreterSettingManager {
         logger.error("Can't close interpreterGroup", e);
       }
     }
+    changed();
   }
 
   public void shutdown() {
@@ -1111,5 +1158,6 @@ public class InterpreterSettingManager {
         logger.error("Can't close interpreterGroup", e);
       }
     }
+    changed();
   }
 }
@@ -25,6 +25,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -32,6 +33,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -40,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 import org.apache.zeppelin.display.AngularObject;
 import org.apache.zeppelin.display.AngularObjectRegistry;
 import org.apache.zeppelin.display.Input;
@@ -59,6 +62,7 @@ import org.apache.zeppelin.notebook.utility.IdHashes;
 import org.apache.zeppelin.resource.ResourcePoolUtils;
 import org.apache.zeppelin.scheduler.Job;
 import org.apache.zeppelin.scheduler.Job.Status;
+import org.apache.zeppelin.scheduler.Scheduler;
 import org.apache.zeppelin.search.SearchService;
 import org.apache.zeppelin.user.AuthenticationInfo;
 import org.apache.zeppelin.user.Credentials;
@@ -77,6 +81,8 @@ public class Note implements Serializable, ParagraphJobListener {
   public static final Gson GSON = new GsonBuilder().setPrettyPrinting()
       .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS")
       .registerTypeAdapter(Date.class, new NotebookImportDeserializer()).create();
+  private static final Gson ANGULAR_OBJECT_GSON = new GsonBuilder()
+      .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS").create();
 
   static {
     delayedPersistThreadPool.setRemoveOnCancelPolicy(true);
@@ -90,6 +96,11 @@ public class Note implements Serializable, ParagraphJobListener {
   private transient ZeppelinConfiguration conf = ZeppelinConfiguration.create();
 
   private Map<String, List<AngularObject>> angularObjects = new HashMap<>();
+  // copies of the angular objects with immutable values saved by the last persist, per
+  // interpreter group. guarded by itself
+  private transient Map<String, Map<AngularObject, SavedAngularObject>> savedAngularObjects =
+      new HashMap<>();
+  private transient long copiedAngularObjects;
 
   private transient InterpreterFactory factory;
   private transient InterpreterSettingManager interpreterSettingManager;
@@ -100,6 +111,8 @@ public class Note implements Serializable, ParagraphJobListener {
   private transient NoteEventListener noteEventListener;
   private transient Credentials credentials;
   private transient NoteNameListener noteNameListener;
+  // runs of several paragraphs in progress
+  private transient List<NoteExecution> executions = new CopyOnWriteArrayList<>();
 
   /*
    * note configurations.
@@ -267,7 +280,7 @@ public class Note implements Serializable, ParagraphJobListener {
     boolean foundParagraph = false;
     for (Paragraph ownParagraph : paragraphs) {
       if (paragraph.getId().equals(ownParagraph.getId())) {
-        paragraph.setListener(this.jobListenerFactory.getParagraphJobListener(this));
+        paragraph.setListener(getParagraphJobListener());
         foundParagraph = true;
       }
     }
@@ -363,8 +376,17 @@ public class Note implements Serializable, ParagraphJobListener {
     newParagraph.setTitle(srcParagraph.getTitle());
 
     try {
-      String resultJson = GSON.toJson(srcParagraph.getReturn());
-      InterpreterResult result = GSON.fromJson(resultJson, InterpreterResult.class);
+      Object srcResult = srcParagraph.getReturn();
+      InterpreterResult result;
+      if (srcResult instanceof InterpreterResult) {
+        // result messages are immutable, share them instead of copying the data
+        InterpreterResult srcInterpreterResult = (InterpreterResult) srcResult;
+        result = new InterpreterResult(srcInterpreterResult.code(),
+            srcInterpreterResult.message());
+      } else {
+        // e.g. results of a note read from JSON
+        result = GSON.fromJson(GSON.toJsonTree(srcResult), InterpreterResult.class);
+      }
       newParagraph.setReturn(result, null);
     } catch (Exception e) {
       // 'result' part of Note consists of exception, instead of actual interpreter results
@@ -598,26 +620,133 @@ public class Note implements Serializable, ParagraphJobListener {
   }
 
   /**
-   * Run all paragraphs sequentially.
+   * Run all enabled paragraphs as the user of the cron schedule.
+   *
+   * @return the run, in progress
    */
-  public synchronized void runAll() {
+  public synchronized NoteExecution runAll() {
     String cronExecutingUser = (String) getConfig().get("cronExecutingUser");
     if (null == cronExecutingUser) {
       cronExecutingUser = "anonymous";
     }
     AuthenticationInfo authenticationInfo = new AuthenticationInfo();
     authenticationInfo.setUser(cronExecutingUser);
-    runAll(authenticationInfo);
+    return runAll(authenticationInfo);
   }
 
-  public void runAll(AuthenticationInfo authenticationInfo) {
+  /**
+   * Run all enabled paragraphs, in the order of their dependencies.
+   * Errors on submit are set on the paragraphs and reported by the returned run.
+   *
+   * @return the run, in progress
+   */
+  public NoteExecution runAll(AuthenticationInfo authenticationInfo) {
+    List<String> paragraphIds = new ArrayList<>();
     for (Paragraph p : getParagraphs()) {
       if (!p.isEnabled()) {
         continue;
       }
       p.setAuthenticationInfo(authenticationInfo);
-      run(p.getId());
+      paragraphIds.add(p.getId());
+    }
+    return runParagraphs(paragraphIds);
+  }
+
+  /**
+   * Run the given enabled paragraphs, in the order of their dependencies.
+   *
+   * @param paragraphIds IDs of the paragraphs, in note order
+   * @return the run, in progress
+   */
+  public NoteExecution runParagraphs(List<String> paragraphIds) {
+    List<Paragraph> toRun = new ArrayList<>();
+    Map<String, String> groups = new HashMap<>();
+    for (String paragraphId : paragraphIds) {
+      Paragraph p = getParagraph(paragraphId);
+      if (p == null || !p.isEnabled()) {
+        continue;
+      }
+      // status changes of the paragraphs reach the runs before they are submitted
+      p.setListener(getParagraphJobListener());
+      toRun.add(p);
+      groups.put(p.getId(), getInterpreterGroupId(p));
+    }
+
+    final NoteExecution execution = new NoteExecution(this, toRun, groups,
+        conf.getInt(ConfVars.ZEPPELIN_NOTEBOOK_RUN_ALL_PARALLELISM));
+    executions.add(execution);
+    execution.whenDone(new Runnable() {
+      @Override
+      public void run() {
+        executions.remove(execution);
+      }
+    });
+    execution.start();
+    return execution;
+  }
+
+  private String getInterpreterGroupId(Paragraph p) {
+    String requiredReplName = p.getRequiredReplName();
+    try {
+      Interpreter intp = factory.getInterpreter(p.getUser(), getId(), requiredReplName);
+      if (intp != null && intp.getInterpreterGroup() != null) {
+        return intp.getInterpreterGroup().getId();
+      }
+    } catch (RuntimeException e) {
+      logger.debug("Can't get interpreter " + requiredReplName, e);
+    }
+    return requiredReplName;
+  }
+
+  void onParagraphTerminated(Paragraph paragraph, Status status) {
+    for (NoteExecution execution : executions) {
+      execution.onParagraphTerminated(paragraph, status);
+    }
+  }
+
+  /**
+   * Abort a paragraph waiting in a run of the note, before it's submitted
+   *
+   * @return false if no run of the note waits to submit the paragraph
+   */
+  boolean abortWaiting(String paragraphId) {
+    boolean aborted = false;
+    for (NoteExecution execution : executions) {
+      aborted |= execution.abort(paragraphId);
+    }
+    return aborted;
+  }
+
+  /**
+   * @return true if the paragraph is waiting or running in the scheduler of its interpreter
+   */
+  boolean isScheduled(Paragraph p) {
+    Interpreter intp;
+    try {
+      intp = factory.getInterpreter(p.getUser(), getId(), p.getRequiredReplName());
+    } catch (RuntimeException e) {
+      return false;
+    }
+    if (intp == null || intp.getScheduler() == null) {
+      return false;
+    }
+    Scheduler scheduler = intp.getScheduler();
+    for (Job job : scheduler.getJobsWaiting()) {
+      if (p.getId().equals(job.getId())) {
+        return true;
+      }
     }
+    for (Job job : scheduler.getJobsRunning()) {
+      if (p.getId().equals(job.getId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ParagraphJobListener getParagraphJobListener() {
+    return new NoteExecution.TrackingListener(this,
+        jobListenerFactory.getParagraphJobListener(this));
   }
 
   /**
@@ -627,7 +756,7 @@ public class Note implements Serializable, ParagraphJobListener {
    */
   public void run(String paragraphId) {
     Paragraph p = getParagraph(paragraphId);
-    p.setListener(jobListenerFactory.getParagraphJobListener(this));
+    p.setListener(getParagraphJobListener());
 
     if (p.isBlankParagraph()) {
       logger.info("skip to run blank paragraph. {}", p.getId());
@@ -650,6 +779,9 @@ public class Note implements Serializable, ParagraphJobListener {
     }
     if (p.getConfig().get("enabled") == null || (Boolean) p.getConfig().get("enabled")) {
       p.setAuthenticationInfo(p.getAuthenticationInfo());
+      for (NoteExecution execution : executions) {
+        execution.onParagraphSubmitted(p.getId());
+      }
       intp.getScheduler().submit(p);
     }
   }
@@ -679,7 +811,7 @@ public class Note implements Serializable, ParagraphJobListener {
 
   public List<InterpreterCompletion> completion(String paragraphId, String buffer, int cursor) {
     Paragraph p = getParagraph(paragraphId);
-    p.setListener(jobListenerFactory.getParagraphJobListener(this));
+    p.setListener(getParagraphJobListener());
 
     return p.completion(buffer, cursor);
   }
@@ -690,18 +822,121 @@ public class Note implements Serializable, ParagraphJobListener {
     }
   }
 
+  /**
+   * Note with the same saved fields, sharing the paragraphs but not the collections holding
+   * them, to be serialized while the note changes
+   */
+  Note detachedCopy() {
+    Note copy = new Note();
+    copy.paragraphs.addAll(getParagraphs());
+    copy.name = name;
+    copy.id = id;
+    Map<String, List<AngularObject>> objects = angularObjects;
+    for (Map.Entry<String, List<AngularObject>> entry : objects.entrySet()) {
+      copy.angularObjects.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    }
+    copy.config = new HashMap<>(config);
+    copy.info = new HashMap<>(info);
+    return copy;
+  }
+
+  /**
+   * Copies the angular objects of the note into angularObjects, to be saved with the note.
+   * Immutable values, e.g. strings and numbers, are copied again only after a set(). Others can
+   * be modified in place, so the objects themselves are saved and serialized with the note.
+   */
   private void snapshotAngularObjectRegistry(String user) {
-    angularObjects = new HashMap<>();
+    synchronized (savedAngularObjects) {
+      Map<String, List<AngularObject>> snapshot = new HashMap<>();
+      Map<String, Map<AngularObject, SavedAngularObject>> saved = new HashMap<>();
+
+      List<InterpreterSetting> settings =
+          interpreterSettingManager.getInterpreterSettings(getId());
+      if (settings != null) {
+        int maxSize = conf.getInt(ConfVars.ZEPPELIN_NOTEBOOK_ANGULAR_OBJECT_MAX_SIZE);
+        for (InterpreterSetting setting : settings) {
+          InterpreterGroup intpGroup = setting.getInterpreterGroup(user, id);
+          AngularObjectRegistry registry = intpGroup.getAngularObjectRegistry();
+          Map<AngularObject, SavedAngularObject> previous =
+              savedAngularObjects.get(intpGroup.getId());
+          Map<AngularObject, SavedAngularObject> current = new HashMap<>();
+          List<AngularObject> objects = new LinkedList<>();
+
+          for (AngularObject object : registry.getAllWithGlobal(id)) {
+            // read the version first, a concurrent set() makes the next persist copy it again
+            long version = object.getVersion();
+            Object value = object.get();
+            if (!isImmutable(value)) {
+              if (!isTooLarge(object, value, maxSize)) {
+                objects.add(object);
+              }
+              continue;
+            }
+            SavedAngularObject savedObject = previous == null ? null : previous.get(object);
+            if (savedObject == null || savedObject.version != version) {
+              savedObject = new SavedAngularObject(version,
+                  isTooLarge(object, value, maxSize) ? null : object.copy(value));
+              copiedAngularObjects++;
+            }
+            current.put(object, savedObject);
+            if (savedObject.copy != null) {
+              objects.add(savedObject.copy);
+            }
+          }
+          snapshot.put(intpGroup.getId(), objects);
+          saved.put(intpGroup.getId(), current);
+        }
+      }
 
-    List<InterpreterSetting> settings = interpreterSettingManager.getInterpreterSettings(getId());
-    if (settings == null || settings.size() == 0) {
-      return;
+      angularObjects = snapshot;
+      savedAngularObjects.clear();
+      savedAngularObjects.putAll(saved);
     }
+  }
 
-    for (InterpreterSetting setting : settings) {
-      InterpreterGroup intpGroup = setting.getInterpreterGroup(user, id);
-      AngularObjectRegistry registry = intpGroup.getAngularObjectRegistry();
-      angularObjects.put(intpGroup.getId(), registry.getAllWithGlobal(id));
+  private static boolean isImmutable(Object value) {
+    return value == null || value instanceof String || value instanceof Number
+        || value instanceof Boolean || value instanceof Character;
+  }
+
+  /**
+   * Serializes the value when zeppelin.notebook.angular.object.max.size is set
+   */
+  private static boolean isTooLarge(AngularObject object, Object value, int maxSize) {
+    if (maxSize < 0 || value == null) {
+      return false;
+    }
+    int size = ANGULAR_OBJECT_GSON.toJson(value).length();
+    if (size <= maxSize) {
+      return false;
+    }
+    logger.warn("Angular object {} of note {} is not saved, its value has {} characters",
+        object.getName(), object.getNoteId(), size);
+    return true;
+  }
+
+  /**
+   * @return number of immutable angular object values copied by persist so far, because they
+   * were set
+   */
+  @VisibleForTesting
+  long getCopiedAngularObjectCount() {
+    synchronized (savedAngularObjects) {
+      return copiedAngularObjects;
+    }
+  }
+
+  /**
+   * Copy of an angular object with an immutable value, as saved with the note
+   */
+  private static class SavedAngularObject {
+    private final long version;
+    // null when the value is too large to be saved
+    private final AngularObject copy;
+
+    SavedAngularObject(long version, AngularObject copy) {
+      this.version = version;
+      this.copy = copy;
     }
   }
 
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.notebook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zeppelin.interpreter.InterpreterSetting;
+import org.quartz.CronScheduleBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the notes triggered by their cron schedule.
+ *
+ * A trigger only queues the run of the note, so Quartz threads aren't held while notes run.
+ * At most the configured number of notes run at once, the others wait in trigger order.
+ * A run completes once the run of all paragraphs of the note is done.
+ */
+public class NoteCronExecutor {
+  private static final Logger logger = LoggerFactory.getLogger(NoteCronExecutor.class);
+
+  /**
+   * What to do when a note is triggered while its previous run isn't finished
+   */
+  public enum OverlapPolicy {
+    /**
+     * Ignore the trigger
+     */
+    SKIP,
+    /**
+     * Run the note again once the previous run finished. Further triggers are ignored
+     * until then.
+     */
+    QUEUE
+  }
+
+  /**
+   * What to do with the triggers missed while the scheduler was down or busy
+   */
+  public enum MisfirePolicy {
+    /**
+     * Run once for all the missed triggers
+     */
+    FIRE_ONCE,
+    /**
+     * Ignore the missed triggers, wait for the next one
+     */
+    SKIP,
+    /**
+     * Run once for each missed trigger
+     */
+    FIRE_ALL;
+
+    public CronScheduleBuilder apply(CronScheduleBuilder schedule) {
+      switch (this) {
+          case SKIP:
+            return schedule.withMisfireHandlingInstructionDoNothing();
+          case FIRE_ALL:
+            return schedule.withMisfireHandlingInstructionIgnoreMisfires();
+          default:
+            return schedule.withMisfireHandlingInstructionFireAndProceed();
+      }
+    }
+  }
+
+  private final Notebook notebook;
+  private final int concurrency;
+  private final OverlapPolicy overlapPolicy;
+  // starts the runs and releases their resources, so listeners never wait for them
+  private final ExecutorService worker;
+
+  private final Object lock = new Object();
+  // guarded by lock. a note is queued at most once, in trigger order
+  private final Map<String, Run> queued = new LinkedHashMap<>();
+  private final Map<String, Run> running = new HashMap<>();
+  private long triggered;
+  private long skipped;
+  private long completed;
+  private long totalQueueWaitNanos;
+  private long maxQueueWaitNanos;
+
+  /**
+   * @param concurrency maximum number of notes running at once
+   */
+  public NoteCronExecutor(Notebook notebook, int concurrency, OverlapPolicy overlapPolicy) {
+    this.notebook = notebook;
+    this.concurrency = Math.max(1, concurrency);
+    this.overlapPolicy = overlapPolicy;
+    this.worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "NoteCronExecutor");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Queue a run of the note, according to the overlap policy.
+   *
+   * @return false if the trigger was ignored
+   */
+  public boolean trigger(String noteId) {
+    synchronized (lock) {
+      triggered++;
+      if (queued.containsKey(noteId)
+          || (running.containsKey(noteId) && overlapPolicy == OverlapPolicy.SKIP)) {
+        skipped++;
+        logger.info("Cron run of note {} skipped, the previous one isn't finished", noteId);
+        return false;
+      }
+      queued.put(noteId, new Run(noteId));
+    }
+    startQueued();
+    return true;
+  }
+
+  private void startQueued() {
+    List<Run> ready = new ArrayList<>();
+    synchronized (lock) {
+      Iterator<Run> it = queued.values().iterator();
+      while (running.size() < concurrency && it.hasNext()) {
+        Run run = it.next();
+        if (running.containsKey(run.noteId)) {
+          // waits for the previous run of the note
+          continue;
+        }
+        it.remove();
+        run.started = System.nanoTime();
+        long wait = run.started - run.queued;
+        totalQueueWaitNanos += wait;
+        maxQueueWaitNanos = Math.max(maxQueueWaitNanos, wait);
+        running.put(run.noteId, run);
+        ready.add(run);
+      }
+    }
+    for (final Run run : ready) {
+      execute(new Runnable() {
+        @Override
+        public void run() {
+          start(run);
+        }
+      });
+    }
+  }
+
+  private void execute(Runnable task) {
+    try {
+      worker.execute(task);
+    } catch (RejectedExecutionException e) {
+      logger.debug("Cron executor is closed", e);
+    }
+  }
+
+  private void start(final Run run) {
+    Note note = notebook.getNote(run.noteId);
+    if (note == null || !note.isCronSupported(notebook.getConf())) {
+      logger.warn("execution of the cron job is skipped cron is not enabled from Zeppelin server");
+      complete(run);
+      return;
+    }
+
+    NoteExecution execution;
+    try {
+      execution = note.runAll();
+    } catch (RuntimeException e) {
+      logger.error("Error on cron run of note " + run.noteId, e);
+      complete(run);
+      return;
+    }
+    execution.whenDone(new Runnable() {
+      @Override
+      public void run() {
+        complete(run);
+      }
+    });
+  }
+
+  private void complete(final Run run) {
+    synchronized (lock) {
+      running.remove(run.noteId);
+      completed++;
+    }
+    logger.info("Cron run of note {} finished in {}ms, after waiting {}ms", run.noteId,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.started),
+        TimeUnit.NANOSECONDS.toMillis(run.started - run.queued));
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        releaseResources(run.noteId);
+      }
+    });
+    startQueued();
+  }
+
+  private void releaseResources(String noteId) {
+    Note note = notebook.getNote(noteId);
+    if (note == null) {
+      return;
+    }
+    boolean releaseResource = false;
+    try {
+      Map<String, Object> config = note.getConfig();
+      if (config != null && config.containsKey("releaseresource")) {
+        releaseResource = (boolean) note.getConfig().get("releaseresource");
+      }
+    } catch (ClassCastException e) {
+      logger.error(e.getMessage(), e);
+    }
+    if (releaseResource) {
+      for (InterpreterSetting setting : notebook.getInterpreterSettingManager()
+          .getInterpreterSettings(note.getId())) {
+        notebook.getInterpreterSettingManager().restart(setting.getId());
+      }
+    }
+  }
+
+  public int getRunningCount() {
+    synchronized (lock) {
+      return running.size();
+    }
+  }
+
+  public int getQueuedCount() {
+    synchronized (lock) {
+      return queued.size();
+    }
+  }
+
+  /**
+   * @return run counts, and time spent by runs waiting for the concurrency budget
+   */
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    synchronized (lock) {
+      long started = triggered - skipped - queued.size();
+      metrics.put("concurrency", concurrency);
+      metrics.put("running", running.size());
+      metrics.put("queued", queued.size());
+      metrics.put("triggered", triggered);
+      metrics.put("skipped", skipped);
+      metrics.put("completed", completed);
+      metrics.put("meanQueueWaitMs", started == 0 ? 0 : totalQueueWaitNanos / 1e6 / started);
+      metrics.put("maxQueueWaitMs", maxQueueWaitNanos / 1e6);
+    }
+    return metrics;
+  }
+
+  public void close() {
+    worker.shutdownNow();
+  }
+
+  private static class Run {
+    private final String noteId;
+    private final long queued = System.nanoTime();
+    private long started;
+
+    Run(String noteId) {
+      this.noteId = noteId;
+    }
+  }
+}
@@ -0,0 +1,544 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.notebook;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.apache.zeppelin.interpreter.InterpreterResultMessage;
+import org.apache.zeppelin.scheduler.Job;
+import org.apache.zeppelin.scheduler.Job.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run of several paragraphs of a note, in the order of their dependencies.
+ *
+ * A paragraph depends on the earlier paragraphs listed in its "dependsOn" config, and on the
+ * earlier paragraphs accessing the same resources through z.put / z.get or the same angular
+ * objects. A paragraph is submitted once its dependencies finished, and after the earlier
+ * paragraphs of its interpreter group, so paragraphs sharing an interpreter keep their order.
+ * Independent paragraphs run concurrently, at most the given number at once. Dependents of a
+ * paragraph which failed or was aborted are skipped, and set to ABORT with a message naming the
+ * dependency.
+ *
+ * Paragraphs are PENDING until submitted. Aborting one of them takes it out of the run. Running
+ * one of them meanwhile submits it right away, and the run waits for it instead of submitting it
+ * a second time.
+ */
+public class NoteExecution {
+  private static final Logger logger = LoggerFactory.getLogger(NoteExecution.class);
+
+  public static final String DEPENDS_ON = "dependsOn";
+
+  // z.put("name", ...), z.get('name'), z.angularBind("name", ...). group 2 or 3 is the name
+  private static final Pattern RESOURCE_ACCESS = Pattern.compile(
+      "\\bz\\.(put|get|remove|angular|angularBind|angularUnbind)\\s*\\(\\s*"
+      + "(?:\"([^\"\\\\]*)\"|'([^'\\\\]*)')?");
+  // accesses which can't be told from the text, ordered against every paragraph
+  private static final Pattern BARRIER = Pattern.compile("\\bz\\.(run|runAll)\\s*\\(");
+
+  private final Note note;
+  private final int parallelism;
+  // in note order
+  private final Map<String, Paragraph> paragraphs = new LinkedHashMap<>();
+  private final Map<String, Set<String>> dependencies;
+  private final Map<String, String> groups;
+  private final long startTime = System.currentTimeMillis();
+
+  // guarded by this
+  private final Set<String> waiting = new LinkedHashSet<>();
+  private final Set<String> running = new HashSet<>();
+  private final Set<String> finished = new HashSet<>();
+  private final Set<String> failed = new HashSet<>();
+  private final Set<String> skipped = new HashSet<>();
+  private final List<Runnable> doneCallbacks = new ArrayList<>();
+  private boolean dispatching;
+  private boolean done;
+  private RuntimeException submitError;
+  private long endTime;
+  private long criticalPathMs;
+  private long totalParagraphMs;
+
+  /**
+   * @param paragraphs paragraphs to run, in note order
+   * @param groups interpreter group of each paragraph
+   * @param parallelism maximum number of paragraphs submitted at once, 0 or less for no limit
+   */
+  public NoteExecution(Note note, List<Paragraph> paragraphs, Map<String, String> groups,
+      int parallelism) {
+    this.note = note;
+    for (Paragraph p : paragraphs) {
+      this.paragraphs.put(p.getId(), p);
+    }
+    this.groups = groups;
+    this.parallelism = parallelism > 0 ? parallelism : Integer.MAX_VALUE;
+    this.dependencies = dependencies(paragraphs);
+    this.waiting.addAll(this.paragraphs.keySet());
+  }
+
+  /**
+   * Dependencies of each paragraph on the earlier ones
+   */
+  static Map<String, Set<String>> dependencies(List<Paragraph> paragraphs) {
+    Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+    Map<String, String> lastWriters = new HashMap<>();
+    Map<String, Set<String>> readers = new HashMap<>();
+    String barrier = null;
+
+    for (Paragraph p : paragraphs) {
+      Set<String> dependsOn = new LinkedHashSet<>();
+      for (String id : explicitDependencies(p)) {
+        if (dependencies.containsKey(id)) {
+          dependsOn.add(id);
+        } else {
+          logger.debug("Paragraph {} depends on {}, which isn't run before it", p.getId(), id);
+        }
+      }
+
+      Set<String> reads = new HashSet<>();
+      Set<String> writes = new HashSet<>();
+      boolean isBarrier = parseResourceAccess(p.getText(), reads, writes);
+      if (isBarrier) {
+        dependsOn.addAll(dependencies.keySet());
+        barrier = p.getId();
+        lastWriters.clear();
+        readers.clear();
+      } else {
+        if (barrier != null) {
+          dependsOn.add(barrier);
+        }
+        for (String name : reads) {
+          if (lastWriters.containsKey(name)) {
+            dependsOn.add(lastWriters.get(name));
+          }
+        }
+        for (String name : writes) {
+          if (lastWriters.containsKey(name)) {
+            dependsOn.add(lastWriters.get(name));
+          }
+          if (readers.containsKey(name)) {
+            dependsOn.addAll(readers.get(name));
+          }
+        }
+        for (String name : reads) {
+          if (!readers.containsKey(name)) {
+            readers.put(name, new HashSet<String>());
+          }
+          readers.get(name).add(p.getId());
+        }
+        for (String name : writes) {
+          lastWriters.put(name, p.getId());
+          readers.remove(name);
+        }
+      }
+      dependsOn.remove(p.getId());
+      dependencies.put(p.getId(), dependsOn);
+    }
+    return dependencies;
+  }
+
+  private static Collection<String> explicitDependencies(Paragraph p) {
+    Object dependsOn = p.getConfig() == null ? null : p.getConfig().get(DEPENDS_ON);
+    List<String> ids = new ArrayList<>();
+    if (dependsOn instanceof Collection) {
+      for (Object id : (Collection) dependsOn) {
+        ids.add(String.valueOf(id).trim());
+      }
+    } else if (dependsOn instanceof String) {
+      for (String id : ((String) dependsOn).split(",")) {
+        if (!id.trim().isEmpty()) {
+          ids.add(id.trim());
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Collect the names of the resources and angular objects read and written by the text.
+   *
+   * @return true if the text accesses resources or paragraphs it doesn't name
+   */
+  static boolean parseResourceAccess(String text, Set<String> reads, Set<String> writes) {
+    if (text == null) {
+      return false;
+    }
+    if (BARRIER.matcher(text).find()) {
+      return true;
+    }
+    Matcher m = RESOURCE_ACCESS.matcher(text);
+    while (m.find()) {
+      String name = m.group(2) != null ? m.group(2) : m.group(3);
+      if (name == null) {
+        return true;
+      }
+      String method = m.group(1);
+      if (method.startsWith("angular")) {
+        name = "angular:" + name;
+      } else {
+        name = "resource:" + name;
+      }
+      if (method.equals("get") || method.equals("angular")) {
+        reads.add(name);
+      } else {
+        writes.add(name);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Mark the paragraphs as PENDING and submit the ones which don't wait for others
+   */
+  public void start() {
+    logger.info("Run {} paragraphs of note {}, at most {} at once", paragraphs.size(),
+        note.getId(), parallelism == Integer.MAX_VALUE ? "all" : parallelism);
+    for (Paragraph p : paragraphs.values()) {
+      // a paragraph already queued or running keeps its status
+      if (!p.getStatus().isPending() && !p.getStatus().isRunning()) {
+        p.setStatus(Status.PENDING);
+      }
+    }
+    dispatch();
+  }
+
+  /**
+   * Called when the paragraph is submitted outside of this run, which then waits for it
+   * instead of submitting it
+   */
+  synchronized void onParagraphSubmitted(String paragraphId) {
+    if (waiting.remove(paragraphId)) {
+      running.add(paragraphId);
+    }
+  }
+
+  /**
+   * Abort a paragraph which isn't submitted yet, and skip the paragraphs depending on it
+   *
+   * @return false if the paragraph doesn't wait to be submitted by this run
+   */
+  boolean abort(String paragraphId) {
+    synchronized (this) {
+      if (!waiting.remove(paragraphId)) {
+        return false;
+      }
+      failed.add(paragraphId);
+    }
+    logger.info("Paragraph {} of note {} is aborted before being submitted", paragraphId,
+        note.getId());
+    paragraphs.get(paragraphId).setStatus(Status.ABORT);
+    dispatch();
+    return true;
+  }
+
+  /**
+   * Called with the terminal status of a paragraph of the note
+   */
+  void onParagraphTerminated(Paragraph paragraph, Status status) {
+    synchronized (this) {
+      if (!running.remove(paragraph.getId())) {
+        return;
+      }
+      if (status == Status.FINISHED) {
+        finished.add(paragraph.getId());
+      } else {
+        failed.add(paragraph.getId());
+      }
+    }
+    dispatch();
+  }
+
+  private void dispatch() {
+    synchronized (this) {
+      if (dispatching) {
+        // the dispatching thread looks at the new state before it stops
+        return;
+      }
+      dispatching = true;
+    }
+    List<Runnable> callbacks = Collections.emptyList();
+    while (true) {
+      Paragraph next;
+      Map<String, String> newlySkipped = new LinkedHashMap<>();
+      synchronized (this) {
+        next = nextReady(newlySkipped);
+        if (next == null) {
+          dispatching = false;
+          if (!done && waiting.isEmpty() && running.isEmpty()) {
+            complete();
+            callbacks = new ArrayList<>(doneCallbacks);
+            doneCallbacks.clear();
+          }
+        }
+      }
+      markSkipped(newlySkipped);
+      if (next == null) {
+        break;
+      }
+      submit(next);
+    }
+    for (Runnable callback : callbacks) {
+      callback.run();
+    }
+  }
+
+  /**
+   * @param newlySkipped filled with the paragraphs skipped meanwhile, and the reason for each
+   * @return next paragraph to submit, marked as running
+   */
+  private Paragraph nextReady(Map<String, String> newlySkipped) {
+    Set<String> blockedGroups = new HashSet<>();
+    Iterator<String> it = waiting.iterator();
+    while (it.hasNext()) {
+      String id = it.next();
+      Set<String> dependsOn = dependencies.get(id);
+      String cause = null;
+      for (String dependency : dependsOn) {
+        if (failed.contains(dependency) || skipped.contains(dependency)) {
+          cause = dependency;
+          break;
+        }
+      }
+      if (cause != null) {
+        it.remove();
+        skipped.add(id);
+        newlySkipped.put(id, "skipped: dependency " + cause
+            + (skipped.contains(cause) ? " was skipped" : " failed"));
+        continue;
+      }
+      String group = groups.get(id);
+      if (!blockedGroups.contains(group) && finished.containsAll(dependsOn)) {
+        if (running.size() >= parallelism) {
+          return null;
+        }
+        it.remove();
+        running.add(id);
+        return paragraphs.get(id);
+      }
+      // later paragraphs of the group are submitted after this one
+      blockedGroups.add(group);
+    }
+    return null;
+  }
+
+  private void markSkipped(Map<String, String> newlySkipped) {
+    for (Map.Entry<String, String> entry : newlySkipped.entrySet()) {
+      Paragraph p = paragraphs.get(entry.getKey());
+      String message = entry.getValue();
+      logger.info("Paragraph {} of note {} is {}", p.getId(), note.getId(), message);
+      p.setReturn(new InterpreterResult(InterpreterResult.Code.ERROR, message), null);
+      p.setStatus(Status.ABORT);
+    }
+  }
+
+  private void submit(Paragraph p) {
+    if (!p.isEnabled()) {
+      // disabled while waiting, doesn't block the paragraphs depending on it
+      onParagraphTerminated(p, Status.FINISHED);
+      return;
+    }
+    if (note.isScheduled(p)) {
+      // queued or running already, the run waits for its terminal status
+      if (p.isTerminated()) {
+        onParagraphTerminated(p, p.getStatus());
+      }
+      return;
+    }
+    try {
+      note.run(p.getId());
+      if (p.isBlankParagraph()) {
+        // not submitted, its status doesn't change when it already finished before
+        onParagraphTerminated(p, Status.FINISHED);
+      }
+    } catch (RuntimeException e) {
+      logger.error("Can't run paragraph " + p.getId() + " of note " + note.getId(), e);
+      synchronized (this) {
+        if (submitError == null) {
+          submitError = e;
+        }
+      }
+      if (p.getStatus() != Status.ERROR) {
+        p.setReturn(new InterpreterResult(InterpreterResult.Code.ERROR, e.getMessage()), e);
+        p.setStatus(Status.ERROR);
+      }
+      onParagraphTerminated(p, Status.ERROR);
+    }
+  }
+
+  // guarded by this
+  private void complete() {
+    done = true;
+    endTime = System.currentTimeMillis();
+    // dependencies point to earlier paragraphs, so note order is a topological order
+    Map<String, Long> chains = new HashMap<>();
+    for (String id : paragraphs.keySet()) {
+      long duration = duration(paragraphs.get(id));
+      long longest = 0;
+      for (String dependency : dependencies.get(id)) {
+        longest = Math.max(longest, chains.get(dependency));
+      }
+      chains.put(id, longest + duration);
+      criticalPathMs = Math.max(criticalPathMs, longest + duration);
+      totalParagraphMs += duration;
+    }
+    logger.info("Run of note {} finished in {}ms, critical path {}ms, {}ms of paragraph runs, "
+        + "{} paragraphs, {} failed, {} skipped", note.getId(), endTime - startTime,
+        criticalPathMs, totalParagraphMs, paragraphs.size(), failed.size(), skipped.size());
+  }
+
+  private long duration(Paragraph p) {
+    Date started = p.getDateStarted();
+    Date ended = p.getDateFinished();
+    if (started == null || ended == null || started.getTime() < startTime
+        || skipped.contains(p.getId())) {
+      return 0;
+    }
+    return Math.max(0, ended.getTime() - started.getTime());
+  }
+
+  /**
+   * Run the callback once every paragraph terminated or was skipped, now if it's already the case
+   */
+  public void whenDone(Runnable callback) {
+    synchronized (this) {
+      if (!done) {
+        doneCallbacks.add(callback);
+        return;
+      }
+    }
+    callback.run();
+  }
+
+  public synchronized boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Paragraphs are submitted as their dependencies finish, so right after {@link #start()} this
+   * only reports errors of the paragraphs submitted by it. Later errors are set on the paragraphs,
+   * and reported here once they happened.
+   *
+   * @return first error thrown when submitting a paragraph, null if none
+   */
+  public synchronized RuntimeException getSubmitError() {
+    return submitError;
+  }
+
+  public Map<String, Set<String>> getDependencies() {
+    return Collections.unmodifiableMap(dependencies);
+  }
+
+  /**
+   * @return wall time of the run, until now if it isn't done
+   */
+  public synchronized long getElapsedMs() {
+    return (done ? endTime : System.currentTimeMillis()) - startTime;
+  }
+
+  /**
+   * @return longest chain of dependent paragraph durations, once done
+   */
+  public synchronized long getCriticalPathMs() {
+    return criticalPathMs;
+  }
+
+  /**
+   * @return sum of the paragraph durations, once done
+   */
+  public synchronized long getTotalParagraphMs() {
+    return totalParagraphMs;
+  }
+
+  public synchronized Set<String> getSkipped() {
+    return new HashSet<>(skipped);
+  }
+
+  /**
+   * Forwards to the listener of the notebook, then reports terminal statuses to the runs of
+   * the note
+   */
+  static class TrackingListener implements ParagraphJobListener {
+    private final Note note;
+    private final ParagraphJobListener listener;
+
+    TrackingListener(Note note, ParagraphJobListener listener) {
+      this.note = note;
+      this.listener = listener;
+    }
+
+    @Override
+    public void onOutputAppend(Paragraph paragraph, int idx, String output) {
+      if (listener != null) {
+        listener.onOutputAppend(paragraph, idx, output);
+      }
+    }
+
+    @Override
+    public void onOutputUpdate(Paragraph paragraph, int idx, InterpreterResultMessage msg) {
+      if (listener != null) {
+        listener.onOutputUpdate(paragraph, idx, msg);
+      }
+    }
+
+    @Override
+    public void onOutputUpdateAll(Paragraph paragraph, List<InterpreterResultMessage> msgs) {
+      if (listener != null) {
+        listener.onOutputUpdateAll(paragraph, msgs);
+      }
+    }
+
+    @Override
+    public void onProgressUpdate(Job job, int progress) {
+      if (listener != null) {
+        listener.onProgressUpdate(job, progress);
+      }
+    }
+
+    @Override
+    public void beforeStatusChange(Job job, Status before, Status after) {
+      if (listener != null) {
+        listener.beforeStatusChange(job, before, after);
+      }
+    }
+
+    @Override
+    public void afterStatusChange(Job job, Status before, Status after) {
+      if (listener != null) {
+        listener.afterStatusChange(job, before, after);
+      }
+      if (job instanceof Paragraph && !after.isReady() && !after.isPending()
+          && !after.isRunning()) {
+        note.onParagraphTerminated((Paragraph) job, after);
+      }
+    }
+  }
+}
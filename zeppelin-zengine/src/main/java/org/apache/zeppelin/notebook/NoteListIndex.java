@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.notebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Index of the notes readable by each user and role, sorted by note name.
+ *
+ * A note is either unrestricted (one of its owners, readers or writers is empty) or readable
+ * by its owners, readers and writers. The index keeps one sorted view of unrestricted notes
+ * and one per principal, updated when notes are added, removed or renamed and when their
+ * permissions change. The note list of a user is the merge of the views of the user and its
+ * roles, so permissions are not checked and notes are not sorted again for every user.
+ * Merged lists are cached until the next change, users without specific permissions share
+ * the same list.
+ */
+public class NoteListIndex implements NoteNameListener, NotebookAuthorizationListener {
+  private static final int MAX_CACHED_LISTS = 64;
+
+  private static final Comparator<Entry> BY_NAME = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry e1, Entry e2) {
+      int result = e1.name.compareTo(e2.name);
+      return result != 0 ? result : e1.note.getId().compareTo(e2.note.getId());
+    }
+  };
+
+  private final NotebookAuthorization notebookAuthorization;
+  private final String adminRole;
+
+  // key: noteId
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final TreeSet<Entry> allNotes = new TreeSet<>(BY_NAME);
+  private final TreeSet<Entry> unrestrictedNotes = new TreeSet<>(BY_NAME);
+  // key: user or role
+  private final Map<String, TreeSet<Entry>> notesByPrincipal = new HashMap<>();
+  // key: principals of a user which have a view
+  private final Map<Set<String>, List<Note>> cachedLists =
+      new LinkedHashMap<Set<String>, List<Note>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<String>, List<Note>> eldest) {
+          return size() > MAX_CACHED_LISTS;
+        }
+      };
+
+  private static class Entry {
+    final Note note;
+    final String name;
+    final Set<String> principals;
+
+    Entry(Note note, Set<String> principals) {
+      this.note = note;
+      this.name = note.getName() != null ? note.getName() : note.getId();
+      this.principals = principals;
+    }
+
+    boolean isUnrestricted() {
+      return principals == null;
+    }
+  }
+
+  public NoteListIndex(NotebookAuthorization notebookAuthorization, String adminRole) {
+    this.notebookAuthorization = notebookAuthorization;
+    this.adminRole = StringUtils.isBlank(adminRole) ? null : adminRole;
+  }
+
+  public synchronized void putNote(Note note) {
+    removeEntry(entries.get(note.getId()));
+
+    Set<String> owners = notebookAuthorization.getOwners(note.getId());
+    Set<String> readers = notebookAuthorization.getReaders(note.getId());
+    Set<String> writers = notebookAuthorization.getWriters(note.getId());
+    Set<String> principals = null;
+    if (!owners.isEmpty() && !readers.isEmpty() && !writers.isEmpty()) {
+      principals = new HashSet<>(owners);
+      principals.addAll(readers);
+      principals.addAll(writers);
+    }
+
+    Entry entry = new Entry(note, principals);
+    entries.put(note.getId(), entry);
+    allNotes.add(entry);
+    if (entry.isUnrestricted()) {
+      unrestrictedNotes.add(entry);
+    } else {
+      for (String principal : principals) {
+        TreeSet<Entry> notes = notesByPrincipal.get(principal);
+        if (notes == null) {
+          notes = new TreeSet<>(BY_NAME);
+          notesByPrincipal.put(principal, notes);
+        }
+        notes.add(entry);
+      }
+    }
+    cachedLists.clear();
+  }
+
+  public synchronized void removeNote(String noteId) {
+    removeEntry(entries.remove(noteId));
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    allNotes.clear();
+    unrestrictedNotes.clear();
+    notesByPrincipal.clear();
+    cachedLists.clear();
+  }
+
+  private void removeEntry(Entry entry) {
+    if (entry == null) {
+      return;
+    }
+    allNotes.remove(entry);
+    if (entry.isUnrestricted()) {
+      unrestrictedNotes.remove(entry);
+    } else {
+      for (String principal : entry.principals) {
+        TreeSet<Entry> notes = notesByPrincipal.get(principal);
+        if (notes != null) {
+          notes.remove(entry);
+          if (notes.isEmpty()) {
+            notesByPrincipal.remove(principal);
+          }
+        }
+      }
+    }
+    cachedLists.clear();
+  }
+
+  @Override
+  public synchronized void onNoteNameChanged(Note note, String oldName) {
+    Entry entry = entries.get(note.getId());
+    if (entry != null && entry.note == note) {
+      putNote(note);
+    }
+  }
+
+  @Override
+  public synchronized void onNotePermissionsChanged(String noteId) {
+    Entry entry = entries.get(noteId);
+    if (entry != null) {
+      putNote(entry.note);
+    }
+  }
+
+  /**
+   * @param userAndRoles user and its roles
+   * @return notes readable by the user, sorted by name
+   */
+  public synchronized List<Note> getNotes(Set<String> userAndRoles) {
+    Set<String> principals = new HashSet<>();
+    boolean isAdmin = false;
+    if (userAndRoles != null) {
+      isAdmin = adminRole != null && userAndRoles.contains(adminRole);
+      for (String principal : userAndRoles) {
+        if (notesByPrincipal.containsKey(principal)) {
+          principals.add(principal);
+        }
+      }
+    }
+    // views are keyed by principals, admin gets every note
+    if (isAdmin) {
+      principals = Collections.singleton(adminRole);
+    }
+
+    List<Note> notes = cachedLists.get(principals);
+    if (notes == null) {
+      notes = Collections.unmodifiableList(isAdmin ? toNotes(allNotes.iterator()) :
+          merge(principals));
+      cachedLists.put(principals, notes);
+    }
+    return notes;
+  }
+
+  private List<Note> merge(Set<String> principals) {
+    List<Iterator<Entry>> views = new ArrayList<>();
+    views.add(unrestrictedNotes.iterator());
+    for (String principal : principals) {
+      views.add(notesByPrincipal.get(principal).iterator());
+    }
+    return toNotes(Iterators.mergeSorted(views, BY_NAME));
+  }
+
+  private List<Note> toNotes(Iterator<Entry> sorted) {
+    List<Note> notes = new ArrayList<>();
+    Entry last = null;
+    while (sorted.hasNext()) {
+      Entry entry = sorted.next();
+      // a note readable through several roles appears in several views
+      if (entry != last) {
+        notes.add(entry.note);
+      }
+      last = entry;
+    }
+    return notes;
+  }
+}
@@ -18,7 +18,10 @@
 package org.apache.zeppelin.notebook;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -32,11 +35,10 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Sets;
-import com.google.gson.Gson;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.stream.JsonReader;
 import org.apache.zeppelin.interpreter.*;
 import org.quartz.CronScheduleBuilder;
@@ -76,7 +78,7 @@ import org.apache.zeppelin.user.Credentials;
 /**
  * Collection of Notes.
  */
-public class Notebook implements NoteEventListener {
+public class Notebook implements NoteEventListener, NoteNameListener {
   private static final Logger logger = LoggerFactory.getLogger(Notebook.class);
 
   @SuppressWarnings("unused") @Deprecated //TODO(bzz): remove unused
@@ -89,10 +91,13 @@ public class Notebook implements NoteEventListener {
    */
   private final Map<String, Note> notes = new LinkedHashMap<>();
   private final FolderView folders = new FolderView();
+  private final NoteListIndex noteListIndex;
   private ZeppelinConfiguration conf;
   private StdSchedulerFactory quertzSchedFact;
   private org.quartz.Scheduler quartzSched;
   private JobListenerFactory jobListenerFactory;
+  private final NoteCronExecutor cronExecutor;
+  private final NoteCronExecutor.MisfirePolicy cronMisfirePolicy;
   private NotebookRepo notebookRepo;
   private SearchService noteSearchService;
   private NotebookAuthorization notebookAuthorization;
@@ -118,9 +123,18 @@ public class Notebook implements NoteEventListener {
     this.replFactory = replFactory;
     this.interpreterSettingManager = interpreterSettingManager;
     this.jobListenerFactory = jobListenerFactory;
+    this.cronExecutor = new NoteCronExecutor(this,
+        conf.getInt(ConfVars.ZEPPELIN_NOTEBOOK_CRON_CONCURRENCY),
+        NoteCronExecutor.OverlapPolicy.valueOf(
+            conf.getString(ConfVars.ZEPPELIN_NOTEBOOK_CRON_OVERLAP).trim().toUpperCase()));
+    this.cronMisfirePolicy = NoteCronExecutor.MisfirePolicy.valueOf(
+        conf.getString(ConfVars.ZEPPELIN_NOTEBOOK_CRON_MISFIRE).trim().toUpperCase());
     this.noteSearchService = noteSearchService;
     this.notebookAuthorization = notebookAuthorization;
     this.credentials = credentials;
+    this.noteListIndex = new NoteListIndex(notebookAuthorization,
+        conf.getString(ConfVars.ZEPPELIN_OWNER_ROLE));
+    notebookAuthorization.addListener(noteListIndex);
     quertzSchedFact = new org.quartz.impl.StdSchedulerFactory();
     quartzSched = quertzSchedFact.getScheduler();
     quartzSched.start();
@@ -164,10 +178,11 @@ public class Notebook implements NoteEventListener {
     Note note =
         new Note(notebookRepo, replFactory, interpreterSettingManager, jobListenerFactory,
                 noteSearchService, credentials, this);
-    note.setNoteNameListener(folders);
+    note.setNoteNameListener(this);
 
     synchronized (notes) {
       notes.put(note.getId(), note);
+      noteListIndex.putNote(note);
     }
     if (interpreterIds != null) {
       bindInterpretersToNote(subject.getUser(), note.getId(), interpreterIds);
@@ -188,14 +203,45 @@ public class Notebook implements NoteEventListener {
    * @throws IOException, IllegalArgumentException
    */
   public String exportNote(String noteId) throws IOException, IllegalArgumentException {
-    GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.setPrettyPrinting();
-    Gson gson = gsonBuilder.create();
+    StringWriter writer = new StringWriter();
+    exportNote(noteId, writer, true);
+    return writer.toString();
+  }
+
+  /**
+   * Write the note JSON, without building it in memory first. The paragraph list is copied
+   * first, so paragraphs can be added or removed while a slow writer is written to.
+   *
+   * @param noteId         - the note ID to export
+   * @param writer         - where the JSON is written to, not closed
+   * @param includeResults - false to leave out the results of the paragraphs
+   * @throws IOException
+   * @throws IllegalArgumentException when the note doesn't exist
+   */
+  public void exportNote(String noteId, Writer writer, boolean includeResults)
+      throws IOException, IllegalArgumentException {
     Note note = getNote(noteId);
     if (note == null) {
       throw new IllegalArgumentException(noteId + " not found");
     }
-    return gson.toJson(note);
+    GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.setPrettyPrinting();
+    if (!includeResults) {
+      gsonBuilder.setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+          return f.getDeclaringClass() == Paragraph.class
+              && ("results".equals(f.getName()) || "result".equals(f.getName()));
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+          return false;
+        }
+      });
+    }
+    gsonBuilder.create().toJson(note.detachedCopy(), Note.class, writer);
+    writer.flush();
   }
 
   /**
@@ -208,16 +254,42 @@ public class Notebook implements NoteEventListener {
    */
   public Note importNote(String sourceJson, String noteName, AuthenticationInfo subject)
       throws IOException {
-    GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.setPrettyPrinting();
+    return importNote(new StringReader(sourceJson), noteName, subject);
+  }
 
-    Gson gson =
-        gsonBuilder.registerTypeAdapter(Date.class, new NotebookImportDeserializer()).create();
-    JsonReader reader = new JsonReader(new StringReader(sourceJson));
+  /**
+   * import JSON as a new note, parsing it while it is read.
+   *
+   * @param source   - the note JSON to import
+   * @param noteName - the name of the new note, null for the name in the JSON
+   * @return note ID
+   * @throws IOException
+   */
+  public Note importNote(Reader source, String noteName, AuthenticationInfo subject)
+      throws IOException {
+    JsonReader reader = new JsonReader(source);
     reader.setLenient(true);
+    Note oldNote = Note.GSON.fromJson(reader, Note.class);
+    return importNote(oldNote, noteName, subject);
+  }
+
+  /**
+   * import already parsed JSON as a new note.
+   *
+   * @param source   - the note JSON to import
+   * @param noteName - the name of the new note, null for the name in the JSON
+   * @return note ID
+   * @throws IOException
+   */
+  public Note importNote(JsonElement source, String noteName, AuthenticationInfo subject)
+      throws IOException {
+    return importNote(Note.GSON.fromJson(source, Note.class), noteName, subject);
+  }
+
+  private Note importNote(Note oldNote, String noteName, AuthenticationInfo subject)
+      throws IOException {
     Note newNote;
     try {
-      Note oldNote = Note.GSON.fromJson(reader, Note.class);
       convertFromSingleResultToMultipleResultsFormat(oldNote);
       newNote = createNote(subject);
       if (noteName != null) {
@@ -346,6 +418,7 @@ public class Notebook implements NoteEventListener {
     synchronized (notes) {
       note = notes.remove(id);
       folders.removeNote(note);
+      noteListIndex.removeNote(id);
     }
     try {
       interpreterSettingManager.removeNoteInterpreterSettingBinding(subject.getUser(), id);
@@ -528,11 +601,12 @@ public class Notebook implements NoteEventListener {
     }
 
     note.setNoteEventListener(this);
-    note.setNoteNameListener(folders);
+    note.setNoteNameListener(this);
 
     synchronized (notes) {
       notes.put(note.getId(), note);
       folders.putNote(note);
+      noteListIndex.putNote(note);
       refreshCron(note.getId());
     }
 
@@ -575,6 +649,7 @@ public class Notebook implements NoteEventListener {
   public void reloadAllNotes(AuthenticationInfo subject) throws IOException {
     synchronized (notes) {
       notes.clear();
+      noteListIndex.clear();
     }
     synchronized (folders) {
       folders.clear();
@@ -648,33 +723,17 @@ public class Notebook implements NoteEventListener {
     }
   }
 
+  /**
+   * @return notes readable by the user and its roles, sorted by name
+   */
   public List<Note> getAllNotes(Set<String> userAndRoles) {
-    final Set<String> entities = Sets.newHashSet();
-    if (userAndRoles != null) {
-      entities.addAll(userAndRoles);
-    }
+    return noteListIndex.getNotes(userAndRoles);
+  }
 
-    synchronized (notes) {
-      return FluentIterable.from(notes.values()).filter(new Predicate<Note>() {
-        @Override
-        public boolean apply(Note input) {
-          return input != null && notebookAuthorization.isReader(input.getId(), entities);
-        }
-      }).toSortedList(new Comparator<Note>() {
-        @Override
-        public int compare(Note note1, Note note2) {
-          String name1 = note1.getId();
-          if (note1.getName() != null) {
-            name1 = note1.getName();
-          }
-          String name2 = note2.getId();
-          if (note2.getName() != null) {
-            name2 = note2.getName();
-          }
-          return name1.compareTo(name2);
-        }
-      });
-    }
+  @Override
+  public void onNoteNameChanged(Note note, String oldName) {
+    folders.onNoteNameChanged(note, oldName);
+    noteListIndex.onNoteNameChanged(note, oldName);
   }
 
   private Map<String, Object> getParagraphForJobManagerItem(Paragraph paragraph) {
@@ -882,51 +941,22 @@ public class Notebook implements NoteEventListener {
   }
 
   /**
-   * Cron task for the note.
+   * Cron task for the note. Hands the run to the cron executor and returns.
    */
   public static class CronJob implements org.quartz.Job {
     public static Notebook notebook;
 
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
-
       String noteId = context.getJobDetail().getJobDataMap().getString("noteId");
-      Note note = notebook.getNote(noteId);
-      note.runAll();
-
-      while (!note.isTerminated()) {
-        try {
-          Thread.sleep(1000);
-        } catch (InterruptedException e) {
-          logger.error(e.toString(), e);
-        }
-      }
-
-      if (!note.isCronSupported(notebook.getConf())) {
-        logger.warn("execution of the cron job is skipped cron is not enabled from Zeppelin server");
-        return;
-      }
-
-      note.runAll();
-
-      boolean releaseResource = false;
-      try {
-        Map<String, Object> config = note.getConfig();
-        if (config != null && config.containsKey("releaseresource")) {
-          releaseResource = (boolean) note.getConfig().get("releaseresource");
-        }
-      } catch (ClassCastException e) {
-        logger.error(e.getMessage(), e);
-      }
-      if (releaseResource) {
-        for (InterpreterSetting setting : notebook.getInterpreterSettingManager()
-            .getInterpreterSettings(note.getId())) {
-          notebook.getInterpreterSettingManager().restart(setting.getId());
-        }
-      }
+      notebook.getCronExecutor().trigger(noteId);
     }
   }
 
+  public NoteCronExecutor getCronExecutor() {
+    return cronExecutor;
+  }
+
   public void refreshCron(String id) {
     removeCron(id);
     synchronized (notes) {
@@ -961,7 +991,8 @@ public class Notebook implements NoteEventListener {
       CronTrigger trigger = null;
       try {
         trigger = TriggerBuilder.newTrigger().withIdentity("trigger_" + id, "note")
-            .withSchedule(CronScheduleBuilder.cronSchedule(cronExpr)).forJob(id, "note").build();
+            .withSchedule(cronMisfirePolicy.apply(CronScheduleBuilder.cronSchedule(cronExpr)))
+            .forJob(id, "note").build();
       } catch (Exception e) {
         logger.error("Error", e);
         info.put("cron", e.getMessage());
@@ -1004,6 +1035,16 @@ public class Notebook implements NoteEventListener {
   }
 
   public void close() {
+    cronExecutor.close();
+    notebookAuthorization.removeListener(noteListIndex);
+    notebookAuthorization.flush();
+    if (credentials != null) {
+      try {
+        credentials.flush();
+      } catch (IOException e) {
+        logger.error("Error saving credentials", e);
+      }
+    }
     this.notebookRepo.close();
     this.noteSearchService.close();
   }
@@ -20,10 +20,8 @@ package org.apache.zeppelin.notebook;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -31,10 +29,12 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
+import org.apache.zeppelin.interpreter.util.WriteBehindFile;
 import org.apache.zeppelin.user.AuthenticationInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +62,9 @@ public class NotebookAuthorization {
   private static ZeppelinConfiguration conf;
   private static Gson gson;
   private static String filePath;
+  private static WriteBehindFile writer;
+  private final List<NotebookAuthorizationListener> listeners =
+      new CopyOnWriteArrayList<>();
 
   private NotebookAuthorization() {}
 
@@ -78,6 +81,16 @@ public class NotebookAuthorization {
       } catch (IOException e) {
         LOG.error("Error loading NotebookAuthorization", e);
       }
+      writer = new WriteBehindFile(new File(filePath), new WriteBehindFile.Content() {
+        @Override
+        public String serialize() {
+          synchronized (authInfo) {
+            NotebookAuthorizationInfoSaving info = new NotebookAuthorizationInfoSaving();
+            info.authInfo = authInfo;
+            return gson.toJson(info);
+          }
+        }
+      }, conf.getConfigPersistDelay(), null);
     }
     return instance;
   }
@@ -133,30 +146,24 @@ public class NotebookAuthorization {
   }
   
   private void saveToFile() {
-    String jsonString;
-
-    synchronized (authInfo) {
-      NotebookAuthorizationInfoSaving info = new NotebookAuthorizationInfoSaving();
-      info.authInfo = authInfo;
-      jsonString = gson.toJson(info);
+    try {
+      writer.changed();
+    } catch (IOException e) {
+      LOG.error("Error saving notebook authorization file: " + e.getMessage());
     }
+  }
 
+  /**
+   * Save pending changes to the notebook authorization file.
+   */
+  public void flush() {
     try {
-      File settingFile = new File(filePath);
-      if (!settingFile.exists()) {
-        settingFile.createNewFile();
-      }
-
-      FileOutputStream fos = new FileOutputStream(settingFile, false);
-      OutputStreamWriter out = new OutputStreamWriter(fos);
-      out.append(jsonString);
-      out.close();
-      fos.close();
+      writer.flush();
     } catch (IOException e) {
       LOG.error("Error saving notebook authorization file: " + e.getMessage());
     }
   }
-  
+
   public boolean isPublic() {
     return conf.isNotebokPublic();
   }
@@ -172,90 +179,82 @@ public class NotebookAuthorization {
   }
 
   public void setOwners(String noteId, Set<String> entities) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
     entities = validateUser(entities);
-    if (noteAuthInfo == null) {
-      noteAuthInfo = new LinkedHashMap();
-      noteAuthInfo.put("owners", new LinkedHashSet(entities));
-      noteAuthInfo.put("readers", new LinkedHashSet());
-      noteAuthInfo.put("writers", new LinkedHashSet());
-    } else {
-      noteAuthInfo.put("owners", new LinkedHashSet(entities));
+    synchronized (authInfo) {
+      Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
+      if (noteAuthInfo == null) {
+        noteAuthInfo = new LinkedHashMap();
+        noteAuthInfo.put("owners", new LinkedHashSet(entities));
+        noteAuthInfo.put("readers", new LinkedHashSet());
+        noteAuthInfo.put("writers", new LinkedHashSet());
+      } else {
+        noteAuthInfo.put("owners", new LinkedHashSet(entities));
+      }
+      authInfo.put(noteId, noteAuthInfo);
     }
-    authInfo.put(noteId, noteAuthInfo);
     saveToFile();
+    firePermissionsChanged(noteId);
   }
 
   public void setReaders(String noteId, Set<String> entities) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
     entities = validateUser(entities);
-    if (noteAuthInfo == null) {
-      noteAuthInfo = new LinkedHashMap();
-      noteAuthInfo.put("owners", new LinkedHashSet());
-      noteAuthInfo.put("readers", new LinkedHashSet(entities));
-      noteAuthInfo.put("writers", new LinkedHashSet());
-    } else {
-      noteAuthInfo.put("readers", new LinkedHashSet(entities));
+    synchronized (authInfo) {
+      Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
+      if (noteAuthInfo == null) {
+        noteAuthInfo = new LinkedHashMap();
+        noteAuthInfo.put("owners", new LinkedHashSet());
+        noteAuthInfo.put("readers", new LinkedHashSet(entities));
+        noteAuthInfo.put("writers", new LinkedHashSet());
+      } else {
+        noteAuthInfo.put("readers", new LinkedHashSet(entities));
+      }
+      authInfo.put(noteId, noteAuthInfo);
     }
-    authInfo.put(noteId, noteAuthInfo);
     saveToFile();
+    firePermissionsChanged(noteId);
   }
 
   public void setWriters(String noteId, Set<String> entities) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
     entities = validateUser(entities);
-    if (noteAuthInfo == null) {
-      noteAuthInfo = new LinkedHashMap();
-      noteAuthInfo.put("owners", new LinkedHashSet());
-      noteAuthInfo.put("readers", new LinkedHashSet());
-      noteAuthInfo.put("writers", new LinkedHashSet(entities));
-    } else {
-      noteAuthInfo.put("writers", new LinkedHashSet(entities));
+    synchronized (authInfo) {
+      Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
+      if (noteAuthInfo == null) {
+        noteAuthInfo = new LinkedHashMap();
+        noteAuthInfo.put("owners", new LinkedHashSet());
+        noteAuthInfo.put("readers", new LinkedHashSet());
+        noteAuthInfo.put("writers", new LinkedHashSet(entities));
+      } else {
+        noteAuthInfo.put("writers", new LinkedHashSet(entities));
+      }
+      authInfo.put(noteId, noteAuthInfo);
     }
-    authInfo.put(noteId, noteAuthInfo);
     saveToFile();
+    firePermissionsChanged(noteId);
   }
 
   public Set<String> getOwners(String noteId) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
-    Set<String> entities = null;
-    if (noteAuthInfo == null) {
-      entities = new HashSet<>();
-    } else {
-      entities = noteAuthInfo.get("owners");
-      if (entities == null) {
-        entities = new HashSet<>();
-      }
-    }
-    return entities;
+    return getEntities(noteId, "owners");
   }
 
   public Set<String> getReaders(String noteId) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
-    Set<String> entities = null;
-    if (noteAuthInfo == null) {
-      entities = new HashSet<>();
-    } else {
-      entities = noteAuthInfo.get("readers");
-      if (entities == null) {
-        entities = new HashSet<>();
-      }
-    }
-    return entities;
+    return getEntities(noteId, "readers");
   }
 
   public Set<String> getWriters(String noteId) {
-    Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
-    Set<String> entities = null;
-    if (noteAuthInfo == null) {
-      entities = new HashSet<>();
-    } else {
-      entities = noteAuthInfo.get("writers");
-      if (entities == null) {
-        entities = new HashSet<>();
+    return getEntities(noteId, "writers");
+  }
+
+  /**
+   * @return copy of the entities, the sets of authInfo are serialized by the saving thread
+   */
+  private Set<String> getEntities(String noteId, String kind) {
+    synchronized (authInfo) {
+      Map<String, Set<String>> noteAuthInfo = authInfo.get(noteId);
+      if (noteAuthInfo == null || noteAuthInfo.get(kind) == null) {
+        return new HashSet<>();
       }
+      return new LinkedHashSet<>(noteAuthInfo.get(kind));
     }
-    return entities;
   }
 
   public boolean isOwner(String noteId, Set<String> entities) {
@@ -324,8 +323,25 @@ public class NotebookAuthorization {
   }
 
   public void removeNote(String noteId) {
-    authInfo.remove(noteId);
+    synchronized (authInfo) {
+      authInfo.remove(noteId);
+    }
     saveToFile();
+    firePermissionsChanged(noteId);
+  }
+
+  public void addListener(NotebookAuthorizationListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(NotebookAuthorizationListener listener) {
+    listeners.remove(listener);
+  }
+
+  private void firePermissionsChanged(String noteId) {
+    for (NotebookAuthorizationListener listener : listeners) {
+      listener.onNotePermissionsChanged(noteId);
+    }
   }
 
   public List<NoteInfo> filterByUser(List<NoteInfo> notes, AuthenticationInfo subject) {
@@ -14,24 +14,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+package org.apache.zeppelin.notebook;
 
-package org.apache.spark
-
-object JobProgressUtil {
-
-  def progress(sc: SparkContext, jobGroup : String):Int = {
-    val jobIds = sc.statusTracker.getJobIdsForGroup(jobGroup)
-    val jobs = jobIds.flatMap { id => sc.statusTracker.getJobInfo(id) }
-    val stages = jobs.flatMap { job =>
-      job.stageIds().flatMap(sc.statusTracker.getStageInfo)
-    }
-
-    val taskCount = stages.map(_.numTasks).sum
-    val completedTaskCount = stages.map(_.numCompletedTasks).sum
-    if (taskCount == 0) {
-      0
-    } else {
-      (100 * completedTaskCount.toDouble / taskCount).toInt
-    }
-  }
-}
\ No newline at end of file
+/**
+ * Listener of permission changes, used by NoteListIndex
+ */
+public interface NotebookAuthorizationListener {
+  /**
+   * Fired after owners, readers or writers of the note changed, or the note was removed
+   */
+  void onNotePermissionsChanged(String noteId);
+}
@@ -66,6 +66,8 @@ public class Paragraph extends Job implements Serializable, Cloneable {
   String user;
   Date dateUpdated;
   private Map<String, Object> config; // paragraph configs like isOpen, colWidth, etc
+  // repl name parsed from the text it was parsed from, kept together so both change at once
+  private transient volatile String[] parsedReplName;
   public GUI settings;          // form and parameter settings
 
   // since zeppelin-0.7.0, zeppelin stores multiple results of the paragraph
@@ -116,6 +118,24 @@ public class Paragraph extends Job implements Serializable, Cloneable {
     config = new HashMap<>();
   }
 
+  /**
+   * Paragraph of a user in personalized mode.
+   * It references text, title, forms and result of the original paragraph instead of copying
+   * them, setters replace the references when the user changes them. Config and params are
+   * copied, as they are modified in place with the values of the user.
+   */
+  private Paragraph(Paragraph origin) {
+    super(origin.getId(), origin.getJobName(), null);
+    title = origin.title;
+    text = origin.text;
+    dateUpdated = origin.dateUpdated;
+    config = new HashMap<>(origin.config);
+    settings = new GUI();
+    settings.setParams(new HashMap<>(origin.settings.getParams()));
+    settings.setForms(origin.settings.getForms());
+    results = origin.getReturn();
+  }
+
   private static String generateId() {
     return "paragraph_" + System.currentTimeMillis() + "_" + new Random(System.currentTimeMillis())
         .nextInt();
@@ -138,15 +158,7 @@ public class Paragraph extends Job implements Serializable, Cloneable {
   }
 
   public Paragraph cloneParagraphForUser(String user) {
-    Paragraph p = new Paragraph();
-    p.settings.setParams(Maps.newHashMap(settings.getParams()));
-    p.settings.setForms(Maps.newLinkedHashMap(settings.getForms()));
-    p.setConfig(Maps.newHashMap(config));
-    p.setTitle(getTitle());
-    p.setText(getText());
-    p.setResult(getReturn());
-    p.setStatus(Status.READY);
-    p.setId(getId());
+    Paragraph p = new Paragraph(this);
     addUser(p, user);
     return p;
   }
@@ -172,6 +184,10 @@ public class Paragraph extends Job implements Serializable, Cloneable {
     this.dateUpdated = new Date();
   }
 
+  public Date getDateUpdated() {
+    return dateUpdated;
+  }
+
   public AuthenticationInfo getAuthenticationInfo() {
     return authenticationInfo;
   }
@@ -203,7 +219,13 @@ public class Paragraph extends Job implements Serializable, Cloneable {
   }
 
   public String getRequiredReplName() {
-    return getRequiredReplName(text);
+    String currentText = text;
+    String[] parsed = parsedReplName;
+    if (parsed == null || parsed[0] != currentText) {
+      parsed = new String[] {currentText, getRequiredReplName(currentText)};
+      parsedReplName = parsed;
+    }
+    return parsed[1];
   }
 
   public static String getRequiredReplName(String text) {
@@ -519,6 +541,11 @@ public class Paragraph extends Job implements Serializable, Cloneable {
 
   @Override
   protected boolean jobAbort() {
+    if (note != null && note.abortWaiting(getId())) {
+      // never submitted, the flag would abort the next run of the paragraph in the scheduler
+      return false;
+    }
+
     Interpreter repl = getRepl(getRequiredReplName());
     if (repl == null) {
       // when interpreters are already destroyed
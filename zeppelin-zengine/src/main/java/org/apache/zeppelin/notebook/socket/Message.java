@@ -35,9 +35,20 @@ public class Message {
 
     NOTE,             // [s-c] note info
                       // @param note serialized Note object
+                      // @param seq last sequence number of the note
 
     PARAGRAPH,        // [s-c] paragraph info
                       // @param paragraph serialized paragraph object
+                      // @param noteId note id
+                      // @param seq sequence number, missing in personalized mode
+
+    PARAGRAPH_PATCH,  // [s-c] changed fields of a paragraph, without its results
+                      // @param noteId note id
+                      // @param paragraphId paragraph id
+                      // @param seq sequence number, following the one of the last
+                      //            NOTE, PARAGRAPH or PARAGRAPH_PATCH of the note
+                      // @param fields names of the changed fields
+                      // @param patch values of the changed fields, null ones omitted
 
     PROGRESS,         // [s-c] progress update
                       // @param id paragraph id
@@ -126,6 +137,7 @@ public class Message {
 
     ANGULAR_OBJECT_UPDATE,        // [s-c] add/update angular object
     ANGULAR_OBJECT_REMOVE,        // [s-c] add angular object del
+    ANGULAR_OBJECTS_UPDATE,       // [s-c] several ANGULAR_OBJECT_UPDATE and ANGULAR_OBJECT_REMOVE
     
     ANGULAR_OBJECT_UPDATED,       // [c-s] angular object value updated,
 
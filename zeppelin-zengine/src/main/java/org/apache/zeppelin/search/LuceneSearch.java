@@ -17,11 +17,18 @@
 package org.apache.zeppelin.search;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -57,15 +64,24 @@ import org.apache.zeppelin.notebook.Paragraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 /**
  * Search (both, indexing and query) the notebooks using Lucene.
  *
  * Query is thread-safe, as creates new IndexReader every time.
  * Index is thread-safe, as re-uses single IndexWriter, which is thread-safe.
+ *
+ * Saved notes can be indexed in the background: the notes saved within the index delay are
+ * indexed together with a single commit, and the documents of the note name and paragraphs
+ * whose note name, text and title didn't change are not updated.
  */
 public class LuceneSearch implements SearchService {
   private static final Logger LOG = LoggerFactory.getLogger(LuceneSearch.class);
@@ -80,7 +96,41 @@ public class LuceneSearch implements SearchService {
   IndexWriterConfig iwc;
   IndexWriter writer;
 
+  // null when notes are indexed by the thread saving them
+  private final ScheduledExecutorService indexExecutor;
+  private final long indexDelayMs;
+  // notes saved and not indexed yet, by note id. guarded by itself
+  private final Map<String, Note> pendingNotes = new LinkedHashMap<>();
+  private boolean indexScheduled;
+  // serializes the index updates of notes, so a pending update doesn't add a deleted note back.
+  // taken before pendingNotes
+  private final Object indexLock = new Object();
+  // hashes of the indexed documents of each note, by note id and document id. guarded by indexLock
+  private final Map<String, Map<String, HashCode>> indexedHashes = new HashMap<>();
+  private long skippedDocs;
+
   public LuceneSearch() {
+    this(0);
+  }
+
+  /**
+   * @param indexDelayMs maximum time a saved note waits to be indexed.
+   *                     0 indexes the note while it is saved
+   */
+  public LuceneSearch(long indexDelayMs) {
+    this.indexDelayMs = indexDelayMs;
+    if (indexDelayMs > 0) {
+      indexExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "LuceneSearchIndexer");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    } else {
+      indexExecutor = null;
+    }
     ramDirectory = new RAMDirectory();
     analyzer = new StandardAnalyzer();
     iwc = new IndexWriterConfig(analyzer);
@@ -185,48 +235,154 @@ public class LuceneSearch implements SearchService {
    */
   @Override
   public void updateIndexDoc(Note note) throws IOException {
-    updateIndexNoteName(note);
-    for (Paragraph p: note.getParagraphs()) {
-      updateIndexParagraph(note, p);
+    if (indexExecutor == null) {
+      synchronized (indexLock) {
+        updateNoteDocs(note);
+        commit();
+      }
+      return;
+    }
+
+    synchronized (pendingNotes) {
+      pendingNotes.put(note.getId(), note);
+      if (indexScheduled) {
+        return;
+      }
+      indexScheduled = true;
+      try {
+        indexExecutor.schedule(new Runnable() {
+          @Override
+          public void run() {
+            indexPendingNotes();
+          }
+        }, indexDelayMs, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        LOG.warn("Index is closed, note {} is not indexed", note.getId());
+      }
     }
   }
 
-  private void updateIndexNoteName(Note note) throws IOException {
-    String noteName = note.getName();
-    String noteId = note.getId();
-    LOG.debug("Indexing Notebook {}, '{}'", noteId, noteName);
-    if (null == noteName || noteName.isEmpty()) {
-      LOG.debug("Skipping empty notebook name");
-      return;
+  /**
+   * Indexes the notes saved and not indexed yet, with a single commit
+   */
+  @VisibleForTesting
+  void indexPendingNotes() {
+    synchronized (indexLock) {
+      List<Note> notes;
+      synchronized (pendingNotes) {
+        notes = new ArrayList<>(pendingNotes.values());
+        pendingNotes.clear();
+        indexScheduled = false;
+      }
+      if (notes.isEmpty()) {
+        return;
+      }
+      long start = System.nanoTime();
+      for (Note note : notes) {
+        updateNoteDocs(note);
+      }
+      commit();
+      LOG.debug("Indexing {} saved notes took {}ms", notes.size(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
-    updateDoc(noteId, noteName, null);
   }
 
-  private void updateIndexParagraph(Note note, Paragraph p) throws IOException {
-    if (p.getText() == null) {
-      LOG.debug("Skipping empty paragraph");
-      return;
+  /**
+   * Updates the documents of the note name and paragraphs that changed since the note was
+   * indexed, and deletes the ones of removed paragraphs. Does not commit changes.
+   */
+  private void updateNoteDocs(Note note) {
+    String noteId = note.getId();
+    String noteName = note.getName();
+    Map<String, HashCode> oldHashes = indexedHashes.get(noteId);
+    if (oldHashes == null) {
+      oldHashes = Collections.emptyMap();
+    }
+    Map<String, HashCode> hashes = new HashMap<>();
+    try {
+      LOG.debug("Indexing Notebook {}, '{}'", noteId, noteName);
+      if (null == noteName || noteName.isEmpty()) {
+        LOG.debug("Skipping empty notebook name");
+      } else {
+        updateDoc(noteId, noteName, null, oldHashes, hashes);
+      }
+      for (Paragraph p : note.getParagraphs()) {
+        if (p.getText() == null) {
+          LOG.debug("Skipping empty paragraph");
+          continue;
+        }
+        updateDoc(noteId, noteName, p, oldHashes, hashes);
+      }
+      for (String id : oldHashes.keySet()) {
+        if (!hashes.containsKey(id)) {
+          writer.deleteDocuments(new Term(ID_FIELD, id));
+        }
+      }
+      indexedHashes.put(noteId, hashes);
+    } catch (IOException e) {
+      // index the whole note next time
+      indexedHashes.remove(noteId);
+      LOG.error("Failed to updaet index of notebook {}", noteId, e);
     }
-    updateDoc(note.getId(), note.getName(), p);
   }
 
   /**
    * Updates index for the given note: either note.name or a paragraph If
-   * paragraph is <code>null</code> - updates only for the note.name
+   * paragraph is <code>null</code> - updates only for the note.name.
+   * The document is not updated when it didn't change.
    *
-   * @param noteId
-   * @param noteName
-   * @param p
-   * @throws IOException
+   * @param oldHashes hashes of the indexed documents of the note
+   * @param hashes where the hash of the document is put
    */
-  private void updateDoc(String noteId, String noteName, Paragraph p) throws IOException {
+  private void updateDoc(String noteId, String noteName, Paragraph p,
+      Map<String, HashCode> oldHashes, Map<String, HashCode> hashes) throws IOException {
     String id = formatId(noteId, p);
-    Document doc = newDocument(id, noteName, p);
+    HashCode hash = hashDoc(noteName, p);
+    hashes.put(id, hash);
+    if (hash.equals(oldHashes.get(id))) {
+      skippedDocs++;
+      return;
+    }
+    writer.updateDocument(new Term(ID_FIELD, id), newDocument(id, noteName, p));
+  }
+
+  /**
+   * Hash of the indexed fields of a document
+   */
+  private static HashCode hashDoc(String noteName, Paragraph p) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    putString(hasher, noteName);
+    if (null != p) {
+      putString(hasher, p.getText());
+      putString(hasher, p.getTitle());
+    }
+    return hasher.hash();
+  }
+
+  private static void putString(Hasher hasher, String value) {
+    if (value == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(value.length());
+      hasher.putString(value, Charsets.UTF_8);
+    }
+  }
+
+  private void commit() {
     try {
-      writer.updateDocument(new Term(ID_FIELD, id), doc);
       writer.commit();
     } catch (IOException e) {
-      LOG.error("Failed to updaet index of notebook {}", noteId, e);
+      LOG.error("Failed to save index", e);
+    }
+  }
+
+  /**
+   * @return number of documents not updated because they didn't change
+   */
+  @VisibleForTesting
+  long getSkippedDocs() {
+    synchronized (indexLock) {
+      return skippedDocs;
     }
   }
 
@@ -288,22 +444,21 @@ public class LuceneSearch implements SearchService {
   public void addIndexDocs(Collection<Note> collection) {
     int docsIndexed = 0;
     long start = System.nanoTime();
-    try {
-      for (Note note : collection) {
-        addIndexDocAsync(note);
-        docsIndexed++;
-      }
-    } catch (IOException e) {
-      LOG.error("Failed to index all Notebooks", e);
-    } finally {
-      try { // save what's been indexed, even if not full collection
-        writer.commit();
+    synchronized (indexLock) {
+      try {
+        for (Note note : collection) {
+          addIndexDocAsync(note);
+          docsIndexed++;
+        }
       } catch (IOException e) {
-        LOG.error("Failed to save index", e);
+        LOG.error("Failed to index all Notebooks", e);
+      } finally {
+        // save what's been indexed, even if not full collection
+        commit();
+        long end = System.nanoTime();
+        LOG.info("Indexing {} notebooks took {}ms", docsIndexed,
+            TimeUnit.NANOSECONDS.toMillis(end - start));
       }
-      long end = System.nanoTime();
-      LOG.info("Indexing {} notebooks took {}ms", docsIndexed,
-          TimeUnit.NANOSECONDS.toMillis(end - start));
     }
   }
 
@@ -312,11 +467,13 @@ public class LuceneSearch implements SearchService {
    */
   @Override
   public void addIndexDoc(Note note) {
-    try {
-      addIndexDocAsync(note);
-      writer.commit();
-    } catch (IOException e) {
-      LOG.error("Failed to add note {} to index", note, e);
+    synchronized (indexLock) {
+      try {
+        addIndexDocAsync(note);
+        writer.commit();
+      } catch (IOException e) {
+        LOG.error("Failed to add note {} to index", note, e);
+      }
     }
   }
 
@@ -327,6 +484,7 @@ public class LuceneSearch implements SearchService {
    * @throws IOException
    */
   private void addIndexDocAsync(Note note) throws IOException {
+    indexedHashes.put(note.getId(), new HashMap<String, HashCode>());
     indexNoteName(writer, note.getId(), note.getName());
     for (Paragraph doc : note.getParagraphs()) {
       if (doc.getText() == null) {
@@ -360,14 +518,24 @@ public class LuceneSearch implements SearchService {
       return;
     }
     String fullNoteOrJustParagraph = formatDeleteId(note.getId(), p);
-    LOG.debug("Deleting note {}, out of: {}", note.getId(), writer.numDocs());
-    try {
-      writer.deleteDocuments(new WildcardQuery(new Term(ID_FIELD, fullNoteOrJustParagraph)));
-      writer.commit();
-    } catch (IOException e) {
-      LOG.error("Failed to delete {} from index by '{}'", note, fullNoteOrJustParagraph, e);
+    synchronized (indexLock) {
+      if (null == p) {
+        synchronized (pendingNotes) {
+          pendingNotes.remove(note.getId());
+        }
+        indexedHashes.remove(note.getId());
+      } else if (indexedHashes.containsKey(note.getId())) {
+        indexedHashes.get(note.getId()).remove(fullNoteOrJustParagraph);
+      }
+      LOG.debug("Deleting note {}, out of: {}", note.getId(), writer.numDocs());
+      try {
+        writer.deleteDocuments(new WildcardQuery(new Term(ID_FIELD, fullNoteOrJustParagraph)));
+        writer.commit();
+      } catch (IOException e) {
+        LOG.error("Failed to delete {} from index by '{}'", note, fullNoteOrJustParagraph, e);
+      }
+      LOG.debug("Done, index contains {} docs now" + writer.numDocs());
     }
-    LOG.debug("Done, index contains {} docs now" + writer.numDocs());
   }
 
   /* (non-Javadoc)
@@ -375,6 +543,10 @@ public class LuceneSearch implements SearchService {
    */
   @Override
   public void close() {
+    if (indexExecutor != null) {
+      indexPendingNotes();
+      indexExecutor.shutdownNow();
+    }
     try {
       writer.close();
     } catch (IOException e) {
@@ -406,6 +578,7 @@ public class LuceneSearch implements SearchService {
     String id = formatId(noteId, p);
     Document doc = newDocument(id, noteName, p);
     w.addDocument(doc);
+    indexedHashes.get(noteId).put(id, hashDoc(noteName, p));
   }
 
 }
@@ -45,6 +45,7 @@ public interface SearchService {
    * Updates all documents in index for the given note:
    *  - name
    *  - all paragraphs
+   * The note may be indexed later, e.g. together with other notes saved meanwhile
    *
    * @param note a Note to update index for
    * @throws IOException
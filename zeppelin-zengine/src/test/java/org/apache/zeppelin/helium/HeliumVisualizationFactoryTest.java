@@ -17,6 +17,7 @@
 package org.apache.zeppelin.helium;
 
 import com.github.eirslett.maven.plugins.frontend.lib.InstallationException;
+import com.github.eirslett.maven.plugins.frontend.lib.NpmRunner;
 import com.github.eirslett.maven.plugins.frontend.lib.TaskRunnerException;
 import com.google.common.io.Resources;
 import org.apache.commons.io.FileUtils;
@@ -29,6 +30,10 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 
@@ -201,4 +206,113 @@ public class HeliumVisualizationFactoryTest {
 
     assertNotSame(bundle1.lastModified(), bundle2.lastModified());
   }
+
+  @Test
+  public void bundleCache() throws IOException, InterruptedException {
+    StubNpmRunner npm = new StubNpmRunner(new File(tmpDir, "vis"));
+    hvf.setNpmRunner(npm);
+
+    List<HeliumPackage> pkgs1 = new LinkedList<>();
+    pkgs1.add(localPackage("vis1"));
+    List<HeliumPackage> pkgs2 = new LinkedList<>();
+    pkgs2.add(localPackage("vis2"));
+
+    File bundle1 = hvf.bundle(pkgs1);
+    assertTrue(bundle1.isFile());
+    assertEquals(1, npm.bundleCount.get());
+
+    // same packages are served from cache
+    assertEquals(bundle1, hvf.bundle(pkgs1));
+    assertEquals(1, npm.bundleCount.get());
+
+    File bundle2 = hvf.bundle(pkgs2);
+    assertFalse(bundle1.equals(bundle2));
+    assertEquals(2, npm.bundleCount.get());
+    assertEquals(bundle2, hvf.getCurrentBundle());
+
+    // previous bundle is retained
+    assertEquals(bundle1, hvf.bundle(pkgs1));
+    assertEquals(2, npm.bundleCount.get());
+    assertTrue(bundle2.isFile());
+    assertEquals(bundle1, hvf.getCurrentBundle());
+
+    // last bundle is served while building in the background
+    List<HeliumPackage> pkgs3 = new LinkedList<>();
+    pkgs3.add(localPackage("vis1"));
+    pkgs3.add(localPackage("vis2"));
+    npm.block();
+    hvf.bundleInBackground(pkgs3);
+    assertTrue(npm.started.await(10, TimeUnit.SECONDS));
+    assertEquals(bundle1, hvf.getCurrentBundle());
+    npm.release();
+
+    long timeout = System.currentTimeMillis() + 10 * 1000;
+    while (bundle1.equals(hvf.getCurrentBundle()) && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    File bundle3 = hvf.getCurrentBundle();
+    assertEquals(3, npm.bundleCount.get());
+    String content = FileUtils.readFileToString(bundle3);
+    assertTrue(content.contains("vis1") && content.contains("vis2"));
+
+    // cached bundle is used right away
+    hvf.bundleInBackground(pkgs2);
+    assertEquals(bundle2, hvf.getCurrentBundle());
+    assertEquals(3, npm.bundleCount.get());
+  }
+
+  private HeliumPackage localPackage(String name) {
+    URL res = Resources.getResource("helium/webpack.config.js");
+    String resDir = new File(res.getFile()).getParent();
+    return new HeliumPackage(
+        HeliumPackage.Type.VISUALIZATION,
+        name,
+        name,
+        resDir + "/../../../src/test/resources/helium/" + name,
+        "",
+        null,
+        "license",
+        "fa fa-coffee"
+    );
+  }
+
+  /**
+   * Writes load.js as the bundle instead of running npm
+   */
+  private static class StubNpmRunner implements NpmRunner {
+    private final File workingDirectory;
+    private final AtomicInteger bundleCount = new AtomicInteger();
+    private CountDownLatch started = new CountDownLatch(0);
+    private CountDownLatch released = new CountDownLatch(0);
+
+    StubNpmRunner(File workingDirectory) {
+      this.workingDirectory = workingDirectory;
+    }
+
+    void block() {
+      started = new CountDownLatch(1);
+      released = new CountDownLatch(1);
+    }
+
+    void release() {
+      released.countDown();
+    }
+
+    @Override
+    public void execute(String args, Map<String, String> environment)
+        throws TaskRunnerException {
+      if (!args.equals("run bundle")) {
+        return;
+      }
+      started.countDown();
+      try {
+        released.await();
+        FileUtils.copyFile(new File(workingDirectory, "load.js"),
+            new File(workingDirectory, "vis.bundle.js"));
+      } catch (InterruptedException | IOException e) {
+        throw new TaskRunnerException(e.getMessage());
+      }
+      bundleCount.incrementAndGet();
+    }
+  }
 }
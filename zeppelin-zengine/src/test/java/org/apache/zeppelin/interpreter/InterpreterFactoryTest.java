@@ -23,6 +23,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -54,6 +55,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonatype.aether.RepositoryException;
 
 import static org.junit.Assert.*;
@@ -67,6 +70,7 @@ import static org.mockito.Mockito.verify;
 import org.mockito.Mock;
 
 public class InterpreterFactoryTest {
+  private static final Logger logger = LoggerFactory.getLogger(InterpreterFactoryTest.class);
 
   private InterpreterFactory factory;
   private InterpreterSettingManager interpreterSettingManager;
@@ -437,6 +441,54 @@ public class InterpreterFactoryTest {
     assertEquals("text", editor.get("language"));
   }
 
+  @Test
+  public void testResolutionCache() throws IOException {
+    List<String> intpIds = new ArrayList<>();
+    String mock2Id = null;
+    for (InterpreterSetting intpSetting : interpreterSettingManager.get()) {
+      intpIds.add(intpSetting.getId());
+      if (intpSetting.getName().equals("mock2")) {
+        mock2Id = intpSetting.getId();
+      }
+    }
+    interpreterSettingManager.setInterpreters("user", "note", intpIds);
+    InterpreterResolutionCache<Interpreter> cache = factory.getResolutionCache();
+
+    Interpreter mock1 = factory.getInterpreter("user", "note", "mock1");
+    long hits = cache.getHitCount();
+    assertSame(mock1, factory.getInterpreter("user", "note", "mock1"));
+    assertSame(mock1, factory.getInterpreter("user", "note", null));
+    assertEquals(hits + 1, cache.getHitCount());
+
+    // resolve path, uncached against cached
+    int iterations = 100000;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      factory.resolveInterpreter("user", "note", "mock2");
+    }
+    long uncachedNanos = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      factory.getInterpreter("user", "note", "mock2");
+    }
+    long cachedNanos = System.nanoTime() - start;
+    logger.info("Resolve of a repl name: {}ns uncached, {}ns cached", uncachedNanos / iterations,
+        cachedNanos / iterations);
+
+    // restart replaces the interpreters
+    interpreterSettingManager.restart(interpreterSettingManager.getDefaultInterpreterSetting(
+        "note").getId());
+    Interpreter restarted = factory.getInterpreter("user", "note", "mock1");
+    assertNotSame(mock1, restarted);
+    assertSame(restarted, factory.getInterpreter("user", "note", "mock1"));
+
+    // binding change moves the default interpreter
+    interpreterSettingManager.setInterpreters("user", "note", Arrays.asList(mock2Id));
+    assertEquals(MockInterpreter2.class.getName(),
+        factory.getInterpreter("user", "note", null).getClassName());
+    assertNull(factory.getInterpreter("user", "note", "mock1"));
+  }
+
   @Test
   public void registerCustomInterpreterRunner() throws IOException {
     InterpreterSettingManager spyInterpreterSettingManager = spy(interpreterSettingManager);
@@ -17,9 +17,14 @@
 
 package org.apache.zeppelin.notebook;
 
+import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
+import org.apache.zeppelin.display.AngularObject;
+import org.apache.zeppelin.display.AngularObjectRegistry;
 import org.apache.zeppelin.interpreter.Interpreter;
 import org.apache.zeppelin.interpreter.InterpreterFactory;
+import org.apache.zeppelin.interpreter.InterpreterGroup;
 import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.apache.zeppelin.interpreter.InterpreterSetting;
 import org.apache.zeppelin.interpreter.InterpreterSettingManager;
 import org.apache.zeppelin.notebook.repo.NotebookRepo;
 import org.apache.zeppelin.scheduler.Scheduler;
@@ -31,12 +36,23 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class NoteTest {
+  private static final Logger LOG = LoggerFactory.getLogger(NoteTest.class);
+
   @Mock
   NotebookRepo repo;
 
@@ -210,4 +226,110 @@ public class NoteTest {
     note.setName(Folder.TRASH_FOLDER_ID + "/a/b/c");
     assertTrue(note.isTrash());
   }
+
+  @Test
+  public void persistCopiesChangedAngularObjectsOnly() throws IOException {
+    Note note = new Note(repo, interpreterFactory, interpreterSettingManager, jobListenerFactory, index, credentials, noteEventListener);
+    InterpreterGroup intpGroup = new InterpreterGroup("intpGroup");
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpGroup", null);
+    intpGroup.setAngularObjectRegistry(registry);
+    InterpreterSetting setting = mock(InterpreterSetting.class);
+    when(setting.getInterpreterGroup(anyString(), anyString())).thenReturn(intpGroup);
+    when(interpreterSettingManager.getInterpreterSettings(note.getId()))
+        .thenReturn(Arrays.asList(setting));
+
+    List<AngularObject> objects = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      objects.add(registry.add("object" + i, "value" + i, note.getId(), "paragraph" + (i % 10)));
+    }
+
+    long start = System.nanoTime();
+    note.persist(anonymous);
+    String saved = Note.GSON.toJson(note);
+    long firstPersist = System.nanoTime() - start;
+    assertEquals(1000, note.getCopiedAngularObjectCount());
+    assertTrue(saved.contains("object999"));
+
+    // change 10 objects
+    for (int i = 0; i < 10; i++) {
+      objects.get(i * 100).set("changed" + i);
+    }
+    start = System.nanoTime();
+    note.persist(anonymous);
+    String savedAgain = Note.GSON.toJson(note);
+    long secondPersist = System.nanoTime() - start;
+    LOG.info("persist of a note with 1000 angular objects: {} ms, after changing 10: {} ms",
+        firstPersist / 1000000, secondPersist / 1000000);
+
+    assertEquals(1010, note.getCopiedAngularObjectCount());
+    assertEquals(1000, note.getAngularObjects().get("intpGroup").size());
+    assertTrue(savedAgain.contains("changed9"));
+
+    // removed objects are not saved anymore
+    registry.remove("object1", note.getId(), "paragraph1");
+    note.persist(anonymous);
+    assertEquals(999, note.getAngularObjects().get("intpGroup").size());
+    assertEquals(1010, note.getCopiedAngularObjectCount());
+  }
+
+  @Test
+  public void persistSavesAngularObjectsModifiedInPlace() throws IOException {
+    Note note = new Note(repo, interpreterFactory, interpreterSettingManager, jobListenerFactory, index, credentials, noteEventListener);
+    InterpreterGroup intpGroup = new InterpreterGroup("intpGroup");
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpGroup", null);
+    intpGroup.setAngularObjectRegistry(registry);
+    InterpreterSetting setting = mock(InterpreterSetting.class);
+    when(setting.getInterpreterGroup(anyString(), anyString())).thenReturn(intpGroup);
+    when(interpreterSettingManager.getInterpreterSettings(note.getId()))
+        .thenReturn(Arrays.asList(setting));
+
+    Map<String, Object> value = new HashMap<>();
+    value.put("state", "before");
+    registry.add("map", value, note.getId(), null);
+    note.persist(anonymous);
+    assertTrue(Note.GSON.toJson(note).contains("before"));
+
+    // modified without set()
+    value.put("state", "after");
+    note.persist(anonymous);
+    assertTrue(Note.GSON.toJson(note).contains("after"));
+    // saved as they are, not copied
+    assertEquals(0, note.getCopiedAngularObjectCount());
+  }
+
+  @Test
+  public void persistSkipsTooLargeAngularObjects() throws IOException {
+    Note note = new Note(repo, interpreterFactory, interpreterSettingManager, jobListenerFactory, index, credentials, noteEventListener);
+    InterpreterGroup intpGroup = new InterpreterGroup("intpGroup");
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpGroup", null);
+    intpGroup.setAngularObjectRegistry(registry);
+    InterpreterSetting setting = mock(InterpreterSetting.class);
+    when(setting.getInterpreterGroup(anyString(), anyString())).thenReturn(intpGroup);
+    when(interpreterSettingManager.getInterpreterSettings(note.getId()))
+        .thenReturn(Arrays.asList(setting));
+
+    registry.add("small", "value", note.getId(), null);
+    registry.add("large", new String(new char[1000]).replace('\0', 'a'), note.getId(), null);
+    Map<String, Object> map = new HashMap<>();
+    map.put("rows", new int[1000]);
+    registry.add("largeMap", map, note.getId(), null);
+
+    // no limit by default
+    note.persist(anonymous);
+    assertEquals(3, note.getAngularObjects().get("intpGroup").size());
+
+    System.setProperty(ConfVars.ZEPPELIN_NOTEBOOK_ANGULAR_OBJECT_MAX_SIZE.getVarName(), "1000");
+    try {
+      // strings are measured when copied after a set(), quoted
+      String large = new String(new char[1000]).replace('\0', 'b');
+      registry.get("large", note.getId(), null).set(large);
+      note.persist(anonymous);
+    } finally {
+      System.clearProperty(ConfVars.ZEPPELIN_NOTEBOOK_ANGULAR_OBJECT_MAX_SIZE.getVarName());
+    }
+
+    List<AngularObject> saved = note.getAngularObjects().get("intpGroup");
+    assertEquals(1, saved.size());
+    assertEquals("small", saved.get(0).getName());
+  }
 }
@@ -23,10 +23,14 @@ import static org.mockito.Mockito.mock;
 import com.google.common.collect.Maps;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -441,6 +445,211 @@ public class NotebookTest implements JobListenerFactory{
     assertEquals(result, getResultString(p.getResult()));
   }
   
+  @Test
+  public void testOverlappingCronNotes() throws InterruptedException, IOException {
+    int numNotes = 100;
+    List<Note> notes = new ArrayList<>();
+    List<Paragraph> paragraphs = new ArrayList<>();
+    for (int i = 0; i < numNotes; i++) {
+      Note note = notebook.createNote(anonymous);
+      interpreterSettingManager.setInterpreters("user", note.getId(),
+          interpreterSettingManager.getDefaultInterpreterSettingList());
+      Paragraph p = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+      p.setConfig(new HashMap<String, Object>());
+      // a round of all notes takes longer than the schedule, so runs overlap
+      p.setText("sleep 100");
+      notes.add(note);
+      paragraphs.add(p);
+    }
+
+    NoteCronExecutor cronExecutor = notebook.getCronExecutor();
+    int concurrency = (Integer) cronExecutor.getMetrics().get("concurrency");
+    for (Note note : notes) {
+      Map<String, Object> config = note.getConfig();
+      config.put("cron", "* * * * * ?");
+      note.setConfig(config);
+      notebook.refreshCron(note.getId());
+    }
+
+    // every note runs, while no more than the budget run at once
+    long timeout = System.currentTimeMillis() + 60 * 1000;
+    boolean allFinished = false;
+    while (!allFinished && System.currentTimeMillis() < timeout) {
+      assertTrue(cronExecutor.getRunningCount() <= concurrency);
+      allFinished = true;
+      for (Paragraph p : paragraphs) {
+        allFinished &= p.getDateFinished() != null;
+      }
+      Thread.sleep(50);
+    }
+    assertTrue(allFinished);
+
+    for (Note note : notes) {
+      note.getConfig().put("cron", null);
+      notebook.refreshCron(note.getId());
+    }
+    while ((cronExecutor.getRunningCount() > 0 || cronExecutor.getQueuedCount() > 0)
+        && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+
+    Map<String, Object> metrics = cronExecutor.getMetrics();
+    logger.info("Cron metrics: {}", metrics);
+    assertEquals(0, metrics.get("running"));
+    assertEquals(0, metrics.get("queued"));
+    assertTrue((Long) metrics.get("completed") >= numNotes);
+    // runs were triggered while the previous ones were still queued or running
+    assertTrue((Long) metrics.get("skipped") > 0);
+    assertTrue((Double) metrics.get("maxQueueWaitMs") > 0);
+
+    for (Note note : notes) {
+      notebook.removeNote(note.getId(), anonymous);
+    }
+  }
+
+  @Test
+  public void testRunAllFollowsDependencies() throws InterruptedException, IOException {
+    Note note = notebook.createNote(anonymous);
+    interpreterSettingManager.setInterpreters("user", note.getId(),
+        interpreterSettingManager.getDefaultInterpreterSettingList());
+
+    // p1 -> p3 through the "table" resource, p2 is independent, p4 waits for p2 explicitly
+    Paragraph p1 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p1.setText("%mock1 sleep 500 z.put(\"table\", df)");
+    Paragraph p2 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p2.setText("%mock2 sleep 500");
+    Paragraph p3 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p3.setText("%mock2 sleep 100 z.get('table')");
+    Paragraph p4 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p4.setText("%mock1 sleep 100");
+    Map<String, Object> config = new HashMap<>();
+    config.put(NoteExecution.DEPENDS_ON, Arrays.asList(p2.getId()));
+    p4.setConfig(config);
+
+    NoteExecution execution = note.runAll();
+    Map<String, Set<String>> dependencies = execution.getDependencies();
+    assertEquals(Collections.<String>emptySet(), dependencies.get(p1.getId()));
+    assertEquals(Collections.<String>emptySet(), dependencies.get(p2.getId()));
+    assertEquals(Sets.newHashSet(p1.getId()), dependencies.get(p3.getId()));
+    assertEquals(Sets.newHashSet(p2.getId()), dependencies.get(p4.getId()));
+
+    long timeout = System.currentTimeMillis() + 30 * 1000;
+    while (!execution.isDone() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertTrue(execution.isDone());
+    for (Paragraph p : Arrays.asList(p1, p2, p3, p4)) {
+      assertEquals(Status.FINISHED, p.getStatus());
+    }
+
+    // independent paragraphs ran concurrently, dependents after their dependencies
+    assertTrue(p2.getDateStarted().before(p1.getDateFinished()));
+    assertFalse(p3.getDateStarted().before(p1.getDateFinished()));
+    assertFalse(p4.getDateStarted().before(p2.getDateFinished()));
+    assertTrue(execution.getCriticalPathMs() >= 600);
+    assertTrue(execution.getCriticalPathMs() < execution.getTotalParagraphMs());
+    assertTrue(execution.getElapsedMs() < execution.getTotalParagraphMs());
+
+    notebook.removeNote(note.getId(), anonymous);
+  }
+
+  @Test
+  public void testRunAllSkipsDependentsOfFailedParagraph() throws InterruptedException,
+      IOException {
+    Note note = notebook.createNote(anonymous);
+    interpreterSettingManager.setInterpreters("user", note.getId(),
+        interpreterSettingManager.getDefaultInterpreterSettingList());
+
+    Paragraph p1 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p1.setText("%invalid z.put(\"table\", df)");
+    Paragraph p2 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p2.setText("%mock1 z.get(\"table\")");
+    Paragraph p3 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p3.setText("%mock2 sleep 10");
+
+    NoteExecution execution = note.runAll();
+    long timeout = System.currentTimeMillis() + 30 * 1000;
+    while (!execution.isDone() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(execution.getSubmitError() instanceof InterpreterException);
+    assertEquals(Status.ERROR, p1.getStatus());
+    assertEquals(Sets.newHashSet(p2.getId()), execution.getSkipped());
+    assertEquals(Status.ABORT, p2.getStatus());
+    assertEquals("skipped: dependency " + p1.getId() + " failed",
+        p2.getResult().message().get(0).getData());
+    assertEquals(Status.FINISHED, p3.getStatus());
+
+    notebook.removeNote(note.getId(), anonymous);
+  }
+
+  @Test
+  public void testAbortWaitingParagraphSkipsDependents() throws InterruptedException,
+      IOException {
+    Note note = notebook.createNote(anonymous);
+    interpreterSettingManager.setInterpreters("user", note.getId(),
+        interpreterSettingManager.getDefaultInterpreterSettingList());
+
+    Paragraph p1 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p1.setText("%mock1 sleep 1000 z.put(\"table\", df)");
+    Paragraph p2 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p2.setText("%mock2 z.get(\"table\")");
+    Paragraph p3 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p3.setText("%mock2 p3");
+    Map<String, Object> config = new HashMap<>();
+    config.put(NoteExecution.DEPENDS_ON, Arrays.asList(p2.getId()));
+    p3.setConfig(config);
+
+    NoteExecution execution = note.runAll();
+    // waiting for p1, not submitted yet
+    assertEquals(Status.PENDING, p2.getStatus());
+    assertEquals(Status.PENDING, p3.getStatus());
+    p2.abort();
+    assertEquals(Status.ABORT, p2.getStatus());
+
+    long timeout = System.currentTimeMillis() + 30 * 1000;
+    while (!execution.isDone() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertTrue(execution.isDone());
+    assertEquals(Status.FINISHED, p1.getStatus());
+    assertEquals(Status.ABORT, p2.getStatus());
+    assertEquals(Sets.newHashSet(p3.getId()), execution.getSkipped());
+    assertEquals(Status.ABORT, p3.getStatus());
+    assertEquals("skipped: dependency " + p2.getId() + " failed",
+        p3.getResult().message().get(0).getData());
+
+    notebook.removeNote(note.getId(), anonymous);
+  }
+
+  @Test
+  public void testRunAllTwiceWithTrailingBlankParagraph() throws InterruptedException,
+      IOException {
+    Note note = notebook.createNote(anonymous);
+    interpreterSettingManager.setInterpreters("user", note.getId(),
+        interpreterSettingManager.getDefaultInterpreterSettingList());
+
+    Paragraph p1 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p1.setText("%mock1 p1");
+    Paragraph p2 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p2.setText("");
+
+    // the second time, the blank paragraph is already FINISHED and its status doesn't change
+    for (int i = 0; i < 2; i++) {
+      NoteExecution execution = note.runAll();
+      long timeout = System.currentTimeMillis() + 30 * 1000;
+      while (!execution.isDone() && System.currentTimeMillis() < timeout) {
+        Thread.sleep(10);
+      }
+      assertTrue(execution.isDone());
+      assertEquals(Status.FINISHED, p1.getStatus());
+      assertEquals(Status.FINISHED, p2.getStatus());
+    }
+
+    notebook.removeNote(note.getId(), anonymous);
+  }
+
   private String getResultString(InterpreterResult result) {
     return result == null ? StringUtils.EMPTY : result.toString();
   }
@@ -609,6 +818,91 @@ public class NotebookTest implements JobListenerFactory{
     notebook.removeNote(cloneNote.getId(), anonymous);
   }
 
+  @Test
+  public void testExportAndCloneNoteWithLargeResult() throws IOException {
+    Note note = notebook.createNote(anonymous);
+    final Paragraph p = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p.setText("hello world");
+    // 20 MB result
+    String data = StringUtils.repeat("0123456789abcdef", 20 * 1024 * 1024 / 16);
+    p.setResult(new InterpreterResult(InterpreterResult.Code.SUCCESS,
+        InterpreterResult.Type.TEXT, data));
+
+    // count the exported characters instead of keeping them
+    final AtomicLong exported = new AtomicLong();
+    Writer counter = new Writer() {
+      @Override
+      public void write(char[] cbuf, int off, int len) {
+        exported.addAndGet(len);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    long start = System.currentTimeMillis();
+    notebook.exportNote(note.getId(), counter, true);
+    logger.info("exported {} characters in {} ms", exported.get(),
+        System.currentTimeMillis() - start);
+    assertTrue(exported.get() > data.length());
+
+    StringWriter withoutResults = new StringWriter();
+    notebook.exportNote(note.getId(), withoutResults, false);
+    assertTrue(withoutResults.toString().length() < 10000);
+    Note importedNote = notebook.importNote(new StringReader(withoutResults.toString()), "Title",
+        anonymous);
+    assertEquals(p.getText(), importedNote.getParagraphs().get(0).getText());
+    assertNull(importedNote.getParagraphs().get(0).getReturn());
+
+    start = System.currentTimeMillis();
+    Note cloneNote = notebook.cloneNote(note.getId(), "clone note", anonymous);
+    logger.info("cloned note in {} ms", System.currentTimeMillis() - start);
+    // the result data is shared, not copied
+    assertSame(p.getResult().message().get(0),
+        cloneNote.getParagraphs().get(0).getResult().message().get(0));
+
+    notebook.removeNote(note.getId(), anonymous);
+    notebook.removeNote(importedNote.getId(), anonymous);
+    notebook.removeNote(cloneNote.getId(), anonymous);
+  }
+
+  @Test
+  public void testExportNoteWhileParagraphsChange() throws IOException {
+    final Note note = notebook.createNote(anonymous);
+    final Paragraph p1 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p1.setText("p1");
+    Paragraph p2 = note.addParagraph(AuthenticationInfo.ANONYMOUS);
+    p2.setText("p2");
+
+    // paragraphs change once the export started writing
+    StringWriter exported = new StringWriter() {
+      private boolean changed;
+
+      @Override
+      public void write(String str) {
+        if (!changed) {
+          changed = true;
+          note.removeParagraph(anonymous.getUser(), p1.getId());
+          note.addParagraph(AuthenticationInfo.ANONYMOUS).setText("p3");
+        }
+        super.write(str);
+      }
+    };
+    notebook.exportNote(note.getId(), exported, true);
+
+    Note importedNote = notebook.importNote(exported.toString(), "Title", anonymous);
+    assertEquals(2, importedNote.getParagraphs().size());
+    assertEquals("p1", importedNote.getParagraphs().get(0).getText());
+    assertEquals("p2", importedNote.getParagraphs().get(1).getText());
+
+    notebook.removeNote(note.getId(), anonymous);
+    notebook.removeNote(importedNote.getId(), anonymous);
+  }
+
   @Test
   public void testResourceRemovealOnParagraphNoteRemove() throws IOException {
     Note note = notebook.createNote(anonymous);
@@ -1224,6 +1518,38 @@ public class NotebookTest implements JobListenerFactory{
     ZeppelinConfiguration.create();
   }
 
+  @Test
+  public void testGetAllNotesAfterRenameAndPermissionChange() throws IOException {
+    HashSet<String> user1 = Sets.newHashSet("user1");
+    HashSet<String> user2 = Sets.newHashSet("user2");
+    Note note1 = notebook.createNote(new AuthenticationInfo("user1"));
+    note1.setName("b");
+    Note note2 = notebook.createNote(new AuthenticationInfo("user1"));
+    note2.setName("c");
+
+    List<Note> notes2 = notebook.getAllNotes(user2);
+    assertEquals(2, notes2.size());
+    assertEquals(note1.getId(), notes2.get(0).getId());
+
+    // renamed note moves in the list
+    note2.setName("a");
+    notes2 = notebook.getAllNotes(user2);
+    assertEquals(note2.getId(), notes2.get(0).getId());
+    assertEquals(note1.getId(), notes2.get(1).getId());
+
+    // note becomes private to user1
+    notebookAuthorization.setReaders(note2.getId(), Sets.newHashSet("user1"));
+    notebookAuthorization.setWriters(note2.getId(), Sets.newHashSet("user1"));
+    notes2 = notebook.getAllNotes(user2);
+    assertEquals(1, notes2.size());
+    assertEquals(note1.getId(), notes2.get(0).getId());
+    assertEquals(2, notebook.getAllNotes(user1).size());
+
+    notebook.removeNote(note1.getId(), anonymous);
+    notebook.removeNote(note2.getId(), anonymous);
+    assertEquals(0, notebook.getAllNotes(user1).size());
+  }
+
   private void delete(File file){
     if(file.isFile()) file.delete();
     else if(file.isDirectory()){
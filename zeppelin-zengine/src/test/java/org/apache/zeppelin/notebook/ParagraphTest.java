@@ -51,6 +51,7 @@ import org.apache.zeppelin.user.Credentials;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -238,4 +239,37 @@ public class ParagraphTest {
         .fromJson("{\"dateUpdated\":\"" + dateString + "\"}", Paragraph.class);
     assertEquals(date, paragraph.dateUpdated);
   }
+
+  @Test
+  public void userParagraphSharesOriginUntilModified() {
+    Paragraph paragraph = new Paragraph();
+    paragraph.setText("%md ${name=zeppelin}");
+    paragraph.setTitle("title");
+    paragraph.getConfig().put("colWidth", 6);
+    paragraph.settings.getParams().put("name", "zeppelin");
+    InterpreterResult result = new InterpreterResult(Code.SUCCESS, "zeppelin");
+    paragraph.setResult(result);
+
+    Paragraph userParagraph = paragraph.cloneParagraphForUser("user1");
+    assertEquals(paragraph.getId(), userParagraph.getId());
+    assertSame(paragraph.getText(), userParagraph.getText());
+    assertSame(result, userParagraph.getReturn());
+    assertSame(paragraph.settings.getForms(), userParagraph.settings.getForms());
+
+    // config and params are copied, they are modified in place
+    userParagraph.getConfig().put("colWidth", 12);
+    assertEquals(6, paragraph.getConfig().get("colWidth"));
+    assertEquals(12, userParagraph.getConfig().get("colWidth"));
+
+    userParagraph.settings.getParams().put("name", "user1");
+    assertEquals("zeppelin", paragraph.settings.getParams().get("name"));
+    Paragraph userParagraph2 = paragraph.cloneParagraphForUser("user2");
+    userParagraph2.settings.getParams().put("name", "user2");
+    assertEquals("user1", userParagraph.settings.getParams().get("name"));
+
+    // user specific results don't change the origin
+    userParagraph.setResult(new InterpreterResult(Code.SUCCESS, "user1"));
+    assertEquals("zeppelin", paragraph.settings.getParams().get("name"));
+    assertSame(result, paragraph.getReturn());
+  }
 }
@@ -241,6 +241,66 @@ public class LuceneSearchTest {
     assertThat(resultForQuery("NotebookN").size()).isEqualTo(1);
   }
 
+  @Test public void unchangedDocsAreNotUpdatedOnNoteSave() throws IOException {
+    //given
+    Note note1 = newNoteWithParagraphs("Notebook1", "test", "not test", "not test at all");
+    noteSearchService.addIndexDocs(Arrays.asList(note1));
+
+    //when
+    note1.getLastParagraph().setText("test indeed");
+    note1.persist(anonymous);
+
+    //then: note name and first two paragraphs are not updated
+    assertThat(((LuceneSearch) noteSearchService).getSkippedDocs()).isEqualTo(3);
+    assertThat(resultForQuery("all")).isEmpty();
+    assertThat(resultForQuery("indeed").size()).isEqualTo(1);
+
+    //when
+    note1.setName("NotebookN");
+    note1.persist(anonymous);
+
+    //then: note name changes all the documents
+    assertThat(((LuceneSearch) noteSearchService).getSkippedDocs()).isEqualTo(3);
+    assertThat(resultForQuery("NotebookN").size()).isEqualTo(1);
+  }
+
+  @Test public void indexIsUpdatedInBackground() throws IOException, InterruptedException {
+    //given
+    noteSearchService.close();
+    noteSearchService = new LuceneSearch(1000);
+    Note note1 = newNoteWithParagraphs("Notebook1", "test", "not test at all");
+    Note note2 = newNoteWithParagraph("Notebook2", "test");
+    noteSearchService.addIndexDocs(Arrays.asList(note1, note2));
+
+    //when
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 10; i++) {
+      note1.getLastParagraph().setText("test indeed " + i);
+      note1.persist(anonymous);
+    }
+    note1.removeParagraph("anonymous", note1.getParagraphs().get(0).getId());
+    note1.persist(anonymous);
+
+    //then: index is updated within the delay
+    assertThat(resultForQuery("all").size()).isEqualTo(1);
+    while (!resultForQuery("all").isEmpty() && System.currentTimeMillis() - start < 5000) {
+      Thread.sleep(10);
+    }
+    assertThat(resultForQuery("all")).isEmpty();
+    assertThat(resultForQuery("indeed").size()).isEqualTo(1);
+    assertThat(resultForQuery("test").size()).isEqualTo(2);
+
+    //when: note is deleted before its update is indexed
+    note2.getLastParagraph().setText("test again");
+    note2.persist(anonymous);
+    noteSearchService.deleteIndexDocs(note2);
+    ((LuceneSearch) noteSearchService).indexPendingNotes();
+
+    //then
+    assertThat(resultForQuery("again")).isEmpty();
+    assertThat(resultForQuery("Notebook2")).isEmpty();
+  }
+
   private List<Map<String, String>> resultForQuery(String q) {
     return noteSearchService.query(q);
   }